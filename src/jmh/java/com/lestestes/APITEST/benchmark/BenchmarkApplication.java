@@ -0,0 +1,58 @@
+package com.lestestes.APITEST.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lestestes.APITEST.ApitestApplication;
+import com.lestestes.APITEST.dataset.DatasetGenerator;
+import com.lestestes.APITEST.dataset.DatasetProperties;
+import com.lestestes.APITEST.dataset.DatasetSummary;
+
+/**
+ * Démarre l'application sans serveur web pour les benchmarks (base H2 en mémoire propre à chaque fork)
+ * et la complète avec un jeu de données synthétique de taille donnée (DatasetGenerator).
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    // Les réglages sont passés en arguments : ils priment ainsi sur application.properties
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ApitestApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        "--logging.level.org.springdoc=WARN",
+                        "--logging.level.com.lestestes.APITEST=WARN");
+    }
+
+    // Démarrer l'application complète (serveur web sur un port libre) avec les réglages des profils donnés,
+    // sans les surcharger : seules la base en mémoire, l'absence de redémarrage à chaud et les arguments
+    // supplémentaires sont imposés
+    static ConfigurableApplicationContext startServer(String profiles, String... args) {
+        String[] arguments = new String[args.length + 3];
+        arguments[0] = "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+        arguments[1] = "--server.port=0";
+        arguments[2] = "--spring.devtools.restart.enabled=false";
+        System.arraycopy(args, 0, arguments, 3, args.length);
+        return new SpringApplicationBuilder(ApitestApplication.class)
+                .profiles(profiles.split(","))
+                .logStartupInfo(false)
+                .run(arguments);
+    }
+
+    // Ajouter un corpus synthétique de bookCount livres (membres et historique d'emprunts proportionnés) ;
+    // l'index de recherche est reconstruit par le générateur
+    static DatasetSummary seedDataset(ConfigurableApplicationContext context, int bookCount) {
+        DatasetProperties dataset = new DatasetProperties(42, bookCount, Math.max(10, bookCount / 10), bookCount * 5L);
+        return context.getBean(DatasetGenerator.class).generate(dataset);
+    }
+}
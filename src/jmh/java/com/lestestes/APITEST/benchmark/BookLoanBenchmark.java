@@ -0,0 +1,69 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.model.Member;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
+import com.lestestes.APITEST.service.BookLoanService;
+
+/**
+ * Benchmark d'un cycle emprunt + retour (deux transactions) selon la taille du catalogue.
+ * Chaque invocation emprunte le livre disponible suivant puis le rend, l'état de la base reste donc stable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookLoanBenchmark {
+
+    @Param({ "100", "10000" })
+    private int bookCount;
+
+    private ConfigurableApplicationContext context;
+    private BookLoanService loanService;
+    private List<Book> books;
+    private Member member;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seedDataset(context, bookCount);
+        books = context.getBean(BookRepository.class).findByAvailable(true);
+        loanService = context.getBean(BookLoanService.class);
+        member = context.getBean(MemberRepository.class).findAll().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookLoan borrowAndReturn() {
+        Book book = books.get(next++ % books.size());
+        BookLoan loan = loanService.borrowBook(book, member, null);
+        return loanService.returnBook(loan.getId());
+    }
+}
@@ -0,0 +1,84 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lestestes.APITEST.event.LoanChangedEvent;
+import com.lestestes.APITEST.loan.OverdueLoanIndex;
+import com.lestestes.APITEST.model.BookLoan;
+
+/**
+ * Benchmark de BookLoan.isOverdue sur un lot d'emprunts (un tiers rendus, un tiers en retard, un tiers en cours),
+ * comparé au comptage par l'index des retards qui ne parcourt que les dates de retour dépassées.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookLoanOverdueBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int loanCount;
+
+    private BookLoan[] loans;
+    private OverdueLoanIndex overdueLoanIndex;
+    private LocalDate today;
+
+    @Setup
+    public void setup() {
+        today = LocalDate.now();
+        loans = new BookLoan[loanCount];
+        overdueLoanIndex = new OverdueLoanIndex(null, null);
+        for (int i = 0; i < loanCount; i++) {
+            BookLoan loan = new BookLoan();
+            loan.setBorrowDate(today.minusDays(20));
+            loan.setDueDate(i % 3 == 1 ? today.minusDays(6) : today.plusDays(i % 14));
+            loan.setReturned(i % 3 == 0);
+            loans[i] = loan;
+            if (!loan.isReturned()) {
+                overdueLoanIndex.onLoanChanged(LoanChangedEvent.saved((long) i, loan.getDueDate()));
+            }
+        }
+    }
+
+    @Benchmark
+    public int countOverdue() {
+        int overdue = 0;
+        for (BookLoan loan : loans) {
+            if (loan.isOverdue()) {
+                overdue++;
+            }
+        }
+        return overdue;
+    }
+
+    @Benchmark
+    public int countOverdueWithReferenceDate() {
+        int overdue = 0;
+        for (BookLoan loan : loans) {
+            if (loan.isOverdueOn(today)) {
+                overdue++;
+            }
+        }
+        return overdue;
+    }
+
+    @Benchmark
+    public int countOverdueIndexed() {
+        return overdueLoanIndex.countOverdue(today);
+    }
+}
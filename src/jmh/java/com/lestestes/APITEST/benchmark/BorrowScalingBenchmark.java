@@ -0,0 +1,93 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.lestestes.APITEST.dataset.DatasetGenerator;
+import com.lestestes.APITEST.dataset.DatasetProperties;
+import com.lestestes.APITEST.dataset.DatasetSummary;
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.model.Member;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
+import com.lestestes.APITEST.service.BookLoanService;
+
+/**
+ * Benchmark d'un cycle emprunt + retour selon la taille de l'historique d'emprunts, avec et sans les index
+ * composites de book_loans : avec index, la latence doit rester stable quand la table grossit.
+ * Le membre emprunteur est le plus actif du jeu de données (distribution de Zipf), le pire cas pour
+ * le comptage de ses emprunts en cours. Pour des dizaines de millions d'emprunts :
+ * -Djmh.args="BorrowScaling -p loanCount=20000000 -jvmArgs -Xmx8g".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BorrowScalingBenchmark {
+
+    private static final String[] INDEXES = {
+        "idx_book_loans_member_returned", "idx_book_loans_book_returned",
+        "idx_book_loans_returned_due_date", "idx_book_loans_borrow_date"
+    };
+
+    @Param({ "100000", "1000000" })
+    private long loanCount;
+
+    @Param({ "true", "false" })
+    private boolean indexes;
+
+    private ConfigurableApplicationContext context;
+    private BookLoanService loanService;
+    private List<Book> books;
+    private Member member;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        DatasetProperties dataset = new DatasetProperties(42, 20_000, 2_000, loanCount);
+        DatasetSummary summary = context.getBean(DatasetGenerator.class).generate(dataset);
+        if (!indexes) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("DROP INDEX \"" + index + "\"");
+            }
+        }
+        books = context.getBean(BookRepository.class).findByAvailable(true);
+        loanService = context.getBean(BookLoanService.class);
+        // Le premier membre généré est le plus actif ; ses emprunts en cours sont rendus pour qu'il puisse emprunter
+        member = context.getBean(MemberRepository.class).findById(summary.memberId(0)).orElseThrow();
+        loanService.getActiveLoansForMember(member).forEach(loan -> loanService.returnBook(loan.getId()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookLoan borrowAndReturn() {
+        Book book = books.get(next++ % books.size());
+        BookLoan loan = loanService.borrowBook(book, member, null);
+        return loanService.returnBook(loan.getId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lestestes.APITEST.dataset.DatasetGenerator;
+import com.lestestes.APITEST.dataset.DatasetProperties;
+import com.lestestes.APITEST.loan.CoBorrowIndex;
+import com.lestestes.APITEST.loan.CoBorrowIndex.CoBorrowCount;
+
+/**
+ * Benchmark de l'index des co-emprunts : reconstruction complète depuis book_loans (lecture et calcul
+ * parallèle) et recommandations d'un livre tiré parmi les plus empruntés.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Benchmark)
+public class CoBorrowRebuildBenchmark {
+
+    @Param({ "1000000" })
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private CoBorrowIndex coBorrowIndex;
+    private long books;
+    private long bookId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        books = loans / 10;
+        context.getBean(DatasetGenerator.class).generate(new DatasetProperties(42, (int) books, loans / 20, loans));
+        coBorrowIndex = context.getBean(CoBorrowIndex.class);
+    }
+
+    // Un livre parmi les cent premiers (les plus empruntés avec la loi de Zipf du jeu de données)
+    @Setup(Level.Invocation)
+    public void nextBook() {
+        bookId = bookId % 100 + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 3)
+    @Warmup(iterations = 1)
+    public boolean rebuild() {
+        coBorrowIndex.rebuild();
+        return coBorrowIndex.isReady();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<CoBorrowCount> recommend() {
+        return coBorrowIndex.recommend(bookId, 10);
+    }
+}
@@ -0,0 +1,106 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.model.Member;
+
+/**
+ * Benchmark de la sérialisation JSON des livres et des emprunts (ObjectMapper configuré comme celui de Spring).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+    private List<BookLoan> loans;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Roman");
+        category.setDescription("Oeuvres de fiction narrative");
+
+        Author author = new Author();
+        author.setId(1L);
+        author.setFirstName("Victor");
+        author.setLastName("Hugo");
+        author.setBirthDate(LocalDate.of(1802, 2, 26));
+        author.setNationality("Française");
+
+        Member member = new Member();
+        member.setId(1L);
+        member.setFirstName("Jean");
+        member.setLastName("Dupont");
+        member.setEmail("jean.dupont@email.com");
+        member.setAddress("15 rue des Lilas, 75020 Paris");
+
+        books = new ArrayList<>(size);
+        loans = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Book book = new Book();
+            book.setId((long) i);
+            book.setTitle("Les Misérables, tome " + i);
+            book.setIsbn("BENCH-" + i);
+            book.setDescription("Un récit captivant qui met en lumière les injustices sociales dans la France du 19e siècle.");
+            book.setPageCount(1230);
+            book.setPublishDate(LocalDate.of(1862, 4, 3));
+            book.setLanguage("Français");
+            book.setPublisher("A. Lacroix, Verboeckhoven & Cie");
+            book.setCategory(category);
+            book.setAuthors(Set.of(author));
+            books.add(book);
+
+            BookLoan loan = new BookLoan();
+            loan.setId((long) i);
+            loan.setBook(book);
+            loan.setMember(member);
+            loan.setBorrowDate(LocalDate.of(2024, 1, 10));
+            loan.setDueDate(LocalDate.of(2024, 1, 24));
+            loans.add(loan);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeLoans() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loans);
+    }
+}
@@ -0,0 +1,98 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.lestestes.APITEST.dataset.DatasetGenerator;
+import com.lestestes.APITEST.dataset.DatasetProperties;
+import com.lestestes.APITEST.dto.LoanPeriodCount;
+import com.lestestes.APITEST.dto.LoanStatistics;
+import com.lestestes.APITEST.loan.LoanDailyRollup;
+import com.lestestes.APITEST.service.BookLoanService;
+
+/**
+ * Benchmark des statistiques d'emprunt sur trois ans d'historique : compteurs par jour lus dans l'agrégat
+ * quotidien, comparés au même GROUP BY sur book_loans, et réponse complète du service (classements compris).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class LoanStatisticsBenchmark {
+
+    @Param({ "200000", "1000000" })
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private BookLoanService bookLoanService;
+    private LoanDailyRollup loanDailyRollup;
+    private JdbcTemplate jdbcTemplate;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int shift;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        endDate = LocalDate.now();
+        startDate = endDate.minusYears(3);
+        DatasetProperties dataset = new DatasetProperties(42, loans / 10, loans / 20, loans);
+        dataset.setReferenceDate(endDate);
+        context.getBean(DatasetGenerator.class).generate(dataset);
+        bookLoanService = context.getBean(BookLoanService.class);
+        loanDailyRollup = context.getBean(LoanDailyRollup.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    // Période décalée d'un jour à chaque appel : H2 ne réutilise pas le résultat de la requête précédente
+    @Setup(Level.Invocation)
+    public void nextRange() {
+        shift = (shift + 1) % 30;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<LoanPeriodCount> dailyCountsFromRollup() {
+        return loanDailyRollup.countByDay(startDate.minusDays(shift), endDate);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> dailyCountsFromLoans() {
+        return jdbcTemplate.queryForList("SELECT \"borrowDate\", COUNT(*), "
+                + "SUM(CASE WHEN \"returned\" THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN \"returned\" AND \"returnDate\" > \"dueDate\" THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN \"returned\" THEN DATEDIFF('DAY', \"borrowDate\", \"returnDate\") ELSE 0 END) "
+                + "FROM \"book_loans\" WHERE \"borrowDate\" BETWEEN ? AND ? GROUP BY \"borrowDate\"",
+                Date.valueOf(startDate.minusDays(shift)), Date.valueOf(endDate));
+    }
+
+    @Benchmark
+    public LoanStatistics fullStatistics() {
+        return bookLoanService.getLoanStatistics(startDate.minusDays(shift), endDate, "month", 10);
+    }
+}
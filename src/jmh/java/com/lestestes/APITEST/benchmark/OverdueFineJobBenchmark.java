@@ -0,0 +1,79 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.lestestes.APITEST.dataset.DatasetGenerator;
+import com.lestestes.APITEST.dataset.DatasetProperties;
+import com.lestestes.APITEST.loan.FineJobStatus;
+import com.lestestes.APITEST.loan.OverdueFineJob;
+
+/**
+ * Benchmark du calcul complet des amendes (une exécution par mesure, tables d'amendes et de relances vidées
+ * avant chacune) selon le nombre d'emprunts en cours, dont une part en retard. Le temps par emprunt donne
+ * l'ordre de grandeur pour 10 millions d'emprunts en cours, par exemple :
+ * -Djmh.args="OverdueFineJob -p openLoans=1000000 -jvmArgs -Xmx4g".
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class OverdueFineJobBenchmark {
+
+    @Param({ "100000", "500000" })
+    private int openLoans;
+
+    private ConfigurableApplicationContext context;
+    private OverdueFineJob job;
+    private JdbcTemplate jdbcTemplate;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        today = LocalDate.now();
+        // Tous les emprunts sont en cours (un par livre) et 30 % d'entre eux en retard
+        DatasetProperties dataset = new DatasetProperties(42, openLoans, Math.max(10, openLoans / 4), openLoans);
+        dataset.setActiveLoanRatio(1.0);
+        dataset.setOverdueRatio(0.3);
+        dataset.setReferenceDate(today);
+        context.getBean(DatasetGenerator.class).generate(dataset);
+        job = context.getBean(OverdueFineJob.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        jdbcTemplate.execute("DELETE FROM \"loan_fines\"");
+        jdbcTemplate.execute("DELETE FROM \"loan_notifications\"");
+        jdbcTemplate.execute("DELETE FROM \"batch_checkpoints\"");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FineJobStatus computeFines() {
+        return job.run(today);
+    }
+}
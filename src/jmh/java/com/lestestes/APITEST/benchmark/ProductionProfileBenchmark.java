@@ -0,0 +1,83 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Benchmark de débit de GET /api/books par 8 clients simultanés, application démarrée avec le profil par défaut
+ * (SQL et traces web en DEBUG sur la console, open-in-view) ou avec le profil "prod".
+ * La console de l'application est redirigée vers target/jmh-console-{profil}.log : l'écriture reste réelle
+ * (comme une sortie standard redirigée en production) sans noyer la sortie de JMH.
+ * -Djmh.args="ProductionProfile -p bookCount=20000" pour un catalogue plus grand.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductionProfileBenchmark {
+
+    @Param({ "default", "prod" })
+    private String profile;
+
+    @Param({ "2000" })
+    private int bookCount;
+
+    private PrintStream console;
+    private PrintStream originalOut;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        originalOut = System.out;
+        console = new PrintStream(new FileOutputStream("target/jmh-console-" + profile + ".log"), false);
+        System.setOut(console);
+        context = BenchmarkApplication.startServer(profile);
+        BenchmarkApplication.seedDataset(context, bookCount);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books?limit=50")).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.setOut(originalOut);
+        console.close();
+    }
+
+    @Benchmark
+    public int listBooks() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/books : " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -0,0 +1,98 @@
+package com.lestestes.APITEST.benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lestestes.APITEST.dataset.DatasetSummary;
+
+/**
+ * Benchmark de débit à 5 000 connexions simultanées : chaque invocation ouvre 5 000 requêtes concurrentes
+ * (emprunts en cours d'un membre : lecture du membre puis de ses emprunts, deux allers-retours JDBC)
+ * et attend toutes les réponses. Comparaison du pool de threads de Tomcat (profil prod) et des threads
+ * virtuels (prod,virtual) ; le score est la durée d'une vague en millisecondes. Une vague dure plusieurs
+ * secondes : chaque itération en mesure une seule (SingleShotTime), avec assez d'itérations et de forks
+ * pour que l'intervalle de confiance soit exploitable. Nécessite un JDK 21 pour le mode virtuel :
+ * JAVA_HOME=<jdk21> mvn -Pjmh test-compile exec:exec -Djmh.args="VirtualThread".
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(3)
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    static final int CONNECTIONS = 5_000;
+
+    @Param({ "prod", "prod,virtual" })
+    private String profiles;
+
+    private PrintStream console;
+    private PrintStream originalOut;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        originalOut = System.out;
+        console = new PrintStream(new FileOutputStream("target/jmh-console-" + profiles.replace(',', '-') + ".log"), false);
+        System.setOut(console);
+        // File d'attente TCP assez longue pour que les 5 000 connexions soient acceptées dans les deux modes
+        context = BenchmarkApplication.startServer(profiles, "--server.tomcat.accept-count=" + CONNECTIONS,
+                "--server.tomcat.max-connections=" + 2 * CONNECTIONS);
+        DatasetSummary summary = BenchmarkApplication.seedDataset(context, 2_000);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(30)).build();
+        requests = new HttpRequest[CONNECTIONS];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            long memberId = summary.memberId(i % summary.memberCount());
+            requests[i] = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/loans/member/" + memberId + "/active"))
+                    .timeout(Duration.ofSeconds(60)).GET().build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.setOut(originalOut);
+        console.close();
+    }
+
+    @Benchmark
+    public int concurrentRequests() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONNECTIONS];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            responses[i] = client.sendAsync(requests[i], HttpResponse.BodyHandlers.discarding()).thenAccept(response -> {
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Réponse " + response.statusCode());
+                }
+            });
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
@@ -0,0 +1,126 @@
+package com.lestestes.APITEST.catalog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.exception.ErrorDetails;
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.search.BookSearchIndex;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes du catalogue public en lecture seule : mêmes chemins que les contrôleurs MVC, réponses en flux.
+ * Par défaut chaque élément est écrit dès qu'il est lu (application/x-ndjson, une ligne JSON par élément) ;
+ * un client qui n'accepte que application/json reçoit un tableau JSON.
+ * Les listes acceptent le curseur opaque des pages MVC (after) et une taille facultative (limit) :
+ * sans limit, tout le catalogue est transmis au rythme du client.
+ */
+class ReactiveCatalogHandler {
+
+    private final ReactiveCatalogRepository repository;
+    private final BookSearchIndex bookSearchIndex;
+
+    ReactiveCatalogHandler(ReactiveCatalogRepository repository, BookSearchIndex bookSearchIndex) {
+        this.repository = repository;
+        this.bookSearchIndex = bookSearchIndex;
+    }
+
+    // Table de routage (les paramètres invalides, lus avant la réponse, donnent un 400 au format de GlobalExceptionHandler)
+    RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/books/search", this::searchBooks)
+                .GET("/api/books", this::getBooks)
+                .GET("/api/authors", this::getAuthors)
+                .GET("/api/categories", this::getCategories)
+                .filter((request, next) -> Mono.defer(() -> next.handle(request))
+                        .onErrorResume(IllegalArgumentException.class, exception -> badRequest(exception, request)))
+                .build();
+    }
+
+    // Résumés des livres par ID croissant
+    Mono<ServerResponse> getBooks(ServerRequest request) {
+        return stream(request, repository.findBooks(after(request), limit(request)), BookSummary.class);
+    }
+
+    // Recherche plein texte classée par pertinence (index en mémoire ; recherche sur le titre tant qu'il se construit)
+    Mono<ServerResponse> searchBooks(ServerRequest request) {
+        String title = request.queryParam("title")
+                .orElseThrow(() -> new IllegalArgumentException("Le paramètre title est obligatoire"));
+        int maxResults = CursorPage.clampLimit(limit(request));
+        Flux<BookSummary> books = Flux.defer(() -> {
+            if (!bookSearchIndex.isReady()) {
+                return repository.findBooksByTitleContaining(title, maxResults);
+            }
+            List<Long> ids = bookSearchIndex.search(title, maxResults);
+            if (ids.isEmpty()) {
+                return Flux.empty();
+            }
+            return repository.findBooksByIdIn(ids)
+                    .collectMap(BookSummary::getId)
+                    .flatMapIterable(byId -> ids.stream().map(byId::get).filter(Objects::nonNull).toList());
+        });
+        return stream(request, books, BookSummary.class);
+    }
+
+    // Auteurs par ID croissant
+    Mono<ServerResponse> getAuthors(ServerRequest request) {
+        return stream(request, repository.findAuthors(after(request), limit(request)), Author.class);
+    }
+
+    // Toutes les catégories
+    Mono<ServerResponse> getCategories(ServerRequest request) {
+        return stream(request, repository.findCategories(), Category.class);
+    }
+
+    // Réponse en flux NDJSON, ou tableau JSON si le client n'accepte que application/json
+    private static <T> Mono<ServerResponse> stream(ServerRequest request, Flux<T> body, Class<T> elementType) {
+        List<MediaType> accepted = request.headers().accept();
+        boolean jsonArray = accepted.stream().anyMatch(MediaType.APPLICATION_JSON::equalsTypeAndSubtype)
+                && accepted.stream().noneMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        return ServerResponse.ok()
+                .contentType(jsonArray ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_NDJSON)
+                .body(body, elementType);
+    }
+
+    // Identifiant de départ lu dans le curseur opaque
+    private static long after(ServerRequest request) {
+        return CursorPage.decodeCursor(request.queryParam("after").orElse(null));
+    }
+
+    // Taille demandée, null si absente
+    private static Integer limit(ServerRequest request) {
+        String limit = request.queryParam("limit").orElse(null);
+        if (limit == null) {
+            return null;
+        }
+        try {
+            int value = Integer.parseInt(limit);
+            if (value < 1) {
+                throw new IllegalArgumentException("La taille de page doit etre positive");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur invalide pour limit : " + limit);
+        }
+    }
+
+    // Erreur 400 au format ErrorDetails
+    private static Mono<ServerResponse> badRequest(Throwable exception, ServerRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), exception.getMessage(),
+                "uri=" + request.path(), "ILLEGAL_ARGUMENT");
+        return ServerResponse.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).bodyValue(errorDetails);
+    }
+}
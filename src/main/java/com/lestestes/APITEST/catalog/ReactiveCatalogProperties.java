@@ -0,0 +1,35 @@
+package com.lestestes.APITEST.catalog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Paramètres du catalogue public réactif (préfixe "catalog.reactive").
+ * Le serveur Netty écoute sur son propre port, à côté de Tomcat, et lit la même base via R2DBC.
+ */
+@Component
+@ConfigurationProperties(prefix = "catalog.reactive")
+@Data
+@NoArgsConstructor
+public class ReactiveCatalogProperties {
+
+    // Démarrer le serveur du catalogue réactif
+    private boolean enabled = false;
+
+    // Port du serveur Netty (0 : port libre choisi au démarrage)
+    private int port = 8091;
+
+    // Threads de la boucle d'événements Netty (0 : un par cœur)
+    private int eventLoopThreads = 0;
+
+    // Base lue par R2DBC : la même que la DataSource JDBC
+    private String r2dbcUrl = "r2dbc:h2:mem:///bibliodb";
+    private String username = "sa";
+    private String password = "password";
+
+    // Connexions R2DBC ouvertes au plus (partagées par toutes les requêtes en cours)
+    private int maxConnections = 10;
+}
@@ -0,0 +1,138 @@
+package com.lestestes.APITEST.catalog;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.model.Category;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Lectures du catalogue en R2DBC, sur le schéma des entités Book, Author et Category.
+ * Les lignes sont émises au rythme de la demande de l'abonné : un client lent ralentit la lecture
+ * de son résultat sans retenir de thread.
+ */
+class ReactiveCatalogRepository {
+
+    // Livre, catégorie et auteurs : une ligne par auteur, consécutives pour un même livre
+    private static final String BOOK_ROWS = "SELECT b.\"id\", b.\"title\", b.\"isbn\", b.\"available\", "
+            + "c.\"name\" AS \"categoryName\", a.\"firstName\", a.\"lastName\" "
+            + "FROM \"books\" b JOIN \"categories\" c ON c.\"id\" = b.\"category_id\" "
+            + "LEFT JOIN \"book_author\" ba ON ba.\"book_id\" = b.\"id\" "
+            + "LEFT JOIN \"authors\" a ON a.\"id\" = ba.\"author_id\" ";
+
+    private static final String BOOK_ROWS_ORDER = " ORDER BY b.\"id\", a.\"lastName\", a.\"firstName\"";
+
+    private static final String AUTHOR_COLUMNS = "SELECT \"id\", \"firstName\", \"lastName\", \"birthDate\", "
+            + "\"nationality\", \"biography\" FROM \"authors\" ";
+
+    private final DatabaseClient databaseClient;
+
+    ReactiveCatalogRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Résumés des livres d'identifiant supérieur à afterId, par ID croissant (tous si limit est null)
+    Flux<BookSummary> findBooks(long afterId, Integer limit) {
+        String where = limit == null
+                ? "WHERE b.\"id\" > :after"
+                : "WHERE b.\"id\" IN (SELECT \"id\" FROM \"books\" WHERE \"id\" > :after ORDER BY \"id\" LIMIT :limit)";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(BOOK_ROWS + where + BOOK_ROWS_ORDER)
+                .bind("after", afterId);
+        if (limit != null) {
+            spec = spec.bind("limit", limit);
+        }
+        return toSummaries(spec.map(BookRow::of).all());
+    }
+
+    // Résumés d'un lot de livres, par ID croissant
+    Flux<BookSummary> findBooksByIdIn(Collection<Long> ids) {
+        return toSummaries(databaseClient.sql(BOOK_ROWS + "WHERE b.\"id\" IN (:ids)" + BOOK_ROWS_ORDER)
+                .bind("ids", ids)
+                .map(BookRow::of)
+                .all());
+    }
+
+    // Résumés des livres dont le titre contient une chaîne (recherche de secours, sans index)
+    Flux<BookSummary> findBooksByTitleContaining(String title, int limit) {
+        String where = "WHERE b.\"id\" IN (SELECT \"id\" FROM \"books\" "
+                + "WHERE LOWER(\"title\") LIKE LOWER(CONCAT('%', :title, '%')) ORDER BY \"id\" LIMIT :limit)";
+        return toSummaries(databaseClient.sql(BOOK_ROWS + where + BOOK_ROWS_ORDER)
+                .bind("title", title)
+                .bind("limit", limit)
+                .map(BookRow::of)
+                .all());
+    }
+
+    // Auteurs d'identifiant supérieur à afterId, par ID croissant (tous si limit est null)
+    Flux<Author> findAuthors(long afterId, Integer limit) {
+        String sql = AUTHOR_COLUMNS + "WHERE \"id\" > :after ORDER BY \"id\"" + (limit == null ? "" : " LIMIT :limit");
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("after", afterId);
+        if (limit != null) {
+            spec = spec.bind("limit", limit);
+        }
+        return spec.map(ReactiveCatalogRepository::toAuthor).all();
+    }
+
+    // Toutes les catégories, par ID croissant
+    Flux<Category> findCategories() {
+        return databaseClient.sql("SELECT \"id\", \"name\", \"description\" FROM \"categories\" ORDER BY \"id\"")
+                .map(row -> {
+                    Category category = new Category();
+                    category.setId(row.get("id", Long.class));
+                    category.setName(row.get("name", String.class));
+                    category.setDescription(row.get("description", String.class));
+                    return category;
+                })
+                .all();
+    }
+
+    // Regrouper les lignes consécutives d'un même livre en un résumé portant la liste de ses auteurs
+    private static Flux<BookSummary> toSummaries(Flux<BookRow> rows) {
+        return rows.bufferUntilChanged(BookRow::id).map(group -> {
+            BookRow first = group.get(0);
+            BookSummary summary = new BookSummary(first.id(), first.title(), first.isbn(), first.available(),
+                    first.categoryName());
+            List<String> authorNames = new ArrayList<>(group.size());
+            for (BookRow row : group) {
+                if (row.lastName() != null) {
+                    authorNames.add(row.firstName() + " " + row.lastName());
+                }
+            }
+            summary.setAuthorNames(authorNames);
+            return summary;
+        });
+    }
+
+    // Auteur construit à partir d'une ligne (sans ses livres)
+    private static Author toAuthor(Readable row) {
+        Author author = new Author();
+        author.setId(row.get("id", Long.class));
+        author.setFirstName(row.get("firstName", String.class));
+        author.setLastName(row.get("lastName", String.class));
+        author.setBirthDate(row.get("birthDate", LocalDate.class));
+        author.setNationality(row.get("nationality", String.class));
+        author.setBiography(row.get("biography", String.class));
+        return author;
+    }
+
+    /**
+     * Ligne de la jointure livre / catégorie / auteur.
+     */
+    private record BookRow(Long id, String title, String isbn, boolean available, String categoryName,
+            String firstName, String lastName) {
+
+        static BookRow of(Readable row) {
+            return new BookRow(row.get("id", Long.class), row.get("title", String.class), row.get("isbn", String.class),
+                    Boolean.TRUE.equals(row.get("available", Boolean.class)), row.get("categoryName", String.class),
+                    row.get("firstName", String.class), row.get("lastName", String.class));
+        }
+    }
+}
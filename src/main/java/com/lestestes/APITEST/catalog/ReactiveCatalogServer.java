@@ -0,0 +1,120 @@
+package com.lestestes.APITEST.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lestestes.APITEST.search.BookSearchIndex;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Serveur du catalogue public réactif (catalog.reactive.enabled=true) : WebFlux sur Reactor Netty et R2DBC,
+ * sur son propre port. Tomcat et Spring MVC gardent le port principal et toutes les écritures ; ici, quelques
+ * threads d'événements servent un grand nombre de clients lents, aucun n'étant bloqué pendant qu'une réponse
+ * attend le réseau.
+ * Le pool R2DBC reste interne : publié comme bean ConnectionFactory, il désactiverait la DataSource JDBC.
+ */
+@Component
+@ConditionalOnProperty(prefix = "catalog.reactive", name = "enabled", havingValue = "true")
+public class ReactiveCatalogServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCatalogServer.class);
+
+    private final ReactiveCatalogProperties properties;
+    private final BookSearchIndex bookSearchIndex;
+    private final ObjectMapper objectMapper;
+
+    private ConnectionPool connectionPool;
+    private LoopResources loopResources;
+    private DisposableServer server;
+
+    @Autowired
+    public ReactiveCatalogServer(ReactiveCatalogProperties properties, BookSearchIndex bookSearchIndex,
+            ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.bookSearchIndex = bookSearchIndex;
+        this.objectMapper = objectMapper;
+    }
+
+    // Ouvrir le pool R2DBC et démarrer Netty (après la création du schéma par Flyway)
+    @Override
+    public void start() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(properties.getR2dbcUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, properties.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, properties.getPassword())
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(1)
+                .maxSize(properties.getMaxConnections())
+                .build());
+
+        ReactiveCatalogHandler handler = new ReactiveCatalogHandler(
+                new ReactiveCatalogRepository(DatabaseClient.create(connectionPool)), bookSearchIndex);
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+
+        int threads = properties.getEventLoopThreads() > 0 ? properties.getEventLoopThreads()
+                : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        loopResources = LoopResources.create("catalog", threads, true);
+        server = HttpServer.create()
+                .port(properties.getPort())
+                .runOn(loopResources)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Catalogue réactif démarré sur le port {} ({} threads d'événements, {} connexions R2DBC)",
+                server.port(), threads, properties.getMaxConnections());
+    }
+
+    // Arrêter Netty puis fermer le pool R2DBC
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+        if (loopResources != null) {
+            loopResources.disposeLater().block();
+            loopResources = null;
+        }
+        if (connectionPool != null) {
+            connectionPool.dispose();
+            connectionPool = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    // Port réellement écouté (utile avec catalog.reactive.port=0)
+    public int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Le catalogue réactif n'est pas démarré");
+        }
+        return server.port();
+    }
+}
@@ -0,0 +1,15 @@
+package com.lestestes.APITEST.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les traitements planifiés (@Scheduled). Ils s'exécutent sur le pool du planificateur
+ * (spring.task.scheduling.pool.size), jamais sur les threads des requêtes : un thread par traitement planifié,
+ * pour qu'une longue reconstruction nocturne ne retarde pas le compactage de l'agrégat des emprunts.
+ * Le calcul des amendes ne fait que se déclencher sur ce pool : il s'exécute sur son propre thread (OverdueFineJob).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
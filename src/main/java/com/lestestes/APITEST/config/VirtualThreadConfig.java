@@ -0,0 +1,67 @@
+package com.lestestes.APITEST.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Mode « threads virtuels » (profil virtual ou spring.threads.virtual.enabled=true, JDK 21 requis) :
+ * chaque requête Tomcat et chaque tâche asynchrone (@Async, requêtes MVC asynchrones) s'exécute sur
+ * un thread virtuel. Un appel JDBC bloquant libère alors son thread porteur ; la concurrence n'est plus
+ * bornée par le pool de threads de Tomcat mais par le pool de connexions JDBC.
+ * L'API des threads virtuels est appelée par réflexion pour que le projet compile toujours en Java 17.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    // Requêtes HTTP : un thread virtuel par requête à la place du pool de threads de Tomcat
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor("http-vt-");
+        log.info("Requêtes HTTP exécutées sur des threads virtuels");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // Tâches asynchrones : remplace l'exécuteur par défaut (même nom de bean, utilisé par @Async et Spring MVC)
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor("task-vt-"));
+    }
+
+    // Indiquer si la JVM fournit les threads virtuels (JDK 21 ou plus)
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    // Exécuteur démarrant un thread virtuel nommé par tâche
+    static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Les threads virtuels nécessitent un JDK 21 ou plus (JDK actuel : "
+                    + Runtime.version() + ") : désactiver spring.threads.virtual.enabled");
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Impossible de créer l'exécuteur de threads virtuels", e);
+        }
+    }
+}
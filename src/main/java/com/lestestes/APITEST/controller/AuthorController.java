@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.lestestes.APITEST.dto.CursorPage;
 import com.lestestes.APITEST.model.Author;
 import com.lestestes.APITEST.service.AuthorService;
 
@@ -37,9 +38,11 @@ public class AuthorController {
     }
     
     @GetMapping
-    @Operation(summary = "Récupérer tous les auteurs", description = "Retourne la liste de tous les auteurs")
-    public ResponseEntity<List<Author>> getAllAuthors() {
-        List<Author> authors = authorService.getAllAuthorsSorted();
+    @Operation(summary = "Récupérer tous les auteurs", description = "Retourne une page d'auteurs triés par ID ; le curseur nextCursor permet de demander la page suivante")
+    public ResponseEntity<CursorPage<Author>> getAllAuthors(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<Author> authors = authorService.getAuthorsPage(after, limit);
         return new ResponseEntity<>(authors, HttpStatus.OK);
     }
     
@@ -1,9 +1,15 @@
 package com.lestestes.APITEST.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,13 +21,28 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lestestes.APITEST.dto.AvailabilityCount;
+import com.lestestes.APITEST.dto.BookImportReport;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.PopularBook;
+import com.lestestes.APITEST.dto.RecommendedBook;
+import com.lestestes.APITEST.dto.ResponseView;
 import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.service.BookImportService;
 import com.lestestes.APITEST.service.BookService;
 import com.lestestes.APITEST.service.CategoryService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @CrossOrigin(origins = "*")
@@ -32,62 +53,154 @@ public class BookController {
 
     private final BookService bookService;
     private final CategoryService categoryService;
+    private final BookImportService bookImportService;
+    private final ObjectMapper objectMapper;
     
     @Autowired
-    public BookController(BookService bookService, CategoryService categoryService) {
+    public BookController(BookService bookService, CategoryService categoryService, BookImportService bookImportService,
+            ObjectMapper objectMapper) {
         this.bookService = bookService;
         this.categoryService = categoryService;
+        this.bookImportService = bookImportService;
+        this.objectMapper = objectMapper;
     }
     
     @GetMapping
-    @Operation(summary = "Récupérer tous les livres", description = "Retourne la liste de tous les livres de la bibliothèque")
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
+    @Operation(summary = "Récupérer tous les livres", description = "Retourne une page de résumés de livres triés par ID (view=full pour les livres complets) ; le curseur nextCursor permet de demander la page suivante")
+    public ResponseEntity<CursorPage<?>> getAllBooks(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String view) {
+        CursorPage<?> books = ResponseView.from(view) == ResponseView.FULL
+                ? bookService.getBooksPage(after, limit)
+                : bookService.getBookSummariesPage(after, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
     
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Exporter le catalogue complet", description = "Diffuse tous les livres au format NDJSON (un livre par ligne) sans charger le catalogue en mémoire")
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        
+        // Écrire chaque livre directement dans la réponse, sans vider le tampon après chaque ligne
+        ObjectWriter writer = objectMapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            bookService.exportBooks(book -> {
+                try {
+                    writer.writeValue(generator, book);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+    
     @GetMapping("/{id}")
-    @Operation(summary = "Récupérer un livre par ID", description = "Retourne un livre unique identifié par son ID")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    @Operation(summary = "Récupérer un livre par ID", description = "Retourne un livre unique identifié par son ID. Répond 304 si l'ETag envoyé dans If-None-Match est toujours valable")
+    public ResponseEntity<Book> getBookById(@PathVariable Long id, WebRequest request) {
+        // ETag calculé avant la lecture : une modification concurrente ne peut que le rendre obsolète
+        String eTag = bookService.getBookETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         Book book = bookService.getBookById(id);
-        return new ResponseEntity<>(book, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(eTag).body(book);
     }
     
     @GetMapping("/search")
-    @Operation(summary = "Rechercher des livres par titre", description = "Recherche et retourne une liste de livres dont le titre contient le terme de recherche")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam("title") String title) {
-        List<Book> books = bookService.searchBooksByTitle(title);
+    @Operation(summary = "Rechercher des livres par titre", description = "Recherche plein texte (titre, auteurs, éditeur ; insensible aux accents) et retourne les résumés des livres classés par pertinence, au plus 'limit' résultats (view=full pour les livres complets)")
+    public ResponseEntity<List<?>> searchBooks(
+            @RequestParam("title") String title,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String view) {
+        List<?> books = ResponseView.from(view) == ResponseView.FULL
+                ? bookService.searchBooksByTitle(title, limit)
+                : bookService.searchBookSummariesByTitle(title, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
     
+    @GetMapping("/popular")
+    @Operation(summary = "Récupérer les livres les plus empruntés", description = "Retourne les résumés des livres les plus empruntés sur une fenêtre glissante (window, par exemple 7d, 30d ou 4w ; 30 jours par défaut) avec leur nombre d'emprunts, au plus 'limit' livres. Le classement est tenu en mémoire à chaque emprunt")
+    public ResponseEntity<List<PopularBook>> getPopularBooks(
+            @RequestParam(required = false) String window,
+            @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(bookService.getPopularBooks(window, limit), HttpStatus.OK);
+    }
+    
+    @GetMapping("/{id}/recommendations")
+    @Operation(summary = "Recommander des livres à partir d'un livre", description = "Retourne les livres le plus souvent empruntés par les membres ayant emprunté ce livre, avec le nombre de ces membres, au plus 'limit' livres (10 par défaut). Les co-emprunts sont comptés en mémoire et mis à jour à chaque emprunt")
+    public ResponseEntity<List<RecommendedBook>> getRecommendedBooks(@PathVariable Long id,
+            @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(bookService.getRecommendedBooks(id, limit), HttpStatus.OK);
+    }
+    
     @GetMapping("/category/{categoryId}")
-    @Operation(summary = "Récupérer les livres par catégorie", description = "Retourne tous les livres appartenant à une catégorie spécifique")
-    public ResponseEntity<List<Book>> getBooksByCategory(@PathVariable Long categoryId) {
-        return new ResponseEntity<>(
-            bookService.getBooksByCategory(categoryService.getCategoryById(categoryId)), 
-            HttpStatus.OK
-        );
+    @Operation(summary = "Récupérer les livres par catégorie", description = "Retourne les résumés de tous les livres appartenant à une catégorie spécifique (view=full pour les livres complets)")
+    public ResponseEntity<List<?>> getBooksByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String view) {
+        Category category = categoryService.getCategoryById(categoryId);
+        List<?> books = ResponseView.from(view) == ResponseView.FULL
+                ? bookService.getBooksByCategory(category)
+                : bookService.getBookSummariesByCategory(category);
+        return new ResponseEntity<>(books, HttpStatus.OK);
     }
     
     @GetMapping("/author/{authorId}")
-    @Operation(summary = "Récupérer les livres par auteur", description = "Retourne tous les livres écrits par un auteur spécifique")
-    public ResponseEntity<List<Book>> getBooksByAuthor(@PathVariable Long authorId) {
-        List<Book> books = bookService.getBooksByAuthorId(authorId);
+    @Operation(summary = "Récupérer les livres par auteur", description = "Retourne les résumés de tous les livres écrits par un auteur spécifique (view=full pour les livres complets)")
+    public ResponseEntity<List<?>> getBooksByAuthor(
+            @PathVariable Long authorId,
+            @RequestParam(required = false) String view) {
+        List<?> books = ResponseView.from(view) == ResponseView.FULL
+                ? bookService.getBooksByAuthorId(authorId)
+                : bookService.getBookSummariesByAuthorId(authorId);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
     
     @GetMapping("/available")
-    @Operation(summary = "Récupérer les livres disponibles", description = "Retourne tous les livres actuellement disponibles pour l'emprunt")
-    public ResponseEntity<List<Book>> getAvailableBooks() {
-        List<Book> books = bookService.getAvailableBooks();
+    @Operation(summary = "Récupérer les livres disponibles", description = "Retourne les résumés de tous les livres actuellement disponibles pour l'emprunt (view=full pour les livres complets)")
+    public ResponseEntity<List<?>> getAvailableBooks(
+            @RequestParam(required = false) String view) {
+        List<?> books = ResponseView.from(view) == ResponseView.FULL
+                ? bookService.getAvailableBooks()
+                : bookService.getAvailableBookSummaries();
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
     
+    @GetMapping("/available/page")
+    @Operation(summary = "Parcourir les livres disponibles", description = "Retourne une page de résumés des livres disponibles triés par ID, éventuellement d'une seule catégorie (categoryId) ; le curseur nextCursor permet de demander la page suivante. Les IDs sont lus dans l'index de disponibilité en mémoire, sans parcourir la table des livres")
+    public ResponseEntity<CursorPage<BookSummary>> getAvailableBooksPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long categoryId) {
+        if (categoryId != null) {
+            categoryService.getCategoryById(categoryId);
+        }
+        return new ResponseEntity<>(bookService.getAvailableBookSummariesPage(after, limit, categoryId), HttpStatus.OK);
+    }
+    
+    @GetMapping("/available/count")
+    @Operation(summary = "Compter les livres disponibles", description = "Retourne le nombre de livres et de livres disponibles du catalogue, ou d'une catégorie (categoryId), lus dans l'index de disponibilité en mémoire")
+    public ResponseEntity<AvailabilityCount> countAvailableBooks(
+            @RequestParam(required = false) Long categoryId) {
+        if (categoryId != null) {
+            categoryService.getCategoryById(categoryId);
+        }
+        return new ResponseEntity<>(bookService.countAvailableBooks(categoryId), HttpStatus.OK);
+    }
+    
     @GetMapping("/recent")
-    @Operation(summary = "Récupérer les livres récemment ajoutés", description = "Retourne les 10 livres les plus récemment ajoutés à la bibliothèque")
-    public ResponseEntity<List<Book>> getRecentBooks() {
+    @Operation(summary = "Récupérer les livres récemment ajoutés", description = "Retourne les 10 livres les plus récemment ajoutés à la bibliothèque. Répond 304 si l'ETag envoyé dans If-None-Match est toujours valable")
+    public ResponseEntity<List<Book>> getRecentBooks(WebRequest request) {
+        String eTag = bookService.getRecentlyAddedBooksETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         List<Book> books = bookService.getRecentlyAddedBooks();
-        return new ResponseEntity<>(books, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(eTag).body(books);
     }
     
     @PostMapping
@@ -97,6 +210,18 @@ public class BookController {
         return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
     }
     
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Importer des livres en masse (JSON)", description = "Importe un tableau JSON de livres (catégorie par categoryId ou categoryName, auteurs par authorIds) ; les lignes invalides ou dont l'ISBN existe déjà sont rejetées une à une et listées dans le bilan")
+    public ResponseEntity<BookImportReport> importBooks(InputStream body) throws IOException {
+        return new ResponseEntity<>(bookImportService.importJson(body), HttpStatus.OK);
+    }
+    
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    @Operation(summary = "Importer des livres en masse (CSV)", description = "Importe un fichier CSV UTF-8 avec ligne d'en-tête (title, isbn, description, pageCount, publishDate, categoryId, categoryName, authorIds séparés par '|', language, publisher, coverImageUrl)")
+    public ResponseEntity<BookImportReport> importBooksCsv(InputStream body) throws IOException {
+        return new ResponseEntity<>(bookImportService.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8)), HttpStatus.OK);
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Mettre à jour un livre", description = "Met à jour les informations d'un livre existant")
     public ResponseEntity<Book> updateBook(@PathVariable Long id, @Valid @RequestBody Book bookDetails) {
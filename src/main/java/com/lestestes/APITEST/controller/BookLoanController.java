@@ -16,6 +16,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.LoanStatistics;
+import com.lestestes.APITEST.dto.ResponseView;
+import com.lestestes.APITEST.loan.FineJobStatus;
+import com.lestestes.APITEST.loan.OverdueFineJob;
 import com.lestestes.APITEST.model.Book;
 import com.lestestes.APITEST.model.BookLoan;
 import com.lestestes.APITEST.model.Member;
@@ -35,18 +40,26 @@ public class BookLoanController {
     private final BookLoanService bookLoanService;
     private final BookService bookService;
     private final MemberService memberService;
+    private final OverdueFineJob overdueFineJob;
     
     @Autowired
-    public BookLoanController(BookLoanService bookLoanService, BookService bookService, MemberService memberService) {
+    public BookLoanController(BookLoanService bookLoanService, BookService bookService, MemberService memberService,
+            OverdueFineJob overdueFineJob) {
         this.bookLoanService = bookLoanService;
         this.bookService = bookService;
         this.memberService = memberService;
+        this.overdueFineJob = overdueFineJob;
     }
     
     @GetMapping
-    @Operation(summary = "Récupérer tous les emprunts", description = "Retourne la liste de tous les emprunts de livres")
-    public ResponseEntity<List<BookLoan>> getAllLoans() {
-        List<BookLoan> loans = bookLoanService.getAllLoans();
+    @Operation(summary = "Récupérer tous les emprunts", description = "Retourne une page de résumés d'emprunts triés par ID (view=full pour les emprunts complets) ; le curseur nextCursor permet de demander la page suivante")
+    public ResponseEntity<CursorPage<?>> getAllLoans(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String view) {
+        CursorPage<?> loans = ResponseView.from(view) == ResponseView.FULL
+                ? bookLoanService.getLoansPage(after, limit)
+                : bookLoanService.getLoanSummariesPage(after, limit);
         return new ResponseEntity<>(loans, HttpStatus.OK);
     }
     
@@ -58,32 +71,49 @@ public class BookLoanController {
     }
     
     @GetMapping("/active")
-    @Operation(summary = "Récupérer les emprunts actifs", description = "Retourne tous les emprunts actifs (non retournés)")
-    public ResponseEntity<List<BookLoan>> getActiveLoans() {
-        List<BookLoan> loans = bookLoanService.getActiveLoans();
+    @Operation(summary = "Récupérer les emprunts actifs", description = "Retourne les résumés de tous les emprunts actifs (non retournés) ; view=full pour les emprunts complets")
+    public ResponseEntity<List<?>> getActiveLoans(
+            @RequestParam(required = false) String view) {
+        List<?> loans = ResponseView.from(view) == ResponseView.FULL
+                ? bookLoanService.getActiveLoans()
+                : bookLoanService.getActiveLoanSummaries();
         return new ResponseEntity<>(loans, HttpStatus.OK);
     }
     
     @GetMapping("/overdue")
-    @Operation(summary = "Récupérer les emprunts en retard", description = "Retourne tous les emprunts en retard")
+    @Operation(summary = "Récupérer les emprunts en retard", description = "Retourne tous les emprunts en retard, du plus ancien retard au plus récent")
     public ResponseEntity<List<BookLoan>> getOverdueLoans() {
         List<BookLoan> loans = bookLoanService.getOverdueLoans();
         return new ResponseEntity<>(loans, HttpStatus.OK);
     }
     
+    @GetMapping("/overdue/count")
+    @Operation(summary = "Compter les emprunts en retard", description = "Retourne le nombre d'emprunts en retard")
+    public ResponseEntity<Long> countOverdueLoans() {
+        return new ResponseEntity<>(bookLoanService.countOverdueLoans(), HttpStatus.OK);
+    }
+    
     @GetMapping("/member/{memberId}")
-    @Operation(summary = "Récupérer les emprunts d'un membre", description = "Retourne tous les emprunts pour un membre spécifique")
-    public ResponseEntity<List<BookLoan>> getLoansByMember(@PathVariable Long memberId) {
+    @Operation(summary = "Récupérer les emprunts d'un membre", description = "Retourne les résumés de tous les emprunts pour un membre spécifique (view=full pour les emprunts complets)")
+    public ResponseEntity<List<?>> getLoansByMember(
+            @PathVariable Long memberId,
+            @RequestParam(required = false) String view) {
         Member member = memberService.getMemberById(memberId);
-        List<BookLoan> loans = bookLoanService.getLoansByMember(member);
+        List<?> loans = ResponseView.from(view) == ResponseView.FULL
+                ? bookLoanService.getLoansByMember(member)
+                : bookLoanService.getLoanSummariesByMember(member);
         return new ResponseEntity<>(loans, HttpStatus.OK);
     }
     
     @GetMapping("/member/{memberId}/active")
-    @Operation(summary = "Récupérer les emprunts actifs d'un membre", description = "Retourne tous les emprunts actifs pour un membre spécifique")
-    public ResponseEntity<List<BookLoan>> getActiveLoansByMember(@PathVariable Long memberId) {
+    @Operation(summary = "Récupérer les emprunts actifs d'un membre", description = "Retourne les résumés de tous les emprunts actifs pour un membre spécifique (view=full pour les emprunts complets)")
+    public ResponseEntity<List<?>> getActiveLoansByMember(
+            @PathVariable Long memberId,
+            @RequestParam(required = false) String view) {
         Member member = memberService.getMemberById(memberId);
-        List<BookLoan> loans = bookLoanService.getActiveLoansForMember(member);
+        List<?> loans = ResponseView.from(view) == ResponseView.FULL
+                ? bookLoanService.getActiveLoansForMember(member)
+                : bookLoanService.getActiveLoanSummariesForMember(member);
         return new ResponseEntity<>(loans, HttpStatus.OK);
     }
     
@@ -96,12 +126,29 @@ public class BookLoanController {
     }
     
     @GetMapping("/statistics")
-    @Operation(summary = "Obtenir des statistiques d'emprunt", description = "Retourne les statistiques d'emprunt pour une période spécifique")
-    public ResponseEntity<List<BookLoan>> getLoanStatistics(
+    @Operation(summary = "Obtenir des statistiques d'emprunt", description = "Retourne les statistiques des emprunts créés pendant la période, calculées par la base : totaux, taux de retour, durée moyenne, nombre d'emprunts par jour, semaine ou mois (granularity), catégories les plus empruntées, livres et membres les plus actifs sur les 92 derniers jours de la période au plus (top premiers)")
+    public ResponseEntity<LoanStatistics> getLoanStatistics(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<BookLoan> loans = bookLoanService.getLoanStatisticsForPeriod(startDate, endDate);
-        return new ResponseEntity<>(loans, HttpStatus.OK);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) Integer top) {
+        LoanStatistics statistics = bookLoanService.getLoanStatistics(startDate, endDate, granularity, top);
+        return new ResponseEntity<>(statistics, HttpStatus.OK);
+    }
+    
+    @GetMapping("/fines/status")
+    @Operation(summary = "État du calcul des amendes", description = "Retourne le point de reprise du calcul des amendes de retard (date traitée, dernier emprunt validé, compteurs) et indique s'il est en cours")
+    public ResponseEntity<FineJobStatus> getFineJobStatus() {
+        return new ResponseEntity<>(overdueFineJob.status(), HttpStatus.OK);
+    }
+    
+    @PostMapping("/fines/run")
+    @Operation(summary = "Lancer le calcul des amendes", description = "Démarre en arrière-plan le calcul des amendes et des relances de retard du jour (reprend un calcul interrompu du même jour)")
+    public ResponseEntity<FineJobStatus> runFineJob() {
+        if (!overdueFineJob.trigger(LocalDate.now())) {
+            throw new IllegalStateException("Le calcul des amendes est déjà en cours");
+        }
+        return new ResponseEntity<>(overdueFineJob.status(), HttpStatus.ACCEPTED);
     }
     
     @PostMapping("/borrow")
@@ -0,0 +1,43 @@
+package com.lestestes.APITEST.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.lestestes.APITEST.dto.CacheStatistics;
+import com.lestestes.APITEST.service.CacheService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache", description = "Suivi du cache de second niveau (catégories et auteurs)")
+public class CacheController {
+
+    private final CacheService cacheService;
+    
+    @Autowired
+    public CacheController(CacheService cacheService) {
+        this.cacheService = cacheService;
+    }
+    
+    @GetMapping("/statistics")
+    @Operation(summary = "Statistiques du cache", description = "Retourne les hits, miss et insertions du cache de second niveau, au total et par région, ainsi que ceux du cache de requêtes")
+    public ResponseEntity<CacheStatistics> getStatistics() {
+        return new ResponseEntity<>(cacheService.getStatistics(), HttpStatus.OK);
+    }
+    
+    @DeleteMapping
+    @Operation(summary = "Vider le cache", description = "Vide toutes les régions du cache de second niveau (après une modification directe de la base en SQL)")
+    public ResponseEntity<Void> evictAll() {
+        cacheService.evictAll();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
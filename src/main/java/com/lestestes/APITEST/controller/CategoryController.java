@@ -15,7 +15,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.lestestes.APITEST.dto.CursorPage;
 import com.lestestes.APITEST.model.Category;
 import com.lestestes.APITEST.service.CategoryService;
 
@@ -37,10 +39,18 @@ public class CategoryController {
     }
     
     @GetMapping
-    @Operation(summary = "Récupérer toutes les catégories", description = "Retourne la liste de toutes les catégories de livres")
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategoriesSorted();
-        return new ResponseEntity<>(categories, HttpStatus.OK);
+    @Operation(summary = "Récupérer toutes les catégories", description = "Retourne une page de catégories triées par ID ; le curseur nextCursor permet de demander la page suivante. Répond 304 si l'ETag envoyé dans If-None-Match est toujours valable")
+    public ResponseEntity<CursorPage<Category>> getAllCategories(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        // ETag calculé avant la lecture : une modification concurrente ne peut que le rendre obsolète
+        String eTag = categoryService.getCategoriesETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        CursorPage<Category> categories = categoryService.getCategoriesPage(after, limit);
+        return ResponseEntity.ok().eTag(eTag).body(categories);
     }
     
     @GetMapping("/{id}")
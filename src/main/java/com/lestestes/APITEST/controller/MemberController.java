@@ -16,6 +16,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.MemberDashboard;
+import com.lestestes.APITEST.dto.ResponseView;
 import com.lestestes.APITEST.model.Member;
 import com.lestestes.APITEST.service.MemberService;
 
@@ -37,23 +40,39 @@ public class MemberController {
     }
     
     @GetMapping
-    @Operation(summary = "Récupérer tous les membres", description = "Retourne la liste de tous les membres de la bibliothèque")
-    public ResponseEntity<List<Member>> getAllMembers() {
-        List<Member> members = memberService.getAllMembersSorted();
+    @Operation(summary = "Récupérer tous les membres", description = "Retourne une page de résumés de membres triés par ID (view=full pour les membres complets) ; le curseur nextCursor permet de demander la page suivante")
+    public ResponseEntity<CursorPage<?>> getAllMembers(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String view) {
+        CursorPage<?> members = ResponseView.from(view) == ResponseView.FULL
+                ? memberService.getMembersPage(after, limit)
+                : memberService.getMemberSummariesPage(after, limit);
         return new ResponseEntity<>(members, HttpStatus.OK);
     }
     
     @GetMapping("/{id}")
     @Operation(summary = "Récupérer un membre par ID", description = "Retourne un membre unique identifié par son ID")
     public ResponseEntity<Member> getMemberById(@PathVariable Long id) {
-        Member member = memberService.getMemberById(id);
+        Member member = memberService.getMemberWithLoansById(id);
         return new ResponseEntity<>(member, HttpStatus.OK);
     }
     
+    @GetMapping("/{id}/dashboard")
+    @Operation(summary = "Tableau de bord d'un membre", description = "Retourne en une réponse le membre, le bilan de ses emprunts, ses emprunts en cours et ses derniers retours avec le résumé de chaque livre")
+    public ResponseEntity<MemberDashboard> getMemberDashboard(@PathVariable Long id) {
+        MemberDashboard dashboard = memberService.getMemberDashboard(id);
+        return new ResponseEntity<>(dashboard, HttpStatus.OK);
+    }
+    
     @GetMapping("/search")
-    @Operation(summary = "Rechercher des membres", description = "Recherche et retourne une liste de membres dont le nom ou prénom contient le terme de recherche")
-    public ResponseEntity<List<Member>> searchMembers(@RequestParam("query") String query) {
-        List<Member> members = memberService.searchMembers(query);
+    @Operation(summary = "Rechercher des membres", description = "Recherche et retourne une liste de résumés de membres dont le nom ou prénom contient le terme de recherche (view=full pour les membres complets)")
+    public ResponseEntity<List<?>> searchMembers(
+            @RequestParam("query") String query,
+            @RequestParam(required = false) String view) {
+        List<?> members = ResponseView.from(view) == ResponseView.FULL
+                ? memberService.searchMembers(query)
+                : memberService.searchMemberSummaries(query);
         return new ResponseEntity<>(members, HttpStatus.OK);
     }
     
@@ -0,0 +1,365 @@
+package com.lestestes.APITEST.dataset;
+
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.lestestes.APITEST.loan.BookPopularityIndex;
+import com.lestestes.APITEST.loan.CoBorrowIndex;
+import com.lestestes.APITEST.loan.LoanDailyRollup;
+import com.lestestes.APITEST.loan.OverdueLoanIndex;
+import com.lestestes.APITEST.search.BookAvailabilityIndex;
+import com.lestestes.APITEST.search.BookSearchIndex;
+import com.lestestes.APITEST.service.CacheService;
+
+/**
+ * Générateur de jeu de données synthétique pour les tests de montée en charge et les benchmarks.
+ * Les lignes sont insérées par lots JDBC (un commit par lot) avec des IDs explicites à la suite des
+ * données existantes, sans passer par JPA ; les compteurs d'identité sont ensuite repositionnés.
+ * Le contenu ne dépend que de la graine et des volumes : auteurs, catégories, livres empruntés et
+ * membres actifs suivent des lois de Zipf, les emprunts en cours respectent les règles métier
+ * (un seul emprunt actif par livre, 5 au plus par membre) et une partie d'entre eux est en retard.
+ */
+@Component
+public class DatasetGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final int MAX_ACTIVE_LOANS_PER_MEMBER = 5;
+    private static final int LOAN_PERIOD_DAYS = 14;
+    private static final int HISTORY_DAYS = 3 * 365;
+
+    private static final String[] TITLE_NOUNS = {
+        "Voyage", "Misère", "Étranger", "Château", "Nuit", "Mémoires", "Océan", "Forêt",
+        "Silence", "Royaume", "Lumière", "Hiver", "Jardin", "Tempête", "Secret", "Rivière",
+        "Ombre", "Empire", "Chemin", "Mystère", "Promesse", "Souvenir", "Horizon", "Rêve"
+    };
+    private static final String[] TITLE_COMPLEMENTS = {
+        "du Nord", "de Paris", "des Étoiles", "sans fin", "perdu", "d'automne",
+        "de minuit", "éternel", "interdit", "du Sud", "des Anciens", "de cendre"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Jean", "Marie", "Pierre", "Sophie", "Lucas", "Camille", "Louis", "Emma", "Hugo", "Léa",
+        "Jules", "Chloé", "Gabriel", "Manon", "Arthur", "Inès", "Paul", "Alice", "Nathan", "Zoé"
+    };
+    private static final String[] LAST_NAMES = {
+        "Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand", "Leroy", "Moreau",
+        "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David", "Bertrand", "Roux", "Vincent", "Fournier"
+    };
+    private static final String[] NATIONALITIES = { "Française", "Britannique", "Américaine", "Belge", "Canadienne", "Italienne" };
+    private static final String[] LANGUAGES = { "Français", "Français", "Français", "Anglais", "Espagnol", "Allemand" };
+    private static final String[] PUBLISHERS = {
+        "Gallimard", "Le Livre de Poche", "Flammarion", "Albin Michel", "Actes Sud", "Seuil",
+        "Pocket", "Folio", "Grasset", "Hachette", "Robert Laffont", "J'ai lu"
+    };
+    private static final String[] CITIES = {
+        "75001 Paris", "69003 Lyon", "13001 Marseille", "33000 Bordeaux", "59000 Lille", "44000 Nantes",
+        "31000 Toulouse", "67000 Strasbourg"
+    };
+    private static final String[] STREETS = { "rue des Lilas", "avenue Victor Hugo", "boulevard Gambetta", "rue de la Liberté", "place de la Mairie" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookAvailabilityIndex bookAvailabilityIndex;
+    private final CacheService cacheService;
+    private final OverdueLoanIndex overdueLoanIndex;
+    private final LoanDailyRollup loanDailyRollup;
+    private final CoBorrowIndex coBorrowIndex;
+    private final BookPopularityIndex bookPopularityIndex;
+
+    @Autowired
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, BookSearchIndex bookSearchIndex,
+            BookAvailabilityIndex bookAvailabilityIndex, CacheService cacheService, OverdueLoanIndex overdueLoanIndex,
+            LoanDailyRollup loanDailyRollup, CoBorrowIndex coBorrowIndex, BookPopularityIndex bookPopularityIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookAvailabilityIndex = bookAvailabilityIndex;
+        this.cacheService = cacheService;
+        this.overdueLoanIndex = overdueLoanIndex;
+        this.loanDailyRollup = loanDailyRollup;
+        this.coBorrowIndex = coBorrowIndex;
+        this.bookPopularityIndex = bookPopularityIndex;
+    }
+
+    // Générer le jeu de données décrit par les paramètres (hors transaction : chaque lot est validé)
+    public DatasetSummary generate(DatasetProperties properties) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("La génération du jeu de données ne doit pas s'exécuter dans une transaction");
+        }
+        long start = System.nanoTime();
+        SplittableRandom root = new SplittableRandom(properties.getSeed());
+        LocalDate today = properties.getReferenceDate() != null ? properties.getReferenceDate() : LocalDate.now();
+        int batchSize = Math.max(1, properties.getBatchSize());
+
+        long categories = properties.scaled(properties.getCategories());
+        long authors = properties.scaled(properties.getAuthors());
+        long books = properties.scaled(properties.getBooks());
+        long members = properties.scaled(properties.getMembers());
+        long loans = properties.scaled(properties.getLoans());
+        if (loans > 0 && (books == 0 || members == 0)) {
+            throw new IllegalArgumentException("Des emprunts nécessitent au moins un livre et un membre");
+        }
+        long activeLoans = Math.min(Math.round(loans * properties.getActiveLoanRatio()),
+                Math.min(books, members * MAX_ACTIVE_LOANS_PER_MEMBER));
+
+        long categoryBase = maxId("categories");
+        long authorBase = maxId("authors");
+        long bookBase = maxId("books");
+        long memberBase = maxId("members");
+        long loanBase = maxId("book_loans");
+
+        insertCategories(root.split(), categoryBase, categories, batchSize);
+        insertAuthors(root.split(), today, authorBase, authors, batchSize);
+        ActiveBooks activeBooks = new ActiveBooks(books, activeLoans);
+        insertBooks(root.split(), properties, today, bookBase, books, categoryBase, categories, authorBase, authors,
+                activeBooks, batchSize);
+        insertMembers(root.split(), today, memberBase, members, batchSize);
+        insertLoans(root.split(), properties, today, loanBase, loans, activeLoans, bookBase, books, memberBase, members,
+                activeBooks, batchSize);
+
+        restartIdentity("categories", categoryBase + categories);
+        restartIdentity("authors", authorBase + authors);
+        restartIdentity("books", bookBase + books);
+        restartIdentity("members", memberBase + members);
+        restartIdentity("book_loans", loanBase + loans);
+
+        // Écritures hors JPA : les listes de catégories et d'auteurs en cache ne les voient pas
+        cacheService.evictAll();
+        if (bookSearchIndex.isReady()) {
+            bookSearchIndex.rebuild();
+        }
+        if (bookAvailabilityIndex.isReady()) {
+            bookAvailabilityIndex.rebuild();
+        }
+        if (overdueLoanIndex.isReady()) {
+            overdueLoanIndex.rebuild();
+        }
+        if (loans > 0) {
+            loanDailyRollup.rebuild();
+        }
+        if (loans > 0 && coBorrowIndex.isReady()) {
+            coBorrowIndex.rebuild();
+        }
+        if (loans > 0 && bookPopularityIndex.isReady()) {
+            bookPopularityIndex.reload();
+        }
+
+        DatasetSummary summary = new DatasetSummary(categoryBase + 1, categories, authorBase + 1, authors,
+                bookBase + 1, books, memberBase + 1, members, loanBase + 1, loans, activeLoans,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Jeu de données généré (graine {}) : {} catégories, {} auteurs, {} livres, {} membres, {} emprunts dont {} en cours, en {} ms",
+                properties.getSeed(), categories, authors, books, members, loans, activeLoans, summary.elapsedMillis());
+        return summary;
+    }
+
+    private void insertCategories(SplittableRandom random, long base, long count, int batchSize) {
+        insert(batchSize, count, (statements, row) -> {
+            PreparedStatement statement = statements[0];
+            long id = base + row + 1;
+            statement.setLong(1, id);
+            statement.setString(2, "Catégorie " + id);
+            statement.setString(3, "Catégorie générée n°" + (row + 1) + " (" + TITLE_NOUNS[random.nextInt(TITLE_NOUNS.length)] + ")");
+            statement.addBatch();
+        }, "INSERT INTO \"categories\" (\"id\", \"name\", \"description\") VALUES (?, ?, ?)");
+    }
+
+    private void insertAuthors(SplittableRandom random, LocalDate today, long base, long count, int batchSize) {
+        insert(batchSize, count, (statements, row) -> {
+            PreparedStatement statement = statements[0];
+            statement.setLong(1, base + row + 1);
+            statement.setString(2, pick(random, FIRST_NAMES));
+            statement.setString(3, pick(random, LAST_NAMES));
+            statement.setDate(4, Date.valueOf(today.minusYears(25 + random.nextInt(150)).minusDays(random.nextInt(365))));
+            statement.setString(5, pick(random, NATIONALITIES));
+            statement.addBatch();
+        }, "INSERT INTO \"authors\" (\"id\", \"firstName\", \"lastName\", \"birthDate\", \"nationality\") VALUES (?, ?, ?, ?, ?)");
+    }
+
+    private void insertBooks(SplittableRandom random, DatasetProperties properties, LocalDate today, long base, long count,
+            long categoryBase, long categories, long authorBase, long authors, ActiveBooks activeBooks, int batchSize) {
+        ZipfSampler categorySampler = new ZipfSampler(categories, properties.getCategorySkew());
+        ZipfSampler authorSampler = new ZipfSampler(authors, properties.getAuthorSkew());
+        ZipfSampler nounSampler = new ZipfSampler(TITLE_NOUNS.length, 1.0);
+        ZipfSampler publisherSampler = new ZipfSampler(PUBLISHERS.length, 1.0);
+        insert(batchSize, count, (statements, row) -> {
+            long id = base + row + 1;
+            PreparedStatement book = statements[0];
+            book.setLong(1, id);
+            String title = TITLE_NOUNS[(int) nounSampler.sample(random)] + " " + pick(random, TITLE_COMPLEMENTS);
+            book.setString(2, random.nextInt(10) < 3 ? title + ", tome " + (1 + random.nextInt(7)) : title);
+            book.setString(3, String.format("978%010d", id));
+            book.setInt(4, 80 + random.nextInt(1120));
+            book.setDate(5, Date.valueOf(today.minusDays(random.nextInt(80 * 365))));
+            book.setLong(6, categoryBase + 1 + categorySampler.sample(random));
+            book.setString(7, pick(random, LANGUAGES));
+            book.setString(8, PUBLISHERS[(int) publisherSampler.sample(random)]);
+            book.setBoolean(9, !activeBooks.contains(row));
+            book.addBatch();
+
+            // Un auteur par livre, un second pour un livre sur dix
+            PreparedStatement bookAuthor = statements[1];
+            long author = authorSampler.sample(random);
+            bookAuthor.setLong(1, id);
+            bookAuthor.setLong(2, authorBase + 1 + author);
+            bookAuthor.addBatch();
+            if (authors > 1 && random.nextInt(10) == 0) {
+                bookAuthor.setLong(1, id);
+                bookAuthor.setLong(2, authorBase + 1 + (author + 1 + random.nextLong(authors - 1)) % authors);
+                bookAuthor.addBatch();
+            }
+        }, "INSERT INTO \"books\" (\"id\", \"title\", \"isbn\", \"pageCount\", \"publishDate\", \"category_id\", \"language\", \"publisher\", \"available\") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                "INSERT INTO \"book_author\" (\"book_id\", \"author_id\") VALUES (?, ?)");
+    }
+
+    private void insertMembers(SplittableRandom random, LocalDate today, long base, long count, int batchSize) {
+        insert(batchSize, count, (statements, row) -> {
+            PreparedStatement statement = statements[0];
+            long id = base + row + 1;
+            statement.setLong(1, id);
+            statement.setString(2, pick(random, FIRST_NAMES));
+            statement.setString(3, pick(random, LAST_NAMES));
+            statement.setString(4, "lecteur" + id + "@exemple.fr");
+            statement.setString(5, String.format("06%08d", random.nextInt(100_000_000)));
+            statement.setString(6, (1 + random.nextInt(120)) + " " + pick(random, STREETS) + ", " + pick(random, CITIES));
+            statement.setDate(7, Date.valueOf(today.minusYears(16 + random.nextInt(70)).minusDays(random.nextInt(365))));
+            statement.setDate(8, Date.valueOf(today.minusDays(random.nextInt(10 * 365))));
+            statement.setBoolean(9, random.nextInt(100) < 92);
+            statement.addBatch();
+        }, "INSERT INTO \"members\" (\"id\", \"firstName\", \"lastName\", \"email\", \"phone\", \"address\", \"birthDate\", \"registrationDate\", \"active\") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    // Les emprunts rendus d'abord (historique sur trois ans), puis les emprunts en cours (IDs les plus récents)
+    private void insertLoans(SplittableRandom random, DatasetProperties properties, LocalDate today, long base, long count,
+            long activeCount, long bookBase, long books, long memberBase, long members, ActiveBooks activeBooks, int batchSize) {
+        if (count == 0) {
+            return;
+        }
+        ZipfSampler bookSampler = new ZipfSampler(books, properties.getBookPopularitySkew());
+        ZipfSampler memberSampler = new ZipfSampler(members, properties.getMemberActivitySkew());
+        long returnedCount = count - activeCount;
+        insert(batchSize, count, (statements, row) -> {
+            PreparedStatement statement = statements[0];
+            statement.setLong(1, base + row + 1);
+            LocalDate borrowDate;
+            if (row < returnedCount) {
+                int daysAgo = 1 + random.nextInt(HISTORY_DAYS);
+                borrowDate = today.minusDays(daysAgo);
+                statement.setLong(2, bookBase + 1 + bookSampler.sample(random));
+                statement.setLong(3, memberBase + 1 + memberSampler.sample(random));
+                statement.setBoolean(6, true);
+                statement.setDate(7, Date.valueOf(borrowDate.plusDays(Math.min(daysAgo, 1 + random.nextInt(35)))));
+            } else {
+                long active = row - returnedCount;
+                boolean overdue = random.nextDouble() < properties.getOverdueRatio();
+                borrowDate = today.minusDays(overdue ? LOAN_PERIOD_DAYS + 1 + random.nextInt(60) : random.nextInt(LOAN_PERIOD_DAYS));
+                statement.setLong(2, bookBase + 1 + activeBooks.bookAt(active));
+                statement.setLong(3, memberBase + 1 + active % members);
+                statement.setBoolean(6, false);
+                statement.setDate(7, null);
+            }
+            statement.setDate(4, Date.valueOf(borrowDate));
+            statement.setDate(5, Date.valueOf(borrowDate.plusDays(LOAN_PERIOD_DAYS)));
+            statement.addBatch();
+        }, "INSERT INTO \"book_loans\" (\"id\", \"book_id\", \"member_id\", \"borrowDate\", \"dueDate\", \"returned\", \"returnDate\") VALUES (?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    // Insérer count lignes : le rédacteur ajoute ses lignes aux lots des requêtes (dans l'ordre des clés étrangères)
+    private void insert(int batchSize, long count, RowWriter writer, String... sqls) {
+        if (count == 0) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            PreparedStatement[] statements = new PreparedStatement[sqls.length];
+            try {
+                for (int i = 0; i < sqls.length; i++) {
+                    statements[i] = connection.prepareStatement(sqls[i]);
+                }
+                for (long row = 0; row < count; row++) {
+                    writer.write(statements, row);
+                    if ((row + 1) % batchSize == 0 || row == count - 1) {
+                        for (PreparedStatement statement : statements) {
+                            statement.executeBatch();
+                        }
+                        connection.commit();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                for (PreparedStatement statement : statements) {
+                    if (statement != null) {
+                        statement.close();
+                    }
+                }
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(\"id\") FROM \"" + table + "\"", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    // Les IDs ayant été fournis explicitement, la prochaine insertion JPA doit repartir après le dernier
+    private void restartIdentity(String table, long lastId) {
+        jdbcTemplate.execute("ALTER TABLE \"" + table + "\" ALTER COLUMN \"id\" RESTART WITH " + (lastId + 1));
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement[] statements, long row) throws SQLException;
+    }
+
+    /**
+     * Livres portant un emprunt en cours : le k-ième emprunt actif porte sur le livre (k * pas) mod n,
+     * avec un pas premier avec n, ce qui donne des livres distincts répartis dans tout le catalogue.
+     * L'appartenance se teste par l'inverse modulaire du pas, sans stocker l'ensemble.
+     */
+    private static final class ActiveBooks {
+
+        private final long books;
+        private final long activeCount;
+        private final long stride;
+        private final long inverse;
+
+        ActiveBooks(long books, long activeCount) {
+            this.books = books;
+            this.activeCount = activeCount;
+            long candidate = Math.max(1, (long) (books * 0.618));
+            while (books > 1 && BigInteger.valueOf(candidate).gcd(BigInteger.valueOf(books)).longValue() != 1) {
+                candidate++;
+            }
+            this.stride = books > 1 ? candidate % books : 0;
+            this.inverse = books > 1 ? BigInteger.valueOf(stride).modInverse(BigInteger.valueOf(books)).longValue() : 0;
+        }
+
+        long bookAt(long active) {
+            return books > 1 ? (active * stride) % books : 0;
+        }
+
+        boolean contains(long book) {
+            long rank = books > 1 ? (book * inverse) % books : 0;
+            return rank < activeCount;
+        }
+    }
+}
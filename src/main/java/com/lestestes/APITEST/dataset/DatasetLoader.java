@@ -0,0 +1,31 @@
+package com.lestestes.APITEST.dataset;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Génère le jeu de données synthétique au démarrage lorsque dataset.enabled=true
+ * (avant la construction de l'index de recherche, qui inclut donc les livres générés).
+ * Exemple : java -jar APITEST.jar --dataset.enabled=true --dataset.scale=0.01
+ */
+@Component
+@ConditionalOnProperty(prefix = "dataset", name = "enabled", havingValue = "true")
+public class DatasetLoader implements ApplicationRunner {
+
+    private final DatasetGenerator datasetGenerator;
+    private final DatasetProperties datasetProperties;
+
+    @Autowired
+    public DatasetLoader(DatasetGenerator datasetGenerator, DatasetProperties datasetProperties) {
+        this.datasetGenerator = datasetGenerator;
+        this.datasetProperties = datasetProperties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        datasetGenerator.generate(datasetProperties);
+    }
+}
@@ -0,0 +1,66 @@
+package com.lestestes.APITEST.dataset;
+
+import java.time.LocalDate;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Paramètres du jeu de données synthétique (préfixe "dataset").
+ * Les volumes par défaut correspondent à une bibliothèque en production ; "scale" permet de les réduire
+ * (ex. dataset.scale=0.001 pour 10 000 livres) sans changer les proportions.
+ */
+@Component
+@ConfigurationProperties(prefix = "dataset")
+@Data
+@NoArgsConstructor
+public class DatasetProperties {
+
+    // Générer le jeu de données au démarrage de l'application
+    private boolean enabled = false;
+
+    // Graine : deux générations avec la même graine et les mêmes volumes produisent les mêmes lignes
+    private long seed = 42;
+
+    // Facteur appliqué à tous les volumes
+    private double scale = 1.0;
+
+    private int categories = 200;
+    private int authors = 500_000;
+    private int books = 10_000_000;
+    private int members = 1_000_000;
+    private long loans = 50_000_000;
+
+    // Asymétrie (exposant de Zipf) : quelques auteurs, catégories, livres et membres concentrent l'activité
+    private double authorSkew = 1.0;
+    private double categorySkew = 1.1;
+    private double bookPopularitySkew = 0.9;
+    private double memberActivitySkew = 0.8;
+
+    // Part des emprunts encore en cours, et part de ceux-ci en retard
+    private double activeLoanRatio = 0.02;
+    private double overdueRatio = 0.15;
+
+    // Date de référence des emprunts (aujourd'hui si absente)
+    private LocalDate referenceDate;
+
+    // Nombre de lignes par lot JDBC (un commit par lot)
+    private int batchSize = 10_000;
+
+    public DatasetProperties(long seed, int books, int members, long loans) {
+        this.seed = seed;
+        this.books = books;
+        this.members = members;
+        this.loans = loans;
+        this.authors = Math.max(1, books / 20);
+        this.categories = Math.max(1, Math.min(200, books / 50));
+    }
+
+    // Volume effectif après application du facteur d'échelle
+    long scaled(long count) {
+        return count == 0 ? 0 : Math.max(1, Math.round(count * scale));
+    }
+}
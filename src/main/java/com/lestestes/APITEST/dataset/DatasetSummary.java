@@ -0,0 +1,29 @@
+package com.lestestes.APITEST.dataset;
+
+/**
+ * Bilan d'une génération : plages d'IDs créées (contiguës) et durée.
+ */
+public record DatasetSummary(
+        long firstCategoryId, long categoryCount,
+        long firstAuthorId, long authorCount,
+        long firstBookId, long bookCount,
+        long firstMemberId, long memberCount,
+        long firstLoanId, long loanCount,
+        long activeLoanCount,
+        long elapsedMillis) {
+
+    // ID du i-ème livre généré (0 <= i < bookCount)
+    public long bookId(long index) {
+        return firstBookId + index;
+    }
+
+    // ID du i-ème membre généré (0 <= i < memberCount)
+    public long memberId(long index) {
+        return firstMemberId + index;
+    }
+
+    // Nombre total de lignes insérées (hors table d'association livre-auteur)
+    public long totalRows() {
+        return categoryCount + authorCount + bookCount + memberCount + loanCount;
+    }
+}
@@ -0,0 +1,29 @@
+package com.lestestes.APITEST.dataset;
+
+import java.util.SplittableRandom;
+
+/**
+ * Tirage d'un rang entre 0 et n-1 selon une loi de Zipf (approximation continue, inversion de la
+ * fonction de répartition) : le rang 0 est le plus fréquent. Mémoire constante quel que soit n.
+ */
+final class ZipfSampler {
+
+    private final long n;
+    private final double exponent;
+    private final double span;
+
+    ZipfSampler(long n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Le nombre d'éléments doit etre positif");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.span = exponent == 1.0 ? Math.log(n + 1.0) : Math.pow(n + 1.0, 1 - exponent) - 1;
+    }
+
+    long sample(SplittableRandom random) {
+        double u = random.nextDouble();
+        double x = exponent == 1.0 ? Math.exp(u * span) : Math.pow(span * u + 1, 1 / (1 - exponent));
+        return Math.min(n - 1, Math.max(0, (long) x - 1));
+    }
+}
@@ -0,0 +1,19 @@
+package com.lestestes.APITEST.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de livres disponibles pour l'emprunt, dans tout le catalogue ou dans une catégorie.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityCount {
+
+    // Catégorie comptée (null : tout le catalogue)
+    private Long categoryId;
+    private long books;
+    private long available;
+}
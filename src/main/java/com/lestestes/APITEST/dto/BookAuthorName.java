@@ -0,0 +1,17 @@
+package com.lestestes.APITEST.dto;
+
+/**
+ * Projection d'une ligne (livre, auteur) utilisée pour compléter les noms d'auteurs des résumés de livres.
+ */
+public interface BookAuthorName {
+
+    Long getBookId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    default String getFullName() {
+        return getFirstName() + " " + getLastName();
+    }
+}
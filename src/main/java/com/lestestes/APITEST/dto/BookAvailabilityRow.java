@@ -0,0 +1,13 @@
+package com.lestestes.APITEST.dto;
+
+/**
+ * Projection (ID, catégorie, disponibilité) d'un livre, utilisée pour construire l'index de disponibilité.
+ */
+public interface BookAvailabilityRow {
+
+    Long getId();
+
+    Long getCategoryId();
+
+    Boolean getAvailable();
+}
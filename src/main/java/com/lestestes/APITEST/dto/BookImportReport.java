@@ -0,0 +1,42 @@
+package com.lestestes.APITEST.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bilan d'un import en masse : nombre de lignes reçues, importées et rejetées,
+ * avec le motif de rejet de chaque ligne (numérotées à partir de 1 dans l'ordre du fichier).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportReport {
+
+    private int received;
+    private int imported;
+    private int rejected;
+    private long elapsedMillis;
+    private List<RowError> errors = new ArrayList<>();
+
+    // Enregistrer le rejet d'une ligne
+    public void reject(int row, String isbn, String message) {
+        rejected++;
+        errors.add(new RowError(row, isbn, message));
+    }
+
+    /**
+     * Motif de rejet d'une ligne.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row;
+        private String isbn;
+        private String message;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ligne d'un import en masse de livres (élément du tableau JSON ou ligne CSV).
+ * La catégorie est désignée par son ID ou par son nom ; les auteurs par leurs IDs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRow {
+
+    @NotBlank(message = "Le titre est obligatoire")
+    private String title;
+
+    @NotBlank(message = "L'ISBN est obligatoire")
+    private String isbn;
+
+    @Size(max = 1000, message = "La description ne doit pas dépasser 1000 caractères")
+    private String description;
+
+    @Positive(message = "Le nombre de pages doit etre positif")
+    private Integer pageCount;
+
+    @PastOrPresent(message = "La date de publication ne peut pas etre dans le futur")
+    private LocalDate publishDate;
+
+    private Long categoryId;
+    private String categoryName;
+    private List<Long> authorIds = new ArrayList<>();
+    private String language;
+    private String publisher;
+    private String coverImageUrl;
+
+    @AssertTrue(message = "La categorie est obligatoire")
+    private boolean isCategorySpecified() {
+        return categoryId != null || (categoryName != null && !categoryName.isBlank());
+    }
+}
@@ -0,0 +1,13 @@
+package com.lestestes.APITEST.dto;
+
+/**
+ * Projection des champs d'un livre indexés par la recherche plein texte (hors auteurs).
+ */
+public interface BookSearchRow {
+
+    Long getId();
+
+    String getTitle();
+
+    String getPublisher();
+}
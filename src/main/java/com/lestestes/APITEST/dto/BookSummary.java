@@ -0,0 +1,48 @@
+package com.lestestes.APITEST.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.model.Book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vue allégée d'un livre pour les listes et la recherche.
+ * Les colonnes sont sélectionnées directement en JPQL, sans hydrater l'entité Book.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSummary {
+
+    private Long id;
+    private String title;
+    private String isbn;
+    private boolean available;
+    private String categoryName;
+    private List<String> authorNames = new ArrayList<>();
+
+    // Constructeur utilisé par les requêtes JPQL (les auteurs sont complétés par une seconde requête)
+    public BookSummary(Long id, String title, String isbn, boolean available, String categoryName) {
+        this.id = id;
+        this.title = title;
+        this.isbn = isbn;
+        this.available = available;
+        this.categoryName = categoryName;
+    }
+
+    // Résumé d'un livre déjà chargé avec sa catégorie et ses auteurs (auteurs triés par nom puis prénom)
+    public static BookSummary of(Book book) {
+        BookSummary summary = new BookSummary(book.getId(), book.getTitle(), book.getIsbn(), book.isAvailable(),
+                book.getCategory().getName());
+        book.getAuthors().stream()
+                .sorted(Comparator.comparing(Author::getLastName).thenComparing(Author::getFirstName))
+                .forEach(author -> summary.getAuthorNames().add(author.getFirstName() + " " + author.getLastName()));
+        return summary;
+    }
+}
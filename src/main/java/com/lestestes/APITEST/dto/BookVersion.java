@@ -0,0 +1,23 @@
+package com.lestestes.APITEST.dto;
+
+/**
+ * Projection des versions dont dépend la représentation JSON d'un livre : le livre lui-même,
+ * sa catégorie et ses auteurs (nombre et somme des versions). Sert à calculer l'ETag sans charger l'entité.
+ */
+public interface BookVersion {
+
+    Long getId();
+
+    long getVersion();
+
+    long getCategoryVersion();
+
+    long getAuthorCount();
+
+    long getAuthorVersions();
+
+    // Valeur identifiant cet état du livre (change dès qu'une des versions change)
+    default String getTag() {
+        return getId() + "-" + getVersion() + "-" + getCategoryVersion() + "-" + getAuthorCount() + "-" + getAuthorVersions();
+    }
+}
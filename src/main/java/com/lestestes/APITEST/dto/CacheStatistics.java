@@ -0,0 +1,40 @@
+package com.lestestes.APITEST.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compteurs du cache de second niveau Hibernate depuis le démarrage (ou la dernière remise à zéro) :
+ * totaux des entités, du cache de requêtes et détail par région.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+
+    private long hits;
+    private long misses;
+    private long puts;
+    private double hitRatio;
+    private long queryHits;
+    private long queryMisses;
+    private long queryPuts;
+    private List<RegionStatistics> regions = new ArrayList<>();
+
+    /**
+     * Compteurs d'une région (une par entité en cache, plus celle des résultats de requêtes).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionStatistics {
+        private String name;
+        private long hits;
+        private long misses;
+        private long puts;
+    }
+}
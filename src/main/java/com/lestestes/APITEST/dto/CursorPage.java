@@ -0,0 +1,67 @@
+package com.lestestes.APITEST.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Page de résultats paginée par curseur (keyset sur l'ID).
+ * Le curseur est opaque pour le client : il suffit de le renvoyer dans le paramètre "after"
+ * pour obtenir la page suivante. Un curseur null signifie qu'il n'y a plus de résultats.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    // Taille de page par défaut et taille maximale autorisée
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private List<T> items;
+    private String nextCursor;
+    private int limit;
+
+    // Construire une page à partir des lignes lues (la requête en lit limit + 1 pour savoir s'il existe une suite)
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idExtractor) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null, limit);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, encodeCursor(idExtractor.apply(items.get(limit - 1))), limit);
+    }
+
+    // Borner la taille de page demandée par le client
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("La taille de page doit etre positive");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    // Encoder un ID en curseur opaque
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Décoder un curseur ; l'absence de curseur correspond au début de la liste
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide : " + cursor);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+
+import com.lestestes.APITEST.model.BookLoan;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Emprunt affiché sur le tableau de bord d'un membre, avec le résumé du livre emprunté.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardLoan {
+
+    private Long id;
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private boolean returned;
+    private boolean overdue;
+    private BookSummary book;
+
+    // Ligne construite à partir d'un emprunt chargé avec son livre, sa catégorie et ses auteurs
+    public static DashboardLoan of(BookLoan loan, LocalDate today) {
+        return new DashboardLoan(loan.getId(), loan.getBorrowDate(), loan.getDueDate(), loan.getReturnDate(),
+                loan.isReturned(), loan.isOverdueOn(today), BookSummary.of(loan.getBook()));
+    }
+}
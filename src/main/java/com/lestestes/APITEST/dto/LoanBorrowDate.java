@@ -0,0 +1,15 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection (ID, livre, date d'emprunt) d'un emprunt, utilisée pour alimenter le classement des livres populaires.
+ */
+public interface LoanBorrowDate {
+
+    Long getId();
+
+    Long getBookId();
+
+    LocalDate getBorrowDate();
+}
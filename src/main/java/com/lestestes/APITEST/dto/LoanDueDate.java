@@ -0,0 +1,13 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection (ID, date de retour prévue) d'un emprunt en cours, utilisée pour construire l'index des retards.
+ */
+public interface LoanDueDate {
+
+    Long getId();
+
+    LocalDate getDueDate();
+}
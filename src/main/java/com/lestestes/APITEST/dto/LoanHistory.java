@@ -0,0 +1,24 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bilan des emprunts d'un membre, calculé en SQL (COUNT / SUM / MIN / MAX) sans lire les emprunts eux-mêmes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanHistory {
+
+    private long totalLoans;
+    private long activeLoans;
+    private long overdueLoans;
+    // Emprunts rendus après leur date de retour prévue
+    private long lateReturns;
+    private LocalDate firstBorrowDate;
+    private LocalDate lastBorrowDate;
+}
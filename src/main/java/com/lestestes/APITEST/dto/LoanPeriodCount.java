@@ -0,0 +1,36 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compteurs des emprunts commencés pendant une période (jour, semaine ou mois), calculés en SQL par GROUP BY.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanPeriodCount {
+
+    // Premier jour de la période
+    private LocalDate periodStart;
+    private long loans;
+    private long returned;
+    // Emprunts rendus après leur date de retour prévue
+    private long lateReturns;
+    // Emprunts en cours dont la date de retour prévue est dépassée
+    private long overdue;
+    // Somme des durées des emprunts rendus, en jours (sert au calcul de la durée moyenne)
+    @JsonIgnore
+    private long returnedLoanDays;
+
+    // Ajouter les compteurs d'une autre période (regroupement des jours en semaines ou en mois)
+    public LoanPeriodCount add(LoanPeriodCount other) {
+        return new LoanPeriodCount(periodStart, loans + other.loans, returned + other.returned,
+                lateReturns + other.lateReturns, overdue + other.overdue, returnedLoanDays + other.returnedLoanDays);
+    }
+}
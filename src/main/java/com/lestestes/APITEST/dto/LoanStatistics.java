@@ -0,0 +1,42 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistiques des emprunts commencés entre deux dates, agrégées par la base : totaux, taux de retour,
+ * durée moyenne, série par période et classements (livres et membres sur la fin de la période). La taille de la réponse ne dépend pas du nombre d'emprunts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStatistics {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private StatisticsGranularity granularity;
+    private long totalLoans;
+    private long returnedLoans;
+    private long activeLoans;
+    private long overdueLoans;
+    private long lateReturns;
+    // Part des emprunts de la période déjà rendus (0 sans emprunt)
+    private double returnRate;
+    // Part des emprunts rendus qui l'ont été à temps (0 sans retour)
+    private double onTimeReturnRate;
+    // Durée moyenne des emprunts rendus, en jours (null sans retour)
+    private Double averageLoanDays;
+    // Périodes contenant au moins un emprunt, par date croissante
+    private List<LoanPeriodCount> periods = new ArrayList<>();
+    // Premier jour des classements des livres et des membres : au plus les 92 derniers jours de la période
+    // (les catégories sont classées sur toute la période)
+    private LocalDate rankingStartDate;
+    private List<RankedCount> topBooks = new ArrayList<>();
+    private List<RankedCount> topCategories = new ArrayList<>();
+    private List<RankedCount> busiestMembers = new ArrayList<>();
+}
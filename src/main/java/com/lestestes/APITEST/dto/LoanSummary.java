@@ -0,0 +1,27 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vue allégée d'un emprunt : identifiants et libellés du livre et du membre au lieu des entités complètes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanSummary {
+
+    private Long id;
+    private Long bookId;
+    private String bookTitle;
+    private Long memberId;
+    private String memberFirstName;
+    private String memberLastName;
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private boolean returned;
+}
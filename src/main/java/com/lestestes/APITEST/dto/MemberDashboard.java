@@ -0,0 +1,32 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tableau de bord d'un membre : identité, bilan de ses emprunts, emprunts en cours et derniers retours,
+ * avec les résumés des livres concernés. Remplace les appels successifs au membre, à ses emprunts et à chaque livre.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberDashboard {
+
+    private MemberSummary member;
+    private LoanHistory history;
+    private List<DashboardLoan> activeLoans = new ArrayList<>();
+    private List<DashboardLoan> recentReturns = new ArrayList<>();
+
+    // Constructeur utilisé par la requête JPQL du membre et de son bilan (les emprunts sont complétés par une seconde requête)
+    public MemberDashboard(Long id, String firstName, String lastName, String email, boolean active,
+            Long totalLoans, Long activeLoans, Long overdueLoans, Long lateReturns,
+            LocalDate firstBorrowDate, LocalDate lastBorrowDate) {
+        this.member = new MemberSummary(id, firstName, lastName, email, active);
+        this.history = new LoanHistory(totalLoans, activeLoans, overdueLoans, lateReturns, firstBorrowDate, lastBorrowDate);
+    }
+}
@@ -0,0 +1,20 @@
+package com.lestestes.APITEST.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vue allégée d'un membre pour les listes et la recherche (sans ses emprunts).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberSummary {
+
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private boolean active;
+}
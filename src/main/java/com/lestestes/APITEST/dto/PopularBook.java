@@ -0,0 +1,18 @@
+package com.lestestes.APITEST.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Livre du classement des plus empruntés : résumé du livre et nombre d'emprunts sur la fenêtre demandée.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularBook {
+
+    private BookSummary book;
+    // Estimation par Count-Min Sketch : jamais inférieure au nombre exact, exacte en l'absence de collision
+    private long loans;
+}
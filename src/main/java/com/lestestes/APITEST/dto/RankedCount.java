@@ -0,0 +1,18 @@
+package com.lestestes.APITEST.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ligne d'un classement des statistiques d'emprunt (livre, catégorie ou membre) : identifiant, libellé et nombre d'emprunts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankedCount {
+
+    private Long id;
+    private String name;
+    private long loans;
+}
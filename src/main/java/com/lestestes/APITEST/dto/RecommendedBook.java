@@ -0,0 +1,18 @@
+package com.lestestes.APITEST.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Livre recommandé à partir d'un autre : résumé du livre et nombre de membres ayant emprunté les deux.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendedBook {
+
+    private BookSummary book;
+    // Membres ayant emprunté les deux livres (parmi leurs livres les plus récents)
+    private long members;
+}
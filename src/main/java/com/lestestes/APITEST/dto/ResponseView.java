@@ -0,0 +1,24 @@
+package com.lestestes.APITEST.dto;
+
+/**
+ * Niveau de détail demandé par le client via le paramètre "view" des listes.
+ * Par défaut les listes renvoient des résumés ; "view=full" renvoie les entités complètes.
+ */
+public enum ResponseView {
+
+    SUMMARY,
+    FULL;
+
+    // Convertir la valeur du paramètre (insensible à la casse)
+    public static ResponseView from(String value) {
+        if (value == null || value.isBlank()) {
+            return SUMMARY;
+        }
+        for (ResponseView view : values()) {
+            if (view.name().equalsIgnoreCase(value.trim())) {
+                return view;
+            }
+        }
+        throw new IllegalArgumentException("Vue inconnue : " + value + " (valeurs possibles : summary, full)");
+    }
+}
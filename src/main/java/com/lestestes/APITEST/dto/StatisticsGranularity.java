@@ -0,0 +1,49 @@
+package com.lestestes.APITEST.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Découpage des statistiques d'emprunt dans le temps (paramètre "granularity").
+ * Sans paramètre, le découpage suit la longueur de la période : jour jusqu'à 31 jours, semaine jusqu'à 26 semaines,
+ * mois au-delà.
+ */
+public enum StatisticsGranularity {
+
+    DAY,
+    WEEK,
+    MONTH;
+
+    // Convertir la valeur du paramètre (insensible à la casse), ou choisir selon la période
+    public static StatisticsGranularity from(String value, LocalDate startDate, LocalDate endDate) {
+        if (value == null || value.isBlank()) {
+            long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+            return days <= 31 ? DAY : days <= 26 * 7 ? WEEK : MONTH;
+        }
+        for (StatisticsGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(value.trim())) {
+                return granularity;
+            }
+        }
+        throw new IllegalArgumentException("Granularité inconnue : " + value + " (valeurs possibles : day, week, month)");
+    }
+
+    // Premier jour de la période contenant la date (semaines du lundi au dimanche)
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    // Nombre de périodes couvertes par l'intervalle (bornes incluses)
+    public long periodsBetween(LocalDate startDate, LocalDate endDate) {
+        return switch (this) {
+            case DAY -> ChronoUnit.DAYS.between(startDate, endDate) + 1;
+            case WEEK -> ChronoUnit.WEEKS.between(periodStart(startDate), periodStart(endDate)) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(periodStart(startDate), periodStart(endDate)) + 1;
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.lestestes.APITEST.dto;
+
+/**
+ * Projection résumant l'état d'une table : nombre de lignes, plus grand ID et somme des versions.
+ * Toute création, suppression ou modification fait évoluer au moins l'une des trois valeurs
+ * (les versions ne font que croître), ce qui en fait la base de l'ETag d'une collection.
+ */
+public interface VersionWatermark {
+
+    long getRowCount();
+
+    long getMaxId();
+
+    long getVersionSum();
+
+    // Valeur identifiant cet état de la table
+    default String getTag() {
+        return getRowCount() + "-" + getMaxId() + "-" + getVersionSum();
+    }
+}
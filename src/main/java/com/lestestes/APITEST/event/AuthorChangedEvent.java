@@ -0,0 +1,18 @@
+package com.lestestes.APITEST.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Événement publié par AuthorService lorsqu'un auteur est modifié ou supprimé.
+ * L'index de recherche, qui indexe les noms d'auteurs, réindexe alors les livres de cet auteur
+ * après la validation de la transaction.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorChangedEvent {
+
+    private Long authorId;
+}
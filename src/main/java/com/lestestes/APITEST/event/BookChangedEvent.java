@@ -0,0 +1,32 @@
+package com.lestestes.APITEST.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Événement publié par BookService lorsqu'un livre est créé, modifié ou supprimé.
+ * Les structures en mémoire (index de recherche, ...) s'en servent pour rester synchronisées
+ * avec la base ; elles le reçoivent après la validation de la transaction.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    private Type type;
+    private Long bookId;
+
+    public static BookChangedEvent saved(Long bookId) {
+        return new BookChangedEvent(Type.SAVED, bookId);
+    }
+
+    public static BookChangedEvent deleted(Long bookId) {
+        return new BookChangedEvent(Type.DELETED, bookId);
+    }
+}
@@ -0,0 +1,19 @@
+package com.lestestes.APITEST.event;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Événement publié par l'import en masse pour chaque lot de livres inséré : un seul événement par lot
+ * plutôt qu'un BookChangedEvent par livre, pour que l'index de recherche charge le lot en deux requêtes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BooksImportedEvent {
+
+    private List<Long> bookIds;
+}
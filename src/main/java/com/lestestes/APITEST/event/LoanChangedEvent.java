@@ -0,0 +1,45 @@
+package com.lestestes.APITEST.event;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Événement publié par BookLoanService lorsqu'un emprunt est créé, prolongé ou retourné.
+ * L'index des emprunts en retard, le classement des livres populaires, l'index des co-emprunts et l'index de
+ * disponibilité des livres le reçoivent après la validation de la transaction.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanChangedEvent {
+
+    public enum Type {
+        BORROWED,
+        SAVED,
+        RETURNED
+    }
+
+    private Type type;
+    private Long loanId;
+    // Date de retour prévue (absente pour un retour)
+    private LocalDate dueDate;
+    // Livre emprunté ou rendu (renseigné pour un nouvel emprunt et pour un retour)
+    private Long bookId;
+    // Emprunteur (renseigné pour un nouvel emprunt)
+    private Long memberId;
+
+    public static LoanChangedEvent borrowed(Long loanId, Long bookId, Long memberId, LocalDate dueDate) {
+        return new LoanChangedEvent(Type.BORROWED, loanId, dueDate, bookId, memberId);
+    }
+
+    public static LoanChangedEvent saved(Long loanId, LocalDate dueDate) {
+        return new LoanChangedEvent(Type.SAVED, loanId, dueDate, null, null);
+    }
+
+    public static LoanChangedEvent returned(Long loanId, Long bookId) {
+        return new LoanChangedEvent(Type.RETURNED, loanId, null, bookId, null);
+    }
+}
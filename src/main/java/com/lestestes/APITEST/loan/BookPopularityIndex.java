@@ -0,0 +1,477 @@
+package com.lestestes.APITEST.loan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lestestes.APITEST.dto.LoanBorrowDate;
+import com.lestestes.APITEST.event.LoanChangedEvent;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Classement en mémoire des livres les plus empruntés sur une fenêtre glissante de N jours.
+ * Chaque jour a son Count-Min Sketch (compteurs approchés de tous les livres, mémoire fixe) et ses livres
+ * candidats (les plus empruntés du jour, au plus 2 x candidatesPerDay). Un classement additionne, pour les
+ * candidats des jours de la fenêtre, leurs estimations jour par jour ; il est gardé en cache et resservi
+ * tant qu'aucun emprunt n'a eu lieu ou qu'il a moins de refreshInterval.
+ * Alimenté par les nouveaux emprunts après validation ; un instantané périodique (et à l'arrêt) est relu au
+ * démarrage, puis complété par les emprunts enregistrés après lui et par ceux de la marge d'IDs qui le précède
+ * (snapshotRecountIds) absents des IDs comptés qu'il mémorise. Sans instantané, les jours de la fenêtre
+ * sont relus depuis la base. Les emprunts validés pendant une relecture sont mis de côté, puis seuls ceux
+ * qu'elle n'a pas lus sont comptés : les IDs lus sont retenus, car un emprunt reçoit son ID à l'insertion et
+ * peut être validé après un emprunt d'ID supérieur déjà lu.
+ */
+@Component
+public class BookPopularityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookPopularityIndex.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x504F5055;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final Pattern WINDOW = Pattern.compile("(\\d{1,4})\\s*([dw]?)", Pattern.CASE_INSENSITIVE);
+
+    // Fenêtre par défaut du classement, en jours
+    public static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private static final Comparator<BookCount> RANKING = Comparator
+            .comparingLong(BookCount::loans).reversed()
+            .thenComparingLong(BookCount::bookId);
+
+    private final BookLoanRepository bookLoanRepository;
+    private final BookPopularityProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Compteurs par jour (jour epoch -> compteurs), au plus maxWindowDays jours
+    private final TreeMap<Long, DayCounts> days = new TreeMap<>();
+    private final Map<Integer, Ranking> rankings = new ConcurrentHashMap<>();
+    private long lastLoanId = 0;
+    // IDs des emprunts comptés, dont au moins ceux de la marge sous lastLoanId (écrits dans l'instantané)
+    private Roaring64Bitmap countedLoans = new Roaring64Bitmap();
+    // Emprunts validés pendant la relecture en cours (null hors relecture)
+    private List<PendingLoan> pending;
+    private volatile long version = 0;
+    private volatile boolean ready = false;
+
+    @Autowired
+    public BookPopularityIndex(BookLoanRepository bookLoanRepository, BookPopularityProperties properties,
+            PlatformTransactionManager transactionManager) {
+        this.bookLoanRepository = bookLoanRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Indiquer si le classement est chargé
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Convertir la fenêtre demandée ("30d", "4w" ou un nombre de jours) en jours
+    public int parseWindow(String window) {
+        if (window == null || window.isBlank()) {
+            return DEFAULT_WINDOW_DAYS;
+        }
+        Matcher matcher = WINDOW.matcher(window.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Fenêtre invalide : " + window + " (exemples : 7d, 30d, 4w)");
+        }
+        int days = Integer.parseInt(matcher.group(1)) * (matcher.group(2).equalsIgnoreCase("w") ? 7 : 1);
+        if (days < 1 || days > properties.getMaxWindowDays()) {
+            throw new IllegalArgumentException("La fenêtre doit être comprise entre 1 et "
+                    + properties.getMaxWindowDays() + " jours");
+        }
+        return days;
+    }
+
+    // Livres les plus empruntés sur les windowDays derniers jours (aujourd'hui compris)
+    public List<BookCount> top(int windowDays, int limit) {
+        return top(windowDays, limit, LocalDate.now());
+    }
+
+    List<BookCount> top(int windowDays, int limit, LocalDate today) {
+        long currentVersion = version;
+        Ranking ranking = rankings.get(windowDays);
+        if (ranking == null || !ranking.today().equals(today) || (ranking.version() != currentVersion
+                && System.nanoTime() - ranking.computedAt() >= properties.getRefreshInterval().toNanos())) {
+            ranking = compute(windowDays, today, currentVersion);
+            rankings.put(windowDays, ranking);
+        }
+        List<BookCount> books = ranking.books();
+        return books.size() <= limit ? books : books.subList(0, limit);
+    }
+
+    // Compter les nouveaux emprunts une fois la transaction validée
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.getType() == LoanChangedEvent.Type.BORROWED && event.getBookId() != null) {
+            record(event.getLoanId(), event.getBookId(), LocalDate.now(), 1);
+        }
+    }
+
+    // Compter count emprunts d'un livre à une date (mis de côté pendant une relecture de la base)
+    void record(Long loanId, long bookId, LocalDate day, int count) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null && loanId != null) {
+                pending.add(new PendingLoan(loanId, bookId, day, count));
+                return;
+            }
+            addLocked(loanId, bookId, day, count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Charger l'instantané puis les emprunts enregistrés après lui (ou toute la fenêtre sans instantané)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long start = System.nanoTime();
+        startPending();
+        try {
+            boolean restored = restoreSnapshot();
+            long replayed = readLoans(restored ? properties.getSnapshotRecountIds() : 0);
+            log.info("Classement des livres populaires chargé ({}, {} emprunts relus) en {} ms",
+                    restored ? "instantané" : "sans instantané", replayed, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            stopPending();
+        }
+    }
+
+    // Recompter toute la fenêtre depuis la base, sans instantané (emprunts écrits hors du service)
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        startPending();
+        try {
+            lock.writeLock().lock();
+            try {
+                days.clear();
+                lastLoanId = 0;
+                countedLoans = new Roaring64Bitmap();
+                version++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rankings.clear();
+            long replayed = readLoans(0);
+            log.info("Classement des livres populaires rechargé depuis la base ({} emprunts relus) en {} ms",
+                    replayed, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            stopPending();
+        }
+    }
+
+    // Instantané périodique (loan.popularity.snapshot-interval, 5 minutes par défaut)
+    @Scheduled(fixedDelayString = "${loan.popularity.snapshot-interval:PT5M}",
+            initialDelayString = "${loan.popularity.snapshot-interval:PT5M}")
+    public void scheduledSnapshot() {
+        if (ready && !properties.getSnapshotFile().isBlank()) {
+            snapshot(Path.of(properties.getSnapshotFile()));
+        }
+    }
+
+    // Dernier instantané à l'arrêt de l'application
+    @PreDestroy
+    public void shutdown() {
+        scheduledSnapshot();
+    }
+
+    // Écrire l'instantané (fichier temporaire puis renommage : un instantané lu est toujours complet)
+    void snapshot(Path file) {
+        Map<Long, DayCounts> copy = new TreeMap<>();
+        long snapshotLoanId;
+        Roaring64Bitmap recountedLoans;
+        lock.readLock().lock();
+        try {
+            days.forEach((day, counts) -> copy.put(day, counts.copy()));
+            snapshotLoanId = lastLoanId;
+            recountedLoans = recentLoans(snapshotLoanId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(snapshotLoanId);
+                recountedLoans.serialize(out);
+                out.writeInt(copy.size());
+                for (Map.Entry<Long, DayCounts> entry : copy.entrySet()) {
+                    CountMinSketch sketch = entry.getValue().sketch();
+                    out.writeLong(entry.getKey());
+                    out.writeInt(sketch.width());
+                    out.writeInt(sketch.depth());
+                    for (int counter : sketch.counters()) {
+                        out.writeInt(counter);
+                    }
+                    out.writeInt(entry.getValue().candidates().size());
+                    for (Map.Entry<Long, Integer> candidate : entry.getValue().candidates().entrySet()) {
+                        out.writeLong(candidate.getKey());
+                        out.writeInt(candidate.getValue());
+                    }
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture de l'instantané des livres populaires impossible : " + file, e);
+        }
+    }
+
+    // Relire l'instantané s'il existe et correspond aux paramètres ; false sinon
+    boolean restoreSnapshot() {
+        if (properties.getSnapshotFile().isBlank()) {
+            return false;
+        }
+        Path file = Path.of(properties.getSnapshotFile());
+        if (!Files.isReadable(file)) {
+            return false;
+        }
+        TreeMap<Long, DayCounts> restored = new TreeMap<>();
+        long snapshotLoanId;
+        Roaring64Bitmap recountedLoans = new Roaring64Bitmap();
+        int width = new CountMinSketch(properties.getSketchWidth(), properties.getSketchDepth()).width();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Instantané des livres populaires ignoré (format inconnu) : {}", file);
+                return false;
+            }
+            snapshotLoanId = in.readLong();
+            recountedLoans.deserialize(in);
+            int dayCount = in.readInt();
+            for (int i = 0; i < dayCount; i++) {
+                long day = in.readLong();
+                int sketchWidth = in.readInt();
+                int sketchDepth = in.readInt();
+                if (sketchWidth != width || sketchDepth != Math.max(1, properties.getSketchDepth())) {
+                    log.warn("Instantané des livres populaires ignoré (dimensions des sketches modifiées) : {}", file);
+                    return false;
+                }
+                int[] counters = new int[sketchWidth * sketchDepth];
+                for (int c = 0; c < counters.length; c++) {
+                    counters[c] = in.readInt();
+                }
+                int candidateCount = in.readInt();
+                Map<Long, Integer> candidates = new HashMap<>();
+                for (int c = 0; c < candidateCount; c++) {
+                    candidates.put(in.readLong(), in.readInt());
+                }
+                restored.put(day, new DayCounts(CountMinSketch.of(sketchWidth, sketchDepth, counters), candidates));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Instantané des livres populaires illisible, reconstruction depuis la base : {}", file, e);
+            return false;
+        }
+        long oldest = LocalDate.now().toEpochDay() - properties.getMaxWindowDays();
+        restored.headMap(oldest, true).clear();
+        lock.writeLock().lock();
+        try {
+            days.clear();
+            days.putAll(restored);
+            lastLoanId = snapshotLoanId;
+            countedLoans = recountedLoans;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    // Lire les emprunts de la fenêtre après le dernier compté moins recountIds, sauf ceux déjà comptés, puis ceux
+    // validés pendant la lecture et absents de celle-ci (IDs lus retenus dans un bitmap compressé : quelques octets
+    // par bloc d'IDs consécutifs)
+    private long readLoans(long recountIds) {
+        LocalDate since = LocalDate.now().minusDays(properties.getMaxWindowDays() - 1L);
+        long afterId;
+        lock.readLock().lock();
+        try {
+            afterId = Math.max(0, lastLoanId - recountIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[] replayed = { 0 };
+        Roaring64Bitmap read = new Roaring64Bitmap();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<LoanBorrowDate> loans = bookLoanRepository.streamBorrowDates(afterId, since)) {
+                loans.forEach(loan -> {
+                    read.addLong(loan.getId());
+                    lock.writeLock().lock();
+                    try {
+                        if (countedLoans.contains(loan.getId())) {
+                            return;
+                        }
+                        addLocked(loan.getId(), loan.getBookId(), loan.getBorrowDate(), 1);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    replayed[0]++;
+                });
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            for (PendingLoan loan : pending) {
+                if (!read.contains(loan.loanId())) {
+                    addLocked(loan.loanId(), loan.bookId(), loan.day(), loan.count());
+                }
+            }
+            pending.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return replayed[0];
+    }
+
+    private void addLocked(Long loanId, long bookId, LocalDate day, int count) {
+        long epochDay = day.toEpochDay();
+        if (!days.isEmpty() && epochDay <= days.lastKey() - properties.getMaxWindowDays()) {
+            return;
+        }
+        days.computeIfAbsent(epochDay, key -> new DayCounts(new CountMinSketch(properties.getSketchWidth(),
+                properties.getSketchDepth()), new HashMap<>())).add(bookId, count, properties.getCandidatesPerDay());
+        while (days.firstKey() <= days.lastKey() - properties.getMaxWindowDays()) {
+            days.pollFirstEntry();
+        }
+        if (loanId != null) {
+            if (loanId > lastLoanId) {
+                lastLoanId = loanId;
+            }
+            countedLoans.addLong(loanId);
+            // Ne garder que la marge sous le dernier emprunt (coût amorti : une copie toutes les marge IDs comptés)
+            if (countedLoans.getLongCardinality() > 2 * Math.max(1, properties.getSnapshotRecountIds())) {
+                countedLoans = recentLoans(lastLoanId);
+            }
+        }
+        version++;
+    }
+
+    // IDs comptés dans la marge de snapshotRecountIds sous lastId
+    private Roaring64Bitmap recentLoans(long lastId) {
+        Roaring64Bitmap recent = new Roaring64Bitmap();
+        PeekableLongIterator ids = countedLoans.getLongIteratorFrom(Math.max(0, lastId - properties.getSnapshotRecountIds() + 1));
+        while (ids.hasNext()) {
+            recent.addLong(ids.next());
+        }
+        return recent;
+    }
+
+    private void startPending() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void stopPending() {
+        lock.writeLock().lock();
+        try {
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Calculer le classement complet d'une fenêtre (au plus candidatesPerDay livres)
+    private Ranking compute(int windowDays, LocalDate today, long currentVersion) {
+        long last = today.toEpochDay();
+        List<BookCount> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, DayCounts> window = days.subMap(last - windowDays, false, last, true);
+            Set<Long> candidates = new HashSet<>();
+            window.values().forEach(counts -> candidates.addAll(counts.candidates().keySet()));
+            for (Long bookId : candidates) {
+                long loans = 0;
+                for (DayCounts counts : window.values()) {
+                    Integer count = counts.candidates().get(bookId);
+                    loans += count != null ? count : counts.sketch().estimate(bookId);
+                }
+                books.add(new BookCount(bookId, loans));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        books.sort(RANKING);
+        int size = Math.min(books.size(), properties.getCandidatesPerDay());
+        return new Ranking(today, currentVersion, System.nanoTime(), List.copyOf(books.subList(0, size)));
+    }
+
+    /**
+     * Livre du classement et son nombre d'emprunts estimé sur la fenêtre.
+     */
+    public record BookCount(long bookId, long loans) {
+    }
+
+    /**
+     * Emprunt validé pendant une relecture, à compter après elle s'il n'a pas été lu.
+     */
+    private record PendingLoan(long loanId, long bookId, LocalDate day, int count) {
+    }
+
+    /**
+     * Classement calculé pour une fenêtre : jour de calcul, version des compteurs et instant du calcul.
+     */
+    private record Ranking(LocalDate today, long version, long computedAt, List<BookCount> books) {
+    }
+
+    /**
+     * Compteurs d'un jour : sketch de tous les livres et candidats au classement avec leur estimation.
+     * Au-delà de 2 x capacité candidats, seuls les capacité plus empruntés sont gardés.
+     */
+    private record DayCounts(CountMinSketch sketch, Map<Long, Integer> candidates) {
+
+        void add(long bookId, int count, int capacity) {
+            candidates.put(bookId, sketch.add(bookId, count));
+            if (candidates.size() > 2 * capacity) {
+                List<Map.Entry<Long, Integer>> entries = new ArrayList<>(candidates.entrySet());
+                entries.sort(Map.Entry.<Long, Integer>comparingByValue().reversed());
+                entries.subList(capacity, entries.size()).forEach(entry -> candidates.remove(entry.getKey()));
+            }
+        }
+
+        DayCounts copy() {
+            return new DayCounts(CountMinSketch.of(sketch.width(), sketch.depth(), sketch.counters()),
+                    new HashMap<>(candidates));
+        }
+    }
+}
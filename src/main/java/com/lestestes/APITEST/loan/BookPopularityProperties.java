@@ -0,0 +1,41 @@
+package com.lestestes.APITEST.loan;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Paramètres du classement des livres les plus empruntés (préfixe "loan.popularity").
+ * La mémoire occupée est bornée : maxWindowDays sketches de sketchWidth x sketchDepth compteurs, plus
+ * au plus 2 x candidatesPerDay livres suivis par jour, quel que soit le nombre de livres empruntés.
+ */
+@Component
+@ConfigurationProperties(prefix = "loan.popularity")
+@Data
+@NoArgsConstructor
+public class BookPopularityProperties {
+
+    // Plus longue fenêtre interrogeable, en jours (un sketch par jour)
+    private int maxWindowDays = 90;
+
+    // Compteurs par ligne (arrondi à une puissance de deux) et nombre de lignes de chaque sketch
+    private int sketchWidth = 4096;
+    private int sketchDepth = 4;
+
+    // Livres les plus empruntés suivis par jour : taille maximale du classement
+    private int candidatesPerDay = 256;
+
+    // Un classement déjà calculé est resservi tant qu'il a moins de cet âge, même si des emprunts ont eu lieu
+    private Duration refreshInterval = Duration.ofSeconds(5);
+
+    // Fichier de l'instantané (vide : pas d'instantané, reconstruction depuis la base au démarrage)
+    private String snapshotFile = "";
+
+    // Marge d'IDs relue sous le dernier emprunt de l'instantané au redémarrage : un emprunt d'ID inférieur validé
+    // après l'écriture de l'instantané y est compté (les IDs de la marge déjà comptés sont gardés dans l'instantané)
+    private long snapshotRecountIds = 10_000;
+}
@@ -0,0 +1,341 @@
+package com.lestestes.APITEST.loan;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.lestestes.APITEST.event.LoanChangedEvent;
+
+/**
+ * Index des co-emprunts (« les membres qui ont emprunté ce livre ont aussi emprunté ») : matrice livre x livre
+ * du nombre de membres ayant emprunté les deux, limitée aux maxBooksPerMember livres distincts les plus récents
+ * de chaque membre. La reconstruction lit les paires (membre, livre) de book_loans en un seul parcours, compte
+ * les paires de chaque tranche de membres en parallèle (fork/join) puis fusionne les tranches fragment par
+ * fragment. Chaque nouvel emprunt validé applique la même fenêtre : il ajoute ses paires avec les livres restant
+ * dans la fenêtre du membre et retire celles du livre qui en sort ; les emprunts reçus pendant une reconstruction
+ * et absents de sa lecture (IDs lus retenus, car un emprunt reçoit son ID à l'insertion et peut être validé après
+ * un emprunt d'ID supérieur) sont rejoués sur la nouvelle matrice. Une reconstruction nocturne reprend les emprunts écrits hors du service.
+ */
+@Component
+public class CoBorrowIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CoBorrowIndex.class);
+
+    private static final int FETCH_SIZE = 10_000;
+    // Tranches de membres par thread : la charge reste répartie malgré les écarts entre membres
+    private static final int SLICES_PER_THREAD = 4;
+
+    private static final String SELECT_LOANS = "SELECT \"member_id\", \"book_id\", \"id\" FROM \"book_loans\" "
+            + "ORDER BY \"member_id\", \"id\" DESC";
+    private static final String SELECT_PREVIOUS_BOOKS = "SELECT \"book_id\" FROM \"book_loans\" "
+            + "WHERE \"member_id\" = ? AND \"id\" < ? GROUP BY \"book_id\" ORDER BY MAX(\"id\") DESC FETCH FIRST ? ROWS ONLY";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CoBorrowProperties properties;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CoBorrowMatrix matrix;
+    // Emprunts comptés pendant la reconstruction en cours (null hors reconstruction)
+    private List<PendingBorrow> pending;
+    private volatile boolean ready = false;
+
+    @Autowired
+    public CoBorrowIndex(JdbcTemplate jdbcTemplate, CoBorrowProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.matrix = new CoBorrowMatrix(properties.getShards());
+    }
+
+    // Indiquer si la matrice est construite
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Livres le plus souvent empruntés par les membres ayant emprunté bookId
+    public List<CoBorrowCount> recommend(long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            return matrix.top(bookId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ajouter les paires d'un nouvel emprunt une fois la transaction validée
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.getType() != LoanChangedEvent.Type.BORROWED || event.getBookId() == null || event.getMemberId() == null) {
+            return;
+        }
+        List<Long> previousBooks = jdbcTemplate.queryForList(SELECT_PREVIOUS_BOOKS, Long.class, event.getMemberId(),
+                event.getLoanId(), window());
+        record(event.getLoanId(), event.getBookId(), previousBooks);
+    }
+
+    // Compter un emprunt de bookId avec la fenêtre du membre avant cet emprunt (ses livres distincts les plus
+    // récents, au plus maxBooksPerMember) : rien s'il y avait déjà ce livre
+    void record(long loanId, long bookId, List<Long> previousBooks) {
+        if (previousBooks.contains(bookId)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(matrix, bookId, previousBooks);
+            if (pending != null) {
+                pending.add(new PendingBorrow(loanId, bookId, previousBooks));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reconstruire la matrice depuis book_loans, au démarrage et chaque nuit (loan.recommendations.rebuild-cron)
+    @Scheduled(cron = "${loan.recommendations.rebuild-cron:0 30 3 * * *}")
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Roaring64Bitmap read = new Roaring64Bitmap();
+            Baskets baskets = loadBaskets(read);
+            long loaded = System.nanoTime();
+            CoBorrowMatrix built = build(baskets);
+
+            int replayed = 0;
+            lock.writeLock().lock();
+            try {
+                // Emprunts validés pendant la reconstruction et absents de la lecture, quel que soit leur ID
+                for (PendingBorrow borrow : pending) {
+                    if (!read.contains(borrow.loanId())) {
+                        apply(built, borrow.bookId(), borrow.previousBooks());
+                        replayed++;
+                    }
+                }
+                matrix = built;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Index des co-emprunts construit : {} membres, {} livres, {} paires comptées, {} emprunts rejoués "
+                    + "(lecture {} ms, calcul {} ms)", baskets.memberCount(), built.bookCount(), built.entryCount() / 2,
+                    replayed, (loaded - start) / 1_000_000, (System.nanoTime() - loaded) / 1_000_000);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Faire entrer bookId dans la fenêtre du membre ; si elle était pleine, son livre le plus ancien en sort
+    private void apply(CoBorrowMatrix target, long bookId, List<Long> previousBooks) {
+        int window = window();
+        List<Long> remaining = previousBooks.size() < window ? previousBooks : previousBooks.subList(0, window - 1);
+        target.addBorrow(bookId, remaining);
+        if (previousBooks.size() >= window) {
+            target.removeBorrow(previousBooks.get(window - 1), remaining);
+        }
+    }
+
+    // Nombre de livres distincts retenus par membre, le même pour la reconstruction et les emprunts
+    private int window() {
+        return Math.max(2, properties.getMaxBooksPerMember());
+    }
+
+    // Lire les livres distincts les plus récents de chaque membre, membre par membre, en retenant les IDs lus
+    // (bitmap compressé : quelques octets par bloc d'IDs consécutifs)
+    private Baskets loadBaskets(Roaring64Bitmap read) {
+        Baskets baskets = new Baskets(window());
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_LOANS);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            baskets.add(rs.getLong(1), rs.getLong(2));
+            read.addLong(rs.getLong(3));
+        });
+        baskets.finish();
+        return baskets;
+    }
+
+    // Compter les paires par tranches de membres, puis fusionner les tranches fragment par fragment
+    CoBorrowMatrix build(Baskets baskets) {
+        int shardCount = properties.getShards();
+        CoBorrowMatrix merged = new CoBorrowMatrix(shardCount);
+        if (baskets.memberCount() == 0) {
+            return merged;
+        }
+        int parallelism = properties.getParallelism() > 0 ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        int[] bounds = baskets.slices(parallelism * SLICES_PER_THREAD);
+        CoBorrowMatrix[] partials = new CoBorrowMatrix[bounds.length - 1];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RangeTask(slice -> {
+                CoBorrowMatrix partial = new CoBorrowMatrix(shardCount);
+                for (int member = bounds[slice]; member < bounds[slice + 1]; member++) {
+                    partial.addBasket(baskets.books, baskets.starts[member], baskets.starts[member + 1]);
+                }
+                partials[slice] = partial;
+            }, 0, partials.length));
+            pool.invoke(new RangeTask(shard -> merged.mergeShard(shard, partials), 0, shardCount));
+        } finally {
+            pool.shutdown();
+        }
+        return merged;
+    }
+
+    /**
+     * Livre recommandé et nombre de membres l'ayant emprunté avec le livre demandé.
+     */
+    public record CoBorrowCount(long bookId, long members) {
+    }
+
+    /**
+     * Emprunt compté pendant une reconstruction, à rejouer sur la nouvelle matrice.
+     */
+    private record PendingBorrow(long loanId, long bookId, List<Long> previousBooks) {
+    }
+
+    /**
+     * Tâche fork/join appliquant une action à chaque indice de [from, to[, par moitiés.
+     */
+    private static final class RangeTask extends RecursiveAction {
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+
+        RangeTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+            } else if (to > from) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(action, from, middle), new RangeTask(action, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Paniers des membres mis bout à bout : livres distincts de chaque membre (au plus maxBooks, du plus récent
+     * au plus ancien) dans books, début du panier du membre i dans starts[i]. Les membres d'un seul livre,
+     * sans paire, ne sont pas gardés.
+     */
+    static final class Baskets {
+
+        private final int maxBooks;
+        private long[] books = new long[1024];
+        private int[] starts = new int[256];
+        private int size = 0;
+        private int memberCount = 0;
+        private long currentMember = Long.MIN_VALUE;
+        private int currentStart = 0;
+
+        Baskets(int maxBooks) {
+            this.maxBooks = Math.max(2, maxBooks);
+        }
+
+        // Ajouter un emprunt (lus par membre, du plus récent au plus ancien)
+        void add(long memberId, long bookId) {
+            if (memberId != currentMember) {
+                closeMember();
+                currentMember = memberId;
+                currentStart = size;
+            }
+            if (size - currentStart == maxBooks) {
+                return;
+            }
+            for (int i = currentStart; i < size; i++) {
+                if (books[i] == bookId) {
+                    return;
+                }
+            }
+            if (size == books.length) {
+                books = Arrays.copyOf(books, books.length * 2);
+            }
+            books[size++] = bookId;
+        }
+
+        // Terminer la lecture
+        void finish() {
+            closeMember();
+            if (memberCount + 1 > starts.length) {
+                starts = Arrays.copyOf(starts, memberCount + 1);
+            }
+            starts[memberCount] = size;
+        }
+
+        int memberCount() {
+            return memberCount;
+        }
+
+        // Bornes de tranches de membres de coût comparable (nombre de paires), au plus sliceCount tranches
+        int[] slices(int sliceCount) {
+            long total = 0;
+            for (int member = 0; member < memberCount; member++) {
+                total += pairs(member);
+            }
+            int[] bounds = new int[Math.min(sliceCount, memberCount) + 1];
+            int slice = 1;
+            long accumulated = 0;
+            for (int member = 0; member < memberCount && slice < bounds.length - 1; member++) {
+                accumulated += pairs(member);
+                if (accumulated * (bounds.length - 1) >= total * slice) {
+                    bounds[slice++] = member + 1;
+                }
+            }
+            while (slice < bounds.length) {
+                bounds[slice++] = memberCount;
+            }
+            return bounds;
+        }
+
+        private long pairs(int member) {
+            long books = starts[member + 1] - starts[member];
+            return books * (books - 1);
+        }
+
+        private void closeMember() {
+            if (size - currentStart < 2) {
+                size = currentStart;
+                return;
+            }
+            if (memberCount + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[memberCount++] = currentStart;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.lestestes.APITEST.loan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.lestestes.APITEST.loan.CoBorrowIndex.CoBorrowCount;
+
+/**
+ * Matrice creuse et symétrique des co-emprunts : pour chaque livre, une ligne (LongIntMap) des autres livres
+ * empruntés par les mêmes membres, avec le nombre de ces membres. Les lignes sont réparties en fragments selon
+ * l'ID du livre, ce qui permet de fusionner des matrices partielles fragment par fragment, en parallèle.
+ * Non synchronisée : CoBorrowIndex en protège les accès.
+ */
+final class CoBorrowMatrix {
+
+    private static final Comparator<CoBorrowCount> RANKING = Comparator
+            .comparingLong(CoBorrowCount::members).reversed()
+            .thenComparingLong(CoBorrowCount::bookId);
+
+    private final Map<Long, LongIntMap>[] shards;
+
+    @SuppressWarnings("unchecked")
+    CoBorrowMatrix(int shardCount) {
+        if (Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Le nombre de fragments doit être une puissance de deux");
+        }
+        shards = new Map[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new HashMap<>();
+        }
+    }
+
+    // Compter les paires de livres distincts d'un membre (books[from..to[, sans doublon)
+    void addBasket(long[] books, int from, int to) {
+        for (int i = from; i < to; i++) {
+            LongIntMap row = row(books[i], to - from - 1);
+            for (int j = from; j < to; j++) {
+                if (j != i) {
+                    row.add(books[j], 1);
+                }
+            }
+        }
+    }
+
+    // Compter un nouveau livre d'un membre avec chacun des livres qu'il avait déjà empruntés
+    void addBorrow(long bookId, Collection<Long> previousBooks) {
+        LongIntMap row = row(bookId, previousBooks.size());
+        for (Long other : previousBooks) {
+            if (other != bookId) {
+                row.add(other, 1);
+                row(other, 1).add(bookId, 1);
+            }
+        }
+    }
+
+    // Retirer les paires d'un livre sorti de la fenêtre d'un membre avec les livres qui y restent
+    void removeBorrow(long bookId, Collection<Long> remainingBooks) {
+        LongIntMap row = shards[shard(bookId)].get(bookId);
+        if (row == null) {
+            return;
+        }
+        for (Long other : remainingBooks) {
+            if (other != bookId && row.get(other) > 0) {
+                row.add(other, -1);
+                decrement(other, bookId);
+            }
+        }
+        if (row.size() == 0) {
+            shards[shard(bookId)].remove(bookId);
+        }
+    }
+
+    // Fusionner le fragment shard des matrices partielles dans celle-ci (les fragments fusionnés sont vidés)
+    void mergeShard(int shard, CoBorrowMatrix[] partials) {
+        Map<Long, LongIntMap> target = shards[shard];
+        for (CoBorrowMatrix partial : partials) {
+            for (Map.Entry<Long, LongIntMap> entry : partial.shards[shard].entrySet()) {
+                LongIntMap existing = target.get(entry.getKey());
+                LongIntMap row = entry.getValue();
+                if (existing == null) {
+                    target.put(entry.getKey(), row);
+                } else if (existing.size() >= row.size()) {
+                    existing.addAll(row);
+                } else {
+                    // La plus grande ligne absorbe la plus petite
+                    row.addAll(existing);
+                    target.put(entry.getKey(), row);
+                }
+            }
+            partial.shards[shard] = Map.of();
+        }
+    }
+
+    // Nombre de fragments
+    int shardCount() {
+        return shards.length;
+    }
+
+    // Nombre de membres ayant emprunté les deux livres
+    int count(long bookId, long otherBookId) {
+        LongIntMap row = shards[shard(bookId)].get(bookId);
+        return row == null ? 0 : row.get(otherBookId);
+    }
+
+    // Livres les plus souvent empruntés avec bookId (au plus limit, sélection partielle de la ligne)
+    List<CoBorrowCount> top(long bookId, int limit) {
+        LongIntMap row = shards[shard(bookId)].get(bookId);
+        if (row == null || limit < 1) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<CoBorrowCount> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        row.forEach((other, members) -> {
+            CoBorrowCount candidate = new CoBorrowCount(other, members);
+            if (best.size() < limit) {
+                best.add(candidate);
+            } else if (RANKING.compare(candidate, best.peek()) < 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        });
+        List<CoBorrowCount> ranking = new ArrayList<>(best);
+        ranking.sort(RANKING);
+        return ranking;
+    }
+
+    // Nombre de livres ayant au moins un co-emprunt
+    int bookCount() {
+        int count = 0;
+        for (Map<Long, LongIntMap> shard : shards) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    // Nombre de cases non nulles (chaque paire compte deux fois, une par livre)
+    long entryCount() {
+        long count = 0;
+        for (Map<Long, LongIntMap> shard : shards) {
+            for (LongIntMap row : shard.values()) {
+                count += row.size();
+            }
+        }
+        return count;
+    }
+
+    private void decrement(long bookId, long otherBookId) {
+        LongIntMap row = shards[shard(bookId)].get(bookId);
+        if (row != null && row.get(otherBookId) > 0 && row.add(otherBookId, -1) == 0 && row.size() == 0) {
+            shards[shard(bookId)].remove(bookId);
+        }
+    }
+
+    private LongIntMap row(long bookId, int expectedSize) {
+        return shards[shard(bookId)].computeIfAbsent(bookId, id -> new LongIntMap(expectedSize));
+    }
+
+    private int shard(long bookId) {
+        long hash = bookId * 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash >>> 32) & (shards.length - 1);
+    }
+}
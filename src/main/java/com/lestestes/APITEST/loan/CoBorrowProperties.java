@@ -0,0 +1,28 @@
+package com.lestestes.APITEST.loan;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Paramètres des recommandations par co-emprunt (préfixe "loan.recommendations").
+ * Le coût d'un membre croît avec le carré du nombre de livres retenus pour lui : maxBooksPerMember borne
+ * le temps de reconstruction et la taille de la matrice, quel que soit l'historique des plus gros lecteurs.
+ */
+@Component
+@ConfigurationProperties(prefix = "loan.recommendations")
+@Data
+@NoArgsConstructor
+public class CoBorrowProperties {
+
+    // Livres distincts les plus récents retenus par membre
+    private int maxBooksPerMember = 200;
+
+    // Threads de la reconstruction (0 : un par processeur)
+    private int parallelism = 0;
+
+    // Fragments de la matrice, fusionnés indépendamment (puissance de deux)
+    private int shards = 64;
+}
@@ -0,0 +1,88 @@
+package com.lestestes.APITEST.loan;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch : compteurs approchés d'un nombre quelconque de clés dans une mémoire fixe (depth lignes de
+ * width compteurs). Chaque clé incrémente un compteur par ligne ; l'estimation est le plus petit des depth
+ * compteurs, jamais inférieure au nombre exact. Mise à jour conservatrice : seuls les compteurs qui restent sous
+ * la nouvelle estimation sont relevés, ce qui réduit la surestimation due aux collisions.
+ * Les fonctions de hachage sont fixes, ce qui permet de relire un instantané après redémarrage.
+ */
+final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+
+    // width est arrondi à la puissance de deux supérieure
+    CountMinSketch(int width, int depth) {
+        this(Integer.highestOneBit(Math.max(2, width) * 2 - 1), Math.max(1, depth), null);
+    }
+
+    private CountMinSketch(int width, int depth, int[] counters) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = counters != null ? counters : new int[width * depth];
+    }
+
+    // Recréer un sketch à partir de ses compteurs (instantané)
+    static CountMinSketch of(int width, int depth, int[] counters) {
+        if (Integer.bitCount(width) != 1 || depth < 1 || counters.length != width * depth) {
+            throw new IllegalArgumentException("Dimensions de sketch invalides : " + width + " x " + depth);
+        }
+        return new CountMinSketch(width, depth, counters);
+    }
+
+    int width() {
+        return width;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    // Copie des compteurs (instantané)
+    int[] counters() {
+        return Arrays.copyOf(counters, counters.length);
+    }
+
+    // Ajouter count occurrences de la clé et renvoyer sa nouvelle estimation
+    int add(long key, int count) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[slot(key, row)]);
+        }
+        int updated = (int) Math.min(Integer.MAX_VALUE, (long) estimate + count);
+        for (int row = 0; row < depth; row++) {
+            int slot = slot(key, row);
+            if (counters[slot] < updated) {
+                counters[slot] = updated;
+            }
+        }
+        return updated;
+    }
+
+    // Estimation du nombre d'occurrences de la clé (borne supérieure)
+    int estimate(long key) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[slot(key, row)]);
+        }
+        return estimate;
+    }
+
+    private int slot(long key, int row) {
+        return row * width + (int) (mix(key + (row + 1) * 0x9E3779B97F4A7C15L) & (width - 1));
+    }
+
+    // Finaliseur de MurmurHash3 : mélange les bits de la clé
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB93FE1A85A53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
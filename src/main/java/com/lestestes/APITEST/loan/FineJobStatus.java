@@ -0,0 +1,19 @@
+package com.lestestes.APITEST.loan;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * État du calcul des amendes : point de reprise enregistré (date traitée, dernier emprunt validé,
+ * compteurs cumulés) et exécution en cours ou non.
+ */
+public record FineJobStatus(
+        boolean running,
+        LocalDate runDate,
+        String status,
+        long lastLoanId,
+        long processed,
+        long fined,
+        long notified,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,205 @@
+package com.lestestes.APITEST.loan;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lestestes.APITEST.dto.LoanPeriodCount;
+import com.lestestes.APITEST.dto.RankedCount;
+import com.lestestes.APITEST.model.BookLoan;
+
+/**
+ * Agrégat quotidien des emprunts par catégorie (table loan_daily_rollup) : une ligne par jour d'emprunt et par
+ * catégorie, avec les emprunts créés ce jour-là, ceux déjà rendus, les retours en retard et la durée cumulée des
+ * emprunts rendus. Chaque emprunt et chaque retour ajoute, dans sa transaction, une ligne de compteurs à
+ * loan_rollup_deltas au lieu de mettre à jour la ligne (jour, catégorie) : les emprunts concurrents d'une même
+ * catégorie ne se bloquent pas jusqu'à leur validation. Le compactage périodique additionne ces lignes dans
+ * loan_daily_rollup ; les lectures somment les deux tables et restent exactes entre deux compactages. Les emprunts
+ * écrits sans passer par le service (jeu de données, scripts SQL) sont repris par la réconciliation, au démarrage et
+ * chaque nuit, qui reconstruit la table si ses totaux par catégorie ne correspondent plus à book_loans. La
+ * réconciliation et la reconstruction lisent un instantané unique des tables : un emprunt écrit son prêt et sa ligne
+ * de compteurs dans la même transaction, il y est donc compté une fois, par l'un ou par l'autre. Un emprunt
+ * est rangé dans la catégorie actuelle de son livre : si elle change entre l'emprunt et le retour, les deux sont
+ * comptés dans des catégories différentes jusqu'à la réconciliation suivante, qui range tout dans la nouvelle.
+ */
+@Component
+public class LoanDailyRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanDailyRollup.class);
+
+    private static final String UPDATE_ROW = "UPDATE \"loan_daily_rollup\" SET \"loans\" = \"loans\" + ?, "
+            + "\"returned\" = \"returned\" + ?, \"lateReturns\" = \"lateReturns\" + ?, "
+            + "\"returnedLoanDays\" = \"returnedLoanDays\" + ? WHERE \"day\" = ? AND \"category_id\" = ?";
+    private static final String INSERT_ROW = "INSERT INTO \"loan_daily_rollup\" (\"loans\", \"returned\", \"lateReturns\", "
+            + "\"returnedLoanDays\", \"day\", \"category_id\") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DELTA = "INSERT INTO \"loan_rollup_deltas\" (\"loans\", \"returned\", "
+            + "\"lateReturns\", \"returnedLoanDays\", \"day\", \"category_id\") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_DELTAS = "SELECT \"id\", \"loans\", \"returned\", \"lateReturns\", "
+            + "\"returnedLoanDays\", \"day\", \"category_id\" FROM \"loan_rollup_deltas\"";
+    private static final String DELETE_DELTA = "DELETE FROM \"loan_rollup_deltas\" WHERE \"id\" = ?";
+    // Lignes de l'agrégat et compteurs pas encore compactés, à sommer par jour ou par catégorie
+    private static final String COUNTERS = "(SELECT \"day\", \"category_id\", \"loans\", \"returned\", "
+            + "\"lateReturns\", \"returnedLoanDays\" FROM \"loan_daily_rollup\" UNION ALL "
+            + "SELECT \"day\", \"category_id\", \"loans\", \"returned\", \"lateReturns\", \"returnedLoanDays\" "
+            + "FROM \"loan_rollup_deltas\")";
+    private static final String REBUILD = "INSERT INTO \"loan_daily_rollup\" (\"day\", \"category_id\", \"loans\", "
+            + "\"returned\", \"lateReturns\", \"returnedLoanDays\") "
+            + "SELECT bl.\"borrowDate\", b.\"category_id\", COUNT(*), "
+            + "SUM(CASE WHEN bl.\"returned\" THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN bl.\"returned\" AND bl.\"returnDate\" > bl.\"dueDate\" THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN bl.\"returned\" THEN DATEDIFF('DAY', bl.\"borrowDate\", bl.\"returnDate\") ELSE 0 END) "
+            + "FROM \"book_loans\" bl JOIN \"books\" b ON b.\"id\" = bl.\"book_id\" "
+            + "GROUP BY bl.\"borrowDate\", b.\"category_id\"";
+    // Première lecture d'une transaction instantanée : H2 fige l'état de chaque table à sa première lecture,
+    // celle-ci fixe ensemble l'agrégat, les compteurs en attente et les emprunts
+    private static final String OPEN_SNAPSHOT = "SELECT (SELECT COUNT(*) FROM \"loan_daily_rollup\"), "
+            + "(SELECT COUNT(*) FROM \"loan_rollup_deltas\"), (SELECT COUNT(*) FROM \"book_loans\"), "
+            + "(SELECT COUNT(*) FROM \"books\")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate rebuildTransaction;
+    private final TransactionTemplate snapshotTransaction;
+
+    @Autowired
+    public LoanDailyRollup(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    // Compter un nouvel emprunt (dans la transaction de l'emprunt, reporté dans l'agrégat au prochain compactage)
+    public void recordBorrow(BookLoan loan) {
+        jdbcTemplate.update(INSERT_DELTA, 1, 0, 0, 0, Date.valueOf(loan.getBorrowDate()), loan.getBook().getCategory().getId());
+    }
+
+    // Compter le retour d'un emprunt (dans la transaction du retour, reporté dans l'agrégat au prochain compactage)
+    public void recordReturn(BookLoan loan, LocalDate returnDate) {
+        jdbcTemplate.update(INSERT_DELTA, 0, 1, returnDate.isAfter(loan.getDueDate()) ? 1 : 0,
+                ChronoUnit.DAYS.between(loan.getBorrowDate(), returnDate), Date.valueOf(loan.getBorrowDate()),
+                loan.getBook().getCategory().getId());
+    }
+
+    // Compteurs par jour d'emprunt entre deux dates, toutes catégories confondues (sans les retards en cours)
+    public List<LoanPeriodCount> countByDay(LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query("SELECT \"day\", SUM(\"loans\"), SUM(\"returned\"), SUM(\"lateReturns\"), "
+                + "SUM(\"returnedLoanDays\") FROM " + COUNTERS + " r WHERE \"day\" BETWEEN ? AND ? "
+                + "GROUP BY \"day\" ORDER BY \"day\"",
+                (rs, rowNum) -> new LoanPeriodCount(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3),
+                        rs.getLong(4), 0, rs.getLong(5)),
+                Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    // Catégories les plus empruntées entre deux dates
+    public List<RankedCount> findTopCategories(LocalDate startDate, LocalDate endDate, int limit) {
+        return jdbcTemplate.query("SELECT c.\"id\", c.\"name\", SUM(r.\"loans\") AS \"loans\" "
+                + "FROM " + COUNTERS + " r JOIN \"categories\" c ON c.\"id\" = r.\"category_id\" "
+                + "WHERE r.\"day\" BETWEEN ? AND ? GROUP BY c.\"id\", c.\"name\" "
+                + "ORDER BY \"loans\" DESC, c.\"id\" FETCH FIRST ? ROWS ONLY",
+                (rs, rowNum) -> new RankedCount(rs.getLong(1), rs.getString(2), rs.getLong(3)),
+                Date.valueOf(startDate), Date.valueOf(endDate), limit);
+    }
+
+    // Réconciliation planifiée (loan.rollup.cron, 2 h par défaut) et au démarrage
+    @Scheduled(cron = "${loan.rollup.cron:0 0 2 * * *}")
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconcile() {
+        // Les deux totaux sont lus dans le même instantané : les emprunts validés entre-temps n'y créent pas d'écart
+        List<Map<Long, List<Long>>> totals = snapshotTransaction.execute(status -> {
+            jdbcTemplate.queryForList(OPEN_SNAPSHOT);
+            return List.of(totalsByCategory("SELECT \"category_id\", SUM(\"loans\"), SUM(\"returned\") "
+                    + "FROM " + COUNTERS + " r GROUP BY \"category_id\""),
+                    totalsByCategory("SELECT b.\"category_id\", COUNT(*), "
+                    + "COUNT(CASE WHEN bl.\"returned\" THEN 1 END) FROM \"book_loans\" bl "
+                    + "JOIN \"books\" b ON b.\"id\" = bl.\"book_id\" GROUP BY b.\"category_id\""));
+        });
+        Map<Long, List<Long>> counted = totals.get(0);
+        Map<Long, List<Long>> recorded = totals.get(1);
+        if (!counted.equals(recorded)) {
+            log.info("Agrégat quotidien des emprunts désynchronisé ({} emprunts comptés pour {} enregistrés, "
+                    + "{} catégories pour {}) : reconstruction", total(counted), total(recorded), counted.size(), recorded.size());
+            rebuild();
+        }
+    }
+
+    // Recalculer toute la table à partir de book_loans (une transaction instantanée) : les compteurs en attente
+    // supprimés sont ceux des emprunts relus ; ceux validés pendant la reconstruction restent à compacter
+    public synchronized int rebuild() {
+        return snapshotTransaction.execute(status -> {
+            jdbcTemplate.queryForList(OPEN_SNAPSHOT);
+            jdbcTemplate.update("DELETE FROM \"loan_rollup_deltas\"");
+            jdbcTemplate.update("DELETE FROM \"loan_daily_rollup\"");
+            return jdbcTemplate.update(REBUILD);
+        });
+    }
+
+    // Compactage planifié (loan.rollup.compaction-interval, chaque minute par défaut) : additionner les compteurs
+    // validés dans l'agrégat, une mise à jour par ligne (jour, catégorie), puis supprimer exactement les lignes lues
+    // (une ligne validée pendant le compactage, quel que soit son ID, attend le suivant)
+    @Scheduled(fixedDelayString = "${loan.rollup.compaction-interval:PT1M}",
+            initialDelayString = "${loan.rollup.compaction-interval:PT1M}")
+    public synchronized int compact() {
+        return rebuildTransaction.execute(status -> {
+            Map<RollupKey, long[]> totals = new HashMap<>();
+            List<Object[]> deltaIds = new ArrayList<>();
+            jdbcTemplate.query(SELECT_DELTAS, (RowCallbackHandler) rs -> {
+                deltaIds.add(new Object[] { rs.getLong(1) });
+                long[] counts = totals.computeIfAbsent(new RollupKey(rs.getDate(6).toLocalDate(), rs.getLong(7)),
+                        key -> new long[4]);
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += rs.getLong(i + 2);
+                }
+            });
+            totals.forEach((key, counts) -> add(key.day(), key.categoryId(), counts[0], counts[1], counts[2], counts[3]));
+            jdbcTemplate.batchUpdate(DELETE_DELTA, deltaIds);
+            return deltaIds.size();
+        });
+    }
+
+    // Emprunts et emprunts rendus par catégorie (catégories sans aucun compteur ignorées)
+    private Map<Long, List<Long>> totalsByCategory(String sql) {
+        Map<Long, List<Long>> totals = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            if (rs.getLong(2) != 0 || rs.getLong(3) != 0) {
+                totals.put(rs.getLong(1), List.of(rs.getLong(2), rs.getLong(3)));
+            }
+        });
+        return totals;
+    }
+
+    private static long total(Map<Long, List<Long>> totals) {
+        return totals.values().stream().mapToLong(counts -> counts.get(0)).sum();
+    }
+
+    // Ajouter des compteurs à la ligne (jour, catégorie), créée au premier compactage du jour dans la catégorie
+    // (seuls le compactage et la reconstruction, exclusifs, écrivent dans la table)
+    private void add(LocalDate day, Long categoryId, long loans, long returned, long lateReturns, long returnedLoanDays) {
+        Object[] args = { loans, returned, lateReturns, returnedLoanDays, Date.valueOf(day), categoryId };
+        if (jdbcTemplate.update(UPDATE_ROW, args) == 0) {
+            jdbcTemplate.update(INSERT_ROW, args);
+        }
+    }
+
+    /**
+     * Ligne de l'agrégat : jour d'emprunt et catégorie.
+     */
+    private record RollupKey(LocalDate day, Long categoryId) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.lestestes.APITEST.loan;
+
+import java.math.BigDecimal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Paramètres du calcul nocturne des amendes de retard (préfixe "loan.fines").
+ */
+@Component
+@ConfigurationProperties(prefix = "loan.fines")
+@Data
+@NoArgsConstructor
+public class LoanFineProperties {
+
+    // Déclenchement planifié (expression cron Spring ; "-" pour le désactiver)
+    private String cron = "0 30 2 * * *";
+
+    // Emprunts lus, puis écrits et validés avec le point de reprise, par transaction
+    private int chunkSize = 5_000;
+
+    // Amende par jour de retard, plafonnée par emprunt
+    private BigDecimal dailyRate = new BigDecimal("0.20");
+    private BigDecimal maxAmount = new BigDecimal("10.00");
+
+    // Une relance est ajoutée à la boîte d'envoi au premier jour de retard, puis tous les N jours
+    private int reminderIntervalDays = 7;
+
+    // Reprendre au démarrage un traitement interrompu (arrêt ou erreur) là où il s'était arrêté
+    private boolean resumeOnStartup = true;
+}
@@ -0,0 +1,139 @@
+package com.lestestes.APITEST.loan;
+
+/**
+ * Table long -> int à adressage ouvert (sondage linéaire) : deux tableaux primitifs, aucun objet par entrée.
+ * Sert de ligne à la matrice des co-emprunts (livre voisin -> nombre de membres). La clé 0 est réservée
+ * aux cases vides : les IDs de livres sont strictement positifs.
+ */
+final class LongIntMap {
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int threshold;
+
+    LongIntMap(int expectedSize) {
+        int capacity = 4;
+        while (capacity - (capacity >>> 2) < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    // Nombre de clés
+    int size() {
+        return size;
+    }
+
+    // Valeur d'une clé (0 si absente)
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return 0;
+            }
+        }
+    }
+
+    // Ajouter delta à la valeur d'une clé (créée à 0 si absente, supprimée si elle retombe à 0) et retourner la nouvelle valeur
+    int add(long key, int delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("La clé 0 est réservée");
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                int value = values[slot] += delta;
+                if (value == 0) {
+                    remove(slot);
+                }
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return delta;
+    }
+
+    // Ajouter toutes les valeurs d'une autre table
+    void addAll(LongIntMap other) {
+        long[] otherKeys = other.keys;
+        int[] otherValues = other.values;
+        for (int i = 0; i < otherKeys.length; i++) {
+            if (otherKeys[i] != EMPTY) {
+                add(otherKeys[i], otherValues[i]);
+            }
+        }
+    }
+
+    // Parcourir les entrées (ordre quelconque)
+    void forEach(Entry action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // Vider une case en ramenant les clés suivantes de la même séquence de sondage (suppression sans marqueur)
+    private void remove(int slot) {
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            // La clé peut combler le trou si sa case d'origine n'est pas entre le trou (exclu) et elle
+            if (((next - slot(keys[next])) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = capacity - (capacity >>> 2);
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Action appelée pour chaque entrée, sans conversion en objets.
+     */
+    @FunctionalInterface
+    interface Entry {
+        void accept(long key, int value);
+    }
+}
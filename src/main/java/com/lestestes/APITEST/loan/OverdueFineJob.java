@@ -0,0 +1,246 @@
+package com.lestestes.APITEST.loan;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Calcul nocturne des retards : parcourt les emprunts en cours par ID croissant (pagination par clé sur
+ * l'index (returned, id)), calcule les jours de retard et l'amende de chacun, l'enregistre dans loan_fines
+ * et ajoute une relance à la boîte d'envoi loan_notifications à chaque nouveau palier de retard.
+ * Chaque lot est écrit par lots JDBC et validé avec le point de reprise (batch_checkpoints) dans une même
+ * transaction : après un arrêt ou une erreur, le traitement reprend après le dernier emprunt validé, sans
+ * doublon de relance. Il s'exécute sur un thread unique de basse priorité, jamais sur ceux des requêtes.
+ */
+@Component
+public class OverdueFineJob {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueFineJob.class);
+
+    public static final String JOB_NAME = "overdue-fines";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String NOTIFICATION_TYPE = "OVERDUE_REMINDER";
+
+    // Tri sur les deux colonnes de l'index (returned, id) : H2 lit alors le lot dans l'ordre de l'index et s'arrête
+    // après chunkSize lignes, au lieu de trier à chaque lot tous les emprunts en cours qui suivent le curseur
+    private static final String SELECT_CHUNK = "SELECT bl.\"id\", bl.\"member_id\", bl.\"dueDate\", f.\"reminderLevel\" "
+            + "FROM \"book_loans\" bl LEFT JOIN \"loan_fines\" f ON f.\"loan_id\" = bl.\"id\" "
+            + "WHERE bl.\"returned\" = FALSE AND bl.\"id\" > ? ORDER BY bl.\"returned\", bl.\"id\" FETCH FIRST ? ROWS ONLY";
+    private static final String MERGE_FINE = "MERGE INTO \"loan_fines\" (\"loan_id\", \"member_id\", \"daysOverdue\", "
+            + "\"amount\", \"reminderLevel\", \"computedOn\") KEY (\"loan_id\") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_FINE = "DELETE FROM \"loan_fines\" WHERE \"loan_id\" = ?";
+    private static final String INSERT_NOTIFICATION = "INSERT INTO \"loan_notifications\" (\"loan_id\", \"member_id\", "
+            + "\"type\", \"reminderLevel\", \"daysOverdue\", \"fineAmount\", \"createdAt\") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_CHECKPOINT = "MERGE INTO \"batch_checkpoints\" (\"jobName\", \"runDate\", \"lastId\", "
+            + "\"processed\", \"fined\", \"notified\", \"status\", \"updatedAt\") KEY (\"jobName\") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final LoanFineProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Autowired
+    public OverdueFineJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            LoanFineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        // Un seul thread et aucune file d'attente : un déclenchement pendant une exécution est refusé
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "loan-fines");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    // Déclenchement planifié (loan.fines.cron, 2 h 30 par défaut)
+    @Scheduled(cron = "${loan.fines.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!trigger(LocalDate.now())) {
+            log.warn("Calcul des amendes déjà en cours : déclenchement planifié ignoré");
+        }
+    }
+
+    // Reprendre au démarrage un traitement interrompu, pour la date qu'il traitait
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        FineJobStatus checkpoint = readCheckpoint();
+        if (properties.isResumeOnStartup() && checkpoint != null && !STATUS_COMPLETED.equals(checkpoint.status())) {
+            log.info("Reprise du calcul des amendes du {} après l'emprunt {}", checkpoint.runDate(), checkpoint.lastLoanId());
+            trigger(checkpoint.runDate());
+        }
+    }
+
+    // Lancer le traitement en arrière-plan sur son exécuteur dédié (false s'il est déjà en cours)
+    public boolean trigger(LocalDate today) {
+        if (running.get()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(today);
+                } catch (RuntimeException e) {
+                    log.error("Échec du calcul des amendes du {}", today, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    // Exécuter le traitement dans le thread appelant : reprend le point de reprise s'il concerne la même date
+    public FineJobStatus run(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Le calcul des amendes est déjà en cours");
+        }
+        long start = System.nanoTime();
+        Progress progress = new Progress(0, 0, 0, 0);
+        try {
+            FineJobStatus checkpoint = readCheckpoint();
+            if (checkpoint != null && checkpoint.runDate().equals(today) && !STATUS_COMPLETED.equals(checkpoint.status())) {
+                progress = new Progress(checkpoint.lastLoanId(), checkpoint.processed(), checkpoint.fined(),
+                        checkpoint.notified());
+            }
+            int chunkSize = Math.max(1, properties.getChunkSize());
+            Progress next;
+            while ((next = processChunk(today, chunkSize, progress)) != null) {
+                progress = next;
+            }
+            saveCheckpoint(today, progress, STATUS_COMPLETED);
+            log.info("Amendes du {} calculées : {} emprunts en cours, {} en retard, {} relances, en {} ms", today,
+                    progress.processed(), progress.fined(), progress.notified(), (System.nanoTime() - start) / 1_000_000);
+            return readCheckpoint();
+        } catch (RuntimeException e) {
+            // Le dernier lot validé reste le point de reprise
+            saveCheckpoint(today, progress, STATUS_FAILED);
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // État du point de reprise et de l'exécution
+    public FineJobStatus status() {
+        FineJobStatus checkpoint = readCheckpoint();
+        if (checkpoint == null) {
+            return new FineJobStatus(running.get(), null, null, 0, 0, 0, 0, null);
+        }
+        return new FineJobStatus(running.get(), checkpoint.runDate(), checkpoint.status(), checkpoint.lastLoanId(),
+                checkpoint.processed(), checkpoint.fined(), checkpoint.notified(), checkpoint.updatedAt());
+    }
+
+    // Arrêter le thread du traitement à la fermeture (le dernier lot validé sert de point de reprise)
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Traiter et valider le lot qui suit le point de reprise ; null quand tous les emprunts en cours sont parcourus
+    private Progress processChunk(LocalDate today, int chunkSize, Progress progress) {
+        return chunkTransaction.execute(status -> {
+            List<OpenLoan> loans = jdbcTemplate.query(SELECT_CHUNK, (rs, rowNum) -> new OpenLoan(rs.getLong(1),
+                    rs.getLong(2), rs.getDate(3).toLocalDate(), (Integer) rs.getObject(4)), progress.lastId(), chunkSize);
+            if (loans.isEmpty()) {
+                return null;
+            }
+            Date computedOn = Date.valueOf(today);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> fines = new ArrayList<>();
+            List<Object[]> cleared = new ArrayList<>();
+            List<Object[]> notifications = new ArrayList<>();
+            for (OpenLoan loan : loans) {
+                long daysOverdue = ChronoUnit.DAYS.between(loan.dueDate(), today);
+                if (daysOverdue <= 0) {
+                    // Emprunt prolongé depuis le dernier calcul : plus d'amende en cours
+                    if (loan.reminderLevel() != null) {
+                        cleared.add(new Object[] { loan.id() });
+                    }
+                    continue;
+                }
+                BigDecimal amount = fineFor(daysOverdue);
+                int reminderLevel = (int) (1 + (daysOverdue - 1) / Math.max(1, properties.getReminderIntervalDays()));
+                fines.add(new Object[] { loan.id(), loan.memberId(), daysOverdue, amount, reminderLevel, computedOn });
+                if (loan.reminderLevel() == null || reminderLevel > loan.reminderLevel()) {
+                    notifications.add(new Object[] { loan.id(), loan.memberId(), NOTIFICATION_TYPE, reminderLevel,
+                            daysOverdue, amount, now });
+                }
+            }
+            if (!fines.isEmpty()) {
+                jdbcTemplate.batchUpdate(MERGE_FINE, fines);
+            }
+            if (!cleared.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_FINE, cleared);
+            }
+            if (!notifications.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, notifications);
+            }
+            Progress next = new Progress(loans.get(loans.size() - 1).id(), progress.processed() + loans.size(),
+                    progress.fined() + fines.size(), progress.notified() + notifications.size());
+            saveCheckpoint(today, next, STATUS_RUNNING);
+            return next;
+        });
+    }
+
+    // Amende pour un nombre de jours de retard : tarif journalier, plafonné
+    BigDecimal fineFor(long daysOverdue) {
+        return properties.getDailyRate().multiply(BigDecimal.valueOf(daysOverdue))
+                .min(properties.getMaxAmount())
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private void saveCheckpoint(LocalDate runDate, Progress progress, String status) {
+        jdbcTemplate.update(MERGE_CHECKPOINT, JOB_NAME, Date.valueOf(runDate), progress.lastId(), progress.processed(),
+                progress.fined(), progress.notified(), status, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private FineJobStatus readCheckpoint() {
+        List<FineJobStatus> checkpoints = jdbcTemplate.query("SELECT \"runDate\", \"status\", \"lastId\", \"processed\", "
+                + "\"fined\", \"notified\", \"updatedAt\" FROM \"batch_checkpoints\" WHERE \"jobName\" = ?",
+                (rs, rowNum) -> new FineJobStatus(false, rs.getDate(1).toLocalDate(), rs.getString(2), rs.getLong(3),
+                        rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getTimestamp(7).toLocalDateTime()),
+                JOB_NAME);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    /**
+     * Emprunt en cours lu dans un lot, avec le palier de relance déjà notifié (null sans amende en cours).
+     */
+    private record OpenLoan(long id, long memberId, LocalDate dueDate, Integer reminderLevel) {
+    }
+
+    /**
+     * Avancement validé : dernier emprunt traité et compteurs cumulés depuis le début de la date traitée.
+     */
+    private record Progress(long lastId, long processed, long fined, long notified) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.lestestes.APITEST.loan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lestestes.APITEST.dto.LoanDueDate;
+import com.lestestes.APITEST.event.LoanChangedEvent;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+
+/**
+ * Index en mémoire des emprunts en cours, regroupés par date de retour prévue.
+ * Les emprunts en retard à une date donnée sont ceux des compartiments antérieurs : la liste et le
+ * nombre des retards se lisent sans parcourir les emprunts à jour. L'index est construit au démarrage et
+ * chaque nuit, puis tenu à jour par les emprunts, prolongations et retours validés, en relisant chaque fois
+ * l'emprunt en base ; ceux reçus pendant la construction sont rejoués sur le nouvel index.
+ */
+@Component
+public class OverdueLoanIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanIndex.class);
+    private static final int REFRESH_STRIPES = 64;
+
+    private final BookLoanRepository bookLoanRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Sérialisent la relecture et l'application des mises à jour d'un même emprunt (un verrou par tranche d'IDs)
+    private final Object[] refreshLocks = new Object[REFRESH_STRIPES];
+
+    private NavigableMap<LocalDate, TreeSet<Long>> loansByDueDate = new TreeMap<>();
+    private Map<Long, LocalDate> dueDates = new HashMap<>();
+    // Changements reçus pendant la construction en cours (null hors construction)
+    private List<PendingChange> pending;
+    private volatile boolean ready = false;
+
+    @Autowired
+    public OverdueLoanIndex(BookLoanRepository bookLoanRepository, PlatformTransactionManager transactionManager) {
+        this.bookLoanRepository = bookLoanRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (int i = 0; i < REFRESH_STRIPES; i++) {
+            refreshLocks[i] = new Object();
+        }
+    }
+
+    // Indiquer si l'index est construit (sinon les retards sont recherchés en base)
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Nombre d'emprunts en cours indexés
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return dueDates.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Construire l'index à partir des emprunts en cours, au démarrage et chaque nuit (loan.overdue.rebuild-cron)
+    @Scheduled(cron = "${loan.overdue.rebuild-cron:0 45 3 * * *}")
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            NavigableMap<LocalDate, TreeSet<Long>> newLoansByDueDate = new TreeMap<>();
+            Map<Long, LocalDate> newDueDates = new HashMap<>();
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<LoanDueDate> loans = bookLoanRepository.streamActiveDueDates()) {
+                    loans.forEach(loan -> {
+                        newDueDates.put(loan.getId(), loan.getDueDate());
+                        newLoansByDueDate.computeIfAbsent(loan.getDueDate(), date -> new TreeSet<>()).add(loan.getId());
+                    });
+                }
+            });
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                loansByDueDate = newLoansByDueDate;
+                dueDates = newDueDates;
+                // Emprunts, prolongations et retours validés pendant la lecture, dans leur ordre d'arrivée
+                for (PendingChange change : pending) {
+                    if (change.dueDate() == null) {
+                        removeLocked(change.loanId());
+                    } else {
+                        putLocked(change.loanId(), change.dueDate());
+                    }
+                }
+                replayed = pending.size();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Index des retards construit : {} emprunts en cours sur {} dates de retour, {} changements rejoués en {} ms",
+                    newDueDates.size(), newLoansByDueDate.size(), replayed, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Maintenir l'index après chaque emprunt, prolongation ou retour validé, en relisant l'emprunt : la date de
+    // retour validée, et non celle de l'événement, car deux changements rapprochés peuvent être notifiés dans le désordre
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.getLoanId() != null) {
+            refresh(event.getLoanId());
+        }
+    }
+
+    // Lecture et mise à jour se font sous le verrou de l'emprunt : deux mises à jour d'un même emprunt s'appliquent
+    // dans l'ordre de leurs lectures, et la dernière lecture, la plus récente, l'emporte
+    private void refresh(Long loanId) {
+        synchronized (refreshLocks[Math.floorMod(loanId, REFRESH_STRIPES)]) {
+            bookLoanRepository.findActiveDueDateById(loanId).ifPresentOrElse(
+                    loan -> put(loanId, loan.getDueDate()),
+                    () -> remove(loanId));
+        }
+    }
+
+    // Ajouter un emprunt en cours, ou le déplacer si sa date de retour a changé
+    void put(Long loanId, LocalDate dueDate) {
+        lock.writeLock().lock();
+        try {
+            putLocked(loanId, dueDate);
+            if (pending != null) {
+                pending.add(new PendingChange(loanId, dueDate));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Retirer un emprunt retourné
+    void remove(Long loanId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(loanId);
+            if (pending != null) {
+                pending.add(new PendingChange(loanId, null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(Long loanId, LocalDate dueDate) {
+        LocalDate previous = dueDates.put(loanId, dueDate);
+        if (previous != null) {
+            removeFromBucket(loanId, previous);
+        }
+        loansByDueDate.computeIfAbsent(dueDate, date -> new TreeSet<>()).add(loanId);
+    }
+
+    private void removeLocked(Long loanId) {
+        LocalDate previous = dueDates.remove(loanId);
+        if (previous != null) {
+            removeFromBucket(loanId, previous);
+        }
+    }
+
+    private void removeFromBucket(Long loanId, LocalDate dueDate) {
+        TreeSet<Long> bucket = loansByDueDate.get(dueDate);
+        bucket.remove(loanId);
+        if (bucket.isEmpty()) {
+            loansByDueDate.remove(dueDate);
+        }
+    }
+
+    // IDs des emprunts en retard au jour donné (date de retour dépassée), du plus ancien retard au plus récent
+    public List<Long> findOverdueLoanIds(LocalDate today) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            loansByDueDate.headMap(today, false).values().forEach(ids::addAll);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Nombre d'emprunts en retard au jour donné
+    public int countOverdue(LocalDate today) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (TreeSet<Long> bucket : loansByDueDate.headMap(today, false).values()) {
+                count += bucket.size();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changement reçu pendant une construction, à rejouer sur le nouvel index (date de retour null : emprunt retourné).
+     */
+    private record PendingChange(Long loanId, LocalDate dueDate) {
+    }
+}
@@ -4,8 +4,13 @@ import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -13,13 +18,19 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PastOrPresent;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+// Auteurs en cache de second niveau : lus à chaque chargement de livre, rarement modifiés
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author")
 @Table(name = "authors")
 @Data
 @NoArgsConstructor
@@ -47,8 +58,17 @@ public class Author {
     
     @ManyToMany(mappedBy = "authors")
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Book> books = new HashSet<>();
     
+    // Incrémentée à chaque modification : verrouillage optimiste et ETag des réponses HTTP
+    @Version
+    @ColumnDefault("0")
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+    
     // Méthode utilitaire pour obtenir le nom complet
     public String getFullName() {
         return firstName + " " + lastName;
@@ -3,6 +3,10 @@ package com.lestestes.APITEST.model;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.CascadeType;
@@ -15,25 +19,41 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "books")
+@NamedEntityGraph(name = Book.GRAPH_WITH_CATEGORY, attributeNodes = @NamedAttributeNode("category"))
+@NamedEntityGraph(name = Book.GRAPH_WITH_AUTHORS, attributeNodes = @NamedAttributeNode("authors"))
+@NamedEntityGraph(name = Book.GRAPH_WITH_CATEGORY_AND_AUTHORS, attributeNodes = {
+    @NamedAttributeNode("category"),
+    @NamedAttributeNode("authors")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
     
+    // Plans de chargement utilisés par les listes pour éviter une requête par livre (N+1)
+    public static final String GRAPH_WITH_CATEGORY = "Book.withCategory";
+    public static final String GRAPH_WITH_AUTHORS = "Book.withAuthors";
+    public static final String GRAPH_WITH_CATEGORY_AND_AUTHORS = "Book.withCategoryAndAuthors";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -57,6 +77,8 @@ public class Book {
     
     @NotNull(message = "La categorie est obligatoire")
     @ManyToOne
+    // Chargée par ID (donc depuis le cache de second niveau) plutôt que par jointure, sauf plan de chargement explicite
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
     
@@ -66,14 +88,25 @@ public class Book {
         joinColumns = @JoinColumn(name = "book_id"),
         inverseJoinColumns = @JoinColumn(name = "author_id")
     )
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Author> authors = new HashSet<>();
     
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL)
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<BookLoan> loans = new HashSet<>();
     
     private String language;
     private String publisher;
     private String coverImageUrl;
     private boolean available = true;
+    
+    // Incrémentée à chaque modification : verrouillage optimiste et ETag des réponses HTTP
+    @Version
+    @ColumnDefault("0")
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
 }
@@ -1,24 +1,38 @@
 package com.lestestes.APITEST.model;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
-
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+// Index composites alignés sur les requêtes d'emprunt : emprunts en cours d'un membre (plafond),
+// d'un livre (disponibilité), échéances des emprunts en cours (retards), parcours des emprunts en cours
+// par ID (traitement des amendes) et statistiques par période
 @Entity
-@Table(name = "book_loans")
+@Table(name = "book_loans", indexes = {
+    @Index(name = "idx_book_loans_member_returned", columnList = "member_id, returned"),
+    @Index(name = "idx_book_loans_book_returned", columnList = "book_id, returned"),
+    @Index(name = "idx_book_loans_returned_due_date", columnList = "returned, dueDate"),
+    @Index(name = "idx_book_loans_returned_id", columnList = "returned, id"),
+    @Index(name = "idx_book_loans_borrow_date", columnList = "borrowDate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,6 +50,7 @@ public class BookLoan {
     @NotNull(message = "Le membre est obligatoire")
     @ManyToOne
     @JoinColumn(name = "member_id", nullable = false)
+    @JsonIgnoreProperties("loans")
     private Member member;
     
     @NotNull(message = "La date d'emprunt est obligatoire")
@@ -52,19 +67,32 @@ public class BookLoan {
     
     private String notes;
     
+    // Date du jour fixée pour toute une réponse (une seule lecture de l'horloge par requête) ; à défaut, la date courante
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private LocalDate referenceDate;
+    
     // Méthode pour vérifier si le prêt est en retard
     public boolean isOverdue() {
-        if (returned) {
-            return false;
-        }
-        return LocalDate.now().isAfter(dueDate);
+        return isOverdueOn(today());
     }
     
     // Méthode pour calculer les jours de retard
     public long getDaysOverdue() {
-        if (!isOverdue()) {
+        LocalDate today = today();
+        if (!isOverdueOn(today)) {
             return 0;
         }
-        return java.time.temporal.ChronoUnit.DAYS.between(dueDate, LocalDate.now());
+        return ChronoUnit.DAYS.between(dueDate, today);
+    }
+    
+    // Vérifier si le prêt est en retard à une date donnée
+    public boolean isOverdueOn(LocalDate today) {
+        return !returned && today.isAfter(dueDate);
+    }
+    
+    private LocalDate today() {
+        return referenceDate != null ? referenceDate : LocalDate.now();
     }
 }
@@ -4,6 +4,9 @@ import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.CascadeType;
@@ -14,13 +17,16 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Past;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "members")
@@ -56,10 +62,19 @@ public class Member {
     
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL)
     @JsonManagedReference(value = "member-loans")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<BookLoan> loans = new HashSet<>();
     
     private boolean active = true;
     
+    // Incrémentée à chaque modification (verrouillage optimiste)
+    @Version
+    @ColumnDefault("0")
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+    
     // Méthode utilitaire pour obtenir le nom complet
     public String getFullName() {
         return firstName + " " + lastName;
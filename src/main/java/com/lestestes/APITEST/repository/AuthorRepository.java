@@ -1,12 +1,19 @@
 package com.lestestes.APITEST.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.lestestes.APITEST.model.Author;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
     
@@ -21,4 +28,13 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     
     // Vérifier si un auteur existe avec ce nom et prénom
     boolean existsByFirstNameIgnoreCaseAndLastNameIgnoreCase(String firstName, String lastName);
+    
+    // Pagination par curseur : lire les auteurs dont l'ID suit le curseur (pages de GET /api/authors
+    // gardées dans le cache de requêtes, invalidées par toute écriture JPA sur la table)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Author> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    // IDs existants parmi un lot (contrôle des auteurs de l'import en masse)
+    @Query("SELECT a.id FROM Author a WHERE a.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
 }
@@ -1,44 +1,157 @@
 package com.lestestes.APITEST.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.lestestes.APITEST.dto.LoanBorrowDate;
+import com.lestestes.APITEST.dto.LoanDueDate;
+import com.lestestes.APITEST.dto.LoanPeriodCount;
+import com.lestestes.APITEST.dto.LoanSummary;
+import com.lestestes.APITEST.dto.RankedCount;
 import com.lestestes.APITEST.model.Book;
 import com.lestestes.APITEST.model.BookLoan;
 import com.lestestes.APITEST.model.Member;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface BookLoanRepository extends JpaRepository<BookLoan, Long> {
     
+    // Les emprunts renvoyés par l'API sont lus avec leur livre (catégorie et auteurs) et leur membre :
+    // la sérialisation n'a pas besoin de session ouverte (open-in-view désactivé en profil prod)
+    @Override
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
+    Optional<BookLoan> findById(Long id);
+    
     // Trouver tous les emprunts pour un membre spécifique
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
     List<BookLoan> findByMember(Member member);
     
     // Trouver tous les emprunts pour un livre spécifique
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
     List<BookLoan> findByBook(Book book);
     
     // Trouver les emprunts actifs (non retournés)
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
     List<BookLoan> findByReturnedFalse();
     
     // Trouver les emprunts en retard
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
     @Query("SELECT bl FROM BookLoan bl WHERE bl.returned = false AND bl.dueDate < :today")
     List<BookLoan> findOverdueLoans(LocalDate today);
     
+    // Emprunts en cours (ID et date de retour prévue), en flux (construction de l'index des retards)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT bl.id AS id, bl.dueDate AS dueDate FROM BookLoan bl WHERE bl.returned = false")
+    Stream<LoanDueDate> streamActiveDueDates();
+    
+    // Date de retour validée d'un emprunt s'il est en cours (vide s'il a été retourné), pour l'index des retards
+    @Query("SELECT bl.id AS id, bl.dueDate AS dueDate FROM BookLoan bl WHERE bl.id = :id AND bl.returned = false")
+    Optional<LoanDueDate> findActiveDueDateById(Long id);
+    
+    // Emprunts (ID, livre, date d'emprunt) créés depuis une date et après un ID, en flux (classement des livres populaires)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT bl.id AS id, bl.book.id AS bookId, bl.borrowDate AS borrowDate FROM BookLoan bl "
+            + "WHERE bl.id > :afterId AND bl.borrowDate >= :since")
+    Stream<LoanBorrowDate> streamBorrowDates(Long afterId, LocalDate since);
+    
+    // Emprunts par IDs, avec le livre (catégorie et auteurs) et le membre chargés dans la même requête
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
+    @Query("SELECT bl FROM BookLoan bl WHERE bl.id IN :ids")
+    List<BookLoan> findWithBookAndMemberByIdIn(Collection<Long> ids);
+    
     // Trouver les emprunts actifs pour un membre
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
     List<BookLoan> findByMemberAndReturnedFalse(Member member);
     
     // Trouver les emprunts retournés entre deux dates
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
     List<BookLoan> findByReturnedTrueAndReturnDateBetween(LocalDate startDate, LocalDate endDate);
     
     // Trouver les emprunts créés entre deux dates
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors", "member" })
     List<BookLoan> findByBorrowDateBetween(LocalDate startDate, LocalDate endDate);
     
+    // Statistiques : emprunts en retard parmi ceux créés entre deux dates, par jour d'emprunt
+    // (seuls les emprunts en cours sont lus, par l'index (returned, dueDate))
+    @Query("SELECT new com.lestestes.APITEST.dto.LoanPeriodCount(bl.borrowDate, 0L, 0L, 0L, COUNT(bl), 0L) "
+            + "FROM BookLoan bl WHERE bl.returned = false AND bl.dueDate < :today "
+            + "AND bl.borrowDate BETWEEN :startDate AND :endDate GROUP BY bl.borrowDate")
+    List<LoanPeriodCount> countOverdueByBorrowDateBetween(LocalDate startDate, LocalDate endDate, LocalDate today);
+    
+    // Statistiques : livres les plus empruntés entre deux dates
+    @Query("SELECT new com.lestestes.APITEST.dto.RankedCount(b.id, b.title, COUNT(bl)) "
+            + "FROM BookLoan bl JOIN bl.book b WHERE bl.borrowDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY b.id, b.title ORDER BY COUNT(bl) DESC, b.id")
+    List<RankedCount> findTopBooks(LocalDate startDate, LocalDate endDate, Pageable pageable);
+    
+    // Statistiques : membres ayant le plus emprunté entre deux dates
+    @Query("SELECT new com.lestestes.APITEST.dto.RankedCount(m.id, CONCAT(m.firstName, ' ', m.lastName), COUNT(bl)) "
+            + "FROM BookLoan bl JOIN bl.member m WHERE bl.borrowDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY m.id, m.firstName, m.lastName ORDER BY COUNT(bl) DESC, m.id")
+    List<RankedCount> findBusiestMembers(LocalDate startDate, LocalDate endDate, Pageable pageable);
+    
+    // Tableau de bord : emprunts en cours d'un membre et ses derniers retours, avec livre, catégorie et auteurs
+    @EntityGraph(attributePaths = { "book", "book.category", "book.authors" })
+    @Query("SELECT bl FROM BookLoan bl WHERE bl.member.id = :memberId AND (bl.returned = false OR bl.id IN "
+            + "(SELECT r.id FROM BookLoan r WHERE r.member.id = :memberId AND r.returned = true "
+            + "ORDER BY r.returnDate DESC, r.id DESC LIMIT :recentReturns))")
+    List<BookLoan> findDashboardLoansByMemberId(Long memberId, int recentReturns);
+    
     // Vérifier si un livre est actuellement emprunté
     boolean existsByBookAndReturnedFalse(Book book);
     
     // Compter le nombre d'emprunts actifs pour un membre
     long countByMemberAndReturnedFalse(Member member);
+    
+    // Pagination par curseur : lire les emprunts dont l'ID suit le curseur
+    List<BookLoan> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    // Résumés d'emprunts (projection JPQL sans hydrater livres et membres) : page par curseur
+    @Query("SELECT new com.lestestes.APITEST.dto.LoanSummary(bl.id, b.id, b.title, m.id, m.firstName, m.lastName, "
+            + "bl.borrowDate, bl.dueDate, bl.returnDate, bl.returned) FROM BookLoan bl JOIN bl.book b JOIN bl.member m "
+            + "WHERE bl.id > :afterId ORDER BY bl.id")
+    List<LoanSummary> findSummariesByIdGreaterThan(Long afterId, Pageable pageable);
+    
+    // Résumés des emprunts actifs
+    @Query("SELECT new com.lestestes.APITEST.dto.LoanSummary(bl.id, b.id, b.title, m.id, m.firstName, m.lastName, "
+            + "bl.borrowDate, bl.dueDate, bl.returnDate, bl.returned) FROM BookLoan bl JOIN bl.book b JOIN bl.member m "
+            + "WHERE bl.returned = false ORDER BY bl.id")
+    List<LoanSummary> findActiveSummaries();
+    
+    // Résumés des emprunts d'un membre
+    @Query("SELECT new com.lestestes.APITEST.dto.LoanSummary(bl.id, b.id, b.title, m.id, m.firstName, m.lastName, "
+            + "bl.borrowDate, bl.dueDate, bl.returnDate, bl.returned) FROM BookLoan bl JOIN bl.book b JOIN bl.member m "
+            + "WHERE m.id = :memberId ORDER BY bl.id")
+    List<LoanSummary> findSummariesByMemberId(Long memberId);
+    
+    // Résumés des emprunts actifs d'un membre
+    @Query("SELECT new com.lestestes.APITEST.dto.LoanSummary(bl.id, b.id, b.title, m.id, m.firstName, m.lastName, "
+            + "bl.borrowDate, bl.dueDate, bl.returnDate, bl.returned) FROM BookLoan bl JOIN bl.book b JOIN bl.member m "
+            + "WHERE m.id = :memberId AND bl.returned = false ORDER BY bl.id")
+    List<LoanSummary> findActiveSummariesByMemberId(Long memberId);
+    
+    // Prolonger un emprunt en cours de façon atomique : retourne 0 s'il a été retourné ou prolongé entre-temps
+    // (sa date de retour n'est plus celle lue)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookLoan bl SET bl.dueDate = :dueDate WHERE bl.id = :id AND bl.returned = false "
+            + "AND bl.dueDate = :previousDueDate")
+    int markExtended(Long id, LocalDate previousDueDate, LocalDate dueDate);
+    
+    // Marquer un emprunt comme retourné de façon atomique (retourne 0 s'il l'était déjà)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookLoan bl SET bl.returned = true, bl.returnDate = :returnDate WHERE bl.id = :id AND bl.returned = false")
+    int markReturned(Long id, LocalDate returnDate);
 }
@@ -1,40 +1,195 @@
 package com.lestestes.APITEST.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.lestestes.APITEST.dto.BookAuthorName;
+import com.lestestes.APITEST.dto.BookAvailabilityRow;
+import com.lestestes.APITEST.dto.BookSearchRow;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.BookVersion;
 import com.lestestes.APITEST.model.Book;
 import com.lestestes.APITEST.model.Category;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     
+    // Lire un livre avec ses auteurs (la catégorie vient du cache de second niveau) : sérialisable sans session ouverte
+    @Override
+    @EntityGraph(value = Book.GRAPH_WITH_AUTHORS, type = EntityGraphType.LOAD)
+    Optional<Book> findById(Long id);
+    
     // Rechercher un livre par ISBN
     Optional<Book> findByIsbn(String isbn);
     
+    // Récupérer tous les livres avec leur catégorie et leurs auteurs en une seule requête
+    @Override
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY_AND_AUTHORS)
+    List<Book> findAll();
+    
     // Rechercher des livres par titre (contenant une chaîne)
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY_AND_AUTHORS)
     List<Book> findByTitleContainingIgnoreCase(String title);
     
     // Rechercher des livres par catégorie
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY_AND_AUTHORS)
     List<Book> findByCategory(Category category);
     
     // Rechercher des livres par disponibilité
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY_AND_AUTHORS)
     List<Book> findByAvailable(boolean available);
     
+    // Compter les livres, et les livres disponibles, d'une catégorie (index de disponibilité non construit)
+    long countByCategory_Id(Long categoryId);
+    
+    long countByCategory_IdAndAvailableTrue(Long categoryId);
+    
+    // Compter les livres disponibles (index de disponibilité non construit)
+    long countByAvailableTrue();
+    
     // Rechercher des livres par auteur (ID de l'auteur)
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY_AND_AUTHORS)
     @Query("SELECT b FROM Book b JOIN b.authors a WHERE a.id = :authorId")
     List<Book> findByAuthorId(Long authorId);
     
     // Rechercher des livres par éditeur
     List<Book> findByPublisherContainingIgnoreCase(String publisher);
     
-    // Rechercher les livres les plus récemment publiés
-    List<Book> findTop10ByOrderByPublishDateDesc();
+    // Rechercher les livres les plus récemment publiés (ID en second critère pour un ordre stable)
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY_AND_AUTHORS)
+    List<Book> findTop10ByOrderByPublishDateDescIdDesc();
+    
+    // IDs des livres les plus récemment publiés, dans le même ordre que findTop10ByOrderByPublishDateDescIdDesc
+    @Query("SELECT b.id FROM Book b ORDER BY b.publishDate DESC, b.id DESC")
+    List<Long> findRecentIds(Pageable pageable);
+    
+    // Versions du livre, de sa catégorie et de ses auteurs (calcul des ETags sans charger les entités)
+    @Query("SELECT b.id AS id, b.version AS version, c.version AS categoryVersion, COUNT(a) AS authorCount, "
+            + "COALESCE(SUM(a.version), 0) AS authorVersions "
+            + "FROM Book b JOIN b.category c LEFT JOIN b.authors a WHERE b.id IN :ids GROUP BY b.id, b.version, c.version")
+    List<BookVersion> findVersionsByIdIn(Collection<Long> ids);
     
     // Rechercher des livres par langue
     List<Book> findByLanguageIgnoreCase(String language);
+    
+    // Pagination par curseur : lire les livres dont l'ID suit le curseur
+    // (sans les auteurs : une jointure sur une collection empêcherait la limite en SQL)
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY)
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    // Parcourir tout le catalogue en flux (curseur JDBC lu par lots de taille bornée)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b JOIN FETCH b.category ORDER BY b.id")
+    Stream<Book> streamAllByOrderByIdAsc();
+    
+    // Charger en une requête les auteurs d'un lot de livres déjà lus (complète les pages et l'export)
+    @EntityGraph(Book.GRAPH_WITH_AUTHORS)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids")
+    List<Book> findWithAuthorsByIdIn(Collection<Long> ids);
+    
+    // Résumés de livres (projection JPQL sans hydrater les entités) : page par curseur
+    @Query("SELECT new com.lestestes.APITEST.dto.BookSummary(b.id, b.title, b.isbn, b.available, c.name) "
+            + "FROM Book b JOIN b.category c WHERE b.id > :afterId ORDER BY b.id")
+    List<BookSummary> findSummariesByIdGreaterThan(Long afterId, Pageable pageable);
+    
+    // Résumés de livres dont le titre contient une chaîne
+    @Query("SELECT new com.lestestes.APITEST.dto.BookSummary(b.id, b.title, b.isbn, b.available, c.name) "
+            + "FROM Book b JOIN b.category c WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%')) ORDER BY b.id")
+    List<BookSummary> findSummariesByTitleContaining(String title);
+    
+    // Résumés de livres par disponibilité
+    @Query("SELECT new com.lestestes.APITEST.dto.BookSummary(b.id, b.title, b.isbn, b.available, c.name) "
+            + "FROM Book b JOIN b.category c WHERE b.available = :available ORDER BY b.id")
+    List<BookSummary> findSummariesByAvailable(boolean available);
+    
+    // Résumés des livres disponibles après un ID, éventuellement d'une seule catégorie (index de disponibilité non construit)
+    @Query("SELECT new com.lestestes.APITEST.dto.BookSummary(b.id, b.title, b.isbn, b.available, c.name) "
+            + "FROM Book b JOIN b.category c WHERE b.available = true AND b.id > :afterId "
+            + "AND (:categoryId IS NULL OR c.id = :categoryId) ORDER BY b.id")
+    List<BookSummary> findAvailableSummariesByIdGreaterThan(Long afterId, Long categoryId, Pageable pageable);
+    
+    // Résumés de livres d'une catégorie
+    @Query("SELECT new com.lestestes.APITEST.dto.BookSummary(b.id, b.title, b.isbn, b.available, c.name) "
+            + "FROM Book b JOIN b.category c WHERE c.id = :categoryId ORDER BY b.id")
+    List<BookSummary> findSummariesByCategoryId(Long categoryId);
+    
+    // Résumés de livres d'un auteur
+    @Query("SELECT new com.lestestes.APITEST.dto.BookSummary(b.id, b.title, b.isbn, b.available, c.name) "
+            + "FROM Book b JOIN b.category c JOIN b.authors a WHERE a.id = :authorId ORDER BY b.id")
+    List<BookSummary> findSummariesByAuthorId(Long authorId);
+    
+    // IDs des livres d'un auteur (réindexation après modification de l'auteur)
+    @Query("SELECT b.id FROM Book b JOIN b.authors a WHERE a.id = :authorId")
+    List<Long> findIdsByAuthorId(Long authorId);
+    
+    // Noms des auteurs d'un lot de livres (complète les résumés en une seule requête)
+    @Query("SELECT b.id AS bookId, a.firstName AS firstName, a.lastName AS lastName "
+            + "FROM Book b JOIN b.authors a WHERE b.id IN :bookIds ORDER BY a.lastName, a.firstName")
+    List<BookAuthorName> findAuthorNamesByBookIdIn(Collection<Long> bookIds);
+    
+    // Charger les livres trouvés par l'index de recherche, avec catégorie et auteurs
+    @EntityGraph(Book.GRAPH_WITH_CATEGORY_AND_AUTHORS)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids")
+    List<Book> findWithCategoryAndAuthorsByIdIn(Collection<Long> ids);
+    
+    // Résumés des livres trouvés par l'index de recherche
+    @Query("SELECT new com.lestestes.APITEST.dto.BookSummary(b.id, b.title, b.isbn, b.available, c.name) "
+            + "FROM Book b JOIN b.category c WHERE b.id IN :ids")
+    List<BookSummary> findSummariesByIdIn(Collection<Long> ids);
+    
+    // Champs indexés pour la recherche, en flux (construction de l'index au démarrage)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id AS id, b.title AS title, b.publisher AS publisher FROM Book b ORDER BY b.id")
+    Stream<BookSearchRow> streamSearchRows();
+    
+    // Champs indexés pour la recherche d'un lot de livres (mise à jour de l'index)
+    @Query("SELECT b.id AS id, b.title AS title, b.publisher AS publisher FROM Book b WHERE b.id IN :ids")
+    List<BookSearchRow> findSearchRowsByIdIn(Collection<Long> ids);
+    
+    // Noms des auteurs de tous les livres, en flux (construction de l'index au démarrage)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id AS bookId, a.firstName AS firstName, a.lastName AS lastName FROM Book b JOIN b.authors a")
+    Stream<BookAuthorName> streamAuthorNames();
+    
+    // Disponibilité et catégorie de tous les livres, en flux (construction de l'index de disponibilité)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id AS id, b.category.id AS categoryId, b.available AS available FROM Book b")
+    Stream<BookAvailabilityRow> streamAvailabilityRows();
+    
+    // Disponibilité et catégorie d'un lot de livres (mise à jour de l'index de disponibilité)
+    @Query("SELECT b.id AS id, b.category.id AS categoryId, b.available AS available FROM Book b WHERE b.id IN :ids")
+    List<BookAvailabilityRow> findAvailabilityRowsByIdIn(Collection<Long> ids);
+    
+    // ISBN déjà présents parmi un lot (contrôle des doublons de l'import en masse, une requête par lot)
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(Collection<String> isbns);
+    
+    // Réserver un livre de façon atomique : ne modifie la ligne que si le livre est encore disponible
+    // (retourne 0 si un autre emprunt l'a réservé entre-temps)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.available = false, b.version = b.version + 1 WHERE b.id = :id AND b.available = true")
+    int markBorrowed(Long id);
+    
+    // Rendre un livre disponible à nouveau
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.available = true, b.version = b.version + 1 WHERE b.id = :id")
+    int markAvailable(Long id);
 }
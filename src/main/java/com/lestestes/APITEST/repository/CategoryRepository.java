@@ -3,11 +3,18 @@ package com.lestestes.APITEST.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.lestestes.APITEST.dto.VersionWatermark;
 import com.lestestes.APITEST.model.Category;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     
@@ -22,4 +29,13 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     
     // Trouver les catégories triées par nom
     List<Category> findAllByOrderByNameAsc();
+    
+    // Pagination par curseur : lire les catégories dont l'ID suit le curseur (pages de GET /api/categories
+    // gardées dans le cache de requêtes, invalidées par toute écriture JPA sur la table)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Category> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    // État de la table (nombre de lignes, plus grand ID, somme des versions) pour l'ETag de la liste
+    @Query("SELECT COUNT(c) AS rowCount, COALESCE(MAX(c.id), 0) AS maxId, COALESCE(SUM(c.version), 0) AS versionSum FROM Category c")
+    VersionWatermark findVersionWatermark();
 }
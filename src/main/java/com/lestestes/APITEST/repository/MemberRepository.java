@@ -1,23 +1,43 @@
 package com.lestestes.APITEST.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.lestestes.APITEST.dto.MemberDashboard;
+import com.lestestes.APITEST.dto.MemberSummary;
 import com.lestestes.APITEST.model.Member;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface MemberRepository extends JpaRepository<Member, Long> {
     
+    // Les membres renvoyés par l'API sont lus avec leurs emprunts, livres et auteurs compris (les catégories restent
+    // lues depuis le cache) : la sérialisation n'a pas besoin de session ouverte (open-in-view désactivé en profil prod).
+    // findById reste sans emprunts pour les appels qui n'ont besoin que du membre (emprunt, listes d'emprunts)
+    @EntityGraph(attributePaths = { "loans", "loans.book", "loans.book.authors" }, type = EntityGraphType.LOAD)
+    @Query("SELECT m FROM Member m WHERE m.id = :id")
+    Optional<Member> findWithLoansById(Long id);
+    
     // Rechercher un membre par email
     Optional<Member> findByEmail(String email);
     
     // Rechercher des membres par nom ou prénom
+    @EntityGraph(attributePaths = { "loans", "loans.book", "loans.book.authors" }, type = EntityGraphType.LOAD)
     List<Member> findByLastNameContainingIgnoreCaseOrFirstNameContainingIgnoreCase(String lastName, String firstName);
     
     // Rechercher des membres actifs
+    @EntityGraph(attributePaths = { "loans", "loans.book", "loans.book.authors" }, type = EntityGraphType.LOAD)
     List<Member> findByActive(boolean active);
     
     // Vérifier si un membre existe avec cet email
@@ -28,4 +48,40 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     
     // Rechercher des membres par ordre alphabétique
     List<Member> findAllByOrderByLastNameAscFirstNameAsc();
+    
+    // Pagination par curseur : lire les membres dont l'ID suit le curseur
+    List<Member> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    // Charger en une requête les emprunts d'un lot de membres déjà lus (complète les pages)
+    @EntityGraph(attributePaths = { "loans", "loans.book", "loans.book.authors" }, type = EntityGraphType.LOAD)
+    @Query("SELECT m FROM Member m WHERE m.id IN :ids")
+    List<Member> findWithLoansByIdIn(Collection<Long> ids);
+    
+    // Résumés de membres (projection JPQL sans charger les emprunts) : page par curseur
+    @Query("SELECT new com.lestestes.APITEST.dto.MemberSummary(m.id, m.firstName, m.lastName, m.email, m.active) "
+            + "FROM Member m WHERE m.id > :afterId ORDER BY m.id")
+    List<MemberSummary> findSummariesByIdGreaterThan(Long afterId, Pageable pageable);
+    
+    // Résumés de membres dont le nom ou le prénom contient une chaîne
+    @Query("SELECT new com.lestestes.APITEST.dto.MemberSummary(m.id, m.firstName, m.lastName, m.email, m.active) "
+            + "FROM Member m WHERE LOWER(m.lastName) LIKE LOWER(CONCAT('%', :query, '%')) "
+            + "OR LOWER(m.firstName) LIKE LOWER(CONCAT('%', :query, '%')) ORDER BY m.id")
+    List<MemberSummary> findSummariesByNameContaining(String query);
+    
+    // Tableau de bord : le membre et le bilan de ses emprunts agrégé en une requête (vide si le membre n'existe pas)
+    @Query("SELECT new com.lestestes.APITEST.dto.MemberDashboard(m.id, m.firstName, m.lastName, m.email, m.active, "
+            + "COUNT(bl), "
+            + "COALESCE(SUM(CASE WHEN bl.returned = false THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN bl.returned = false AND bl.dueDate < :today THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN bl.returned = true AND bl.returnDate > bl.dueDate THEN 1 ELSE 0 END), 0), "
+            + "MIN(bl.borrowDate), MAX(bl.borrowDate)) "
+            + "FROM Member m LEFT JOIN m.loans bl WHERE m.id = :id "
+            + "GROUP BY m.id, m.firstName, m.lastName, m.email, m.active")
+    Optional<MemberDashboard> findDashboardById(Long id, LocalDate today);
+    
+    // Lire un membre en verrouillant sa ligne jusqu'à la fin de la transaction
+    // (sérialise les emprunts simultanés d'un même membre pour respecter la limite d'emprunts)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Member m WHERE m.id = :id")
+    Optional<Member> findWithLockById(Long id);
 }
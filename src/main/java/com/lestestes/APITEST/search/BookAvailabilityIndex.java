@@ -0,0 +1,342 @@
+package com.lestestes.APITEST.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lestestes.APITEST.dto.AvailabilityCount;
+import com.lestestes.APITEST.dto.BookAvailabilityRow;
+import com.lestestes.APITEST.event.BookChangedEvent;
+import com.lestestes.APITEST.event.BooksImportedEvent;
+import com.lestestes.APITEST.event.LoanChangedEvent;
+import com.lestestes.APITEST.repository.BookRepository;
+
+/**
+ * Index en mémoire de la disponibilité des livres : bitmaps compressés (Roaring) des IDs de tous les livres,
+ * des livres disponibles et des livres de chaque catégorie. Les nombres de livres disponibles, leur
+ * intersection avec une catégorie et les pages de livres disponibles se lisent dans les bitmaps, sans
+ * parcourir la table books. L'index est construit au démarrage et chaque nuit, puis tenu à jour par les
+ * emprunts, retours et modifications de livres validés, en relisant chaque fois le livre en base ; les livres
+ * modifiés pendant la construction sont relus une fois les nouveaux bitmaps en place. Les IDs de livres doivent
+ * tenir sur 31 bits.
+ */
+@Component
+public class BookAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookAvailabilityIndex.class);
+    private static final int REFRESH_STRIPES = 64;
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Sérialisent la relecture et l'application des mises à jour d'un même livre (un verrou par tranche d'IDs)
+    private final ReentrantLock[] refreshLocks = new ReentrantLock[REFRESH_STRIPES];
+
+    private RoaringBitmap books = new RoaringBitmap();
+    private RoaringBitmap available = new RoaringBitmap();
+    private Map<Long, RoaringBitmap> categories = new HashMap<>();
+    // IDs des livres modifiés pendant la construction en cours (null hors construction)
+    private Set<Long> pending;
+    private volatile boolean ready = false;
+
+    @Autowired
+    public BookAvailabilityIndex(BookRepository bookRepository, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (int i = 0; i < REFRESH_STRIPES; i++) {
+            refreshLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // Indiquer si l'index est construit (sinon la disponibilité est lue en base)
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Construire l'index à partir de la base, au démarrage et chaque nuit (book.availability.rebuild-cron)
+    @Scheduled(cron = "${book.availability.rebuild-cron:0 15 3 * * *}")
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            RoaringBitmap newBooks = new RoaringBitmap();
+            RoaringBitmap newAvailable = new RoaringBitmap();
+            Map<Long, RoaringBitmap> newCategories = new HashMap<>();
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<BookAvailabilityRow> rows = bookRepository.streamAvailabilityRows()) {
+                    rows.forEach(row -> {
+                        int bit = bit(row.getId());
+                        newBooks.add(bit);
+                        if (Boolean.TRUE.equals(row.getAvailable())) {
+                            newAvailable.add(bit);
+                        }
+                        newCategories.computeIfAbsent(row.getCategoryId(), id -> new RoaringBitmap()).add(bit);
+                    });
+                }
+            });
+            newBooks.runOptimize();
+            newAvailable.runOptimize();
+            newCategories.values().forEach(RoaringBitmap::runOptimize);
+
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                books = newBooks;
+                available = newAvailable;
+                categories = newCategories;
+                ready = true;
+                changed = pending;
+                pending = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // Relire les livres modifiés pendant la lecture, puis ceux modifiés pendant leur relecture
+            int reread = 0;
+            while (!changed.isEmpty()) {
+                List<BookAvailabilityRow> rows = bookRepository.findAvailabilityRowsByIdIn(changed);
+                lock.writeLock().lock();
+                try {
+                    for (Long bookId : changed) {
+                        removeLocked(bit(bookId));
+                    }
+                    for (BookAvailabilityRow row : rows) {
+                        putLocked(bit(row.getId()), row.getCategoryId(), Boolean.TRUE.equals(row.getAvailable()));
+                    }
+                    reread += changed.size();
+                    changed = pending;
+                    pending = new HashSet<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.info("Index de disponibilité construit : {} livres dont {} disponibles, {} catégories ({} octets), "
+                    + "{} livres relus en {} ms", newBooks.getCardinality(), newAvailable.getCardinality(), newCategories.size(),
+                    newBooks.getSizeInBytes() + newAvailable.getSizeInBytes(), reread, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Relire la disponibilité d'un livre emprunté ou rendu : la valeur validée, et non le type de l'événement,
+    // car un emprunt et un retour rapprochés peuvent être notifiés dans le désordre
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.getBookId() == null
+                || (event.getType() != LoanChangedEvent.Type.BORROWED && event.getType() != LoanChangedEvent.Type.RETURNED)) {
+            return;
+        }
+        refresh(event.getBookId());
+    }
+
+    // Relire la catégorie et la disponibilité d'un livre créé, modifié ou supprimé
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            ReentrantLock refreshLock = refreshLock(event.getBookId());
+            refreshLock.lock();
+            try {
+                remove(event.getBookId());
+            } finally {
+                refreshLock.unlock();
+            }
+            return;
+        }
+        refresh(event.getBookId());
+    }
+
+    // Ajouter un lot de livres importés en masse (une requête pour tout le lot), sous les verrous de ses livres
+    // pris dans l'ordre croissant des tranches : une relecture plus récente d'un de ces livres n'est pas écrasée
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        Set<Integer> stripes = new TreeSet<>();
+        event.getBookIds().forEach(bookId -> stripes.add(stripe(bookId)));
+        List<ReentrantLock> locked = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                refreshLocks[stripe].lock();
+                locked.add(refreshLocks[stripe]);
+            }
+            for (BookAvailabilityRow row : bookRepository.findAvailabilityRowsByIdIn(event.getBookIds())) {
+                put(row.getId(), row.getCategoryId(), Boolean.TRUE.equals(row.getAvailable()));
+            }
+        } finally {
+            locked.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    // Ajouter ou remplacer un livre (sa catégorie a pu changer)
+    public void put(Long bookId, Long categoryId, boolean isAvailable) {
+        int bit = bit(bookId);
+        lock.writeLock().lock();
+        try {
+            putLocked(bit, categoryId, isAvailable);
+            recordChange(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Retirer un livre supprimé
+    public void remove(Long bookId) {
+        int bit = bit(bookId);
+        lock.writeLock().lock();
+        try {
+            removeLocked(bit);
+            recordChange(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Nombre de livres, et de livres disponibles, de tout le catalogue (categoryId null) ou d'une catégorie
+    public AvailabilityCount count(Long categoryId) {
+        lock.readLock().lock();
+        try {
+            if (categoryId == null) {
+                return new AvailabilityCount(null, books.getLongCardinality(), available.getLongCardinality());
+            }
+            RoaringBitmap category = categories.get(categoryId);
+            return category == null ? new AvailabilityCount(categoryId, 0, 0)
+                    : new AvailabilityCount(categoryId, category.getLongCardinality(),
+                            RoaringBitmap.andCardinality(available, category));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // IDs croissants des livres disponibles après afterId, de tout le catalogue ou d'une catégorie, au plus limit
+    public List<Long> findAvailableIds(long afterId, Long categoryId, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+        if (afterId >= Integer.MAX_VALUE) {
+            return ids;
+        }
+        int from = (int) Math.max(0, afterId + 1);
+        lock.readLock().lock();
+        try {
+            PeekableIntIterator availableBooks = available.getIntIterator();
+            availableBooks.advanceIfNeeded(from);
+            if (categoryId == null) {
+                while (ids.size() < limit && availableBooks.hasNext()) {
+                    ids.add((long) availableBooks.next());
+                }
+                return ids;
+            }
+            RoaringBitmap category = categories.get(categoryId);
+            if (category == null) {
+                return ids;
+            }
+            // Intersection au fil de l'eau : chaque itérateur saute directement à la valeur courante de l'autre
+            PeekableIntIterator categoryBooks = category.getIntIterator();
+            categoryBooks.advanceIfNeeded(from);
+            while (ids.size() < limit && availableBooks.hasNext() && categoryBooks.hasNext()) {
+                int next = availableBooks.peekNext();
+                int inCategory = categoryBooks.peekNext();
+                if (next == inCategory) {
+                    ids.add((long) next);
+                    availableBooks.next();
+                    categoryBooks.next();
+                } else if (next < inCategory) {
+                    availableBooks.advanceIfNeeded(inCategory);
+                } else {
+                    categoryBooks.advanceIfNeeded(next);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lecture et mise à jour se font sous le verrou du livre : deux mises à jour d'un même livre s'appliquent dans
+    // l'ordre de leurs lectures, et la dernière lecture, la plus récente, l'emporte ; les autres livres ne les attendent pas
+    private void refresh(Long bookId) {
+        ReentrantLock refreshLock = refreshLock(bookId);
+        refreshLock.lock();
+        try {
+            List<BookAvailabilityRow> rows = bookRepository.findAvailabilityRowsByIdIn(List.of(bookId));
+            if (rows.isEmpty()) {
+                remove(bookId);
+            } else {
+                put(rows.get(0).getId(), rows.get(0).getCategoryId(), Boolean.TRUE.equals(rows.get(0).getAvailable()));
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private ReentrantLock refreshLock(Long bookId) {
+        return refreshLocks[stripe(bookId)];
+    }
+
+    private static int stripe(Long bookId) {
+        return Math.floorMod(bookId, REFRESH_STRIPES);
+    }
+
+    private void putLocked(int bit, Long categoryId, boolean isAvailable) {
+        removeLocked(bit);
+        books.add(bit);
+        if (isAvailable) {
+            available.add(bit);
+        }
+        categories.computeIfAbsent(categoryId, id -> new RoaringBitmap()).add(bit);
+    }
+
+    private void recordChange(Long bookId) {
+        if (pending != null) {
+            pending.add(bookId);
+        }
+    }
+
+    private void removeLocked(int bit) {
+        if (books.checkedRemove(bit)) {
+            available.remove(bit);
+            for (RoaringBitmap category : categories.values()) {
+                if (category.checkedRemove(bit)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Position d'un livre dans les bitmaps (IDs positifs sur 31 bits)
+    private static int bit(Long bookId) {
+        if (bookId == null || bookId < 0 || bookId > Integer.MAX_VALUE) {
+            throw new IllegalStateException("ID de livre hors de l'index de disponibilité : " + bookId);
+        }
+        return bookId.intValue();
+    }
+}
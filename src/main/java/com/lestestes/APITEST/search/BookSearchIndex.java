@@ -0,0 +1,460 @@
+package com.lestestes.APITEST.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lestestes.APITEST.dto.BookAuthorName;
+import com.lestestes.APITEST.dto.BookSearchRow;
+import com.lestestes.APITEST.event.AuthorChangedEvent;
+import com.lestestes.APITEST.event.BookChangedEvent;
+import com.lestestes.APITEST.event.BooksImportedEvent;
+import com.lestestes.APITEST.repository.BookRepository;
+
+/**
+ * Index inversé en mémoire pour la recherche de livres.
+ * Les mots du titre, des noms d'auteurs et de l'éditeur sont normalisés (minuscules, sans accents)
+ * puis découpés en trigrammes ; les deux premiers caractères de chaque mot sont aussi indexés
+ * pour les recherches très courtes. Une requête intersecte les listes triées d'IDs de ses trigrammes,
+ * vérifie chaque candidat puis classe les résultats (titre, puis auteurs, puis éditeur).
+ * Les modifications validées pendant la construction de l'index sont rejouées sur le nouvel index.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    // Préfixe des n-grammes de début de mot (recherches de moins de 3 caractères)
+    private static final String PREFIX_MARKER = "^";
+
+    // Ordre de classement : le meilleur score d'abord, puis le titre le plus court, puis l'ID le plus petit
+    private static final Comparator<ScoredBook> RANKING = Comparator
+            .comparingInt(ScoredBook::score).reversed()
+            .thenComparingInt(ScoredBook::titleLength)
+            .thenComparingLong(ScoredBook::bookId);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Ordonne les mises à jour incrémentales (lecture en base puis indexation) entre elles
+    private final Object refreshLock = new Object();
+
+    private Map<Long, IndexedBook> documents = new HashMap<>();
+    private Map<String, Postings> postings = new HashMap<>();
+    // Modifications reçues pendant la construction en cours (null hors construction)
+    private List<PendingChange> pending;
+    private volatile boolean ready = false;
+
+    @Autowired
+    public BookSearchIndex(BookRepository bookRepository, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Indiquer si l'index est construit (sinon la recherche passe par la base)
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Nombre de livres indexés
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Construire l'index à partir de la base au démarrage de l'application
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Map<Long, IndexedBook> newDocuments = new HashMap<>();
+            Map<String, Postings> newPostings = new HashMap<>();
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                Map<Long, StringBuilder> authorsByBook = new HashMap<>();
+                try (Stream<BookAuthorName> names = bookRepository.streamAuthorNames()) {
+                    names.forEach(name -> authorsByBook
+                            .computeIfAbsent(name.getBookId(), id -> new StringBuilder())
+                            .append(' ').append(name.getFullName()));
+                }
+                // Les livres arrivent triés par ID : les listes d'IDs se remplissent par simple ajout en fin
+                try (Stream<BookSearchRow> rows = bookRepository.streamSearchRows()) {
+                    rows.forEach(row -> {
+                        StringBuilder authors = authorsByBook.remove(row.getId());
+                        IndexedBook document = IndexedBook.of(row.getTitle(), authors == null ? null : authors.toString(), row.getPublisher());
+                        newDocuments.put(row.getId(), document);
+                        for (String gram : document.grams()) {
+                            newPostings.computeIfAbsent(gram, key -> new Postings()).add(row.getId());
+                        }
+                    });
+                }
+            });
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                documents = newDocuments;
+                postings = newPostings;
+                // Créations, modifications et suppressions validées pendant la lecture, dans leur ordre d'arrivée
+                for (PendingChange change : pending) {
+                    if (change.document() == null) {
+                        removeLocked(change.bookId());
+                    } else {
+                        indexLocked(change.bookId(), change.document());
+                    }
+                }
+                replayed = pending.size();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Index de recherche construit : {} livres, {} n-grammes, {} modifications rejouées en {} ms",
+                    newDocuments.size(), newPostings.size(), replayed, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Maintenir l'index après chaque création, modification ou suppression validée
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            synchronized (refreshLock) {
+                remove(event.getBookId());
+            }
+            return;
+        }
+        reindex(List.of(event.getBookId()));
+    }
+
+    // Indexer un lot de livres importés en masse (deux requêtes pour tout le lot)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        reindex(event.getBookIds());
+    }
+
+    // Réindexer les livres d'un auteur modifié ou supprimé : son nom fait partie des documents indexés
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        List<Long> bookIds = bookRepository.findIdsByAuthorId(event.getAuthorId());
+        if (!bookIds.isEmpty()) {
+            reindex(bookIds);
+        }
+    }
+
+    // Relire et indexer un lot de livres (deux requêtes pour tout le lot) ; les livres disparus sont retirés.
+    // Lecture et indexation se font sous refreshLock : deux mises à jour d'un même livre s'appliquent dans
+    // l'ordre de leurs lectures, et la dernière lecture, la plus récente, l'emporte
+    private void reindex(Collection<Long> bookIds) {
+        synchronized (refreshLock) {
+            Map<Long, StringBuilder> authors = new HashMap<>();
+            for (BookAuthorName name : bookRepository.findAuthorNamesByBookIdIn(bookIds)) {
+                authors.computeIfAbsent(name.getBookId(), id -> new StringBuilder()).append(' ').append(name.getFullName());
+            }
+            Set<Long> missing = new HashSet<>(bookIds);
+            for (BookSearchRow row : bookRepository.findSearchRowsByIdIn(bookIds)) {
+                StringBuilder names = authors.get(row.getId());
+                index(row.getId(), IndexedBook.of(row.getTitle(), names == null ? "" : names.toString(), row.getPublisher()));
+                missing.remove(row.getId());
+            }
+            missing.forEach(this::remove);
+        }
+    }
+
+    // Ajouter ou remplacer un livre dans l'index
+    public void index(Long bookId, IndexedBook document) {
+        lock.writeLock().lock();
+        try {
+            indexLocked(bookId, document);
+            if (pending != null) {
+                pending.add(new PendingChange(bookId, document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Retirer un livre de l'index
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(bookId);
+            if (pending != null) {
+                pending.add(new PendingChange(bookId, null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexLocked(Long bookId, IndexedBook document) {
+        removeLocked(bookId);
+        documents.put(bookId, document);
+        for (String gram : document.grams()) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(bookId);
+        }
+    }
+
+    private void removeLocked(Long bookId) {
+        IndexedBook previous = documents.remove(bookId);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(bookId) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    // Rechercher les IDs des livres correspondant à la requête, classés par pertinence
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(fold(query));
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String gram : queryGrams(tokens)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            // Parcourir la liste la plus courte et vérifier la présence dans les autres
+            lists.sort(Comparator.comparingInt(Postings::size));
+            Postings smallest = lists.get(0);
+            List<Postings> others = lists.subList(1, lists.size());
+
+            String foldedQuery = String.join(" ", tokens);
+            PriorityQueue<ScoredBook> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (int i = 0; i < smallest.size(); i++) {
+                long bookId = smallest.get(i);
+                if (!containsAll(others, bookId)) {
+                    continue;
+                }
+                IndexedBook document = documents.get(bookId);
+                int score = document.score(tokens, foldedQuery);
+                if (score > 0) {
+                    best.add(new ScoredBook(bookId, score, document.title().length()));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+
+            List<ScoredBook> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+            return ranked.stream().map(ScoredBook::bookId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean containsAll(List<Postings> lists, long bookId) {
+        for (Postings list : lists) {
+            if (!list.contains(bookId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // N-grammes à intersecter pour une requête : trigrammes des mots longs, préfixe des mots courts
+    private static Set<String> queryGrams(List<String> tokens) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String token : tokens) {
+            if (token.length() < 3) {
+                grams.add(PREFIX_MARKER + token);
+            } else {
+                for (int i = 0; i + 3 <= token.length(); i++) {
+                    grams.add(token.substring(i, i + 3));
+                }
+            }
+        }
+        return grams;
+    }
+
+    // Normaliser un texte : minuscules, ligatures développées, accents retirés ("Étranger" -> "etranger")
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT)
+                .replace("œ", "oe")
+                .replace("æ", "ae")
+                .replace("ß", "ss");
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    // Découper un texte normalisé en mots
+    static List<String> tokenize(String folded) {
+        return Arrays.stream(TOKEN_SEPARATORS.split(folded))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Livre indexé : champs normalisés (mots séparés par une espace) utilisés pour vérifier et classer les candidats.
+     */
+    public record IndexedBook(String title, String authors, String publisher) {
+
+        public static IndexedBook of(String title, String authors, String publisher) {
+            return new IndexedBook(normalize(title), normalize(authors), normalize(publisher));
+        }
+
+        private static String normalize(String text) {
+            return String.join(" ", tokenize(fold(text)));
+        }
+
+        // N-grammes indexés : trigrammes de chaque mot et ses deux premiers préfixes
+        Set<String> grams() {
+            Set<String> grams = new LinkedHashSet<>();
+            for (String field : new String[] { title, authors, publisher }) {
+                for (String token : tokenize(field)) {
+                    grams.add(PREFIX_MARKER + token.charAt(0));
+                    if (token.length() >= 2) {
+                        grams.add(PREFIX_MARKER + token.substring(0, 2));
+                    }
+                    for (int i = 0; i + 3 <= token.length(); i++) {
+                        grams.add(token.substring(i, i + 3));
+                    }
+                }
+            }
+            return grams;
+        }
+
+        // Score de pertinence ; 0 si un mot de la requête ne se retrouve dans aucun champ
+        int score(List<String> tokens, String foldedQuery) {
+            int score = title.startsWith(foldedQuery) ? 5 : 0;
+            for (String token : tokens) {
+                int tokenScore = Math.max(fieldScore(title, token, 6, 4),
+                        Math.max(fieldScore(authors, token, 3, 2), fieldScore(publisher, token, 1, 1)));
+                if (tokenScore == 0) {
+                    return 0;
+                }
+                score += tokenScore;
+            }
+            return score;
+        }
+
+        // Début de mot (toujours accepté) ou sous-chaîne (seulement pour les mots d'au moins 3 caractères)
+        private static int fieldScore(String field, String token, int wordPrefixScore, int substringScore) {
+            if (field.startsWith(token) || field.contains(" " + token)) {
+                return wordPrefixScore;
+            }
+            if (token.length() >= 3 && field.contains(token)) {
+                return substringScore;
+            }
+            return 0;
+        }
+    }
+
+    private record ScoredBook(long bookId, int score, int titleLength) {
+    }
+
+    /**
+     * Modification reçue pendant une construction, à rejouer sur le nouvel index (document null : livre supprimé).
+     */
+    private record PendingChange(Long bookId, IndexedBook document) {
+    }
+
+    /**
+     * Liste triée d'IDs de livres (postings) stockée dans un tableau de long primitifs.
+     */
+    static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void add(long id) {
+            int position = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                int found = Arrays.binarySearch(ids, 0, size, id);
+                if (found >= 0) {
+                    return;
+                }
+                position = -found - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int found = Arrays.binarySearch(ids, 0, size, id);
+            if (found < 0) {
+                return false;
+            }
+            System.arraycopy(ids, found + 1, ids, found, size - found - 1);
+            size--;
+            return true;
+        }
+    }
+}
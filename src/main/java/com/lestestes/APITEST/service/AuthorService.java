@@ -3,9 +3,13 @@ package com.lestestes.APITEST.service;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.event.AuthorChangedEvent;
 import com.lestestes.APITEST.exception.ResourceNotFoundException;
 import com.lestestes.APITEST.model.Author;
 import com.lestestes.APITEST.repository.AuthorRepository;
@@ -14,10 +18,12 @@ import com.lestestes.APITEST.repository.AuthorRepository;
 public class AuthorService {
 
     private final AuthorRepository authorRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
-    public AuthorService(AuthorRepository authorRepository) {
+    public AuthorService(AuthorRepository authorRepository, ApplicationEventPublisher eventPublisher) {
         this.authorRepository = authorRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     // Récupérer tous les auteurs
@@ -30,6 +36,14 @@ public class AuthorService {
         return authorRepository.findAllByOrderByLastNameAscFirstNameAsc();
     }
     
+    // Récupérer une page d'auteurs (pagination par curseur sur l'ID)
+    public CursorPage<Author> getAuthorsPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Author> rows = authorRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Author::getId);
+    }
+    
     // Récupérer un auteur par son ID
     public Author getAuthorById(Long id) {
         return authorRepository.findById(id)
@@ -64,7 +78,10 @@ public class AuthorService {
         author.setBiography(authorDetails.getBiography());
         author.setNationality(authorDetails.getNationality());
         
-        return authorRepository.save(author);
+        Author savedAuthor = authorRepository.save(author);
+        // Les livres de l'auteur sont réindexés sous son nouveau nom après la validation
+        eventPublisher.publishEvent(new AuthorChangedEvent(savedAuthor.getId()));
+        return savedAuthor;
     }
     
     // Supprimer un auteur
@@ -78,6 +95,7 @@ public class AuthorService {
         }
         
         authorRepository.delete(author);
+        eventPublisher.publishEvent(new AuthorChangedEvent(id));
     }
     
     // Vérifier si un auteur existe avec ce nom et prénom
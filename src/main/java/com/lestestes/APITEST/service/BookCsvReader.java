@@ -0,0 +1,150 @@
+package com.lestestes.APITEST.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.lestestes.APITEST.dto.BookImportRow;
+
+/**
+ * Lecture en flux d'un CSV d'import de livres (RFC 4180 : champs entre guillemets, guillemets doublés,
+ * retours à la ligne dans un champ). La première ligne nomme les colonnes, dans n'importe quel ordre :
+ * title, isbn, description, pageCount, publishDate (AAAA-MM-JJ), categoryId, categoryName,
+ * authorIds (séparés par '|'), language, publisher, coverImageUrl.
+ */
+class BookCsvReader {
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> header = new HashMap<>();
+
+    BookCsvReader(Reader source) throws IOException {
+        this.reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        List<String> names = readFields();
+        if (names == null) {
+            throw new IllegalArgumentException("Le fichier CSV est vide");
+        }
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).replace("\uFEFF", "").trim(), i);
+        }
+        if (!header.containsKey("title") || !header.containsKey("isbn")) {
+            throw new IllegalArgumentException("L'en-tête CSV doit contenir au moins les colonnes title et isbn");
+        }
+    }
+
+    // Enregistrement suivant, ou null en fin de fichier (les lignes vides sont ignorées)
+    Record next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readFields();
+        } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+        return fields == null ? null : new Record(fields);
+    }
+
+    private List<String> readFields() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Ligne CSV lue, accessible par nom de colonne.
+     */
+    class Record {
+
+        private final List<String> fields;
+
+        Record(List<String> fields) {
+            this.fields = fields;
+        }
+
+        // Valeur d'une colonne, null si absente ou vide
+        String get(String column) {
+            Integer index = header.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        // Conversion en ligne d'import (IllegalArgumentException si une valeur est mal formée)
+        BookImportRow toRow() {
+            BookImportRow row = new BookImportRow();
+            row.setTitle(get("title"));
+            row.setIsbn(get("isbn"));
+            row.setDescription(get("description"));
+            row.setPageCount(parse("pageCount", Integer::valueOf));
+            row.setPublishDate(parse("publishDate", LocalDate::parse));
+            row.setCategoryId(parse("categoryId", Long::valueOf));
+            row.setCategoryName(get("categoryName"));
+            String authorIds = get("authorIds");
+            if (authorIds != null) {
+                for (String authorId : authorIds.split("\\|")) {
+                    if (!authorId.isBlank()) {
+                        row.getAuthorIds().add(parse("authorIds", authorId.trim(), Long::valueOf));
+                    }
+                }
+            }
+            row.setLanguage(get("language"));
+            row.setPublisher(get("publisher"));
+            row.setCoverImageUrl(get("coverImageUrl"));
+            return row;
+        }
+
+        private <T> T parse(String column, Parser<T> parser) {
+            String value = get(column);
+            return value == null ? null : parse(column, value, parser);
+        }
+
+        private <T> T parse(String column, String value, Parser<T> parser) {
+            try {
+                return parser.parse(value);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Valeur invalide pour " + column + " : " + value);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Parser<T> {
+        T parse(String value);
+    }
+}
@@ -0,0 +1,284 @@
+package com.lestestes.APITEST.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lestestes.APITEST.dto.BookImportReport;
+import com.lestestes.APITEST.dto.BookImportRow;
+import com.lestestes.APITEST.event.BooksImportedEvent;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.repository.AuthorRepository;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.CategoryRepository;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Import en masse de livres (flux de catalogues d'éditeurs).
+ * Les lignes sont lues en flux puis traitées par lots : validation, contrôle des ISBN en double
+ * (dans l'import et en base, une requête par lot) et des auteurs, puis insertion du lot en
+ * requêtes JDBC groupées dans une transaction. Une ligne invalide est rejetée avec son motif
+ * sans interrompre l'import ; si l'insertion d'un lot échoue, ses lignes sont reprises une à une.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_BOOK = "INSERT INTO \"books\" (\"title\", \"isbn\", \"description\", \"pageCount\", "
+            + "\"publishDate\", \"category_id\", \"language\", \"publisher\", \"coverImageUrl\", \"available\") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, TRUE)";
+    private static final String INSERT_BOOK_AUTHOR = "INSERT INTO \"book_author\" (\"book_id\", \"author_id\") VALUES (?, ?)";
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public BookImportService(BookRepository bookRepository, AuthorRepository authorRepository,
+            CategoryRepository categoryRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            Validator validator, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Importer un tableau JSON de lignes, lu élément par élément
+    public BookImportReport importJson(InputStream json) throws IOException {
+        Importer importer = new Importer();
+        try (MappingIterator<BookImportRow> rows = objectMapper.readerFor(BookImportRow.class).readValues(json)) {
+            int row = 0;
+            while (hasNext(rows, row)) {
+                row++;
+                try {
+                    importer.add(row, rows.nextValue());
+                } catch (StreamReadException e) {
+                    throw new IllegalArgumentException("JSON invalide à l'élément " + row + " : " + e.getOriginalMessage());
+                } catch (JsonProcessingException e) {
+                    // Valeur mal typée : la ligne est rejetée, le lecteur reprend à l'élément suivant
+                    importer.reject(row, null, "Valeur invalide : " + e.getOriginalMessage());
+                }
+            }
+        }
+        return importer.finish();
+    }
+
+    // Importer un fichier CSV (ligne d'en-tête obligatoire, auteurs séparés par '|')
+    public BookImportReport importCsv(Reader csv) throws IOException {
+        Importer importer = new Importer();
+        BookCsvReader reader = new BookCsvReader(csv);
+        int row = 0;
+        for (BookCsvReader.Record record = reader.next(); record != null; record = reader.next()) {
+            row++;
+            try {
+                importer.add(row, record.toRow());
+            } catch (IllegalArgumentException e) {
+                importer.reject(row, record.get("isbn"), e.getMessage());
+            }
+        }
+        return importer.finish();
+    }
+
+    private static boolean hasNext(MappingIterator<BookImportRow> rows, int row) throws IOException {
+        try {
+            return rows.hasNextValue();
+        } catch (StreamReadException e) {
+            throw new IllegalArgumentException("JSON invalide après l'élément " + row + " : " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * État d'un import : lot en cours, ISBN déjà vus et catégories connues.
+     */
+    private final class Importer {
+
+        private final long start = System.nanoTime();
+        private final BookImportReport report = new BookImportReport();
+        private final List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final Set<String> seenIsbns = new HashSet<>();
+        private final Map<Long, Long> categoriesById = new HashMap<>();
+        private final Map<String, Long> categoriesByName = new HashMap<>();
+
+        Importer() {
+            for (Category category : categoryRepository.findAll()) {
+                categoriesById.put(category.getId(), category.getId());
+                categoriesByName.put(category.getName().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+
+        void add(int row, BookImportRow bookRow) {
+            report.setReceived(report.getReceived() + 1);
+            String error = validate(bookRow);
+            if (error != null) {
+                report.reject(row, bookRow.getIsbn(), error);
+            } else if (!seenIsbns.add(bookRow.getIsbn().trim())) {
+                report.reject(row, bookRow.getIsbn(), "ISBN en double dans l'import : " + bookRow.getIsbn());
+            } else {
+                chunk.add(new PendingRow(row, bookRow, bookRow.getIsbn().trim()));
+                if (chunk.size() == CHUNK_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        void reject(int row, String isbn, String message) {
+            report.setReceived(report.getReceived() + 1);
+            report.reject(row, isbn, message);
+        }
+
+        BookImportReport finish() {
+            flush();
+            report.getErrors().sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+            report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            log.info("Import en masse : {} lignes reçues, {} importées, {} rejetées en {} ms",
+                    report.getReceived(), report.getImported(), report.getRejected(), report.getElapsedMillis());
+            return report;
+        }
+
+        private String validate(BookImportRow bookRow) {
+            Set<ConstraintViolation<BookImportRow>> violations = validator.validate(bookRow);
+            if (!violations.isEmpty()) {
+                return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+            }
+            Long categoryId = bookRow.getCategoryId() != null
+                    ? categoriesById.get(bookRow.getCategoryId())
+                    : categoriesByName.get(bookRow.getCategoryName().trim().toLowerCase(Locale.ROOT));
+            if (categoryId == null) {
+                return "Catégorie non trouvée : " + (bookRow.getCategoryId() != null ? bookRow.getCategoryId() : bookRow.getCategoryName());
+            }
+            bookRow.setCategoryId(categoryId);
+            return null;
+        }
+
+        // Contrôles ensemblistes du lot (ISBN en base, auteurs) puis insertion des lignes retenues
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Set<String> existingIsbns = new HashSet<>(bookRepository.findExistingIsbns(
+                    chunk.stream().map(PendingRow::isbn).toList()));
+            Set<Long> authorIds = chunk.stream().flatMap(pending -> pending.row().getAuthorIds().stream())
+                    .collect(Collectors.toSet());
+            Set<Long> existingAuthors = authorIds.isEmpty() ? Set.of() : new HashSet<>(authorRepository.findExistingIds(authorIds));
+
+            List<PendingRow> accepted = new ArrayList<>(chunk.size());
+            for (PendingRow pending : chunk) {
+                Long missingAuthor = pending.row().getAuthorIds().stream()
+                        .filter(id -> !existingAuthors.contains(id)).findFirst().orElse(null);
+                if (existingIsbns.contains(pending.isbn())) {
+                    report.reject(pending.line(), pending.isbn(), "Un livre avec l'ISBN " + pending.isbn() + " existe déjà");
+                } else if (missingAuthor != null) {
+                    report.reject(pending.line(), pending.isbn(), "Auteur non trouvé avec l'ID : " + missingAuthor);
+                } else {
+                    accepted.add(pending);
+                }
+            }
+            chunk.clear();
+
+            try {
+                report.setImported(report.getImported() + insert(accepted));
+            } catch (DataAccessException e) {
+                // Lot refusé par la base (ex. ISBN inséré entre-temps) : reprise ligne par ligne
+                for (PendingRow pending : accepted) {
+                    try {
+                        report.setImported(report.getImported() + insert(List.of(pending)));
+                    } catch (DataAccessException rowFailure) {
+                        report.reject(pending.line(), pending.isbn(), "Insertion refusée : " + rowFailure.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    // Insérer un lot en deux requêtes JDBC groupées (livres puis liens auteurs) dans une transaction
+    private int insert(List<PendingRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        return transactionTemplate.execute(status -> {
+            List<Long> bookIds = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+                List<Long> ids = new ArrayList<>(rows.size());
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_BOOK, Statement.RETURN_GENERATED_KEYS)) {
+                    for (PendingRow pending : rows) {
+                        BookImportRow row = pending.row();
+                        statement.setString(1, row.getTitle().trim());
+                        statement.setString(2, pending.isbn());
+                        statement.setString(3, row.getDescription());
+                        statement.setObject(4, row.getPageCount(), Types.INTEGER);
+                        statement.setDate(5, row.getPublishDate() != null ? Date.valueOf(row.getPublishDate()) : null);
+                        statement.setLong(6, row.getCategoryId());
+                        statement.setString(7, row.getLanguage());
+                        statement.setString(8, row.getPublisher());
+                        statement.setString(9, row.getCoverImageUrl());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getLong(1));
+                        }
+                    }
+                }
+                return ids;
+            });
+
+            List<Object[]> links = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                for (Long authorId : new HashSet<>(rows.get(i).row().getAuthorIds())) {
+                    links.add(new Object[] { bookIds.get(i), authorId });
+                }
+            }
+            if (!links.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_BOOK_AUTHOR, links);
+            }
+            // Reçu par l'index de recherche après la validation de la transaction
+            eventPublisher.publishEvent(new BooksImportedEvent(bookIds));
+            return bookIds.size();
+        });
+    }
+
+    private record PendingRow(int line, BookImportRow row, String isbn) {
+    }
+}
@@ -1,24 +1,44 @@
 package com.lestestes.APITEST.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.LoanPeriodCount;
+import com.lestestes.APITEST.dto.LoanStatistics;
+import com.lestestes.APITEST.dto.LoanSummary;
+import com.lestestes.APITEST.dto.StatisticsGranularity;
+import com.lestestes.APITEST.event.LoanChangedEvent;
 import com.lestestes.APITEST.exception.ResourceNotFoundException;
+import com.lestestes.APITEST.loan.LoanDailyRollup;
+import com.lestestes.APITEST.loan.OverdueLoanIndex;
 import com.lestestes.APITEST.model.Book;
 import com.lestestes.APITEST.model.BookLoan;
 import com.lestestes.APITEST.model.Member;
 import com.lestestes.APITEST.repository.BookLoanRepository;
 import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
 
 @Service
 public class BookLoanService {
 
     private final BookLoanRepository bookLoanRepository;
     private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final OverdueLoanIndex overdueLoanIndex;
+    private final LoanDailyRollup loanDailyRollup;
+    private final ApplicationEventPublisher eventPublisher;
     
     // Nombre maximum de livres qu'un membre peut emprunter simultanément
     private static final int MAX_LOANS_PER_MEMBER = 5;
@@ -26,10 +46,30 @@ public class BookLoanService {
     // Durée standard d'un prêt en jours
     private static final int STANDARD_LOAN_DAYS = 14;
     
+    // Nombre d'IDs par requête lors du chargement des emprunts en retard
+    private static final int LOAD_BATCH_SIZE = 1000;
+    
+    // Taille par défaut et taille maximale des classements des statistiques
+    private static final int DEFAULT_STATISTICS_TOP = 10;
+    private static final int MAX_STATISTICS_TOP = 100;
+    
+    // Nombre maximum de périodes renvoyées par les statistiques (une année de jours)
+    private static final int MAX_STATISTICS_PERIODS = 366;
+    
+    // Jours de la fin de période couverts par les classements des livres et des membres, lus dans book_loans
+    // (l'agrégat quotidien ne descend pas au livre ni au membre) : leur coût ne croît pas avec la période demandée
+    private static final int MAX_RANKING_DAYS = 92;
+    
     @Autowired
-    public BookLoanService(BookLoanRepository bookLoanRepository, BookRepository bookRepository) {
+    public BookLoanService(BookLoanRepository bookLoanRepository, BookRepository bookRepository,
+            MemberRepository memberRepository, OverdueLoanIndex overdueLoanIndex, LoanDailyRollup loanDailyRollup,
+            ApplicationEventPublisher eventPublisher) {
         this.bookLoanRepository = bookLoanRepository;
         this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.overdueLoanIndex = overdueLoanIndex;
+        this.loanDailyRollup = loanDailyRollup;
+        this.eventPublisher = eventPublisher;
     }
     
     // Récupérer tous les emprunts
@@ -37,6 +77,28 @@ public class BookLoanService {
         return bookLoanRepository.findAll();
     }
     
+    // Récupérer une page d'emprunts (pagination par curseur sur l'ID), livres et membres compris
+    @Transactional(readOnly = true)
+    public CursorPage<BookLoan> getLoansPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<BookLoan> rows = bookLoanRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        CursorPage<BookLoan> page = CursorPage.of(rows, pageSize, BookLoan::getId);
+        if (!page.getItems().isEmpty()) {
+            // Même contexte de persistance : livres, auteurs et membres de la page (sans la ligne lue en plus) chargés en une requête
+            bookLoanRepository.findWithBookAndMemberByIdIn(page.getItems().stream().map(BookLoan::getId).toList());
+        }
+        return page;
+    }
+    
+    // Récupérer une page de résumés d'emprunts (pagination par curseur sur l'ID)
+    public CursorPage<LoanSummary> getLoanSummariesPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<LoanSummary> rows = bookLoanRepository.findSummariesByIdGreaterThan(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(rows, pageSize, LoanSummary::getId);
+    }
+    
     // Récupérer un emprunt par son ID
     public BookLoan getLoanById(Long id) {
         return bookLoanRepository.findById(id)
@@ -53,6 +115,16 @@ public class BookLoanService {
         return bookLoanRepository.findByMemberAndReturnedFalse(member);
     }
     
+    // Récupérer les résumés des emprunts d'un membre
+    public List<LoanSummary> getLoanSummariesByMember(Member member) {
+        return bookLoanRepository.findSummariesByMemberId(member.getId());
+    }
+    
+    // Récupérer les résumés des emprunts actifs d'un membre
+    public List<LoanSummary> getActiveLoanSummariesForMember(Member member) {
+        return bookLoanRepository.findActiveSummariesByMemberId(member.getId());
+    }
+    
     // Récupérer les emprunts pour un livre
     public List<BookLoan> getLoansByBook(Book book) {
         return bookLoanRepository.findByBook(book);
@@ -63,26 +135,70 @@ public class BookLoanService {
         return bookLoanRepository.findByReturnedFalse();
     }
     
-    // Récupérer les emprunts en retard
+    // Récupérer les résumés de tous les emprunts actifs
+    public List<LoanSummary> getActiveLoanSummaries() {
+        return bookLoanRepository.findActiveSummaries();
+    }
+    
+    // Récupérer les emprunts en retard (du plus ancien retard au plus récent)
     public List<BookLoan> getOverdueLoans() {
-        return bookLoanRepository.findOverdueLoans(LocalDate.now());
+        return getOverdueLoans(LocalDate.now());
+    }
+    
+    // Récupérer les emprunts en retard à une date donnée : IDs lus dans l'index des retards puis chargés par lots,
+    // la date servant aussi au calcul des retards lors de la sérialisation
+    public List<BookLoan> getOverdueLoans(LocalDate today) {
+        if (!overdueLoanIndex.isReady()) {
+            List<BookLoan> loans = bookLoanRepository.findOverdueLoans(today);
+            loans.forEach(loan -> loan.setReferenceDate(today));
+            return loans;
+        }
+        List<Long> ids = overdueLoanIndex.findOverdueLoanIds(today);
+        List<BookLoan> loans = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+            Map<Long, BookLoan> byId = bookLoanRepository.findWithBookAndMemberByIdIn(batch).stream()
+                    .collect(Collectors.toMap(BookLoan::getId, Function.identity()));
+            for (Long id : batch) {
+                BookLoan loan = byId.get(id);
+                // Contrôle de l'état en base, au cas où l'emprunt aurait été modifié hors du service
+                if (loan != null && loan.isOverdueOn(today)) {
+                    loan.setReferenceDate(today);
+                    loans.add(loan);
+                }
+            }
+        }
+        return loans;
+    }
+    
+    // Compter les emprunts en retard
+    public long countOverdueLoans() {
+        LocalDate today = LocalDate.now();
+        return overdueLoanIndex.isReady()
+                ? overdueLoanIndex.countOverdue(today)
+                : bookLoanRepository.findOverdueLoans(today).size();
     }
     
     // Créer un nouvel emprunt (emprunter un livre)
+    // Sûr en cas d'emprunts concurrents : le livre est réservé par une mise à jour conditionnelle
+    // (une seule transaction peut le faire passer de disponible à emprunté) et le membre est verrouillé
+    // le temps de compter ses emprunts ; deux livres différents ne se bloquent jamais entre eux
     @Transactional
     public BookLoan borrowBook(Book book, Member member, LocalDate dueDate) {
-        // Vérifier si le livre est disponible
-        if (!book.isAvailable()) {
+        // Réserver le livre s'il est encore disponible
+        if (bookRepository.markBorrowed(book.getId()) == 0) {
             throw new IllegalStateException("Le livre n'est pas disponible pour l'emprunt");
         }
         
-        // Vérifier si le livre est déjà emprunté
+        // Vérifier si le livre est déjà emprunté (la ligne du livre reste verrouillée jusqu'à la fin de la transaction)
         if (bookLoanRepository.existsByBookAndReturnedFalse(book)) {
             throw new IllegalStateException("Le livre est déjà emprunté par un autre membre");
         }
         
         // Vérifier si le membre a déjà atteint le nombre maximum d'emprunts
-        long activeLoansCount = bookLoanRepository.countByMemberAndReturnedFalse(member);
+        Member borrower = memberRepository.findWithLockById(member.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Membre non trouvé avec l'ID : " + member.getId()));
+        long activeLoansCount = bookLoanRepository.countByMemberAndReturnedFalse(borrower);
         if (activeLoansCount >= MAX_LOANS_PER_MEMBER) {
             throw new IllegalStateException("Le membre a déjà atteint le nombre maximum d'emprunts autorisés");
         }
@@ -92,41 +208,39 @@ public class BookLoanService {
             dueDate = LocalDate.now().plusDays(STANDARD_LOAN_DAYS);
         }
         
-        // Créer un nouvel emprunt
+        // Créer un nouvel emprunt (le livre est relu : la mise à jour a vidé le contexte de persistance)
         BookLoan loan = new BookLoan();
-        loan.setBook(book);
-        loan.setMember(member);
+        loan.setBook(bookRepository.findById(book.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Livre non trouvé avec l'ID : " + book.getId())));
+        loan.setMember(borrower);
         loan.setBorrowDate(LocalDate.now());
         loan.setDueDate(dueDate);
         loan.setReturned(false);
         
-        // Marquer le livre comme non disponible
-        book.setAvailable(false);
-        bookRepository.save(book);
-        
-        return bookLoanRepository.save(loan);
+        BookLoan savedLoan = bookLoanRepository.save(loan);
+        loanDailyRollup.recordBorrow(savedLoan);
+        eventPublisher.publishEvent(LoanChangedEvent.borrowed(savedLoan.getId(), book.getId(),
+                borrower.getId(), savedLoan.getDueDate()));
+        return savedLoan;
     }
     
     // Retourner un livre
     @Transactional
     public BookLoan returnBook(Long loanId) {
         BookLoan loan = getLoanById(loanId);
+        LocalDate returnDate = LocalDate.now();
         
-        // Vérifier si le livre est déjà retourné
-        if (loan.isReturned()) {
+        // Marquer l'emprunt comme retourné, sauf si un retour concurrent l'a déjà fait
+        if (loan.isReturned() || bookLoanRepository.markReturned(loanId, returnDate) == 0) {
             throw new IllegalStateException("Ce livre a déjà été retourné");
         }
         
-        // Marquer l'emprunt comme retourné
-        loan.setReturned(true);
-        loan.setReturnDate(LocalDate.now());
-        
         // Marquer le livre comme disponible à nouveau
-        Book book = loan.getBook();
-        book.setAvailable(true);
-        bookRepository.save(book);
+        bookRepository.markAvailable(loan.getBook().getId());
+        loanDailyRollup.recordReturn(loan, returnDate);
+        eventPublisher.publishEvent(LoanChangedEvent.returned(loanId, loan.getBook().getId()));
         
-        return bookLoanRepository.save(loan);
+        return getLoanById(loanId);
     }
     
     // Prolonger un emprunt
@@ -144,14 +258,69 @@ public class BookLoanService {
             throw new IllegalStateException("Cet emprunt est déjà en retard, impossible de le prolonger");
         }
         
-        // Prolonger la date de retour
-        loan.setDueDate(loan.getDueDate().plusDays(additionalDays));
+        // Prolonger la date de retour, sauf si un retour ou une prolongation concurrente a modifié l'emprunt
+        LocalDate dueDate = loan.getDueDate().plusDays(additionalDays);
+        if (bookLoanRepository.markExtended(loanId, loan.getDueDate(), dueDate) == 0) {
+            throw new IllegalStateException("Cet emprunt a été retourné ou prolongé entre-temps, impossible de le prolonger");
+        }
+        eventPublisher.publishEvent(LoanChangedEvent.saved(loanId, dueDate));
         
-        return bookLoanRepository.save(loan);
+        return getLoanById(loanId);
     }
     
-    // Récupérer les statistiques d'emprunt pour une période donnée
-    public List<BookLoan> getLoanStatisticsForPeriod(LocalDate startDate, LocalDate endDate) {
-        return bookLoanRepository.findByBorrowDateBetween(startDate, endDate);
+    // Statistiques des emprunts créés entre deux dates : agrégat quotidien pour les compteurs et les catégories,
+    // emprunts des MAX_RANKING_DAYS derniers jours de la période pour les classements des livres et des membres
+    @Transactional(readOnly = true)
+    public LoanStatistics getLoanStatistics(LocalDate startDate, LocalDate endDate, String granularity, Integer top) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        StatisticsGranularity periodGranularity = StatisticsGranularity.from(granularity, startDate, endDate);
+        if (periodGranularity.periodsBetween(startDate, endDate) > MAX_STATISTICS_PERIODS) {
+            throw new IllegalArgumentException("Période trop longue pour la granularité " + periodGranularity
+                    + " (au plus " + MAX_STATISTICS_PERIODS + " périodes)");
+        }
+        int rankingSize = top == null ? DEFAULT_STATISTICS_TOP : top;
+        if (rankingSize < 1 || rankingSize > MAX_STATISTICS_TOP) {
+            throw new IllegalArgumentException("La taille des classements doit être comprise entre 1 et " + MAX_STATISTICS_TOP);
+        }
+        
+        // Compteurs par jour lus dans l'agrégat quotidien, retards en cours lus parmi les emprunts non rendus,
+        // puis regroupés en semaines ou en mois
+        Map<LocalDate, LoanPeriodCount> periods = new TreeMap<>();
+        List<LoanPeriodCount> days = new ArrayList<>(loanDailyRollup.countByDay(startDate, endDate));
+        days.addAll(bookLoanRepository.countOverdueByBorrowDateBetween(startDate, endDate, LocalDate.now()));
+        for (LoanPeriodCount day : days) {
+            LocalDate periodStart = periodGranularity.periodStart(day.getPeriodStart());
+            day.setPeriodStart(periodStart);
+            periods.merge(periodStart, day, LoanPeriodCount::add);
+        }
+        LoanPeriodCount totals = periods.values().stream()
+                .reduce(new LoanPeriodCount(startDate, 0, 0, 0, 0, 0), LoanPeriodCount::add);
+        
+        LoanStatistics statistics = new LoanStatistics();
+        statistics.setStartDate(startDate);
+        statistics.setEndDate(endDate);
+        statistics.setGranularity(periodGranularity);
+        statistics.setTotalLoans(totals.getLoans());
+        statistics.setReturnedLoans(totals.getReturned());
+        statistics.setActiveLoans(totals.getLoans() - totals.getReturned());
+        statistics.setOverdueLoans(totals.getOverdue());
+        statistics.setLateReturns(totals.getLateReturns());
+        statistics.setReturnRate(totals.getLoans() == 0 ? 0 : (double) totals.getReturned() / totals.getLoans());
+        statistics.setOnTimeReturnRate(totals.getReturned() == 0 ? 0
+                : (double) (totals.getReturned() - totals.getLateReturns()) / totals.getReturned());
+        statistics.setAverageLoanDays(totals.getReturned() == 0 ? null
+                : (double) totals.getReturnedLoanDays() / totals.getReturned());
+        statistics.setPeriods(new ArrayList<>(periods.values()));
+        LocalDate rankingStart = endDate.minusDays(MAX_RANKING_DAYS - 1L);
+        statistics.setRankingStartDate(rankingStart.isAfter(startDate) ? rankingStart : startDate);
+        if (totals.getLoans() > 0) {
+            PageRequest ranking = PageRequest.ofSize(rankingSize);
+            statistics.setTopBooks(bookLoanRepository.findTopBooks(statistics.getRankingStartDate(), endDate, ranking));
+            statistics.setTopCategories(loanDailyRollup.findTopCategories(startDate, endDate, rankingSize));
+            statistics.setBusiestMembers(bookLoanRepository.findBusiestMembers(statistics.getRankingStartDate(), endDate, ranking));
+        }
+        return statistics;
     }
 }
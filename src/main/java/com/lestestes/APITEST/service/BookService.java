@@ -1,25 +1,74 @@
 package com.lestestes.APITEST.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import com.lestestes.APITEST.dto.AvailabilityCount;
+import com.lestestes.APITEST.dto.BookAuthorName;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.BookVersion;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.PopularBook;
+import com.lestestes.APITEST.dto.RecommendedBook;
+import com.lestestes.APITEST.event.BookChangedEvent;
 import com.lestestes.APITEST.exception.ResourceNotFoundException;
+import com.lestestes.APITEST.loan.BookPopularityIndex;
+import com.lestestes.APITEST.loan.CoBorrowIndex;
 import com.lestestes.APITEST.model.Book;
 import com.lestestes.APITEST.model.Category;
 import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.search.BookAvailabilityIndex;
+import com.lestestes.APITEST.search.BookSearchIndex;
+
+import jakarta.persistence.EntityManager;
 
 @Service
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookAvailabilityIndex bookAvailabilityIndex;
+    private final BookPopularityIndex bookPopularityIndex;
+    private final CoBorrowIndex coBorrowIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // Nombre de livres exportés par lot (chargement des auteurs puis vidage du contexte de persistance)
+    private static final int EXPORT_BATCH_SIZE = 500;
+    
+    // Nombre de livres de la liste des livres récents (findTop10ByOrderByPublishDateDescIdDesc)
+    private static final int RECENT_BOOKS = 10;
+    
+    // Nombre de recommandations par défaut
+    private static final int DEFAULT_RECOMMENDATIONS = 10;
     
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, EntityManager entityManager,
+            BookSearchIndex bookSearchIndex, BookAvailabilityIndex bookAvailabilityIndex,
+            BookPopularityIndex bookPopularityIndex, CoBorrowIndex coBorrowIndex, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookAvailabilityIndex = bookAvailabilityIndex;
+        this.bookPopularityIndex = bookPopularityIndex;
+        this.coBorrowIndex = coBorrowIndex;
+        this.eventPublisher = eventPublisher;
     }
     
     // Récupérer tous les livres
@@ -27,6 +76,192 @@ public class BookService {
         return bookRepository.findAll();
     }
     
+    // Récupérer une page de livres (pagination par curseur sur l'ID)
+    @Transactional(readOnly = true)
+    public CursorPage<Book> getBooksPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Book> rows = bookRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        // Auteurs chargés pour les livres de la page seulement, sans la ligne lue en plus pour détecter la suite
+        CursorPage<Book> page = CursorPage.of(rows, pageSize, Book::getId);
+        loadAuthors(page.getItems());
+        return page;
+    }
+    
+    // Récupérer une page de résumés de livres (pagination par curseur sur l'ID)
+    public CursorPage<BookSummary> getBookSummariesPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<BookSummary> rows = bookRepository.findSummariesByIdGreaterThan(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        CursorPage<BookSummary> page = CursorPage.of(rows, pageSize, BookSummary::getId);
+        withAuthorNames(page.getItems());
+        return page;
+    }
+    
+    // Rechercher des résumés de livres par titre
+    public List<BookSummary> searchBookSummariesByTitle(String title) {
+        return searchBookSummariesByTitle(title, null);
+    }
+    
+    // Rechercher des résumés de livres par titre, auteur ou éditeur (classés par pertinence)
+    public List<BookSummary> searchBookSummariesByTitle(String title, Integer limit) {
+        int maxResults = CursorPage.clampLimit(limit);
+        if (!bookSearchIndex.isReady()) {
+            return withAuthorNames(firstResults(bookRepository.findSummariesByTitleContaining(title), maxResults));
+        }
+        List<Long> ids = bookSearchIndex.search(title, maxResults);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return withAuthorNames(inRankOrder(ids, bookRepository.findSummariesByIdIn(ids), BookSummary::getId));
+    }
+    
+    // Récupérer les résumés des livres d'une catégorie
+    public List<BookSummary> getBookSummariesByCategory(Category category) {
+        return withAuthorNames(bookRepository.findSummariesByCategoryId(category.getId()));
+    }
+    
+    // Récupérer les résumés des livres disponibles
+    public List<BookSummary> getAvailableBookSummaries() {
+        return withAuthorNames(bookRepository.findSummariesByAvailable(true));
+    }
+    
+    // Page de résumés des livres disponibles, éventuellement d'une catégorie (IDs lus dans l'index de disponibilité)
+    public CursorPage<BookSummary> getAvailableBookSummariesPage(String after, Integer limit, Long categoryId) {
+        int pageSize = CursorPage.clampLimit(limit);
+        long afterId = CursorPage.decodeCursor(after);
+        if (!bookAvailabilityIndex.isReady()) {
+            List<BookSummary> rows = bookRepository.findAvailableSummariesByIdGreaterThan(afterId, categoryId,
+                    PageRequest.ofSize(pageSize + 1));
+            CursorPage<BookSummary> page = CursorPage.of(rows, pageSize, BookSummary::getId);
+            withAuthorNames(page.getItems());
+            return page;
+        }
+        List<Long> ids = bookAvailabilityIndex.findAvailableIds(afterId, categoryId, pageSize + 1);
+        List<Long> pageIds = ids.size() > pageSize ? ids.subList(0, pageSize) : ids;
+        Map<Long, BookSummary> summaries = summariesById(pageIds);
+        List<BookSummary> items = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            // Un livre supprimé entre la lecture de l'index et celle des résumés n'apparaît pas
+            BookSummary summary = summaries.get(id);
+            if (summary != null) {
+                items.add(summary);
+            }
+        }
+        String nextCursor = ids.size() > pageSize ? CursorPage.encodeCursor(pageIds.get(pageSize - 1)) : null;
+        return new CursorPage<>(items, nextCursor, pageSize);
+    }
+    
+    // Nombre de livres disponibles, de tout le catalogue ou d'une catégorie
+    public AvailabilityCount countAvailableBooks(Long categoryId) {
+        if (bookAvailabilityIndex.isReady()) {
+            return bookAvailabilityIndex.count(categoryId);
+        }
+        return categoryId == null
+                ? new AvailabilityCount(null, bookRepository.count(), bookRepository.countByAvailableTrue())
+                : new AvailabilityCount(categoryId, bookRepository.countByCategory_Id(categoryId),
+                        bookRepository.countByCategory_IdAndAvailableTrue(categoryId));
+    }
+    
+    // Récupérer les résumés des livres d'un auteur
+    public List<BookSummary> getBookSummariesByAuthorId(Long authorId) {
+        return withAuthorNames(bookRepository.findSummariesByAuthorId(authorId));
+    }
+    
+    // Livres les plus empruntés sur une fenêtre glissante ("30d", "4w"...), classement lu en mémoire
+    public List<PopularBook> getPopularBooks(String window, Integer limit) {
+        List<BookPopularityIndex.BookCount> ranking = bookPopularityIndex.top(
+                bookPopularityIndex.parseWindow(window), CursorPage.clampLimit(limit));
+        Map<Long, BookSummary> summaries = summariesById(ranking.stream().map(BookPopularityIndex.BookCount::bookId).toList());
+        List<PopularBook> books = new ArrayList<>(ranking.size());
+        for (BookPopularityIndex.BookCount count : ranking) {
+            // Un livre supprimé depuis ses emprunts n'apparaît plus
+            BookSummary summary = summaries.get(count.bookId());
+            if (summary != null) {
+                books.add(new PopularBook(summary, count.loans()));
+            }
+        }
+        return books;
+    }
+    
+    // Livres le plus souvent empruntés par les membres ayant emprunté ce livre
+    public List<RecommendedBook> getRecommendedBooks(Long id, Integer limit) {
+        if (!bookRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Livre non trouvé avec l'ID : " + id);
+        }
+        List<CoBorrowIndex.CoBorrowCount> ranking = coBorrowIndex.recommend(id,
+                CursorPage.clampLimit(limit == null ? DEFAULT_RECOMMENDATIONS : limit));
+        Map<Long, BookSummary> summaries = summariesById(ranking.stream().map(CoBorrowIndex.CoBorrowCount::bookId).toList());
+        List<RecommendedBook> books = new ArrayList<>(ranking.size());
+        for (CoBorrowIndex.CoBorrowCount count : ranking) {
+            BookSummary summary = summaries.get(count.bookId());
+            if (summary != null) {
+                books.add(new RecommendedBook(summary, count.members()));
+            }
+        }
+        return books;
+    }
+    
+    // Résumés (avec auteurs) des livres demandés, par ID, en deux requêtes
+    private Map<Long, BookSummary> summariesById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return withAuthorNames(bookRepository.findSummariesByIdIn(ids)).stream()
+                .collect(Collectors.toMap(BookSummary::getId, Function.identity()));
+    }
+    
+    // Compléter les noms d'auteurs des résumés avec une seule requête pour tout le lot
+    private List<BookSummary> withAuthorNames(List<BookSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Map<Long, BookSummary> byId = summaries.stream()
+                .collect(Collectors.toMap(BookSummary::getId, Function.identity(), (first, second) -> first));
+        for (BookAuthorName name : bookRepository.findAuthorNamesByBookIdIn(byId.keySet())) {
+            byId.get(name.getBookId()).getAuthorNames().add(name.getFullName());
+        }
+        return summaries;
+    }
+    
+    // Exporter tout le catalogue en flux : chaque livre est transmis puis détaché pour garder un tas constant
+    @Transactional(readOnly = true)
+    public long exportBooks(Consumer<Book> consumer) {
+        long exported = 0;
+        List<Book> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        try (Stream<Book> books = bookRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == EXPORT_BATCH_SIZE || !iterator.hasNext()) {
+                    exported += exportBatch(batch, consumer);
+                }
+            }
+        }
+        return exported;
+    }
+    
+    // Transmettre un lot de livres avec leurs auteurs chargés en une requête, puis le libérer
+    private int exportBatch(List<Book> batch, Consumer<Book> consumer) {
+        loadAuthors(batch);
+        for (Book book : batch) {
+            consumer.accept(book);
+            entityManager.detach(book);
+        }
+        int size = batch.size();
+        batch.clear();
+        // Libérer aussi les catégories et auteurs encore attachés au contexte de persistance
+        entityManager.clear();
+        return size;
+    }
+    
+    // Initialiser les auteurs d'une liste de livres avec une seule requête au lieu d'une par livre
+    private void loadAuthors(List<Book> books) {
+        if (!books.isEmpty()) {
+            bookRepository.findWithAuthorsByIdIn(books.stream().map(Book::getId).toList());
+        }
+    }
+    
     // Récupérer un livre par son ID
     public Book getBookById(Long id) {
         return bookRepository.findById(id)
@@ -40,7 +275,40 @@ public class BookService {
     
     // Rechercher des livres par titre
     public List<Book> searchBooksByTitle(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title);
+        return searchBooksByTitle(title, null);
+    }
+    
+    // Rechercher des livres par titre, auteur ou éditeur via l'index en mémoire (classés par pertinence)
+    // Tant que l'index n'est pas construit, la recherche se rabat sur un LIKE sur le titre
+    public List<Book> searchBooksByTitle(String title, Integer limit) {
+        int maxResults = CursorPage.clampLimit(limit);
+        if (!bookSearchIndex.isReady()) {
+            return firstResults(bookRepository.findByTitleContainingIgnoreCase(title), maxResults);
+        }
+        List<Long> ids = bookSearchIndex.search(title, maxResults);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inRankOrder(ids, bookRepository.findWithCategoryAndAuthorsByIdIn(ids), Book::getId);
+    }
+    
+    // Remettre les lignes chargées par ID dans l'ordre de pertinence de l'index
+    private static <T> List<T> inRankOrder(List<Long> ids, List<T> rows, Function<T, Long> idExtractor) {
+        Map<Long, T> byId = rows.stream()
+                .collect(Collectors.toMap(idExtractor, Function.identity(), (first, second) -> first));
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+    
+    // Garder au plus maxResults résultats
+    private static <T> List<T> firstResults(List<T> rows, int maxResults) {
+        return rows.size() <= maxResults ? rows : new ArrayList<>(rows.subList(0, maxResults));
     }
     
     // Récupérer des livres par catégorie
@@ -65,7 +333,9 @@ public class BookService {
         if (bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
             throw new IllegalArgumentException("Un livre avec l'ISBN " + book.getIsbn() + " existe déjà");
         }
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.saved(savedBook.getId()));
+        return savedBook;
     }
     
     // Mettre à jour un livre existant
@@ -101,7 +371,9 @@ public class BookService {
             book.setAuthors(bookDetails.getAuthors());
         }
         
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.saved(savedBook.getId()));
+        return savedBook;
     }
     
     // Supprimer un livre
@@ -109,6 +381,7 @@ public class BookService {
     public void deleteBook(Long id) {
         Book book = getBookById(id);
         bookRepository.delete(book);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
     }
     
     // Changer la disponibilité d'un livre
@@ -116,11 +389,30 @@ public class BookService {
     public Book toggleAvailability(Long id) {
         Book book = getBookById(id);
         book.setAvailable(!book.isAvailable());
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.saved(savedBook.getId()));
+        return savedBook;
     }
     
     // Récupérer les livres récemment ajoutés
     public List<Book> getRecentlyAddedBooks() {
-        return bookRepository.findTop10ByOrderByPublishDateDesc();
+        return bookRepository.findTop10ByOrderByPublishDateDescIdDesc();
+    }
+    
+    // ETag d'un livre, calculé à partir des versions du livre, de sa catégorie et de ses auteurs sans charger l'entité
+    public String getBookETag(Long id) {
+        return bookRepository.findVersionsByIdIn(List.of(id)).stream()
+                .findFirst()
+                .map(version -> "\"book-" + version.getTag() + "\"")
+                .orElseThrow(() -> new ResourceNotFoundException("Livre non trouvé avec l'ID : " + id));
+    }
+    
+    // ETag de la liste des livres récents : empreinte des IDs et des versions des 10 livres, sans charger les entités
+    public String getRecentlyAddedBooksETag() {
+        List<Long> ids = bookRepository.findRecentIds(PageRequest.ofSize(RECENT_BOOKS));
+        Map<Long, String> tags = bookRepository.findVersionsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookVersion::getId, BookVersion::getTag));
+        String state = ids.stream().map(tags::get).collect(Collectors.joining(","));
+        return "\"recent-" + DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8)) + "\"";
     }
 }
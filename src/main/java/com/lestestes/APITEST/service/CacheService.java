@@ -0,0 +1,57 @@
+package com.lestestes.APITEST.service;
+
+import java.util.Arrays;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.lestestes.APITEST.dto.CacheStatistics;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Suivi et purge du cache de second niveau (catégories, auteurs et listes triées).
+ * Les écritures passant par JPA tiennent le cache à jour d'elles-mêmes ; la purge sert après
+ * une écriture directe en SQL (génération de jeu de données, scripts, intervention manuelle).
+ */
+@Service
+public class CacheService {
+
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public CacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    // Compteurs de hits, miss et insertions, au total et par région
+    public CacheStatistics getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        CacheStatistics cacheStatistics = new CacheStatistics();
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long misses = statistics.getSecondLevelCacheMissCount();
+        cacheStatistics.setHits(hits);
+        cacheStatistics.setMisses(misses);
+        cacheStatistics.setPuts(statistics.getSecondLevelCachePutCount());
+        cacheStatistics.setHitRatio(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        cacheStatistics.setQueryHits(statistics.getQueryCacheHitCount());
+        cacheStatistics.setQueryMisses(statistics.getQueryCacheMissCount());
+        cacheStatistics.setQueryPuts(statistics.getQueryCachePutCount());
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted().forEach(name -> {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                cacheStatistics.getRegions().add(new CacheStatistics.RegionStatistics(name,
+                        region.getHitCount(), region.getMissCount(), region.getPutCount()));
+            }
+        });
+        return cacheStatistics;
+    }
+
+    // Vider toutes les régions (entités et résultats de requêtes)
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+}
@@ -4,9 +4,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lestestes.APITEST.dto.CursorPage;
 import com.lestestes.APITEST.exception.ResourceNotFoundException;
 import com.lestestes.APITEST.model.Category;
 import com.lestestes.APITEST.repository.CategoryRepository;
@@ -31,6 +33,19 @@ public class CategoryService {
         return categoryRepository.findAllByOrderByNameAsc();
     }
     
+    // Récupérer une page de catégories (pagination par curseur sur l'ID)
+    public CursorPage<Category> getCategoriesPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Category> rows = categoryRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Category::getId);
+    }
+    
+    // ETag de la liste des catégories, calculé sur l'état de la table sans charger les entités
+    public String getCategoriesETag() {
+        return "\"categories-" + categoryRepository.findVersionWatermark().getTag() + "\"";
+    }
+    
     // Récupérer une catégorie par son ID
     public Category getCategoryById(Long id) {
         return categoryRepository.findById(id)
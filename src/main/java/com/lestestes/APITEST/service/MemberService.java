@@ -1,24 +1,38 @@
 package com.lestestes.APITEST.service;
 
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.DashboardLoan;
+import com.lestestes.APITEST.dto.MemberDashboard;
+import com.lestestes.APITEST.dto.MemberSummary;
 import com.lestestes.APITEST.exception.ResourceNotFoundException;
+import com.lestestes.APITEST.model.BookLoan;
 import com.lestestes.APITEST.model.Member;
+import com.lestestes.APITEST.repository.BookLoanRepository;
 import com.lestestes.APITEST.repository.MemberRepository;
 
 @Service
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final BookLoanRepository bookLoanRepository;
+    
+    // Nombre de derniers retours affichés sur le tableau de bord d'un membre
+    private static final int DASHBOARD_RECENT_RETURNS = 5;
     
     @Autowired
-    public MemberService(MemberRepository memberRepository) {
+    public MemberService(MemberRepository memberRepository, BookLoanRepository bookLoanRepository) {
         this.memberRepository = memberRepository;
+        this.bookLoanRepository = bookLoanRepository;
     }
     
     // Récupérer tous les membres
@@ -31,12 +45,57 @@ public class MemberService {
         return memberRepository.findAllByOrderByLastNameAscFirstNameAsc();
     }
     
-    // Récupérer un membre par son ID
+    // Récupérer une page de membres (pagination par curseur sur l'ID), emprunts compris
+    @Transactional(readOnly = true)
+    public CursorPage<Member> getMembersPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Member> rows = memberRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        CursorPage<Member> page = CursorPage.of(rows, pageSize, Member::getId);
+        if (!page.getItems().isEmpty()) {
+            // Même contexte de persistance : les membres de la page (sans la ligne lue en plus) reçoivent leurs emprunts en une requête
+            memberRepository.findWithLoansByIdIn(page.getItems().stream().map(Member::getId).toList());
+        }
+        return page;
+    }
+    
+    // Récupérer une page de résumés de membres (pagination par curseur sur l'ID)
+    public CursorPage<MemberSummary> getMemberSummariesPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<MemberSummary> rows = memberRepository.findSummariesByIdGreaterThan(
+                CursorPage.decodeCursor(after), PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(rows, pageSize, MemberSummary::getId);
+    }
+    
+    // Tableau de bord d'un membre en deux requêtes : le membre avec le bilan de ses emprunts,
+    // puis ses emprunts en cours et derniers retours avec les livres (catégorie et auteurs compris)
+    @Transactional(readOnly = true)
+    public MemberDashboard getMemberDashboard(Long id) {
+        LocalDate today = LocalDate.now();
+        MemberDashboard dashboard = memberRepository.findDashboardById(id, today)
+                .orElseThrow(() -> new ResourceNotFoundException("Membre non trouvé avec l'ID : " + id));
+        for (BookLoan loan : bookLoanRepository.findDashboardLoansByMemberId(id, DASHBOARD_RECENT_RETURNS)) {
+            DashboardLoan line = DashboardLoan.of(loan, today);
+            (loan.isReturned() ? dashboard.getRecentReturns() : dashboard.getActiveLoans()).add(line);
+        }
+        dashboard.getActiveLoans().sort(Comparator.comparing(DashboardLoan::getDueDate).thenComparing(DashboardLoan::getId));
+        dashboard.getRecentReturns().sort(Comparator.comparing(DashboardLoan::getReturnDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(DashboardLoan::getId, Comparator.reverseOrder()));
+        return dashboard;
+    }
+    
+    // Récupérer un membre par son ID, sans ses emprunts
     public Member getMemberById(Long id) {
         return memberRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Membre non trouvé avec l'ID : " + id));
     }
     
+    // Récupérer un membre par son ID avec ses emprunts, pour le renvoyer par l'API
+    public Member getMemberWithLoansById(Long id) {
+        return memberRepository.findWithLoansById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Membre non trouvé avec l'ID : " + id));
+    }
+    
     // Rechercher un membre par email
     public Optional<Member> getMemberByEmail(String email) {
         return memberRepository.findByEmail(email);
@@ -52,6 +111,11 @@ public class MemberService {
         return memberRepository.findByLastNameContainingIgnoreCaseOrFirstNameContainingIgnoreCase(query, query);
     }
     
+    // Rechercher des résumés de membres par nom ou prénom
+    public List<MemberSummary> searchMemberSummaries(String query) {
+        return memberRepository.findSummariesByNameContaining(query);
+    }
+    
     // Récupérer les membres actifs
     public List<Member> getActiveMembers() {
         return memberRepository.findByActive(true);
@@ -70,7 +134,8 @@ public class MemberService {
     // Mettre à jour un membre existant
     @Transactional
     public Member updateMember(Long id, Member memberDetails) {
-        Member member = getMemberById(id);
+        // Le membre modifié est renvoyé avec ses emprunts
+        Member member = getMemberWithLoansById(id);
         
         // Si le nouvel email est différent de l'actuel, vérifier qu'il n'existe pas déjà
         if (!member.getEmail().equals(memberDetails.getEmail())) {
@@ -107,7 +172,7 @@ public class MemberService {
     // Activer/désactiver un membre
     @Transactional
     public Member toggleActivation(Long id) {
-        Member member = getMemberById(id);
+        Member member = getMemberWithLoansById(id);
         member.setActive(!member.isActive());
         return memberRepository.save(member);
     }
@@ -1,3 +1,6 @@
+-- Données de démonstration (profil par défaut, base en mémoire) : catalogue, membres et emprunts.
+-- Les tests d'intégration rechargent aussi ce script après avoir vidé les tables.
+
 -- Insertion des catégories
 INSERT INTO "categories" ("name", "description") VALUES 
 ('Roman', 'Oeuvres de fiction narrative'),
@@ -20,8 +23,8 @@ INSERT INTO "books" ("title", "isbn", "description", "pageCount", "publishDate",
 ('Les Misérables', '9782253096344', 'Un récit captivant qui met en lumière les injustices sociales dans la France du 19e siècle.', 1230, '1862-04-03', 1, 'Français', 'A. Lacroix, Verboeckhoven & Cie', 'https://covers.openlibrary.org/b/id/8906326-L.jpg', true),
 ('Harry Potter à l''école des sorciers', '9782070643028', 'Harry Potter, un jeune orphelin, découvre qu''il est en réalité un sorcier.', 308, '1997-06-26', 4, 'Français', 'Gallimard Jeunesse', 'https://covers.openlibrary.org/b/id/8267078-L.jpg', true),
 ('Le Trône de fer', '9782070448487', 'Dans le royaume des Sept Couronnes, la lutte pour le pouvoir est impitoyable.', 567, '1996-08-01', 4, 'Français', 'Pygmalion', 'https://covers.openlibrary.org/b/id/8311215-L.jpg', true),
-('Fondation', '9782070415717', 'Premier volume du cycle de Fondation qui raconte l''effondrement d''un empire galactique.', 270, '1951-05-01', 2, 'Français', 'Gallimard', 'https://covers.openlibrary.org/b/id/10110653-L.jpg', true),
-('Le Meurtrier ABC', '9782253179887', 'Le détective Hercule Poirot doit résoudre une série de meurtres alphabétiques.', 256, '1936-01-06', 3, 'Français', 'Librairie des Champs-Élysées', 'https://covers.openlibrary.org/b/id/7878010-L.jpg', true),
+('Fondation', '9782070415717', 'Premier volume du cycle de Fondation qui raconte l''effondrement d''un empire galactique.', 270, '1951-05-01', 2, 'Français', 'Gallimard', 'https://covers.openlibrary.org/b/id/10110653-L.jpg', false),
+('Le Meurtrier ABC', '9782253179887', 'Le détective Hercule Poirot doit résoudre une série de meurtres alphabétiques.', 256, '1936-01-06', 3, 'Français', 'Librairie des Champs-Élysées', 'https://covers.openlibrary.org/b/id/7878010-L.jpg', false),
 ('L''Étranger', '9782070360024', 'Roman existentialiste qui raconte l''histoire de Meursault, un homme indifférent au monde qui l''entoure.', 184, '1942-05-19', 1, 'Français', 'Gallimard', 'https://covers.openlibrary.org/b/id/8231990-L.jpg', true);
 
 -- Insertion des liens entre livres et auteurs
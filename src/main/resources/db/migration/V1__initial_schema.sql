@@ -0,0 +1,77 @@
+-- Schéma initial de la bibliothèque : catégories, auteurs, livres, membres et emprunts.
+-- Les identifiants sont entre guillemets (hibernate.globally_quoted_identifiers) ; les colonnes
+-- "version" portent le verrouillage optimiste des entités.
+CREATE TABLE "categories" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    "version" BIGINT DEFAULT 0,
+    "name" VARCHAR(255) NOT NULL,
+    "description" VARCHAR(255),
+    PRIMARY KEY ("id"),
+    CONSTRAINT "uk_categories_name" UNIQUE ("name")
+);
+
+CREATE TABLE "authors" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    "version" BIGINT DEFAULT 0,
+    "firstName" VARCHAR(255) NOT NULL,
+    "lastName" VARCHAR(255) NOT NULL,
+    "birthDate" DATE,
+    "nationality" VARCHAR(255),
+    "biography" VARCHAR(255),
+    PRIMARY KEY ("id")
+);
+
+CREATE TABLE "books" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    "version" BIGINT DEFAULT 0,
+    "title" VARCHAR(255) NOT NULL,
+    "isbn" VARCHAR(255),
+    "description" VARCHAR(1000),
+    "pageCount" INTEGER,
+    "publishDate" DATE,
+    "category_id" BIGINT NOT NULL,
+    "language" VARCHAR(255),
+    "publisher" VARCHAR(255),
+    "coverImageUrl" VARCHAR(255),
+    "available" BOOLEAN NOT NULL,
+    PRIMARY KEY ("id"),
+    CONSTRAINT "uk_books_isbn" UNIQUE ("isbn"),
+    CONSTRAINT "fk_books_category" FOREIGN KEY ("category_id") REFERENCES "categories" ("id")
+);
+
+CREATE TABLE "book_author" (
+    "book_id" BIGINT NOT NULL,
+    "author_id" BIGINT NOT NULL,
+    PRIMARY KEY ("author_id", "book_id"),
+    CONSTRAINT "fk_book_author_book" FOREIGN KEY ("book_id") REFERENCES "books" ("id"),
+    CONSTRAINT "fk_book_author_author" FOREIGN KEY ("author_id") REFERENCES "authors" ("id")
+);
+
+CREATE TABLE "members" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    "version" BIGINT DEFAULT 0,
+    "firstName" VARCHAR(255),
+    "lastName" VARCHAR(255),
+    "email" VARCHAR(255),
+    "phone" VARCHAR(255),
+    "address" VARCHAR(255),
+    "birthDate" DATE,
+    "registrationDate" DATE,
+    "active" BOOLEAN NOT NULL,
+    PRIMARY KEY ("id"),
+    CONSTRAINT "uk_members_email" UNIQUE ("email")
+);
+
+CREATE TABLE "book_loans" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    "book_id" BIGINT NOT NULL,
+    "member_id" BIGINT NOT NULL,
+    "borrowDate" DATE NOT NULL,
+    "dueDate" DATE NOT NULL,
+    "returnDate" DATE,
+    "returned" BOOLEAN NOT NULL,
+    "notes" VARCHAR(255),
+    PRIMARY KEY ("id"),
+    CONSTRAINT "fk_book_loans_book" FOREIGN KEY ("book_id") REFERENCES "books" ("id"),
+    CONSTRAINT "fk_book_loans_member" FOREIGN KEY ("member_id") REFERENCES "members" ("id")
+);
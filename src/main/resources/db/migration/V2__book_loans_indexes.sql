@@ -0,0 +1,6 @@
+-- Index composites de la table des emprunts (déclarés aussi sur l'entité BookLoan) :
+-- emprunts actifs d'un membre ou d'un livre, parcours des retards et recherche par date d'emprunt.
+CREATE INDEX "idx_book_loans_member_returned" ON "book_loans" ("member_id", "returned");
+CREATE INDEX "idx_book_loans_book_returned" ON "book_loans" ("book_id", "returned");
+CREATE INDEX "idx_book_loans_returned_due_date" ON "book_loans" ("returned", "dueDate");
+CREATE INDEX "idx_book_loans_borrow_date" ON "book_loans" ("borrowDate");
@@ -0,0 +1,47 @@
+-- Traitement nocturne des retards : amende courante de chaque emprunt en retard, boîte d'envoi des
+-- notifications (outbox, lue par l'envoi des courriels) et point de reprise des traitements par lots.
+
+-- Parcours des emprunts en cours par ID croissant (pagination par clé du traitement des amendes)
+CREATE INDEX "idx_book_loans_returned_id" ON "book_loans" ("returned", "id");
+
+CREATE TABLE "loan_fines" (
+    "loan_id" BIGINT NOT NULL,
+    "member_id" BIGINT NOT NULL,
+    "daysOverdue" INTEGER NOT NULL,
+    "amount" DECIMAL(10, 2) NOT NULL,
+    -- Dernier niveau de relance notifié (1 au premier jour de retard, puis un de plus par intervalle)
+    "reminderLevel" INTEGER NOT NULL,
+    "computedOn" DATE NOT NULL,
+    PRIMARY KEY ("loan_id"),
+    CONSTRAINT "fk_loan_fines_loan" FOREIGN KEY ("loan_id") REFERENCES "book_loans" ("id") ON DELETE CASCADE
+);
+
+CREATE INDEX "idx_loan_fines_member" ON "loan_fines" ("member_id");
+
+CREATE TABLE "loan_notifications" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    "loan_id" BIGINT NOT NULL,
+    "member_id" BIGINT NOT NULL,
+    "type" VARCHAR(30) NOT NULL,
+    "reminderLevel" INTEGER NOT NULL,
+    "daysOverdue" INTEGER NOT NULL,
+    "fineAmount" DECIMAL(10, 2) NOT NULL,
+    "createdAt" TIMESTAMP NOT NULL,
+    -- Renseigné par l'expéditeur une fois la notification envoyée
+    "sentAt" TIMESTAMP,
+    PRIMARY KEY ("id")
+);
+
+CREATE INDEX "idx_loan_notifications_sent_at" ON "loan_notifications" ("sentAt", "id");
+
+CREATE TABLE "batch_checkpoints" (
+    "jobName" VARCHAR(100) NOT NULL,
+    "runDate" DATE NOT NULL,
+    "lastId" BIGINT NOT NULL,
+    "processed" BIGINT NOT NULL,
+    "fined" BIGINT NOT NULL,
+    "notified" BIGINT NOT NULL,
+    "status" VARCHAR(20) NOT NULL,
+    "updatedAt" TIMESTAMP NOT NULL,
+    PRIMARY KEY ("jobName")
+);
@@ -0,0 +1,25 @@
+-- Agrégat quotidien des emprunts par catégorie : compteurs des emprunts créés chaque jour (par date d'emprunt),
+-- tenus à jour à chaque emprunt et à chaque retour. Les statistiques d'emprunt somment ces lignes (quelques
+-- dizaines par jour) au lieu de relire les emprunts de la période.
+
+CREATE TABLE "loan_daily_rollup" (
+    "day" DATE NOT NULL,
+    "category_id" BIGINT NOT NULL,
+    "loans" BIGINT NOT NULL,
+    "returned" BIGINT NOT NULL,
+    -- Emprunts rendus après leur date de retour prévue
+    "lateReturns" BIGINT NOT NULL,
+    -- Somme des durées des emprunts rendus, en jours
+    "returnedLoanDays" BIGINT NOT NULL,
+    PRIMARY KEY ("day", "category_id"),
+    CONSTRAINT "fk_loan_daily_rollup_category" FOREIGN KEY ("category_id") REFERENCES "categories" ("id") ON DELETE CASCADE
+);
+
+-- Emprunts déjà enregistrés
+INSERT INTO "loan_daily_rollup" ("day", "category_id", "loans", "returned", "lateReturns", "returnedLoanDays")
+SELECT bl."borrowDate", b."category_id", COUNT(*),
+    SUM(CASE WHEN bl."returned" THEN 1 ELSE 0 END),
+    SUM(CASE WHEN bl."returned" AND bl."returnDate" > bl."dueDate" THEN 1 ELSE 0 END),
+    SUM(CASE WHEN bl."returned" THEN DATEDIFF('DAY', bl."borrowDate", bl."returnDate") ELSE 0 END)
+FROM "book_loans" bl JOIN "books" b ON b."id" = bl."book_id"
+GROUP BY bl."borrowDate", b."category_id";
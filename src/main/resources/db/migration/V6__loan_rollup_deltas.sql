@@ -0,0 +1,15 @@
+-- Compteurs des emprunts et retours pas encore reportés dans loan_daily_rollup : une ligne ajoutée par emprunt
+-- ou retour, dans sa transaction, sans mettre à jour la ligne (jour, catégorie) partagée par les emprunts
+-- concurrents. Le compactage périodique les additionne dans loan_daily_rollup puis les supprime.
+
+CREATE TABLE "loan_rollup_deltas" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    "day" DATE NOT NULL,
+    "category_id" BIGINT NOT NULL,
+    "loans" BIGINT NOT NULL,
+    "returned" BIGINT NOT NULL,
+    "lateReturns" BIGINT NOT NULL,
+    "returnedLoanDays" BIGINT NOT NULL,
+    PRIMARY KEY ("id"),
+    CONSTRAINT "fk_loan_rollup_deltas_category" FOREIGN KEY ("category_id") REFERENCES "categories" ("id") ON DELETE CASCADE
+);
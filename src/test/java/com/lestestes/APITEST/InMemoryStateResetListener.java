@@ -0,0 +1,34 @@
+package com.lestestes.APITEST;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.TestExecutionListener;
+import org.springframework.test.context.jdbc.SqlScriptsTestExecutionListener;
+
+import com.lestestes.APITEST.loan.OverdueLoanIndex;
+import com.lestestes.APITEST.service.CacheService;
+
+/**
+ * Resynchronise l'état gardé en mémoire avec la base avant chaque test, après l'exécution des scripts @Sql :
+ * ces scripts modifient la base sans passer par les services (et réutilisent les mêmes IDs), le cache de
+ * second niveau et l'index des retards pourraient sinon servir les données d'un test précédent.
+ */
+public class InMemoryStateResetListener implements TestExecutionListener, Ordered {
+
+    @Override
+    public int getOrder() {
+        return new SqlScriptsTestExecutionListener().getOrder() + 1;
+    }
+
+    @Override
+    public void beforeTestMethod(TestContext testContext) {
+        ApplicationContext context = testContext.getApplicationContext();
+        context.getBeanProvider(CacheService.class).ifAvailable(CacheService::evictAll);
+        context.getBeanProvider(OverdueLoanIndex.class).ifAvailable(index -> {
+            if (index.isReady()) {
+                index.rebuild();
+            }
+        });
+    }
+}
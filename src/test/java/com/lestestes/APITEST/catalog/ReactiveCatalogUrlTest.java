@@ -0,0 +1,48 @@
+package com.lestestes.APITEST.catalog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * Vérifie l'URL R2DBC du catalogue réactif de chaque profil : elle doit être lisible par R2DBC
+ * et désigner la même base H2 que la DataSource JDBC du profil.
+ */
+public class ReactiveCatalogUrlTest {
+
+    private static final String R2DBC_URL = "catalog.reactive.r2dbc-url";
+    private static final String JDBC_URL = "spring.datasource.url";
+
+    @Test
+    @DisplayName("L'URL R2DBC de chaque profil se lit et désigne la base JDBC du profil")
+    void testProfileUrls() throws IOException {
+        int checked = 0;
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:application*.properties")) {
+            Properties properties = PropertiesLoaderUtils.loadProperties(resource);
+            String url = properties.getProperty(R2DBC_URL);
+            if (url == null) {
+                continue;
+            }
+            ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url);
+            assertEquals("h2", options.getRequiredValue(ConnectionFactoryOptions.DRIVER), resource.getFilename());
+
+            // jdbc:h2:<protocole>:<base>[;options]
+            String jdbcUrl = properties.getProperty(JDBC_URL);
+            assertNotNull(jdbcUrl, resource.getFilename() + " : URL R2DBC sans URL JDBC");
+            String[] jdbc = jdbcUrl.substring("jdbc:h2:".length()).split(";")[0].split(":", 2);
+            assertEquals(jdbc[0], options.getRequiredValue(ConnectionFactoryOptions.PROTOCOL), resource.getFilename());
+            assertEquals(jdbc[1], options.getRequiredValue(ConnectionFactoryOptions.DATABASE), resource.getFilename());
+            checked++;
+        }
+        assertTrue(checked >= 2, "Profils par défaut et file attendus");
+    }
+}
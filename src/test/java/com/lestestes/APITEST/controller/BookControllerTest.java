@@ -1,13 +1,19 @@
 package com.lestestes.APITEST.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,8 +25,15 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lestestes.APITEST.dto.BookImportReport;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.AvailabilityCount;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.PopularBook;
+import com.lestestes.APITEST.dto.RecommendedBook;
 import com.lestestes.APITEST.model.Book;
 import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.service.BookImportService;
 import com.lestestes.APITEST.service.BookService;
 import com.lestestes.APITEST.service.CategoryService;
 
@@ -36,6 +49,9 @@ public class BookControllerTest {
     @MockBean
     private CategoryService categoryService;
 
+    @MockBean
+    private BookImportService bookImportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -70,29 +86,164 @@ public class BookControllerTest {
     @Test
     @DisplayName("Test pour récupérer tous les livres - GET /api/books")
     void testGetAllBooks() throws Exception {
-        when(bookService.getAllBooks()).thenReturn(bookList);
+        when(bookService.getBooksPage(null, null)).thenReturn(new CursorPage<>(bookList, null, CursorPage.DEFAULT_LIMIT));
+
+        mockMvc.perform(get("/api/books")
+                .param("view", "full"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(bookList.size()))
+                .andExpect(jsonPath("$.items[0].id").value(book1.getId()))
+                .andExpect(jsonPath("$.items[0].title").value(book1.getTitle()))
+                .andExpect(jsonPath("$.items[1].id").value(book2.getId()))
+                .andExpect(jsonPath("$.items[1].title").value(book2.getTitle()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Test pour la pagination par curseur - GET /api/books?after=...&limit=...")
+    void testGetAllBooksWithCursor() throws Exception {
+        String cursor = CursorPage.encodeCursor(1L);
+        when(bookService.getBooksPage(cursor, 1)).thenReturn(new CursorPage<>(Arrays.asList(book2), CursorPage.encodeCursor(2L), 1));
+
+        mockMvc.perform(get("/api/books")
+                .param("after", cursor)
+                .param("limit", "1")
+                .param("view", "full"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(book2.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encodeCursor(2L)))
+                .andExpect(jsonPath("$.limit").value(1));
+    }
+
+    @Test
+    @DisplayName("Test pour récupérer les résumés de livres par défaut - GET /api/books")
+    void testGetAllBooksSummaries() throws Exception {
+        BookSummary summary1 = new BookSummary(1L, "Le Petit Prince", "9782070612758", true, "Fiction", List.of("Antoine de Saint-Exupéry"));
+        BookSummary summary2 = new BookSummary(2L, "L'Étranger", "9782070360024", true, "Fiction", List.of("Albert Camus"));
+        when(bookService.getBookSummariesPage(null, null))
+                .thenReturn(new CursorPage<>(Arrays.asList(summary1, summary2), null, CursorPage.DEFAULT_LIMIT));
 
         mockMvc.perform(get("/api/books"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(bookList.size()))
-                .andExpect(jsonPath("$[0].id").value(book1.getId()))
-                .andExpect(jsonPath("$[0].title").value(book1.getTitle()))
-                .andExpect(jsonPath("$[1].id").value(book2.getId()))
-                .andExpect(jsonPath("$[1].title").value(book2.getTitle()));
+                .andExpect(jsonPath("$.items.size()").value(2))
+                .andExpect(jsonPath("$.items[0].title").value("Le Petit Prince"))
+                .andExpect(jsonPath("$.items[0].categoryName").value("Fiction"))
+                .andExpect(jsonPath("$.items[0].authorNames[0]").value("Antoine de Saint-Exupéry"))
+                .andExpect(jsonPath("$.items[0].description").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Test pour rechercher des résumés de livres - GET /api/books/search")
+    void testSearchBookSummaries() throws Exception {
+        BookSummary summary = new BookSummary(1L, "Le Petit Prince", "9782070612758", true, "Fiction", List.of());
+        when(bookService.searchBookSummariesByTitle("Prince", null)).thenReturn(Arrays.asList(summary));
+
+        mockMvc.perform(get("/api/books/search")
+                .param("title", "Prince"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].isbn").value("9782070612758"))
+                .andExpect(jsonPath("$[0].category").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Test pour récupérer les livres les plus empruntés - GET /api/books/popular")
+    void testGetPopularBooks() throws Exception {
+        BookSummary summary = new BookSummary(1L, "Le Petit Prince", "9782070612758", true, "Fiction", List.of());
+        when(bookService.getPopularBooks("30d", 50)).thenReturn(List.of(new PopularBook(summary, 42)));
+
+        mockMvc.perform(get("/api/books/popular")
+                .param("window", "30d")
+                .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].book.title").value("Le Petit Prince"))
+                .andExpect(jsonPath("$[0].loans").value(42));
+    }
+
+    @Test
+    @DisplayName("Test pour récupérer les recommandations d'un livre - GET /api/books/{id}/recommendations")
+    void testGetRecommendedBooks() throws Exception {
+        BookSummary summary = new BookSummary(2L, "L'Étranger", "9782070360024", true, "Fiction", List.of());
+        when(bookService.getRecommendedBooks(1L, 5)).thenReturn(List.of(new RecommendedBook(summary, 3)));
+
+        mockMvc.perform(get("/api/books/1/recommendations")
+                .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].book.id").value(2))
+                .andExpect(jsonPath("$[0].members").value(3));
+    }
+
+    @Test
+    @DisplayName("Test pour compter les livres disponibles d'une catégorie - GET /api/books/available/count")
+    void testCountAvailableBooks() throws Exception {
+        when(bookService.countAvailableBooks(1L)).thenReturn(new AvailabilityCount(1L, 12, 7));
+
+        mockMvc.perform(get("/api/books/available/count")
+                .param("categoryId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books").value(12))
+                .andExpect(jsonPath("$.available").value(7));
+
+        verify(categoryService).getCategoryById(1L);
+    }
+
+    @Test
+    @DisplayName("Test pour rejeter une vue inconnue - GET /api/books?view=...")
+    void testGetAllBooksWithUnknownView() throws Exception {
+        mockMvc.perform(get("/api/books")
+                .param("view", "compact"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test pour l'export NDJSON du catalogue - GET /api/books/export")
+    @SuppressWarnings("unchecked")
+    void testExportBooks() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            bookList.forEach(consumer);
+            return (long) bookList.size();
+        }).when(bookService).exportBooks(any(Consumer.class));
+
+        String body = mockMvc.perform(get("/api/books/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(book1.getTitle(), objectMapper.readValue(lines[0], Book.class).getTitle());
+        assertEquals(book2.getTitle(), objectMapper.readValue(lines[1], Book.class).getTitle());
     }
 
     @Test
     @DisplayName("Test pour récupérer un livre par ID - GET /api/books/{id}")
     void testGetBookById() throws Exception {
+        when(bookService.getBookETag(1L)).thenReturn("\"book-1-0-0-1-0\"");
         when(bookService.getBookById(1L)).thenReturn(book1);
 
         mockMvc.perform(get("/api/books/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"book-1-0-0-1-0\""))
                 .andExpect(jsonPath("$.id").value(book1.getId()))
                 .andExpect(jsonPath("$.title").value(book1.getTitle()))
                 .andExpect(jsonPath("$.isbn").value(book1.getIsbn()));
     }
 
+    @Test
+    @DisplayName("Test du GET conditionnel d'un livre : 304 sans charger le livre si l'ETag n'a pas changé")
+    void testGetBookByIdNotModified() throws Exception {
+        when(bookService.getBookETag(1L)).thenReturn("\"book-1-0-0-1-0\"");
+
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", "\"book-1-0-0-1-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"book-1-0-0-1-0\""))
+                .andExpect(content().string(""));
+        verify(bookService, never()).getBookById(any());
+    }
+
     @Test
     @DisplayName("Test pour créer un livre - POST /api/books")
     void testCreateBook() throws Exception {
@@ -138,10 +289,11 @@ public class BookControllerTest {
     @Test
     @DisplayName("Test pour rechercher des livres par titre - GET /api/books/search")
     void testSearchBooks() throws Exception {
-        when(bookService.searchBooksByTitle("Prince")).thenReturn(Arrays.asList(book1));
+        when(bookService.searchBooksByTitle("Prince", null)).thenReturn(Arrays.asList(book1));
 
         mockMvc.perform(get("/api/books/search")
-                .param("title", "Prince"))
+                .param("title", "Prince")
+                .param("view", "full"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(1))
                 .andExpect(jsonPath("$[0].title").value(book1.getTitle()));
@@ -152,7 +304,8 @@ public class BookControllerTest {
     void testGetAvailableBooks() throws Exception {
         when(bookService.getAvailableBooks()).thenReturn(bookList);
 
-        mockMvc.perform(get("/api/books/available"))
+        mockMvc.perform(get("/api/books/available")
+                .param("view", "full"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(2));
     }
@@ -163,7 +316,8 @@ public class BookControllerTest {
         when(categoryService.getCategoryById(1L)).thenReturn(category);
         when(bookService.getBooksByCategory(category)).thenReturn(bookList);
 
-        mockMvc.perform(get("/api/books/category/1"))
+        mockMvc.perform(get("/api/books/category/1")
+                .param("view", "full"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(2))
                 .andExpect(jsonPath("$[0].title").value(book1.getTitle()));
@@ -174,7 +328,8 @@ public class BookControllerTest {
     void testGetBooksByAuthor() throws Exception {
         when(bookService.getBooksByAuthorId(1L)).thenReturn(Arrays.asList(book1));
 
-        mockMvc.perform(get("/api/books/author/1"))
+        mockMvc.perform(get("/api/books/author/1")
+                .param("view", "full"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(1))
                 .andExpect(jsonPath("$[0].title").value(book1.getTitle()));
@@ -183,11 +338,16 @@ public class BookControllerTest {
     @Test
     @DisplayName("Test pour récupérer les livres récents - GET /api/books/recent")
     void testGetRecentBooks() throws Exception {
+        when(bookService.getRecentlyAddedBooksETag()).thenReturn("\"recent-1\"");
         when(bookService.getRecentlyAddedBooks()).thenReturn(bookList);
 
         mockMvc.perform(get("/api/books/recent"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"recent-1\""))
                 .andExpect(jsonPath("$.size()").value(2));
+
+        mockMvc.perform(get("/api/books/recent").header("If-None-Match", "\"recent-1\""))
+                .andExpect(status().isNotModified());
     }
 
     @Test
@@ -216,4 +376,29 @@ public class BookControllerTest {
         mockMvc.perform(get("/api/books/999"))
                 .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    @DisplayName("Test pour l'import en masse - POST /api/books/bulk (JSON et CSV)")
+    void testBulkImport() throws Exception {
+        BookImportReport report = new BookImportReport();
+        report.setReceived(2);
+        report.setImported(1);
+        report.reject(2, "9782070612758", "Un livre avec l'ISBN 9782070612758 existe déjà");
+        when(bookImportService.importJson(any())).thenReturn(report);
+        when(bookImportService.importCsv(any())).thenReturn(report);
+
+        mockMvc.perform(post("/api/books/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2));
+
+        mockMvc.perform(post("/api/books/bulk")
+                .contentType("text/csv")
+                .content("title,isbn\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors[0].isbn").value("9782070612758"));
+    }
 }
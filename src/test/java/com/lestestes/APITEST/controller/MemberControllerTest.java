@@ -10,6 +10,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 
@@ -24,6 +25,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.DashboardLoan;
+import com.lestestes.APITEST.dto.MemberDashboard;
+import com.lestestes.APITEST.dto.MemberSummary;
 import com.lestestes.APITEST.model.Member;
 import com.lestestes.APITEST.service.MemberService;
 
@@ -69,21 +75,36 @@ public class MemberControllerTest {
     @Test
     @DisplayName("Test pour récupérer tous les membres - GET /api/members")
     void testGetAllMembers() throws Exception {
-        when(memberService.getAllMembersSorted()).thenReturn(memberList);
+        when(memberService.getMembersPage(null, null)).thenReturn(new CursorPage<>(memberList, null, CursorPage.DEFAULT_LIMIT));
+
+        mockMvc.perform(get("/api/members")
+                .param("view", "full"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(memberList.size()))
+                .andExpect(jsonPath("$.items[0].id").value(member1.getId()))
+                .andExpect(jsonPath("$.items[0].firstName").value(member1.getFirstName()))
+                .andExpect(jsonPath("$.items[1].id").value(member2.getId()))
+                .andExpect(jsonPath("$.items[1].firstName").value(member2.getFirstName()));
+    }
+
+    @Test
+    @DisplayName("Test pour récupérer les résumés de membres par défaut - GET /api/members")
+    void testGetAllMemberSummaries() throws Exception {
+        MemberSummary summary = new MemberSummary(1L, "Jean", "Dupont", "jean.dupont@example.com", true);
+        when(memberService.getMemberSummariesPage(null, null))
+                .thenReturn(new CursorPage<>(Arrays.asList(summary), null, CursorPage.DEFAULT_LIMIT));
 
         mockMvc.perform(get("/api/members"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(memberList.size()))
-                .andExpect(jsonPath("$[0].id").value(member1.getId()))
-                .andExpect(jsonPath("$[0].firstName").value(member1.getFirstName()))
-                .andExpect(jsonPath("$[1].id").value(member2.getId()))
-                .andExpect(jsonPath("$[1].firstName").value(member2.getFirstName()));
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].lastName").value("Dupont"))
+                .andExpect(jsonPath("$.items[0].loans").doesNotExist());
     }
 
     @Test
     @DisplayName("Test pour récupérer un membre par ID - GET /api/members/{id}")
     void testGetMemberById() throws Exception {
-        when(memberService.getMemberById(1L)).thenReturn(member1);
+        when(memberService.getMemberWithLoansById(1L)).thenReturn(member1);
 
         mockMvc.perform(get("/api/members/1"))
                 .andExpect(status().isOk())
@@ -93,13 +114,34 @@ public class MemberControllerTest {
                 .andExpect(jsonPath("$.email").value(member1.getEmail()));
     }
 
+    @Test
+    @DisplayName("Test pour récupérer le tableau de bord d'un membre - GET /api/members/{id}/dashboard")
+    void testGetMemberDashboard() throws Exception {
+        MemberDashboard dashboard = new MemberDashboard(1L, "Jean", "Dupont", "jean.dupont@example.com", true,
+                3L, 1L, 0L, 0L, LocalDate.of(2024, 1, 5), LocalDate.of(2024, 3, 1));
+        BookSummary book = new BookSummary(4L, "Fondation", "9782070415717", false, "Science-Fiction");
+        book.getAuthorNames().add("Isaac Asimov");
+        dashboard.getActiveLoans().add(new DashboardLoan(7L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15),
+                null, false, false, book));
+        when(memberService.getMemberDashboard(1L)).thenReturn(dashboard);
+
+        mockMvc.perform(get("/api/members/1/dashboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.member.lastName").value("Dupont"))
+                .andExpect(jsonPath("$.history.totalLoans").value(3))
+                .andExpect(jsonPath("$.activeLoans[0].book.title").value("Fondation"))
+                .andExpect(jsonPath("$.activeLoans[0].book.authorNames[0]").value("Isaac Asimov"))
+                .andExpect(jsonPath("$.recentReturns.size()").value(0));
+    }
+
     @Test
     @DisplayName("Test pour rechercher des membres - GET /api/members/search")
     void testSearchMembers() throws Exception {
         when(memberService.searchMembers("Jean")).thenReturn(Arrays.asList(member1));
 
         mockMvc.perform(get("/api/members/search")
-                .param("query", "Jean"))
+                .param("query", "Jean")
+                .param("view", "full"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(1))
                 .andExpect(jsonPath("$[0].firstName").value(member1.getFirstName()));
@@ -167,7 +209,7 @@ public class MemberControllerTest {
     @Test
     @DisplayName("Test pour la gestion des erreurs - GET /api/members/{id} avec ID invalide")
     void testGetMemberByIdNotFound() throws Exception {
-        when(memberService.getMemberById(999L)).thenThrow(new RuntimeException("Membre non trouvé"));
+        when(memberService.getMemberWithLoansById(999L)).thenThrow(new RuntimeException("Membre non trouvé"));
 
         mockMvc.perform(get("/api/members/999"))
                 .andExpect(status().isInternalServerError());
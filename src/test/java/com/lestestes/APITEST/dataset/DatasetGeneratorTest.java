@@ -0,0 +1,145 @@
+package com.lestestes.APITEST.dataset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.CategoryRepository;
+
+/**
+ * Tests du générateur de jeu de données : volumes, règles métier des emprunts en cours,
+ * reproductibilité pour une graine donnée et reprise des insertions JPA après la génération.
+ * Les lignes sont réellement validées : la base de démonstration est rechargée après chaque test.
+ */
+@SpringBootTest
+@Sql(scripts = { "/sql/cleanup.sql", "/sql/sample-data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class DatasetGeneratorTest {
+
+    private static final LocalDate REFERENCE_DATE = LocalDate.of(2024, 6, 1);
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    @DisplayName("Génère les volumes demandés à la suite des données existantes")
+    void testGeneratesRequestedVolumes() {
+        long booksBefore = count("books");
+
+        DatasetSummary summary = datasetGenerator.generate(properties());
+
+        assertEquals(2_000, summary.bookCount());
+        assertEquals(booksBefore + 2_000, count("books"));
+        assertEquals(booksBefore + 1, summary.firstBookId());
+        assertEquals(count("members"), summary.memberId(summary.memberCount() - 1));
+        assertEquals(summary.firstLoanId() + summary.loanCount() - 1, max("book_loans"));
+        assertTrue(count("book_author") >= count("books"), "Chaque livre doit avoir au moins un auteur");
+    }
+
+    @Test
+    @DisplayName("Les emprunts en cours respectent les règles métier et une partie est en retard")
+    void testActiveLoansRespectBusinessRules() {
+        DatasetSummary summary = datasetGenerator.generate(properties());
+
+        assertTrue(summary.activeLoanCount() > 0);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT \"book_id\" FROM \"book_loans\" "
+                + "WHERE \"returned\" = FALSE GROUP BY \"book_id\" HAVING COUNT(*) > 1)", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT \"member_id\" FROM \"book_loans\" "
+                + "WHERE \"returned\" = FALSE GROUP BY \"member_id\" HAVING COUNT(*) > 5)", Long.class));
+        // Un livre est indisponible si et seulement s'il porte un emprunt en cours
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"books\" b WHERE b.\"id\" >= ? AND b.\"available\" = ("
+                + "EXISTS (SELECT 1 FROM \"book_loans\" bl WHERE bl.\"book_id\" = b.\"id\" AND bl.\"returned\" = FALSE))",
+                Long.class, summary.firstBookId()));
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"book_loans\" WHERE \"id\" >= ? AND \"returned\" = FALSE "
+                + "AND \"dueDate\" < ?", Long.class, summary.firstLoanId(), REFERENCE_DATE) > 0);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"book_loans\" WHERE \"returnDate\" > ?",
+                Long.class, REFERENCE_DATE));
+    }
+
+    @Test
+    @DisplayName("La popularité des livres est asymétrique")
+    void testBookPopularityIsSkewed() {
+        DatasetSummary summary = datasetGenerator.generate(properties());
+
+        List<Long> loansPerBook = jdbcTemplate.queryForList("SELECT COUNT(*) FROM \"book_loans\" WHERE \"id\" >= ? "
+                + "GROUP BY \"book_id\" ORDER BY COUNT(*) DESC", Long.class, summary.firstLoanId());
+        long top = loansPerBook.stream().limit(summary.bookCount() / 100).mapToLong(Long::longValue).sum();
+        // Le 1 % de livres les plus empruntés concentre bien plus de 1 % des emprunts
+        assertTrue(top > summary.loanCount() / 10, "Top 1 % : " + top + " emprunts sur " + summary.loanCount());
+    }
+
+    @Test
+    @DisplayName("Une même graine produit exactement les mêmes lignes")
+    void testGenerationIsDeterministic() {
+        datasetGenerator.generate(properties());
+        List<Map<String, Object>> first = snapshot();
+
+        new ResourceDatabasePopulator(new ClassPathResource("sql/cleanup.sql"), new ClassPathResource("sql/sample-data.sql"))
+                .execute(dataSource);
+        datasetGenerator.generate(properties());
+
+        assertEquals(first, snapshot());
+    }
+
+    @Test
+    @DisplayName("Les insertions JPA reprennent après les IDs générés")
+    void testJpaInsertAfterGeneration() {
+        DatasetSummary summary = datasetGenerator.generate(properties());
+
+        Book book = new Book();
+        book.setTitle("Livre ajouté après génération");
+        book.setIsbn("9780000000000-JPA");
+        book.setCategory(categoryRepository.findAll().get(0));
+        Book saved = bookRepository.save(book);
+
+        assertEquals(summary.bookId(summary.bookCount()), saved.getId());
+    }
+
+    private static DatasetProperties properties() {
+        DatasetProperties properties = new DatasetProperties(7, 2_000, 300, 20_000);
+        properties.setReferenceDate(REFERENCE_DATE);
+        properties.setBatchSize(500);
+        return properties;
+    }
+
+    private List<Map<String, Object>> snapshot() {
+        return jdbcTemplate.queryForList("SELECT b.\"id\", b.\"title\", b.\"category_id\", b.\"available\", "
+                + "(SELECT COUNT(*) FROM \"book_loans\" bl WHERE bl.\"book_id\" = b.\"id\") AS \"loans\" "
+                + "FROM \"books\" b ORDER BY b.\"id\"");
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"" + table + "\"", Long.class);
+    }
+
+    private long max(String table) {
+        return jdbcTemplate.queryForObject("SELECT MAX(\"id\") FROM \"" + table + "\"", Long.class);
+    }
+}
@@ -0,0 +1,109 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.dto.AvailabilityCount;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
+import com.lestestes.APITEST.search.BookAvailabilityIndex;
+import com.lestestes.APITEST.service.BookLoanService;
+import com.lestestes.APITEST.service.BookService;
+
+/**
+ * Tests de l'index de disponibilité sur la base de démonstration (Fondation et Le Meurtrier ABC empruntés) :
+ * comptes et pages de livres disponibles, tenus à jour par les emprunts, retours et changements de disponibilité.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class BookAvailabilityIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookAvailabilityIndex bookAvailabilityIndex;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    // Les scripts SQL écrivent hors du service : l'index est reconstruit sur les données du test
+    @BeforeEach
+    void rebuild() {
+        bookAvailabilityIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Comptes et pages de livres disponibles, avec et sans catégorie, par l'API")
+    void testCountsAndPages() {
+        assertEquals(new AvailabilityCount(null, 6, 4),
+                restTemplate.getForObject(url("/count"), AvailabilityCount.class));
+        // Fantasy (catégorie 4) : Harry Potter et Le Trône de fer, tous deux disponibles
+        assertEquals(new AvailabilityCount(4L, 2, 2),
+                restTemplate.getForObject(url("/count?categoryId=4"), AvailabilityCount.class));
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(url("/count?categoryId=999"), String.class).getStatusCode());
+
+        CursorPage<BookSummary> first = page("/page?limit=3");
+        assertEquals(List.of(1L, 2L, 3L), ids(first));
+        CursorPage<BookSummary> second = page("/page?limit=3&after=" + first.getNextCursor());
+        assertEquals(List.of(6L), ids(second));
+        assertNull(second.getNextCursor());
+        assertEquals(List.of(2L, 3L), ids(page("/page?categoryId=4")));
+    }
+
+    @Test
+    @DisplayName("Un emprunt, un retour et un changement de disponibilité sont reflétés sans reconstruction")
+    void testIncrementalUpdates() {
+        BookLoan loan = bookLoanService.borrowBook(bookRepository.findById(2L).orElseThrow(),
+                memberRepository.findById(5L).orElseThrow(), null);
+        assertEquals(new AvailabilityCount(4L, 2, 1), bookService.countAvailableBooks(4L));
+        assertEquals(List.of(3L), ids(bookService.getAvailableBookSummariesPage(null, 10, 4L)));
+
+        bookLoanService.returnBook(loan.getId());
+        bookService.toggleAvailability(3L);
+        assertEquals(List.of(2L), ids(bookService.getAvailableBookSummariesPage(null, 10, 4L)));
+        assertEquals(new AvailabilityCount(null, 6, 3), bookService.countAvailableBooks(null));
+    }
+
+    private CursorPage<BookSummary> page(String query) {
+        return restTemplate.exchange(url(query), HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorPage<BookSummary>>() { }).getBody();
+    }
+
+    private List<Long> ids(CursorPage<BookSummary> page) {
+        return page.getItems().stream().map(BookSummary::getId).toList();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + "/api/books/available" + path;
+    }
+}
@@ -0,0 +1,128 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.dto.BookImportReport;
+import com.lestestes.APITEST.dto.BookImportReport.RowError;
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.search.BookSearchIndex;
+
+/**
+ * Tests de l'import en masse (POST /api/books/bulk) contre la base H2 : lots JDBC, rejets ligne par ligne
+ * et mise à jour de l'index de recherche. Les lignes sont réellement validées : la base de démonstration
+ * est rechargée après chaque test.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/sql/sample-data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class BookImportIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Test
+    @DisplayName("Import JSON de plusieurs lots : les lignes valides sont insérées, les autres rejetées avec leur motif")
+    void testJsonImportAcrossChunks() {
+        long before = bookRepository.count();
+        // 2 500 livres valides (trois lots), puis un ISBN existant, un doublon, une ligne invalide et un auteur inconnu
+        String valid = IntStream.range(0, 2_500)
+                .mapToObj(i -> "{\"title\":\"Import " + i + "\",\"isbn\":\"IMP-" + i + "\",\"categoryName\":\"roman\","
+                        + "\"authorIds\":[1],\"publishDate\":\"2001-01-01\",\"pageCount\":120}")
+                .collect(Collectors.joining(","));
+        String json = "[" + valid + ","
+                + "{\"title\":\"Déjà là\",\"isbn\":\"9782253096344\",\"categoryId\":1},"
+                + "{\"title\":\"Doublon\",\"isbn\":\"IMP-7\",\"categoryId\":1},"
+                + "{\"title\":\"\",\"isbn\":\"IMP-X\",\"pageCount\":-3},"
+                + "{\"title\":\"Sans auteur connu\",\"isbn\":\"IMP-Y\",\"categoryId\":1,\"authorIds\":[999]}]";
+
+        BookImportReport report = post(json, MediaType.APPLICATION_JSON);
+
+        assertEquals(2_504, report.getReceived());
+        assertEquals(2_500, report.getImported());
+        assertEquals(4, report.getRejected());
+        assertEquals(before + 2_500, bookRepository.count());
+        List<RowError> errors = report.getErrors();
+        assertEquals(List.of(2_501, 2_502, 2_503, 2_504), errors.stream().map(RowError::getRow).toList());
+        assertTrue(errors.get(0).getMessage().contains("existe déjà"));
+        assertTrue(errors.get(1).getMessage().contains("en double"));
+        assertTrue(errors.get(2).getMessage().contains("Le titre est obligatoire"));
+        assertTrue(errors.get(2).getMessage().contains("La categorie est obligatoire"));
+        assertTrue(errors.get(3).getMessage().contains("999"));
+
+        Book imported = bookRepository.findByIsbn("IMP-42").orElseThrow();
+        assertEquals("Roman", imported.getCategory().getName());
+        assertTrue(imported.isAvailable());
+        assertEquals(1, bookRepository.findByAuthorId(1L).stream().filter(book -> book.getIsbn().equals("IMP-42")).count());
+        assertFalse(bookSearchIndex.search("Import 42", 5).isEmpty(), "Les livres importés doivent etre indexés");
+    }
+
+    @Test
+    @DisplayName("Import CSV : en-tête, champs entre guillemets et valeurs mal formées")
+    void testCsvImport() {
+        String csv = "isbn,title,categoryId,authorIds,pageCount,publisher\r\n"
+                + "CSV-1,\"Le Tour du monde, en 80 jours\",1,1|2,320,\"Éditions \"\"Hetzel\"\"\"\r\n"
+                + "CSV-2,Pages invalides,1,,abc,\r\n"
+                + "\r\n"
+                + "CSV-3,Catégorie inconnue,42,,,\r\n";
+
+        BookImportReport report = post(csv, MediaType.parseMediaType("text/csv"));
+
+        assertEquals(3, report.getReceived());
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(2, 3), report.getErrors().stream().map(RowError::getRow).toList());
+        Book imported = bookRepository.findByIsbn("CSV-1").orElseThrow();
+        assertEquals("Le Tour du monde, en 80 jours", imported.getTitle());
+        assertEquals("Éditions \"Hetzel\"", imported.getPublisher());
+        assertEquals(2, bookRepository.findWithAuthorsByIdIn(List.of(imported.getId())).get(0).getAuthors().size());
+    }
+
+    @Test
+    @DisplayName("Un JSON mal formé est refusé avec le code 400")
+    void testMalformedJson() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> response = restTemplate.postForEntity(url(), new HttpEntity<>("[{\"title\":", headers), String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private BookImportReport post(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<BookImportReport> response = restTemplate.postForEntity(url(), new HttpEntity<>(body, headers),
+                BookImportReport.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private String url() {
+        return "http://localhost:" + port + "/api/books/bulk";
+    }
+}
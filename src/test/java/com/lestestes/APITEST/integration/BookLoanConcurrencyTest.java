@@ -0,0 +1,180 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.model.Member;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.CategoryRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
+import com.lestestes.APITEST.service.BookLoanService;
+
+/**
+ * Test de charge concurrente du parcours d'emprunt : de nombreux threads empruntent en même temps
+ * et les données doivent rester cohérentes (pas de double emprunt, limite par membre respectée).
+ * Les transactions sont réellement validées : la base de démonstration est rechargée après chaque test.
+ */
+@SpringBootTest
+@Sql(scripts = { "/sql/cleanup.sql", "/sql/sample-data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class BookLoanConcurrencyTest {
+
+    private static final int BORROWERS = 500;
+    private static final int MEMBER_COUNT = 100;
+
+    @Autowired
+    private BookLoanService loanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    @DisplayName("500 emprunts simultanés du même livre produisent un seul emprunt")
+    void testConcurrentBorrowsOfSameBook() throws Exception {
+        Book book = bookRepository.findAll().get(0);
+        List<Member> members = createMembers(MEMBER_COUNT);
+
+        AtomicInteger successes = runConcurrently(BORROWERS, i -> loanService.borrowBook(book, members.get(i % members.size()), null));
+
+        assertEquals(1, successes.get(), "Un seul emprunt doit réussir");
+        assertEquals(1, bookLoanRepository.findByBook(book).size());
+        assertFalse(bookRepository.findById(book.getId()).orElseThrow().isAvailable());
+    }
+
+    @Test
+    @DisplayName("Un membre empruntant des livres différents en parallèle ne dépasse pas la limite")
+    void testConcurrentBorrowsRespectMemberLimit() throws Exception {
+        List<Book> books = createBooks(20);
+        Member member = memberRepository.findAll().get(0);
+
+        AtomicInteger successes = runConcurrently(books.size(), i -> loanService.borrowBook(books.get(i), member, null));
+
+        assertEquals(5, successes.get(), "La limite de 5 emprunts par membre doit être respectée");
+        assertEquals(5, bookLoanRepository.countByMemberAndReturnedFalse(member));
+    }
+
+    @Test
+    @DisplayName("Des emprunts simultanés de livres différents réussissent tous")
+    void testConcurrentBorrowsOfDifferentBooks() throws Exception {
+        List<Book> books = createBooks(50);
+        List<Member> members = createMembers(books.size());
+
+        AtomicInteger successes = runConcurrently(books.size(), i -> loanService.borrowBook(books.get(i), members.get(i), null));
+
+        assertEquals(books.size(), successes.get(), "Des livres différents ne doivent pas se bloquer entre eux");
+    }
+
+    @Test
+    @DisplayName("Des prolongations simultanées à un retour ne remettent pas l'emprunt en cours ni ne se perdent")
+    void testConcurrentExtensionsAndReturn() throws Exception {
+        Book book = bookRepository.findAll().get(0);
+        Member member = createMembers(1).get(0);
+        BookLoan loan = loanService.borrowBook(book, member, LocalDate.now().plusDays(7));
+
+        // La tâche 0 retourne le livre, les autres prolongent l'emprunt d'un jour chacune
+        AtomicInteger successes = runConcurrently(20, i -> {
+            if (i == 0) {
+                loanService.returnBook(loan.getId());
+            } else {
+                loanService.extendLoan(loan.getId(), 1);
+            }
+        });
+
+        BookLoan stored = bookLoanRepository.findById(loan.getId()).orElseThrow();
+        assertTrue(stored.isReturned(), "Le retour ne doit pas être écrasé par une prolongation");
+        assertTrue(bookRepository.findById(book.getId()).orElseThrow().isAvailable());
+        assertEquals(loan.getDueDate().plusDays(successes.get() - 1), stored.getDueDate(),
+                "Chaque prolongation acceptée doit compter");
+    }
+
+    // Lancer les opérations en même temps ; seuls les refus métier (IllegalStateException) sont attendus
+    private AtomicInteger runConcurrently(int count, Borrow borrow) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicInteger successes = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    borrow.run(index);
+                    successes.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    // Refus attendu : livre indisponible ou limite atteinte
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS), "Les emprunts n'ont pas terminé à temps");
+        executor.shutdown();
+
+        assertTrue(unexpected.isEmpty(), "Erreurs inattendues : " + unexpected);
+        return successes;
+    }
+
+    private List<Member> createMembers(int count) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member();
+            member.setFirstName("Emprunteur");
+            member.setLastName("Concurrent " + i);
+            member.setEmail("concurrent" + i + "@email.com");
+            member.setAddress(i + " rue des Tests, 75000 Paris");
+            members.add(member);
+        }
+        return memberRepository.saveAll(members);
+    }
+
+    private List<Book> createBooks(int count) {
+        Category category = categoryRepository.findAll().get(0);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setTitle("Livre concurrent " + i);
+            book.setIsbn("CONC-" + i);
+            book.setCategory(category);
+            books.add(book);
+        }
+        return bookRepository.saveAll(books);
+    }
+
+    @FunctionalInterface
+    private interface Borrow {
+        void run(int index);
+    }
+}
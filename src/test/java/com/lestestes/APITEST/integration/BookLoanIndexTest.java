@@ -0,0 +1,66 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Vérifie la présence des index de la table des emprunts et leur utilisation par les requêtes d'emprunt
+ * (plans d'exécution H2), ainsi que leur création par les migrations Flyway.
+ */
+@SpringBootTest
+public class BookLoanIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Les index composites de book_loans sont créés avec le schéma")
+    void testIndexesExist() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'book_loans'", String.class);
+
+        assertTrue(indexes.containsAll(List.of("idx_book_loans_member_returned", "idx_book_loans_book_returned",
+                "idx_book_loans_returned_due_date", "idx_book_loans_returned_id", "idx_book_loans_borrow_date")),
+                indexes.toString());
+    }
+
+    @Test
+    @DisplayName("Les requêtes d'emprunt utilisent les index composites")
+    void testQueryPlansUseIndexes() {
+        assertPlanUses("SELECT COUNT(*) FROM \"book_loans\" WHERE \"member_id\" = 1 AND \"returned\" = FALSE",
+                "idx_book_loans_member_returned");
+        assertPlanUses("SELECT 1 FROM \"book_loans\" WHERE \"book_id\" = 1 AND \"returned\" = FALSE FETCH FIRST 1 ROWS ONLY",
+                "idx_book_loans_book_returned");
+        assertPlanUses("SELECT \"id\" FROM \"book_loans\" WHERE \"returned\" = FALSE AND \"dueDate\" < CURRENT_DATE",
+                "idx_book_loans_returned_due_date");
+        String openLoansChunk = "SELECT \"id\" FROM \"book_loans\" WHERE \"returned\" = FALSE AND \"id\" > 1000 "
+                + "ORDER BY \"returned\", \"id\" FETCH FIRST 500 ROWS ONLY";
+        assertPlanUses(openLoansChunk, "idx_book_loans_returned_id");
+        assertPlanUses(openLoansChunk, "index sorted");
+        assertPlanUses("SELECT \"id\" FROM \"book_loans\" WHERE \"borrowDate\" BETWEEN DATE '2023-01-01' AND DATE '2023-12-31'",
+                "idx_book_loans_borrow_date");
+    }
+
+    @Test
+    @DisplayName("Le schéma est créé par les migrations Flyway, données de démonstration comprises")
+    void testSchemaCreatedByMigrations() {
+        List<String> versions = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"", String.class);
+
+        assertEquals(List.of("1", "2", "3", "4", "5", "6"), versions);
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE TABLE_NAME = 'book_loans' AND INDEX_NAME LIKE 'idx_book_loans_%'", Integer.class));
+    }
+
+    private void assertPlanUses(String sql, String index) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertTrue(plan.contains(index), plan);
+    }
+}
@@ -0,0 +1,93 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.dto.RecommendedBook;
+import com.lestestes.APITEST.loan.CoBorrowIndex;
+import com.lestestes.APITEST.loan.CoBorrowIndex.CoBorrowCount;
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
+import com.lestestes.APITEST.service.BookLoanService;
+
+/**
+ * Tests des recommandations par co-emprunt (GET /api/books/{id}/recommendations) sur la base de démonstration :
+ * Jean Dupont a emprunté Les Misérables et Fondation, Marie Martin Harry Potter et Le Meurtrier ABC.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class BookRecommendationIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CoBorrowIndex coBorrowIndex;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    // Les scripts SQL écrivent hors du service : la matrice est reconstruite sur les données du test
+    @BeforeEach
+    void rebuild() {
+        coBorrowIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Les livres empruntés par les mêmes membres sont recommandés, avec leurs résumés")
+    void testRecommendations() {
+        ResponseEntity<RecommendedBook[]> response = restTemplate.getForEntity(url(1L), RecommendedBook[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().length);
+        assertEquals("Fondation", response.getBody()[0].getBook().getTitle());
+        assertEquals(1, response.getBody()[0].getMembers());
+        assertEquals(0, restTemplate.getForEntity(url(3L), RecommendedBook[].class).getBody().length);
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(url(999L), String.class).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Chaque emprunt met la matrice à jour ; une reconstruction donne les mêmes recommandations")
+    void testIncrementalUpdateMatchesRebuild() {
+        // Jean Dupont emprunte L'Étranger, puis Pierre Bernard (qui a lu Le Trône de fer) l'emprunte à son tour
+        Book stranger = bookRepository.findById(6L).orElseThrow();
+        BookLoan loan = bookLoanService.borrowBook(stranger, memberRepository.findById(1L).orElseThrow(), null);
+        bookLoanService.returnBook(loan.getId());
+        bookLoanService.borrowBook(stranger, memberRepository.findById(3L).orElseThrow(), null);
+
+        List<CoBorrowCount> incremental = coBorrowIndex.recommend(6L, 10);
+        assertEquals(List.of(new CoBorrowCount(1L, 1), new CoBorrowCount(3L, 1), new CoBorrowCount(4L, 1)), incremental);
+        assertEquals(List.of(new CoBorrowCount(4L, 1), new CoBorrowCount(6L, 1)), coBorrowIndex.recommend(1L, 10));
+
+        coBorrowIndex.rebuild();
+        assertEquals(incremental, coBorrowIndex.recommend(6L, 10));
+    }
+
+    private String url(Long bookId) {
+        return "http://localhost:" + port + "/api/books/" + bookId + "/recommendations";
+    }
+}
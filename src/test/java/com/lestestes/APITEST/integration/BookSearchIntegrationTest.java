@@ -0,0 +1,60 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.search.BookSearchIndex;
+import com.lestestes.APITEST.service.AuthorService;
+import com.lestestes.APITEST.service.BookService;
+
+/**
+ * Tests de l'index de recherche sur la base de démonstration : les noms d'auteurs indexés suivent
+ * les modifications des auteurs.
+ */
+@SpringBootTest
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class BookSearchIntegrationTest {
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    // Les scripts SQL écrivent hors du service : l'index est reconstruit sur les données du test
+    @BeforeEach
+    void rebuild() {
+        bookSearchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Un auteur renommé est retrouvé sous son nouveau nom, plus sous l'ancien")
+    void testAuthorRename() {
+        assertEquals(List.of(1L), ids(bookService.searchBookSummariesByTitle("hugo", null)));
+
+        Author hugo = authorService.getAuthorById(1L);
+        hugo.setLastName("Lamartine");
+        authorService.updateAuthor(1L, hugo);
+
+        assertEquals(List.of(1L), ids(bookService.searchBookSummariesByTitle("lamartine", null)));
+        assertTrue(bookService.searchBookSummariesByTitle("hugo", null).isEmpty());
+    }
+
+    private List<Long> ids(List<BookSummary> summaries) {
+        return summaries.stream().map(BookSummary::getId).toList();
+    }
+}
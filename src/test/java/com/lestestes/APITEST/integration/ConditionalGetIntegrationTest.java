@@ -0,0 +1,118 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.service.BookLoanService;
+import com.lestestes.APITEST.service.BookService;
+import com.lestestes.APITEST.service.CategoryService;
+import com.lestestes.APITEST.service.MemberService;
+
+/**
+ * Tests des GET conditionnels (ETag / If-None-Match) sur les livres, les livres récents et les catégories :
+ * 304 tant que rien n'a changé, nouvelle représentation dès qu'un emprunt, un renommage ou une création
+ * modifie les données. Les modifications sont réellement validées puis la base de démonstration est rechargée.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/sql/sample-data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ConditionalGetIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Test
+    @DisplayName("Un livre inchangé est revalidé en 304 ; un emprunt ou le renommage de sa catégorie change l'ETag")
+    void testBookETag() {
+        ResponseEntity<String> first = get("/api/books/1", null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String eTag = first.getHeaders().getETag();
+        assertNotNull(eTag);
+
+        ResponseEntity<String> revalidated = get("/api/books/1", eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertNull(revalidated.getBody());
+        assertEquals(eTag, revalidated.getHeaders().getETag());
+
+        bookLoanService.borrowBook(bookService.getBookById(1L), memberService.getMemberById(1L), LocalDate.now().plusDays(14));
+        ResponseEntity<String> borrowed = get("/api/books/1", eTag);
+        assertEquals(HttpStatus.OK, borrowed.getStatusCode());
+        assertTrue(borrowed.getBody().contains("\"available\":false"));
+        String borrowedETag = borrowed.getHeaders().getETag();
+        assertNotEquals(eTag, borrowedETag);
+
+        Category details = new Category();
+        details.setName("Romans");
+        categoryService.updateCategory(1L, details);
+        ResponseEntity<String> renamed = get("/api/books/1", borrowedETag);
+        assertEquals(HttpStatus.OK, renamed.getStatusCode());
+        assertTrue(renamed.getBody().contains("Romans"));
+
+        assertEquals(HttpStatus.NOT_FOUND, get("/api/books/999", null).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("La liste des catégories et celle des livres récents changent d'ETag à chaque création")
+    void testCollectionETags() {
+        String categoriesETag = get("/api/categories", null).getHeaders().getETag();
+        String recentETag = get("/api/books/recent", null).getHeaders().getETag();
+        assertEquals(HttpStatus.NOT_MODIFIED, get("/api/categories", categoriesETag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, get("/api/books/recent", recentETag).getStatusCode());
+
+        Category category = new Category();
+        category.setName("Essai");
+        categoryService.createCategory(category);
+        ResponseEntity<String> categories = get("/api/categories", categoriesETag);
+        assertEquals(HttpStatus.OK, categories.getStatusCode());
+        assertTrue(categories.getBody().contains("Essai"));
+
+        Book book = new Book();
+        book.setTitle("Parution du jour");
+        book.setIsbn("ETAG-1");
+        book.setPublishDate(LocalDate.now());
+        book.setCategory(categoryService.getCategoryById(1L));
+        bookService.createBook(book);
+        ResponseEntity<String> recent = get("/api/books/recent", recentETag);
+        assertEquals(HttpStatus.OK, recent.getStatusCode());
+        assertTrue(recent.getBody().contains("Parution du jour"));
+    }
+
+    private ResponseEntity<String> get(String path, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.exchange("http://localhost:" + port + path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
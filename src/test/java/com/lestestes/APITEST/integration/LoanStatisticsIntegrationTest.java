@@ -0,0 +1,231 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.dto.LoanPeriodCount;
+import com.lestestes.APITEST.dto.LoanStatistics;
+import com.lestestes.APITEST.dto.RankedCount;
+import com.lestestes.APITEST.dto.StatisticsGranularity;
+import com.lestestes.APITEST.loan.LoanDailyRollup;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
+import com.lestestes.APITEST.service.BookLoanService;
+
+/**
+ * Tests des statistiques d'emprunt (GET /api/loans/statistics) sur la base de démonstration :
+ * totaux et taux, découpage par jour, semaine ou mois, classements, compteurs de chaque emprunt et retour reportés
+ * dans l'agrégat quotidien par le compactage, et paramètres refusés.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class LoanStatisticsIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private LoanDailyRollup loanDailyRollup;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Les données de démonstration sont rechargées en SQL, sans passer par le service : agrégat recalculé
+    @BeforeEach
+    void setUp() {
+        loanDailyRollup.rebuild();
+    }
+
+    @Test
+    @DisplayName("Une année d'emprunts est résumée par mois, avec les taux, la durée moyenne et les classements, "
+            + "ceux des livres et des membres limités aux 92 derniers jours")
+    void testYearStatistics() {
+        ResponseEntity<LoanStatistics> response = restTemplate.getForEntity(
+                url("?startDate=2023-01-01&endDate=2023-12-31&top=2"), LoanStatistics.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        LoanStatistics statistics = response.getBody();
+        assertEquals(StatisticsGranularity.MONTH, statistics.getGranularity());
+        assertEquals(5, statistics.getTotalLoans());
+        assertEquals(3, statistics.getReturnedLoans());
+        assertEquals(2, statistics.getActiveLoans());
+        assertEquals(2, statistics.getOverdueLoans());
+        assertEquals(1, statistics.getLateReturns());
+        assertEquals(0.6, statistics.getReturnRate(), 1e-9);
+        assertEquals(2.0 / 3, statistics.getOnTimeReturnRate(), 1e-9);
+        // 13, 10 et 21 jours
+        assertEquals(44.0 / 3, statistics.getAverageLoanDays(), 1e-9);
+
+        assertEquals(List.of(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 2, 1), LocalDate.of(2023, 3, 1),
+                LocalDate.of(2023, 4, 1), LocalDate.of(2023, 5, 1)),
+                statistics.getPeriods().stream().map(LoanPeriodCount::getPeriodStart).toList());
+        assertEquals(new LoanPeriodCount(LocalDate.of(2023, 3, 1), 1, 1, 1, 0, 0), withoutDays(statistics.getPeriods().get(2)));
+
+        // Catégories classées sur toute l'année, livres et membres sur ses 92 derniers jours (sans emprunt)
+        assertEquals(List.of(new RankedCount(4L, "Fantasy", 2), new RankedCount(1L, "Roman", 1)),
+                statistics.getTopCategories());
+        assertEquals(LocalDate.of(2023, 10, 1), statistics.getRankingStartDate());
+        assertTrue(statistics.getTopBooks().isEmpty());
+        assertTrue(statistics.getBusiestMembers().isEmpty());
+
+        LoanStatistics quarter = restTemplate.getForEntity(
+                url("?startDate=2023-01-01&endDate=2023-03-31&top=2"), LoanStatistics.class).getBody();
+        assertEquals(LocalDate.of(2023, 1, 1), quarter.getRankingStartDate());
+        assertEquals(List.of(new RankedCount(1L, "Les Misérables", 1), new RankedCount(2L, "Harry Potter à l'école des sorciers", 1)),
+                quarter.getTopBooks());
+        assertEquals(List.of(new RankedCount(1L, "Jean Dupont", 1), new RankedCount(2L, "Marie Martin", 1)),
+                quarter.getBusiestMembers());
+    }
+
+    @Test
+    @DisplayName("Les jours sont regroupés en semaines du lundi ; les emprunts écrits hors du service sont repris par la réconciliation")
+    void testWeeksAndQueryCount() {
+        // Semaine du lundi 10 avril 2023 : l'emprunt 4 (samedi 15) et vingt emprunts rendus en 7 jours
+        for (int i = 0; i < 20; i++) {
+            BookLoan loan = new BookLoan();
+            loan.setBook(bookRepository.findById(6L).orElseThrow());
+            loan.setMember(memberRepository.findById(3L).orElseThrow());
+            loan.setBorrowDate(LocalDate.of(2023, 4, 10 + i % 3));
+            loan.setDueDate(LocalDate.of(2023, 4, 24));
+            loan.setReturnDate(LocalDate.of(2023, 4, 17 + i % 3));
+            loan.setReturned(true);
+            bookLoanRepository.save(loan);
+        }
+
+        // Emprunts enregistrés sans passer par le service : repris par la réconciliation
+        loanDailyRollup.reconcile();
+        LoanStatistics statistics = bookLoanService.getLoanStatistics(
+                LocalDate.of(2023, 4, 1), LocalDate.of(2023, 5, 31), "week", 1);
+        assertEquals(22, statistics.getTotalLoans());
+        assertEquals(List.of(new LoanPeriodCount(LocalDate.of(2023, 4, 10), 21, 20, 0, 1, 0),
+                new LoanPeriodCount(LocalDate.of(2023, 5, 1), 1, 0, 0, 1, 0)),
+                statistics.getPeriods().stream().map(this::withoutDays).toList());
+        assertEquals(7.0, statistics.getAverageLoanDays(), 1e-9);
+        assertEquals(List.of(new RankedCount(6L, "L'Étranger", 20)), statistics.getTopBooks());
+        assertEquals(List.of(new RankedCount(3L, "Pierre Bernard", 20)), statistics.getBusiestMembers());
+
+        LoanStatistics days = bookLoanService.getLoanStatistics(
+                LocalDate.of(2023, 4, 10), LocalDate.of(2023, 4, 16), "DAY", null);
+        assertEquals(List.of(7L, 7L, 6L, 1L), days.getPeriods().stream().map(LoanPeriodCount::getLoans).toList());
+    }
+
+    @Test
+    @DisplayName("Chaque emprunt et chaque retour est compté aussitôt, puis reporté dans l'agrégat quotidien par le compactage, "
+            + "à l'identique d'une reconstruction")
+    void testIncrementalRollup() {
+        List<Object> before = rollupRows();
+        LocalDate today = LocalDate.now();
+        BookLoan first = bookLoanService.borrowBook(bookRepository.findById(1L).orElseThrow(),
+                memberRepository.findById(3L).orElseThrow(), today.plusDays(14));
+        bookLoanService.borrowBook(bookRepository.findById(6L).orElseThrow(),
+                memberRepository.findById(5L).orElseThrow(), today.plusDays(14));
+        bookLoanService.returnBook(first.getId());
+
+        LoanStatistics statistics = bookLoanService.getLoanStatistics(today, today, null, null);
+        assertEquals(2, statistics.getTotalLoans());
+        assertEquals(1, statistics.getReturnedLoans());
+        assertEquals(0.0, statistics.getAverageLoanDays());
+        // Les Misérables et L'Étranger : deux emprunts du jour dans la catégorie Roman, sur une seule ligne
+        assertEquals(List.of(new RankedCount(1L, "Roman", 2)), statistics.getTopCategories());
+        // Les emprunts et le retour n'ont pas touché l'agrégat : ils attendent le compactage
+        assertEquals(before, rollupRows());
+        assertEquals(3, loanDailyRollup.compact());
+        assertEquals(0, loanDailyRollup.compact());
+        assertEquals(statistics.getTotalLoans(), bookLoanService.getLoanStatistics(today, today, null, null).getTotalLoans());
+        List<Object> rows = rollupRows();
+        assertEquals(List.of(1L, 2L, 1L, 0L, 0L), rows.subList(rows.size() - 5, rows.size()));
+
+        loanDailyRollup.rebuild();
+        assertEquals(rows, rollupRows());
+    }
+
+    @Test
+    @DisplayName("Un livre changé de catégorie entre l'emprunt et le retour est rangé dans sa nouvelle catégorie par la réconciliation")
+    void testCategoryChangedBeforeReturn() {
+        LocalDate today = LocalDate.now();
+        BookLoan loan = bookLoanService.borrowBook(bookRepository.findById(1L).orElseThrow(),
+                memberRepository.findById(3L).orElseThrow(), today.plusDays(14));
+        jdbcTemplate.update("UPDATE \"books\" SET \"category_id\" = 4 WHERE \"id\" = 1");
+        bookLoanService.returnBook(loan.getId());
+
+        // Totaux globaux inchangés : seul l'écart par catégorie révèle la désynchronisation
+        loanDailyRollup.reconcile();
+        LoanStatistics statistics = bookLoanService.getLoanStatistics(today, today, null, null);
+        assertEquals(List.of(new RankedCount(4L, "Fantasy", 1)), statistics.getTopCategories());
+        List<Object> rows = rollupRows();
+        loanDailyRollup.rebuild();
+        assertEquals(rows, rollupRows());
+    }
+
+    @Test
+    @DisplayName("Une période sans emprunt donne des compteurs nuls ; les paramètres invalides sont refusés avec le code 400")
+    void testEmptyPeriodAndBadRequests() {
+        LoanStatistics empty = bookLoanService.getLoanStatistics(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31), null, null);
+        assertEquals(StatisticsGranularity.DAY, empty.getGranularity());
+        assertEquals(0, empty.getTotalLoans());
+        assertEquals(0, empty.getReturnRate());
+        assertNull(empty.getAverageLoanDays());
+        assertTrue(empty.getPeriods().isEmpty());
+        assertTrue(empty.getTopBooks().isEmpty());
+
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(
+                url("?startDate=2023-12-31&endDate=2023-01-01"), String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(
+                url("?startDate=2023-01-01&endDate=2023-12-31&granularity=year"), String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(
+                url("?startDate=2023-01-01&endDate=2023-12-31&top=0"), String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(
+                url("?startDate=2020-01-01&endDate=2023-12-31&granularity=day"), String.class).getStatusCode());
+    }
+
+    // Les durées cumulées ne sont pas sérialisées : on les ignore dans les comparaisons
+    private LoanPeriodCount withoutDays(LoanPeriodCount period) {
+        return new LoanPeriodCount(period.getPeriodStart(), period.getLoans(), period.getReturned(),
+                period.getLateReturns(), period.getOverdue(), 0);
+    }
+
+    // Contenu de l'agrégat quotidien, ligne par ligne
+    private List<Object> rollupRows() {
+        return jdbcTemplate.queryForList("SELECT \"category_id\", \"loans\", \"returned\", \"lateReturns\", "
+                + "\"returnedLoanDays\" FROM \"loan_daily_rollup\" ORDER BY \"day\", \"category_id\"").stream()
+                .flatMap(row -> row.values().stream())
+                .map(value -> (Object) ((Number) value).longValue())
+                .toList();
+    }
+
+    private String url(String query) {
+        return "http://localhost:" + port + "/api/loans/statistics" + query;
+    }
+}
@@ -0,0 +1,141 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.dto.DashboardLoan;
+import com.lestestes.APITEST.dto.LoanHistory;
+import com.lestestes.APITEST.dto.MemberDashboard;
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.model.Member;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.MemberRepository;
+import com.lestestes.APITEST.service.MemberService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests du tableau de bord d'un membre (GET /api/members/{id}/dashboard) sur la base de démonstration :
+ * contenu, limite des derniers retours et nombre de requêtes SQL (deux, quel que soit le nombre d'emprunts).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class MemberDashboardIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Le tableau de bord réunit le membre, son bilan, ses emprunts en cours et ses retours avec les livres")
+    void testDashboard() {
+        ResponseEntity<MemberDashboard> response = restTemplate.getForEntity(url(1L), MemberDashboard.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        MemberDashboard dashboard = response.getBody();
+        assertEquals("Dupont", dashboard.getMember().getLastName());
+        assertEquals(new LoanHistory(2, 1, 1, 0, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 4, 15)),
+                dashboard.getHistory());
+
+        assertEquals(1, dashboard.getActiveLoans().size());
+        DashboardLoan active = dashboard.getActiveLoans().get(0);
+        assertTrue(active.isOverdue());
+        assertEquals("Fondation", active.getBook().getTitle());
+        assertEquals("Science-Fiction", active.getBook().getCategoryName());
+        assertEquals(List.of("Isaac Asimov"), active.getBook().getAuthorNames());
+
+        assertEquals(1, dashboard.getRecentReturns().size());
+        assertEquals("Les Misérables", dashboard.getRecentReturns().get(0).getBook().getTitle());
+    }
+
+    @Test
+    @DisplayName("Seuls les derniers retours sont listés, le bilan compte tous les emprunts, en deux requêtes SQL")
+    void testRecentReturnsAndQueryCount() {
+        // Membre 3 : un retour en retard dans les données de démonstration, puis huit retours supplémentaires
+        for (int i = 1; i <= 8; i++) {
+            BookLoan loan = new BookLoan();
+            loan.setBook(bookRepository.findById((long) (i % 6 + 1)).orElseThrow());
+            loan.setMember(memberRepository.findById(3L).orElseThrow());
+            loan.setBorrowDate(LocalDate.of(2024, i, 1));
+            loan.setDueDate(LocalDate.of(2024, i, 15));
+            loan.setReturnDate(LocalDate.of(2024, i, 10));
+            loan.setReturned(true);
+            bookLoanRepository.save(loan);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MemberDashboard dashboard = memberService.getMemberDashboard(3L);
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        assertEquals(9, dashboard.getHistory().getTotalLoans());
+        assertEquals(1, dashboard.getHistory().getLateReturns());
+        assertTrue(dashboard.getActiveLoans().isEmpty());
+        assertEquals(List.of(LocalDate.of(2024, 8, 10), LocalDate.of(2024, 7, 10), LocalDate.of(2024, 6, 10),
+                LocalDate.of(2024, 5, 10), LocalDate.of(2024, 4, 10)),
+                dashboard.getRecentReturns().stream().map(DashboardLoan::getReturnDate).toList());
+    }
+
+    @Test
+    @DisplayName("Un membre sans emprunt a un bilan vide ; un membre inconnu donne un 404")
+    void testEmptyAndUnknownMember() {
+        MemberDashboard dashboard = memberService.getMemberDashboard(5L);
+        assertEquals(new LoanHistory(0, 0, 0, 0, null, null), dashboard.getHistory());
+        assertTrue(dashboard.getActiveLoans().isEmpty());
+        assertTrue(dashboard.getRecentReturns().isEmpty());
+
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(url(999L), String.class).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Un membre est lu seul en une requête ; ses emprunts ne sont chargés que pour être renvoyés")
+    void testMemberLoansLoadedOnlyWhenReturned() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Member member = memberService.getMemberById(1L);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(Hibernate.isInitialized(member.getLoans()));
+
+        Member withLoans = memberService.getMemberWithLoansById(1L);
+        assertTrue(Hibernate.isInitialized(withLoans.getLoans()));
+        assertEquals(2, withLoans.getLoans().size());
+    }
+
+    private String url(Long memberId) {
+        return "http://localhost:" + port + "/api/members/" + memberId + "/dashboard";
+    }
+}
@@ -0,0 +1,173 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.loan.FineJobStatus;
+import com.lestestes.APITEST.loan.LoanFineProperties;
+import com.lestestes.APITEST.loan.OverdueFineJob;
+
+/**
+ * Tests du calcul des amendes de retard sur la base de démonstration (emprunts 4 et 5 en cours, à rendre
+ * le 29/04/2023 et le 15/05/2023) : montants, paliers de relance, prolongation, reprise après interruption
+ * déclenchement en arrière-plan et pool du planificateur. Les lots d'un seul emprunt font parcourir plusieurs pages.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class OverdueFineJobIntegrationTest {
+
+    private static final LocalDate MAY_20 = LocalDate.of(2023, 5, 20);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OverdueFineJob overdueFineJob;
+
+    @Autowired
+    private LoanFineProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScheduledTaskHolder scheduledTaskHolder;
+
+    @Autowired
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    private int chunkSize;
+
+    @BeforeEach
+    void setUp() {
+        chunkSize = properties.getChunkSize();
+        properties.setChunkSize(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        properties.setChunkSize(chunkSize);
+    }
+
+    @Test
+    @DisplayName("Amendes et relances : une relance par nouveau palier, montant plafonné, rien de plus si l'on relance le calcul")
+    void testFinesAndReminders() {
+        FineJobStatus status = overdueFineJob.run(MAY_20);
+
+        assertEquals(OverdueFineJob.STATUS_COMPLETED, status.status());
+        assertEquals(5L, status.lastLoanId());
+        assertEquals(2, status.processed());
+        assertEquals(2, status.fined());
+        assertEquals(2, status.notified());
+        // Emprunt 4 : 21 jours de retard, 3e palier ; emprunt 5 : 5 jours, 1er palier
+        assertFine(4L, 21, "4.20", 3);
+        assertFine(5L, 5, "1.00", 1);
+
+        assertEquals(0, overdueFineJob.run(MAY_20).notified());
+        assertEquals(2, countNotifications());
+
+        // Trois jours plus tard, chaque emprunt passe au palier suivant
+        assertEquals(2, overdueFineJob.run(MAY_20.plusDays(3)).notified());
+        assertEquals(List.of(3, 1, 4, 2), jdbcTemplate.queryForList(
+                "SELECT \"reminderLevel\" FROM \"loan_notifications\" ORDER BY \"id\"", Integer.class));
+
+        overdueFineJob.run(LocalDate.of(2024, 1, 1));
+        assertFine(4L, 247, "10.00", 36);
+    }
+
+    @Test
+    @DisplayName("L'amende d'un emprunt prolongé ou rendu depuis le dernier calcul disparaît ou reste figée")
+    void testExtendedAndReturnedLoans() {
+        overdueFineJob.run(MAY_20);
+        jdbcTemplate.update("UPDATE \"book_loans\" SET \"dueDate\" = DATE '2023-06-30' WHERE \"id\" = 5");
+        jdbcTemplate.update("UPDATE \"book_loans\" SET \"returned\" = TRUE, \"returnDate\" = DATE '2023-05-21' WHERE \"id\" = 4");
+
+        FineJobStatus status = overdueFineJob.run(MAY_20.plusDays(2));
+
+        assertEquals(1, status.processed());
+        assertEquals(0, status.fined());
+        assertEquals(List.of(4L), jdbcTemplate.queryForList("SELECT \"loan_id\" FROM \"loan_fines\"", Long.class));
+        assertFine(4L, 21, "4.20", 3);
+    }
+
+    @Test
+    @DisplayName("Un calcul interrompu reprend après le dernier emprunt validé, avec ses compteurs")
+    void testResumeFromCheckpoint() {
+        // Point de reprise laissé par un calcul du 20/05 interrompu après l'emprunt 4
+        jdbcTemplate.update("INSERT INTO \"batch_checkpoints\" VALUES (?, DATE '2023-05-20', 4, 1, 1, 1, ?, CURRENT_TIMESTAMP)",
+                OverdueFineJob.JOB_NAME, OverdueFineJob.STATUS_RUNNING);
+
+        FineJobStatus status = overdueFineJob.run(MAY_20);
+
+        assertEquals(OverdueFineJob.STATUS_COMPLETED, status.status());
+        assertEquals(2, status.processed());
+        assertEquals(2, status.notified());
+        assertEquals(List.of(5L), jdbcTemplate.queryForList("SELECT \"loan_id\" FROM \"loan_fines\"", Long.class));
+
+        // Le point de reprise d'un autre jour est ignoré : le calcul repart du début
+        assertEquals(2, overdueFineJob.run(MAY_20.plusDays(1)).processed());
+    }
+
+    @Test
+    @DisplayName("Le calcul se lance en arrière-plan via l'API et son état est consultable")
+    void testRunThroughApi() throws InterruptedException {
+        ResponseEntity<FineJobStatus> accepted = restTemplate.postForEntity(url("/run"), null, FineJobStatus.class);
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+
+        FineJobStatus status = restTemplate.getForObject(url("/status"), FineJobStatus.class);
+        for (int i = 0; i < 100 && (status.running() || status.status() == null); i++) {
+            Thread.sleep(50);
+            status = restTemplate.getForObject(url("/status"), FineJobStatus.class);
+        }
+        assertEquals(OverdueFineJob.STATUS_COMPLETED, status.status());
+        assertEquals(LocalDate.now(), status.runDate());
+        assertEquals(2, status.fined());
+    }
+
+    @Test
+    @DisplayName("Le planificateur a un thread par traitement planifié : une reconstruction ne retarde pas les autres")
+    void testSchedulerThreadPerTask() {
+        int scheduledTasks = scheduledTaskHolder.getScheduledTasks().size();
+        assertTrue(scheduledTasks >= 6);
+        assertTrue(taskScheduler.getScheduledThreadPoolExecutor().getCorePoolSize() >= scheduledTasks);
+    }
+
+    private void assertFine(Long loanId, int daysOverdue, String amount, int reminderLevel) {
+        Map<String, Object> fine = jdbcTemplate.queryForMap(
+                "SELECT \"daysOverdue\", \"amount\", \"reminderLevel\" FROM \"loan_fines\" WHERE \"loan_id\" = ?", loanId);
+        assertEquals(daysOverdue, fine.get("daysOverdue"));
+        assertEquals(new BigDecimal(amount), fine.get("amount"));
+        assertEquals(reminderLevel, fine.get("reminderLevel"));
+    }
+
+    private int countNotifications() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"loan_notifications\"", Integer.class);
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + "/api/loans/fines" + path;
+    }
+}
@@ -0,0 +1,85 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.model.BookLoan;
+import com.lestestes.APITEST.service.BookLoanService;
+import com.lestestes.APITEST.service.BookService;
+import com.lestestes.APITEST.service.MemberService;
+
+/**
+ * Tests de la liste des emprunts en retard servie par l'index en mémoire : un emprunt échu y apparaît
+ * dès sa validation, en sort à sa prolongation ou à son retour. Les emprunts sont réellement validés
+ * puis la base de démonstration est rechargée.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/sql/sample-data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class OverdueLoanIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Test
+    @DisplayName("Un emprunt échu apparaît dans les retards puis en sort à la prolongation et au retour")
+    void testOverdueLifecycle() {
+        LocalDate today = LocalDate.now();
+        BookLoan late = bookLoanService.borrowBook(bookService.getBookById(1L), memberService.getMemberById(1L), today.minusDays(3));
+        BookLoan onTime = bookLoanService.borrowBook(bookService.getBookById(2L), memberService.getMemberById(2L), today.plusDays(3));
+
+        List<Map<String, Object>> overdue = getOverdue();
+        assertEquals(1, overdue.size());
+        assertEquals(late.getId().intValue(), overdue.get(0).get("id"));
+        assertEquals(3, overdue.get(0).get("daysOverdue"));
+        assertEquals(true, overdue.get(0).get("overdue"));
+        assertEquals(1L, restTemplate.getForObject(url("/overdue/count"), Long.class));
+
+        // Prolonger un emprunt en retard est refusé : l'index n'est pas modifié
+        assertThrows(IllegalStateException.class, () -> bookLoanService.extendLoan(late.getId(), 7));
+        assertEquals(1, getOverdue().size());
+
+        bookLoanService.returnBook(late.getId());
+        bookLoanService.extendLoan(onTime.getId(), 7);
+        assertTrue(getOverdue().isEmpty());
+        assertEquals(0L, restTemplate.getForObject(url("/overdue/count"), Long.class));
+        // Échéance prolongée à J+10 : en retard à partir de J+11
+        assertTrue(bookLoanService.getOverdueLoans(today.plusDays(10)).isEmpty());
+        assertEquals(List.of(onTime.getId()),
+                bookLoanService.getOverdueLoans(today.plusDays(11)).stream().map(BookLoan::getId).toList());
+    }
+
+    private List<Map<String, Object>> getOverdue() {
+        return restTemplate.exchange(url("/overdue"), HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {}).getBody();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + "/api/loans" + path;
+    }
+}
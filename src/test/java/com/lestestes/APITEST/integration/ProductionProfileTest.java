@@ -0,0 +1,102 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests du profil "prod" : réglages effectivement appliqués (pool, lots JDBC, open-in-view désactivé)
+ * et lectures de l'API, sur les données de démonstration, servies sans session Hibernate ouverte pendant la sérialisation.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("prod")
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class ProductionProfileTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    @DisplayName("Le profil prod dimensionne le pool, active les lots JDBC et désactive open-in-view")
+    void testSettings() {
+        assertEquals(20, dataSource.getMaximumPoolSize());
+        assertEquals("64", dataSource.getDataSourceProperties().getProperty("QUERY_CACHE_SIZE"));
+        assertEquals("50", String.valueOf(entityManagerFactory.getProperties().get(AvailableSettings.STATEMENT_BATCH_SIZE)));
+        assertEquals("false", environment.getProperty("spring.jpa.open-in-view"));
+        assertEquals("false", environment.getProperty("spring.jpa.show-sql"));
+    }
+
+    @Test
+    @Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("Les mises à jour JPA d'une transaction partent en un seul lot JDBC")
+    void testUpdatesAreBatched() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Book> books = bookRepository.findAll();
+            statistics.clear();
+            books.forEach(book -> book.setDescription(book.getDescription() + " (révisé)"));
+            bookRepository.flush();
+
+            assertEquals(books.size(), statistics.getEntityUpdateCount());
+            assertEquals(1, statistics.getPrepareStatementCount(), "Un seul ordre UPDATE préparé pour tout le lot");
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/api/books", "/api/books/1", "/api/books/recent", "/api/books/available", "/api/books/available/page",
+            "/api/books/available/count", "/api/books/popular",
+            "/api/books/search?title=Fondation", "/api/authors", "/api/authors/1", "/api/categories", "/api/categories/1",
+            "/api/members", "/api/members/1", "/api/members/1/dashboard", "/api/members/active", "/api/members?view=full", "/api/members/search?query=a&view=full",
+            "/api/loans", "/api/loans?view=full", "/api/loans/1", "/api/loans/active", "/api/loans/overdue", "/api/loans/member/1",
+            "/api/loans/member/1/active", "/api/loans/book/1", "/api/loans/statistics?startDate=2020-01-01&endDate=2030-12-31" })
+    @DisplayName("Les lectures de l'API réussissent sans session ouverte pendant la sérialisation")
+    void testReadsWithoutOpenSessionInView(String path) {
+        ResponseEntity<String> response = restTemplate.getForEntity("http://localhost:" + port + path, String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), path + " : " + response.getBody());
+    }
+}
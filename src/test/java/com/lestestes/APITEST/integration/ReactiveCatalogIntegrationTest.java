@@ -0,0 +1,141 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.lestestes.APITEST.catalog.ReactiveCatalogServer;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.repository.BookRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * Tests du catalogue réactif (WebFlux + R2DBC) démarré sur un port libre à côté de Tomcat :
+ * flux NDJSON, curseurs, recherche, tableaux JSON et erreurs 400, sur la base de démonstration.
+ */
+@SpringBootTest(properties = { "catalog.reactive.enabled=true", "catalog.reactive.port=0" })
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class ReactiveCatalogIntegrationTest {
+
+    @Autowired
+    private ReactiveCatalogServer catalogServer;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + catalogServer.getPort()).build();
+    }
+
+    @Test
+    @DisplayName("Les livres sont transmis en NDJSON, un résumé par ligne, avec leur catégorie et leurs auteurs")
+    void testBooksStream() {
+        Flux<BookSummary> books = client.get().uri("/api/books")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BookSummary.class)
+                .getResponseBody();
+
+        List<BookSummary> summaries = books.collectList().block();
+        assertEquals(bookRepository.count(), summaries.size());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), summaries.stream().map(BookSummary::getId).toList());
+        BookSummary first = summaries.get(0);
+        assertEquals("Les Misérables", first.getTitle());
+        assertEquals("Roman", first.getCategoryName());
+        assertEquals(List.of("Victor Hugo"), first.getAuthorNames());
+        assertFalse(summaries.get(3).isAvailable());
+    }
+
+    @Test
+    @DisplayName("Le client consomme le flux à son rythme et reprend après un curseur MVC")
+    void testBackpressureAndCursor() {
+        Flux<BookSummary> books = client.get().uri("/api/books?limit=4")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BookSummary.class)
+                .getResponseBody();
+        StepVerifier.create(books.map(BookSummary::getId), 1)
+                .expectNext(1L)
+                .thenRequest(2)
+                .expectNext(2L, 3L)
+                .thenRequest(1)
+                .expectNext(4L)
+                .verifyComplete();
+
+        List<BookSummary> rest = client.get().uri("/api/books?after=" + CursorPage.encodeCursor(4L))
+                .exchange()
+                .returnResult(BookSummary.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertEquals(List.of(5L, 6L), rest.stream().map(BookSummary::getId).toList());
+    }
+
+    @Test
+    @DisplayName("La recherche classe les livres par pertinence, sans tenir compte des accents")
+    void testSearch() {
+        List<BookSummary> found = client.get().uri("/api/books/search?title=miserables")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BookSummary.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(1, found.size());
+        assertEquals("Les Misérables", found.get(0).getTitle());
+        assertEquals(List.of("Victor Hugo"), found.get(0).getAuthorNames());
+    }
+
+    @Test
+    @DisplayName("Un client qui n'accepte que application/json reçoit un tableau")
+    void testJsonArrays() {
+        EntityExchangeResult<List<Category>> categories = client.get().uri("/api/categories")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBodyList(Category.class)
+                .returnResult();
+        assertEquals(List.of("Roman", "Science-Fiction", "Policier", "Fantasy", "Biographie"),
+                categories.getResponseBody().stream().map(Category::getName).toList());
+
+        List<Author> authors = client.get().uri("/api/authors?limit=2")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectBodyList(Author.class)
+                .returnResult()
+                .getResponseBody();
+        assertEquals(List.of("Hugo", "Camus"), authors.stream().map(Author::getLastName).toList());
+        assertEquals("Française", authors.get(0).getNationality());
+    }
+
+    @Test
+    @DisplayName("Les paramètres invalides sont refusés avec le code 400")
+    void testBadRequests() {
+        client.get().uri("/api/books?limit=0").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorCode").isEqualTo("ILLEGAL_ARGUMENT");
+        client.get().uri("/api/authors?limit=abc").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/books/search").exchange().expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,153 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.lestestes.APITEST.dto.CacheStatistics;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.service.AuthorService;
+import com.lestestes.APITEST.service.BookService;
+import com.lestestes.APITEST.service.CategoryService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests du cache de second niveau : les lectures répétées de catégories et d'auteurs ne touchent
+ * plus la base, et les écritures JPA sont visibles immédiatement (le cache n'est alimenté qu'à la
+ * validation des transactions, d'où des données réellement validées puis rechargées après chaque test).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/sql/sample-data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class SecondLevelCacheTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Une catégorie et un auteur relus sont servis par le cache, sans requête SQL")
+    void testEntityReadsHitCache() {
+        categoryService.getCategoryById(1L);
+        authorService.getAuthorById(1L);
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Roman", categoryService.getCategoryById(1L).getName());
+            assertEquals("Hugo", authorService.getAuthorById(1L).getLastName());
+        }
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(5, statistics.getCacheRegionStatistics("category").getHitCount());
+        assertEquals(5, statistics.getCacheRegionStatistics("author").getHitCount());
+    }
+
+    @Test
+    @DisplayName("La catégorie d'un livre est chargée depuis le cache")
+    void testBookCategoryFromCache() {
+        categoryService.getCategoryById(1L);
+        long hits = statistics.getCacheRegionStatistics("category").getHitCount();
+
+        assertEquals("Roman", bookService.getBookById(1L).getCategory().getName());
+
+        assertEquals(hits + 1, statistics.getCacheRegionStatistics("category").getHitCount());
+    }
+
+    @Test
+    @DisplayName("Les pages de catégories et d'auteurs de l'API passent par le cache de requêtes et voient les écritures")
+    void testListPagesInvalidatedByWrites() {
+        categories();
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(List.of("Roman", "Science-Fiction", "Policier"), categories());
+        assertEquals(statements + 1, statistics.getPrepareStatementCount(), "Seul l'ETag de la liste est lu en base");
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        Category category = new Category();
+        category.setName("Essai");
+        categoryService.createCategory(category);
+        assertEquals(List.of("Roman", "Science-Fiction", "Policier", "Essai"), categories());
+
+        assertEquals("Hugo", authors().get(0).getLastName());
+        assertEquals("Hugo", authors().get(0).getLastName());
+        Author details = authorService.getAuthorById(1L);
+        details.setLastName("Aaron");
+        authorService.updateAuthor(1L, details);
+        assertEquals("Aaron", authors().get(0).getLastName());
+        assertEquals(2, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Les statistiques sont exposées et le cache peut être vidé via l'API")
+    void testCacheEndpoints() {
+        categoryService.getCategoryById(1L);
+        categoryService.getCategoryById(1L);
+
+        ResponseEntity<CacheStatistics> response = restTemplate.getForEntity(url("/statistics"), CacheStatistics.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        CacheStatistics cacheStatistics = response.getBody();
+        assertTrue(cacheStatistics.getHits() >= 1);
+        assertTrue(cacheStatistics.getHitRatio() > 0);
+        assertTrue(cacheStatistics.getRegions().stream().anyMatch(region -> region.getName().equals("category")));
+
+        ResponseEntity<Void> evicted = restTemplate.exchange(url(""), HttpMethod.DELETE, null, Void.class);
+        assertEquals(HttpStatus.NO_CONTENT, evicted.getStatusCode());
+        long misses = statistics.getCacheRegionStatistics("category").getMissCount();
+        categoryService.getCategoryById(1L);
+        assertEquals(misses + 1, statistics.getCacheRegionStatistics("category").getMissCount());
+    }
+
+    private List<String> categories() {
+        return restTemplate.exchange("http://localhost:" + port + "/api/categories", HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorPage<Category>>() { }).getBody()
+                .getItems().stream().map(Category::getName).toList();
+    }
+
+    private List<Author> authors() {
+        return restTemplate.exchange("http://localhost:" + port + "/api/authors", HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorPage<Author>>() { }).getBody().getItems();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + "/api/cache" + path;
+    }
+}
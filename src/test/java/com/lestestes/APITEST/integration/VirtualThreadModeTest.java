@@ -0,0 +1,64 @@
+package com.lestestes.APITEST.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests du mode threads virtuels (profil virtual, JDK 21 requis) : le connecteur Tomcat et l'exécuteur
+ * des tâches asynchrones démarrent des threads virtuels, et l'API répond normalement.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadModeTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Test
+    @DisplayName("Les requêtes HTTP et les tâches asynchrones s'exécutent sur des threads virtuels")
+    void testExecutorsStartVirtualThreads() throws Exception {
+        Executor tomcatExecutor = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector()
+                .getProtocolHandler().getExecutor();
+
+        assertTrue(runsOnVirtualThread(tomcatExecutor));
+        assertTrue(runsOnVirtualThread(applicationTaskExecutor));
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("http://localhost:" + port + "/api/loans/member/1/active",
+                String.class).getStatusCode());
+    }
+
+    private static boolean runsOnVirtualThread(Executor executor) throws Exception {
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+        // Thread.isVirtual() appelé par réflexion : les tests compilent aussi en Java 17
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread.get());
+    }
+}
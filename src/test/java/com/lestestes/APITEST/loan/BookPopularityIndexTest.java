@@ -0,0 +1,210 @@
+package com.lestestes.APITEST.loan;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.lestestes.APITEST.dto.LoanBorrowDate;
+import com.lestestes.APITEST.event.LoanChangedEvent;
+import com.lestestes.APITEST.loan.BookPopularityIndex.BookCount;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class BookPopularityIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+
+    @Mock
+    private BookLoanRepository bookLoanRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookPopularityProperties properties;
+    private BookPopularityIndex index;
+
+    @BeforeEach
+    void setup() {
+        properties = new BookPopularityProperties();
+        properties.setMaxWindowDays(30);
+        properties.setSketchWidth(1024);
+        properties.setCandidatesPerDay(16);
+        properties.setRefreshInterval(Duration.ZERO);
+        index = new BookPopularityIndex(bookLoanRepository, properties, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Test du classement : emprunts additionnés sur la fenêtre, du plus emprunté au moins emprunté")
+    void testWindowRanking() {
+        record(1L, TODAY, 3);
+        record(2L, TODAY.minusDays(1), 2);
+        record(2L, TODAY.minusDays(6), 2);
+        record(3L, TODAY.minusDays(7), 10);
+
+        assertEquals(List.of(new BookCount(2L, 4), new BookCount(1L, 3)), index.top(7, 10, TODAY));
+        assertEquals(List.of(new BookCount(3L, 10), new BookCount(2L, 4), new BookCount(1L, 3)), index.top(30, 10, TODAY));
+        assertEquals(List.of(new BookCount(3L, 10)), index.top(30, 1, TODAY));
+        assertEquals(List.of(new BookCount(1L, 3)), index.top(1, 10, TODAY));
+        assertEquals(List.of(new BookCount(3L, 10), new BookCount(2L, 4)), index.top(7, 10, TODAY.minusDays(1)),
+                "La fenêtre glisse avec les jours");
+    }
+
+    @Test
+    @DisplayName("Test de la mémoire bornée : les livres les plus empruntés ressortent parmi des milliers de livres empruntés une fois")
+    void testHeavyHittersAmongManyBooks() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int day = 0; day < 10; day++) {
+            for (long book = 1; book <= 5; book++) {
+                record(book, TODAY.minusDays(day), (int) (60 - book * 10));
+            }
+            for (int i = 0; i < 5_000; i++) {
+                record(1_000 + random.nextLong(1_000_000), TODAY.minusDays(day), 1);
+            }
+        }
+
+        List<BookCount> top = index.top(10, 5, TODAY);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), top.stream().map(BookCount::bookId).toList());
+        // Estimations jamais inférieures au nombre exact, et proches de lui
+        for (BookCount count : top) {
+            long exact = 10 * (60 - count.bookId() * 10);
+            assertTrue(count.loans() >= exact && count.loans() <= exact + 50, count.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Test de la fenêtre demandée : jours, semaines, valeur par défaut et valeurs refusées")
+    void testParseWindow() {
+        assertEquals(30, index.parseWindow(null));
+        assertEquals(7, index.parseWindow("7d"));
+        assertEquals(28, index.parseWindow("4W"));
+        assertEquals(12, index.parseWindow("12"));
+        assertThrows(IllegalArgumentException.class, () -> index.parseWindow("0d"));
+        assertThrows(IllegalArgumentException.class, () -> index.parseWindow("31d"));
+        assertThrows(IllegalArgumentException.class, () -> index.parseWindow("1y"));
+    }
+
+    @Test
+    @DisplayName("Test de l'instantané : compteurs et dernier emprunt relus après redémarrage")
+    void testSnapshotRoundTrip(@TempDir Path directory) {
+        Path file = directory.resolve("popularity.snapshot");
+        properties.setSnapshotFile(file.toString());
+        LocalDate today = LocalDate.now();
+        index.record(10L, 1L, today, 3);
+        index.record(11L, 2L, today.minusDays(2), 5);
+        index.snapshot(file);
+
+        BookPopularityIndex restarted = new BookPopularityIndex(bookLoanRepository, properties, transactionManager);
+        assertTrue(restarted.restoreSnapshot());
+        assertEquals(index.top(30, 10, today), restarted.top(30, 10, today));
+        assertEquals(List.of(new BookCount(2L, 5), new BookCount(1L, 3)), restarted.top(30, 10, today));
+
+        properties.setSketchWidth(2048);
+        assertFalse(new BookPopularityIndex(bookLoanRepository, properties, transactionManager).restoreSnapshot(),
+                "Un instantané aux dimensions différentes est ignoré");
+    }
+
+    @Test
+    @DisplayName("Test du redémarrage sur instantané : un emprunt d'ID inférieur au dernier compté, validé après "
+            + "l'instantané, est compté, sans recompter ceux de l'instantané")
+    void testLoadFromSnapshotCountsLowerIdCommittedLater(@TempDir Path directory) {
+        Path file = directory.resolve("popularity.snapshot");
+        properties.setSnapshotFile(file.toString());
+        properties.setSnapshotRecountIds(100);
+        LocalDate today = LocalDate.now();
+        // L'emprunt 11 n'est pas encore validé quand l'instantané est écrit
+        index.record(10L, 1L, today, 1);
+        index.record(12L, 1L, today, 1);
+        index.snapshot(file);
+
+        BookPopularityIndex restarted = new BookPopularityIndex(bookLoanRepository, properties, transactionManager);
+        when(bookLoanRepository.streamBorrowDates(eq(0L), any())).thenAnswer(invocation -> Stream.of(
+                loan(10L, 1L, today), loan(11L, 2L, today), loan(12L, 1L, today), loan(13L, 2L, today)));
+
+        restarted.load();
+
+        assertEquals(List.of(new BookCount(1L, 2), new BookCount(2L, 2)), restarted.top(30, 10, today));
+    }
+
+    @Test
+    @DisplayName("Test du chargement : un emprunt validé pendant la relecture est compté une seule fois")
+    void testLoadCountsConcurrentBorrowsOnce() {
+        LocalDate today = LocalDate.now();
+        when(bookLoanRepository.streamBorrowDates(eq(0L), any())).thenAnswer(invocation -> {
+            // Validés pendant la lecture : l'emprunt 2 est lu, l'emprunt 3 ne l'est pas
+            index.onLoanChanged(LoanChangedEvent.borrowed(2L, 1L, 7L, null));
+            index.onLoanChanged(LoanChangedEvent.borrowed(3L, 2L, 7L, null));
+            return Stream.of(loan(1L, 1L, today.minusDays(1)), loan(2L, 1L, today));
+        });
+
+        index.load();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(new BookCount(1L, 2), new BookCount(2L, 1)), index.top(30, 10, today));
+        index.onLoanChanged(LoanChangedEvent.borrowed(4L, 2L, 7L, null));
+        assertEquals(List.of(new BookCount(1L, 2), new BookCount(2L, 2)), index.top(30, 10, today));
+    }
+
+    @Test
+    @DisplayName("Test du chargement : un emprunt d'ID inférieur au dernier lu, validé après la lecture, est compté")
+    void testLoadCountsLowerIdCommittedAfterRead() {
+        LocalDate today = LocalDate.now();
+        when(bookLoanRepository.streamBorrowDates(eq(0L), any())).thenAnswer(invocation -> {
+            // L'emprunt 3 a reçu son ID avant l'emprunt 4 mais n'est validé qu'après la lecture de celui-ci
+            index.onLoanChanged(LoanChangedEvent.borrowed(4L, 1L, 7L, null));
+            index.onLoanChanged(LoanChangedEvent.borrowed(3L, 2L, 7L, null));
+            return Stream.of(loan(1L, 1L, today), loan(4L, 1L, today));
+        });
+
+        index.load();
+
+        assertEquals(List.of(new BookCount(1L, 2), new BookCount(2L, 1)), index.top(30, 10, today));
+    }
+
+    @Test
+    @DisplayName("Test du rechargement : les compteurs sont remplacés par les emprunts relus en base")
+    void testReload() {
+        LocalDate today = LocalDate.now();
+        index.record(10L, 1L, today, 5);
+        when(bookLoanRepository.streamBorrowDates(eq(0L), any()))
+                .thenAnswer(invocation -> Stream.of(loan(20L, 2L, today), loan(21L, 2L, today.minusDays(3)), loan(22L, 3L, today)));
+
+        index.reload();
+
+        assertEquals(List.of(new BookCount(2L, 2), new BookCount(3L, 1)), index.top(30, 10, today));
+    }
+
+    private LoanBorrowDate loan(Long id, Long bookId, LocalDate borrowDate) {
+        return new LoanBorrowDate() {
+            public Long getId() {
+                return id;
+            }
+
+            public Long getBookId() {
+                return bookId;
+            }
+
+            public LocalDate getBorrowDate() {
+                return borrowDate;
+            }
+        };
+    }
+
+    private void record(long bookId, LocalDate day, int count) {
+        index.record(null, bookId, day, count);
+    }
+}
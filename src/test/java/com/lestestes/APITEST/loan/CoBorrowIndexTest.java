@@ -0,0 +1,182 @@
+package com.lestestes.APITEST.loan;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.lestestes.APITEST.loan.CoBorrowIndex.CoBorrowCount;
+
+@ExtendWith(MockitoExtension.class)
+public class CoBorrowIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CoBorrowProperties properties;
+    private CoBorrowIndex index;
+
+    @BeforeEach
+    void setup() {
+        properties = new CoBorrowProperties();
+        properties.setMaxBooksPerMember(20);
+        properties.setParallelism(4);
+        properties.setShards(8);
+        index = new CoBorrowIndex(jdbcTemplate, properties);
+    }
+
+    @Test
+    @DisplayName("Test des paniers : livres distincts les plus récents, membres d'un seul livre ignorés")
+    void testBaskets() {
+        CoBorrowIndex.Baskets baskets = new CoBorrowIndex.Baskets(3);
+        baskets.add(1, 10);
+        baskets.add(1, 11);
+        baskets.add(1, 10);
+        baskets.add(1, 12);
+        baskets.add(1, 13);
+        baskets.add(2, 10);
+        baskets.add(2, 10);
+        baskets.add(3, 11);
+        baskets.add(3, 14);
+        baskets.finish();
+
+        assertEquals(2, baskets.memberCount());
+        CoBorrowMatrix matrix = index.build(baskets);
+        assertEquals(1, matrix.count(10, 11));
+        assertEquals(1, matrix.count(11, 10));
+        assertEquals(1, matrix.count(12, 10));
+        assertEquals(0, matrix.count(13, 10), "Au-delà de trois livres distincts, les plus anciens sont ignorés");
+        assertEquals(1, matrix.count(14, 11));
+        assertEquals(0, matrix.count(10, 14));
+    }
+
+    @Test
+    @DisplayName("Test de la reconstruction parallèle : mêmes comptes qu'un calcul direct de toutes les paires")
+    void testParallelBuildMatchesDirectCount() {
+        SplittableRandom random = new SplittableRandom(11);
+        CoBorrowIndex.Baskets baskets = new CoBorrowIndex.Baskets(properties.getMaxBooksPerMember());
+        Map<String, Integer> expected = new HashMap<>();
+        for (long member = 1; member <= 3_000; member++) {
+            LinkedHashSet<Long> books = new LinkedHashSet<>();
+            int loans = random.nextInt(member % 100 == 0 ? 200 : 15);
+            for (int i = 0; i < loans; i++) {
+                long book = 1 + random.nextInt(400);
+                baskets.add(member, book);
+                if (books.size() < properties.getMaxBooksPerMember()) {
+                    books.add(book);
+                }
+            }
+            for (Long a : books) {
+                for (Long b : books) {
+                    if (!a.equals(b)) {
+                        expected.merge(a + "-" + b, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        baskets.finish();
+
+        CoBorrowMatrix matrix = index.build(baskets);
+        assertEquals(expected.size(), matrix.entryCount());
+        expected.forEach((pair, count) -> {
+            String[] books = pair.split("-");
+            assertEquals(count, matrix.count(Long.parseLong(books[0]), Long.parseLong(books[1])), pair);
+        });
+    }
+
+    @Test
+    @DisplayName("Test des emprunts incrémentaux : paires ajoutées, livre déjà emprunté ignoré, classement trié")
+    void testRecordAndRecommend() {
+        index.record(10, 1L, List.of());
+        index.record(11, 2L, List.of(1L));
+        index.record(12, 3L, List.of(2L, 1L));
+        index.record(13, 3L, List.of(1L));
+        index.record(14, 1L, List.of(3L, 2L, 1L));
+
+        assertEquals(List.of(new CoBorrowCount(3L, 2), new CoBorrowCount(2L, 1)), index.recommend(1L, 10));
+        assertEquals(List.of(new CoBorrowCount(1L, 2)), index.recommend(3L, 1));
+        assertEquals(List.of(new CoBorrowCount(1L, 1), new CoBorrowCount(3L, 1)), index.recommend(2L, 10));
+        assertEquals(new ArrayList<>(), index.recommend(99L, 10));
+    }
+
+    @Test
+    @DisplayName("Test des emprunts incrémentaux : même fenêtre de livres par membre que la reconstruction")
+    void testRecordMatchesRebuildWindow() {
+        properties.setMaxBooksPerMember(3);
+        SplittableRandom random = new SplittableRandom(7);
+        Map<Long, List<Long>> history = new HashMap<>();
+        long loanId = 0;
+        for (int i = 0; i < 2_000; i++) {
+            long member = 1 + random.nextInt(50);
+            long book = 1 + random.nextInt(30);
+            List<Long> loans = history.computeIfAbsent(member, id -> new ArrayList<>());
+            index.record(++loanId, book, window(loans, 3));
+            loans.add(book);
+        }
+
+        CoBorrowIndex.Baskets baskets = new CoBorrowIndex.Baskets(3);
+        history.forEach((member, loans) -> {
+            for (int i = loans.size() - 1; i >= 0; i--) {
+                baskets.add(member, loans.get(i));
+            }
+        });
+        baskets.finish();
+        CoBorrowMatrix rebuilt = index.build(baskets);
+        for (long book = 1; book <= 30; book++) {
+            assertEquals(rebuilt.top(book, 30), index.recommend(book, 30), "Livre " + book);
+        }
+    }
+
+    @Test
+    @DisplayName("Test de la reconstruction : un emprunt d'ID inférieur au dernier lu, validé après la lecture, est rejoué")
+    void testRebuildReplaysBorrowsMissingFromRead() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        // Lignes (membre, livre, ID) par membre, de l'emprunt le plus récent au plus ancien
+        when(rs.getLong(1)).thenReturn(1L, 1L, 2L, 2L);
+        when(rs.getLong(2)).thenReturn(11L, 10L, 12L, 10L);
+        when(rs.getLong(3)).thenReturn(5L, 1L, 4L, 2L);
+        doAnswer(invocation -> {
+            // Validés pendant la lecture : l'emprunt 5 est lu, l'emprunt 3 (ID attribué avant 4 et 5) ne l'est pas
+            index.record(5, 11L, List.of(10L));
+            index.record(3, 30L, List.of(10L));
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int row = 0; row < 4; row++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(new CoBorrowCount(11L, 1), new CoBorrowCount(12L, 1), new CoBorrowCount(30L, 1)),
+                index.recommend(10L, 10));
+        assertEquals(List.of(new CoBorrowCount(10L, 1)), index.recommend(11L, 10), "Un emprunt lu n'est pas compté deux fois");
+    }
+
+    // Livres distincts les plus récents d'un membre, comme SELECT_PREVIOUS_BOOKS
+    private static List<Long> window(List<Long> loans, int size) {
+        LinkedHashSet<Long> books = new LinkedHashSet<>();
+        for (int i = loans.size() - 1; i >= 0 && books.size() < size; i--) {
+            books.add(loans.get(i));
+        }
+        return new ArrayList<>(books);
+    }
+}
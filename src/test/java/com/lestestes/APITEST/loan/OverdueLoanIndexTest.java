@@ -0,0 +1,139 @@
+package com.lestestes.APITEST.loan;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.lestestes.APITEST.dto.LoanDueDate;
+import com.lestestes.APITEST.event.LoanChangedEvent;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class OverdueLoanIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+
+    @Mock
+    private BookLoanRepository bookLoanRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OverdueLoanIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new OverdueLoanIndex(bookLoanRepository, transactionManager);
+        // Emprunts relus par défaut comme retournés
+        lenient().when(bookLoanRepository.findActiveDueDateById(anyLong())).thenReturn(Optional.empty());
+        index.put(1L, TODAY.minusDays(10));
+        index.put(2L, TODAY.minusDays(1));
+        index.put(3L, TODAY);
+        index.put(4L, TODAY.plusDays(7));
+        index.put(5L, TODAY.minusDays(10));
+    }
+
+    @Test
+    @DisplayName("Test des retards : date de retour dépassée, du plus ancien retard au plus récent")
+    void testOverdueLoans() {
+        assertEquals(List.of(1L, 5L, 2L), index.findOverdueLoanIds(TODAY));
+        assertEquals(3, index.countOverdue(TODAY));
+        assertEquals(List.of(1L, 5L, 2L, 3L), index.findOverdueLoanIds(TODAY.plusDays(1)), "Retard dès le lendemain de l'échéance");
+        assertEquals(0, index.countOverdue(TODAY.minusDays(10)));
+    }
+
+    @Test
+    @DisplayName("Test de la mise à jour par les événements : prolongation et retour")
+    void testLoanEvents() {
+        when(bookLoanRepository.findActiveDueDateById(1L)).thenReturn(Optional.of(dueDate(1L, TODAY.plusDays(4))));
+        when(bookLoanRepository.findActiveDueDateById(6L)).thenReturn(Optional.of(dueDate(6L, TODAY.minusDays(3))));
+        index.onLoanChanged(LoanChangedEvent.saved(1L, TODAY.plusDays(4)));
+        index.onLoanChanged(LoanChangedEvent.returned(2L, 20L));
+        index.onLoanChanged(LoanChangedEvent.saved(6L, TODAY.minusDays(3)));
+        index.onLoanChanged(LoanChangedEvent.returned(99L, 20L));
+
+        assertEquals(List.of(5L, 6L), index.findOverdueLoanIds(TODAY));
+        assertEquals(5, index.size());
+        assertEquals(List.of(5L, 6L, 3L, 1L), index.findOverdueLoanIds(TODAY.plusDays(5)));
+    }
+
+    @Test
+    @DisplayName("Test d'événements notifiés dans le désordre : l'état validé de l'emprunt l'emporte")
+    void testLoanEventsApplyCommittedDueDate() {
+        // Prolongation validée juste avant un retour, notifiée après lui : l'emprunt relu est retourné
+        index.onLoanChanged(LoanChangedEvent.returned(2L, 20L));
+        index.onLoanChanged(LoanChangedEvent.saved(2L, TODAY.plusDays(4)));
+        // Deux prolongations notifiées dans le désordre : la date relue est la dernière validée
+        when(bookLoanRepository.findActiveDueDateById(1L)).thenReturn(Optional.of(dueDate(1L, TODAY.plusDays(14))));
+        index.onLoanChanged(LoanChangedEvent.saved(1L, TODAY.plusDays(14)));
+        index.onLoanChanged(LoanChangedEvent.saved(1L, TODAY.plusDays(7)));
+
+        assertEquals(List.of(5L), index.findOverdueLoanIds(TODAY));
+        assertEquals(1, index.countOverdue(TODAY));
+        assertEquals(List.of(5L, 3L, 4L), index.findOverdueLoanIds(TODAY.plusDays(8)));
+    }
+
+    @Test
+    @DisplayName("Test de la construction de l'index à partir des emprunts en cours")
+    void testRebuild() {
+        LoanDueDate loan = mock(LoanDueDate.class);
+        when(loan.getId()).thenReturn(10L);
+        when(loan.getDueDate()).thenReturn(TODAY.minusDays(2));
+        when(bookLoanRepository.streamActiveDueDates()).thenReturn(Stream.of(loan));
+
+        assertFalse(index.isReady());
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(1, index.size());
+        assertEquals(List.of(10L), index.findOverdueLoanIds(TODAY));
+    }
+
+    @Test
+    @DisplayName("Test des emprunts et retours validés pendant la construction : rejoués sur le nouvel index")
+    void testRebuildReplaysConcurrentChanges() {
+        LoanDueDate overdue = mock(LoanDueDate.class);
+        when(overdue.getId()).thenReturn(10L);
+        when(overdue.getDueDate()).thenReturn(TODAY.minusDays(2));
+        LoanDueDate returnedDuringRebuild = mock(LoanDueDate.class);
+        when(returnedDuringRebuild.getId()).thenReturn(3L);
+        when(returnedDuringRebuild.getDueDate()).thenReturn(TODAY.minusDays(5));
+        when(bookLoanRepository.findActiveDueDateById(11L)).thenReturn(Optional.of(dueDate(11L, TODAY.minusDays(1))));
+        when(bookLoanRepository.streamActiveDueDates()).thenAnswer(invocation -> {
+            // Validés pendant la lecture : absents (emprunt) ou encore présents (retour) dans les lignes lues
+            index.onLoanChanged(LoanChangedEvent.borrowed(11L, 20L, 7L, TODAY.minusDays(1)));
+            index.onLoanChanged(LoanChangedEvent.returned(3L, 30L));
+            return Stream.of(overdue, returnedDuringRebuild);
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(10L, 11L), index.findOverdueLoanIds(TODAY));
+        assertEquals(2, index.countOverdue(TODAY));
+        assertEquals(2, index.size());
+    }
+
+    private LoanDueDate dueDate(Long id, LocalDate dueDate) {
+        return new LoanDueDate() {
+            public Long getId() {
+                return id;
+            }
+
+            public LocalDate getDueDate() {
+                return dueDate;
+            }
+        };
+    }
+}
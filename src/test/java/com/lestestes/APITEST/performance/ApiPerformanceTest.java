@@ -1,5 +1,6 @@
 package com.lestestes.APITEST.performance;
 
+import org.HdrHistogram.Histogram;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -54,19 +55,19 @@ public class ApiPerformanceTest {
         for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
             CompletableFuture<RequestMetrics> future = CompletableFuture.supplyAsync(() -> {
                 RequestMetrics metrics = new RequestMetrics();
-                metrics.startTime = System.currentTimeMillis();
+                metrics.startTime = System.nanoTime();
                 
                 try {
                     // N'utilisons pas andExpect() pour éviter que le test échoue sur le code de statut
                     MvcResult result = mockMvc.perform(get("/api/books"))
                         .andReturn();
                     
-                    metrics.endTime = System.currentTimeMillis();
+                    metrics.endTime = System.nanoTime();
                     metrics.responseStatus = result.getResponse().getStatus();
                     // On considère que tout appel qui ne génère pas d'exception est réussi
                     metrics.successful = true;
                 } catch (Exception e) {
-                    metrics.endTime = System.currentTimeMillis();
+                    metrics.endTime = System.nanoTime();
                     metrics.successful = false;
                     metrics.exception = e;
                     // Utiliser l'exception pour afficher des informations détaillées sur l'erreur
@@ -97,13 +98,13 @@ public class ApiPerformanceTest {
         long successfulRequests = results.stream().filter(metrics -> metrics.successful).count();
         double avgResponseTime = results.stream()
             .filter(metrics -> metrics.successful)
-            .mapToLong(metrics -> metrics.endTime - metrics.startTime)
+            .mapToDouble(RequestMetrics::durationMillis)
             .average()
             .orElse(0.0);
         
-        long maxResponseTime = results.stream()
+        double maxResponseTime = results.stream()
             .filter(metrics -> metrics.successful)
-            .mapToLong(metrics -> metrics.endTime - metrics.startTime)
+            .mapToDouble(RequestMetrics::durationMillis)
             .max()
             .orElse(0);
 
@@ -136,13 +137,13 @@ public class ApiPerformanceTest {
     @DisplayName("Test de performance simple: Temps de réponse pour un seul livre")
     public void testSingleBookResponseTime() throws Exception {
         // Mesurer le temps pour récupérer un seul livre
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         
         // Ne pas vérifier le status code pour éviter que le test échoue
         mockMvc.perform(get("/api/books/1"));
             
-        long endTime = System.currentTimeMillis();
-        long responseTime = endTime - startTime;
+        long endTime = System.nanoTime();
+        double responseTime = (endTime - startTime) / 1_000_000.0;
         
         // Afficher les résultats
         System.out.println("=== Performance d'une requête unique ====");
@@ -172,7 +173,7 @@ public class ApiPerformanceTest {
             
             CompletableFuture<RequestMetrics> future = CompletableFuture.supplyAsync(() -> {
                 RequestMetrics metrics = new RequestMetrics();
-                metrics.startTime = System.currentTimeMillis();
+                metrics.startTime = System.nanoTime();
                 
                 try {
                     MvcResult result = mockMvc.perform(get("/api/books/search")
@@ -180,11 +181,11 @@ public class ApiPerformanceTest {
                         .andExpect(status().isOk())
                         .andReturn();
                     
-                    metrics.endTime = System.currentTimeMillis();
+                    metrics.endTime = System.nanoTime();
                     metrics.responseStatus = result.getResponse().getStatus();
                     metrics.successful = true;
                 } catch (Exception e) {
-                    metrics.endTime = System.currentTimeMillis();
+                    metrics.endTime = System.nanoTime();
                     metrics.successful = false;
                     metrics.exception = e;
                     System.err.println("Erreur lors du test de performance: " + e.getMessage());
@@ -214,7 +215,7 @@ public class ApiPerformanceTest {
         long successfulRequests = results.stream().filter(metrics -> metrics.successful).count();
         double avgResponseTime = results.stream()
             .filter(metrics -> metrics.successful)
-            .mapToLong(metrics -> metrics.endTime - metrics.startTime)
+            .mapToDouble(RequestMetrics::durationMillis)
             .average()
             .orElse(0.0);
         
@@ -254,7 +255,7 @@ public class ApiPerformanceTest {
                 
                 CompletableFuture<RequestMetrics> future = CompletableFuture.supplyAsync(() -> {
                     RequestMetrics metrics = new RequestMetrics();
-                    metrics.startTime = System.currentTimeMillis();
+                    metrics.startTime = System.nanoTime();
                     
                     try {
                         MvcResult result;
@@ -270,11 +271,11 @@ public class ApiPerformanceTest {
                                 break;
                         }
                         
-                        metrics.endTime = System.currentTimeMillis();
+                        metrics.endTime = System.nanoTime();
                         metrics.responseStatus = result.getResponse().getStatus();
                         metrics.successful = result.getResponse().getStatus() == 200;
                     } catch (Exception e) {
-                        metrics.endTime = System.currentTimeMillis();
+                        metrics.endTime = System.nanoTime();
                         metrics.successful = false;
                         metrics.exception = e;
                         System.err.println("Erreur lors du test de performance: " + e.getMessage());
@@ -303,7 +304,7 @@ public class ApiPerformanceTest {
             // Calculer le temps de réponse moyen pour cette itération
             double avgResponseTime = results.stream()
                 .filter(metrics -> metrics.successful)
-                .mapToLong(metrics -> metrics.endTime - metrics.startTime)
+                .mapToDouble(RequestMetrics::durationMillis)
                 .average()
                 .orElse(0.0);
                 
@@ -334,6 +335,19 @@ public class ApiPerformanceTest {
      * Génère un rapport détaillé sur les métriques de performance
      */
     private void analyzePerformanceResults(List<RequestMetrics> results) {
+        // Percentiles de latence (HdrHistogram, précision de 3 chiffres significatifs)
+        Histogram histogram = new Histogram(3);
+        results.stream()
+                .filter(r -> r.successful)
+                .forEach(r -> histogram.recordValue(r.endTime - r.startTime));
+        if (histogram.getTotalCount() > 0) {
+            System.out.printf("Latences (ms) : p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+                    histogram.getValueAtPercentile(50) / 1_000_000.0,
+                    histogram.getValueAtPercentile(90) / 1_000_000.0,
+                    histogram.getValueAtPercentile(99) / 1_000_000.0,
+                    histogram.getMaxValue() / 1_000_000.0);
+        }
+        
         // Analyser les résultats pour les rapports détaillés
         // Compter les erreurs et utiliser le champ exception pour le débogage
         long errorCount = results.stream()
@@ -360,5 +374,10 @@ public class ApiPerformanceTest {
         public int responseStatus;
         public boolean successful;
         public Exception exception; // Utilisé pour stocker les exceptions pendant les tests
+        
+        // Durée de la requête en millisecondes (horodatages en nanosecondes, System.nanoTime)
+        public double durationMillis() {
+            return (endTime - startTime) / 1_000_000.0;
+        }
     }
 }
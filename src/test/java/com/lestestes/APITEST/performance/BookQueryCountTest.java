@@ -0,0 +1,140 @@
+package com.lestestes.APITEST.performance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lestestes.APITEST.model.Author;
+import com.lestestes.APITEST.model.Book;
+import com.lestestes.APITEST.model.Category;
+import com.lestestes.APITEST.repository.AuthorRepository;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.repository.CategoryRepository;
+import com.lestestes.APITEST.service.BookService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Vérifie, grâce aux statistiques Hibernate, que les listes de livres s'exécutent
+ * avec un nombre constant de requêtes SQL quel que soit le nombre de livres (pas de N+1)
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class BookQueryCountTest {
+
+    private static final int BOOK_COUNT = 1000;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+    private Long authorId;
+
+    @BeforeEach
+    void setUp() {
+        // Chaque livre a sa propre catégorie et son propre auteur : le pire cas pour le N+1
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            Category category = new Category();
+            category.setName("Categorie de charge " + i);
+            categoryRepository.save(category);
+
+            Author author = new Author();
+            author.setFirstName("Auteur");
+            author.setLastName("Charge " + i);
+            authorRepository.save(author);
+            if (i == 0) {
+                authorId = author.getId();
+            }
+
+            Book book = new Book();
+            book.setTitle("Livre de charge " + i);
+            book.setIsbn("LOAD-" + i);
+            book.setCategory(category);
+            book.setAuthors(Set.of(author));
+            books.add(book);
+        }
+        bookRepository.saveAll(books);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("La liste complète des livres s'exécute en une seule requête")
+    void testGetAllBooksStatementCount() throws Exception {
+        long singleBook = countStatements(() -> bookService.getBooksByAuthorId(authorId));
+        long allBooks = countStatements(() -> bookService.getAllBooks());
+
+        assertEquals(1, singleBook);
+        assertEquals(singleBook, allBooks, "Le nombre de requêtes ne doit pas dépendre du nombre de livres");
+    }
+
+    @Test
+    @DisplayName("Les livres disponibles, par auteur et récents s'exécutent en une seule requête")
+    void testListEndpointsStatementCount() throws Exception {
+        assertEquals(1, countStatements(() -> bookService.getAvailableBooks()));
+        assertEquals(1, countStatements(() -> bookService.getRecentlyAddedBooks()));
+        assertEquals(1, countStatements(() -> bookService.getBooksByAuthorId(authorId)));
+    }
+
+    @Test
+    @DisplayName("Une page de livres s'exécute en deux requêtes quelle que soit sa taille")
+    void testBooksPageStatementCount() throws Exception {
+        long smallPage = countStatements(() -> bookService.getBooksPage(null, 10).getItems());
+        long largePage = countStatements(() -> bookService.getBooksPage(null, 500).getItems());
+
+        assertEquals(2, smallPage);
+        assertEquals(smallPage, largePage, "Le nombre de requêtes ne doit pas dépendre de la taille de la page");
+    }
+
+    // Compter les requêtes SQL préparées pour charger puis sérialiser une liste (comme le fait le contrôleur)
+    private long countStatements(BookListing listing) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+
+        List<Book> books = listing.load();
+        String json = objectMapper.writeValueAsString(books);
+
+        assertFalse(books.isEmpty());
+        assertTrue(json.contains("\"authors\":[{"), "Les auteurs doivent être sérialisés");
+        return statistics.getPrepareStatementCount();
+    }
+
+    @FunctionalInterface
+    private interface BookListing {
+        List<Book> load();
+    }
+}
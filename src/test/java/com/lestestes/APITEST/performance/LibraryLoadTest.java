@@ -0,0 +1,173 @@
+package com.lestestes.APITEST.performance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lestestes.APITEST.dataset.DatasetGenerator;
+import com.lestestes.APITEST.dataset.DatasetProperties;
+import com.lestestes.APITEST.dataset.DatasetSummary;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.performance.LoadGenerator.Outcome;
+import com.lestestes.APITEST.performance.LoadGenerator.RequestFactory;
+import com.lestestes.APITEST.repository.BookLoanRepository;
+
+/**
+ * Test de charge réaliste contre le serveur embarqué (port aléatoire) : trafic de bibliothèque
+ * (consultations, recherches, emprunts, retours) à débit constant, latences en percentiles
+ * et rapport JSON dans target/load-test/report.json.
+ *
+ * Paramètres (propriétés système) : load.rate (requêtes/s), load.warmup et load.duration (secondes),
+ * load.mix (ex. "get=30,list=20,search=30,borrow=10,return=10"), load.seed, load.report,
+ * et volumes du corpus généré (DatasetGenerator) : load.books, load.members, load.loans.
+ * Exemple : ./mvnw -Dtest=LibraryLoadTest -Dload.rate=500 -Dload.duration=60 test
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = { "/sql/cleanup.sql", "/sql/sample-data.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = { "/sql/cleanup.sql", "/db/demo/V3__demo_data.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class LibraryLoadTest {
+
+    private static final List<String> SEARCH_TERMS = List.of("voyage", "Etrang", "miser", "nuit", "chateau", "hiver jardin");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private BookLoanRepository loanRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ConcurrentLinkedQueue<Long> activeLoans = new ConcurrentLinkedQueue<>();
+    private List<Long> bookIds;
+    private List<Long> memberIds;
+
+    @BeforeEach
+    void setup() {
+        // Corpus synthétique (emprunts historiques et en cours compris) à la suite des données de test
+        DatasetProperties dataset = new DatasetProperties(Long.getLong("load.seed", 42),
+                Integer.getInteger("load.books", 500), Integer.getInteger("load.members", 100),
+                Long.getLong("load.loans", 2_000));
+        dataset.setActiveLoanRatio(0.05);
+        DatasetSummary summary = datasetGenerator.generate(dataset);
+
+        bookIds = LongStream.range(0, summary.bookCount()).mapToObj(summary::bookId).toList();
+        memberIds = LongStream.range(0, summary.memberCount()).mapToObj(summary::memberId).toList();
+        // Emprunts en cours au démarrage, pour que les retours aient de quoi s'exercer
+        loanRepository.findActiveSummaries().forEach(loan -> activeLoans.add(loan.getId()));
+    }
+
+    @Test
+    @DisplayName("Test de charge en modèle ouvert : percentiles de latence et rapport JSON")
+    void testLibraryTrafficLoad() throws Exception {
+        LoadGenerator generator = new LoadGenerator(
+                Double.parseDouble(System.getProperty("load.rate", "50")),
+                Duration.ofSeconds(Long.getLong("load.warmup", 2)),
+                Duration.ofSeconds(Long.getLong("load.duration", 5)),
+                Long.getLong("load.seed", 42),
+                64);
+
+        LoadReport report = generator.run(parseMix(System.getProperty("load.mix", "get=30,list=20,search=30,borrow=10,return=10")),
+                operations());
+
+        Path reportPath = Path.of(System.getProperty("load.report", "target/load-test/report.json"));
+        report.writeTo(reportPath, objectMapper);
+        System.out.println("=== Test de charge (" + reportPath + ") ===");
+        System.out.print(report.summary());
+
+        assertTrue(report.getTotal().getRecorded() > 0, "Aucune requête n'a été mesurée");
+        assertEquals(0, report.getTotal().getErrors(), "Des requêtes ont échoué (5xx ou erreur réseau)");
+        assertTrue(Files.exists(reportPath));
+    }
+
+    // Requêtes du scénario, par nom d'opération
+    private Map<String, RequestFactory> operations() {
+        Map<String, RequestFactory> operations = new LinkedHashMap<>();
+        operations.put("get", random -> {
+            long bookId = bookIds.get(random.nextInt(bookIds.size()));
+            return () -> send(HttpRequest.newBuilder(uri("/api/books/" + bookId)).GET());
+        });
+        operations.put("list", random -> {
+            String cursor = random.nextBoolean() ? "" : "&after=" + CursorPage.encodeCursor(bookIds.get(random.nextInt(bookIds.size())));
+            return () -> send(HttpRequest.newBuilder(uri("/api/books?limit=20" + cursor)).GET());
+        });
+        operations.put("search", random -> {
+            String term = SEARCH_TERMS.get(random.nextInt(SEARCH_TERMS.size())).replace(" ", "%20");
+            return () -> send(HttpRequest.newBuilder(uri("/api/books/search?limit=20&title=" + term)).GET());
+        });
+        operations.put("borrow", random -> {
+            long bookId = bookIds.get(random.nextInt(bookIds.size()));
+            long memberId = memberIds.get(random.nextInt(memberIds.size()));
+            return () -> borrow(bookId, memberId);
+        });
+        operations.put("return", random -> () -> {
+            Long loanId = activeLoans.poll();
+            if (loanId == null) {
+                return Outcome.SKIPPED;
+            }
+            return send(HttpRequest.newBuilder(uri("/api/loans/" + loanId + "/return"))
+                    .PUT(HttpRequest.BodyPublishers.noBody()));
+        });
+        return operations;
+    }
+
+    private Outcome borrow(long bookId, long memberId) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(
+                uri("/api/loans/borrow?bookId=" + bookId + "&memberId=" + memberId))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        Outcome outcome = outcomeOf(response.statusCode());
+        if (outcome == Outcome.SUCCESS) {
+            activeLoans.add(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        return outcome;
+    }
+
+    private Outcome send(HttpRequest.Builder request) throws Exception {
+        return outcomeOf(httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    private static Outcome outcomeOf(int status) {
+        if (status >= 200 && status < 300) {
+            return Outcome.SUCCESS;
+        }
+        return status >= 400 && status < 500 ? Outcome.REJECTED : Outcome.ERROR;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    // Lire un mix de la forme "get=30,search=20"
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,121 @@
+package com.lestestes.APITEST.performance;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Générateur de charge en modèle ouvert : les requêtes partent à débit constant, que les précédentes
+ * aient répondu ou non, comme des lecteurs indépendants. La latence est mesurée depuis l'instant
+ * d'envoi prévu et non depuis l'envoi réel, pour ne pas masquer l'attente causée par un serveur lent
+ * (omission coordonnée). Une phase de chauffe précède la mesure et n'est pas enregistrée.
+ */
+public class LoadGenerator {
+
+    /**
+     * Résultat d'une requête : réussite (2xx), refus métier (4xx), erreur (5xx ou exception)
+     * ou requête ignorée faute de données (non enregistrée).
+     */
+    public enum Outcome {
+        SUCCESS,
+        REJECTED,
+        ERROR,
+        SKIPPED
+    }
+
+    /**
+     * Prépare une requête ; les paramètres aléatoires sont tirés au moment de la planification
+     * avec le générateur fourni, ce qui rend le scénario reproductible pour une graine donnée.
+     */
+    @FunctionalInterface
+    public interface RequestFactory {
+        Callable<Outcome> create(SplittableRandom random);
+    }
+
+    private final double ratePerSecond;
+    private final Duration warmup;
+    private final Duration duration;
+    private final long seed;
+    private final int workers;
+
+    public LoadGenerator(double ratePerSecond, Duration warmup, Duration duration, long seed, int workers) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Le débit doit etre positif");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.seed = seed;
+        this.workers = workers;
+    }
+
+    // Exécuter le scénario : mix (poids par opération) et fabriques de requêtes de même clé
+    public LoadReport run(Map<String, Integer> mix, Map<String, RequestFactory> operations) throws InterruptedException {
+        List<String> names = List.copyOf(mix.keySet());
+        int[] cumulativeWeights = new int[names.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < names.size(); i++) {
+            if (!operations.containsKey(names.get(i))) {
+                throw new IllegalArgumentException("Opération inconnue dans le mix : " + names.get(i));
+            }
+            totalWeight += mix.get(names.get(i));
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        Map<String, LoadReport.OperationStats> stats = new LinkedHashMap<>();
+        names.forEach(name -> stats.put(name, new LoadReport.OperationStats()));
+
+        SplittableRandom random = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        for (long intendedStart = start; intendedStart < end; intendedStart += intervalNanos) {
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            String name = names.get(pick(cumulativeWeights, random.nextInt(totalWeight)));
+            Callable<Outcome> request = operations.get(name).create(random);
+            LoadReport.OperationStats operationStats = intendedStart >= measureStart ? stats.get(name) : null;
+            long scheduledAt = intendedStart;
+            executor.execute(() -> execute(request, scheduledAt, operationStats));
+        }
+
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+        return new LoadReport(ratePerSecond, warmup, duration, mix, stats);
+    }
+
+    private static void execute(Callable<Outcome> request, long intendedStart, LoadReport.OperationStats stats) {
+        Outcome outcome;
+        try {
+            outcome = request.call();
+        } catch (Exception e) {
+            outcome = Outcome.ERROR;
+        }
+        if (stats != null) {
+            stats.record(outcome, System.nanoTime() - intendedStart);
+        }
+    }
+
+    private static int pick(int[] cumulativeWeights, int value) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+}
@@ -0,0 +1,151 @@
+package com.lestestes.APITEST.performance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Résultats d'un test de charge : compteurs et histogramme de latence (HdrHistogram, en nanosecondes)
+ * par opération, exportables en JSON pour comparer les builds entre eux.
+ */
+public class LoadReport {
+
+    private final double ratePerSecond;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Map<String, Integer> mix;
+    private final Map<String, OperationStats> operations;
+
+    LoadReport(double ratePerSecond, Duration warmup, Duration duration, Map<String, Integer> mix,
+            Map<String, OperationStats> operations) {
+        this.ratePerSecond = ratePerSecond;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.mix = mix;
+        this.operations = operations;
+    }
+
+    public Map<String, OperationStats> getOperations() {
+        return operations;
+    }
+
+    // Statistiques toutes opérations confondues
+    public OperationStats getTotal() {
+        OperationStats total = new OperationStats();
+        operations.values().forEach(total::add);
+        return total;
+    }
+
+    // Représentation du rapport sous forme de structure JSON (latences en microsecondes)
+    public Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("targetRatePerSecond", ratePerSecond);
+        report.put("warmupSeconds", warmup.toMillis() / 1000.0);
+        report.put("durationSeconds", duration.toMillis() / 1000.0);
+        report.put("mix", mix);
+        OperationStats total = getTotal();
+        report.put("achievedRatePerSecond", total.getRecorded() / (duration.toMillis() / 1000.0));
+        report.put("total", total.toMap());
+        Map<String, Object> byOperation = new LinkedHashMap<>();
+        operations.forEach((name, stats) -> byOperation.put(name, stats.toMap()));
+        report.put("operations", byOperation);
+        return report;
+    }
+
+    public void writeTo(Path path, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), toMap());
+    }
+
+    // Résumé lisible pour la sortie des tests
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format("%-10s %8s %8s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "rejets", "erreurs", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "max (ms)"));
+        operations.forEach((name, stats) -> summary.append(stats.line(name)));
+        summary.append(getTotal().line("total"));
+        return summary.toString();
+    }
+
+    /**
+     * Compteurs et histogramme de latence d'une opération (enregistrement sûr entre threads).
+     */
+    public static class OperationStats {
+
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+
+        void record(LoadGenerator.Outcome outcome, long latencyNanos) {
+            switch (outcome) {
+                case SUCCESS -> successes.increment();
+                case REJECTED -> rejections.increment();
+                case ERROR -> errors.increment();
+                case SKIPPED -> {
+                    skipped.increment();
+                    return;
+                }
+            }
+            latencies.recordValue(latencyNanos);
+        }
+
+        void add(OperationStats other) {
+            latencies.add(other.latencies);
+            successes.add(other.successes.sum());
+            rejections.add(other.rejections.sum());
+            errors.add(other.errors.sum());
+            skipped.add(other.skipped.sum());
+        }
+
+        public long getRecorded() {
+            return latencies.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRejections() {
+            return rejections.sum();
+        }
+
+        // Percentile de latence en microsecondes
+        public double percentileMicros(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", getRecorded());
+            map.put("success", successes.sum());
+            map.put("rejected", rejections.sum());
+            map.put("errors", errors.sum());
+            map.put("skipped", skipped.sum());
+            map.put("meanMicros", latencies.getMean() / 1000.0);
+            map.put("p50Micros", percentileMicros(50));
+            map.put("p90Micros", percentileMicros(90));
+            map.put("p99Micros", percentileMicros(99));
+            map.put("p999Micros", percentileMicros(99.9));
+            map.put("maxMicros", latencies.getMaxValue() / 1000.0);
+            return map;
+        }
+
+        String line(String name) {
+            return String.format("%-10s %8d %8d %8d %10.2f %10.2f %10.2f %10.2f%n", name, getRecorded(),
+                    rejections.sum(), errors.sum(), percentileMicros(50) / 1000, percentileMicros(99) / 1000,
+                    percentileMicros(99.9) / 1000, latencies.getMaxValue() / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.lestestes.APITEST.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.lestestes.APITEST.dto.AvailabilityCount;
+import com.lestestes.APITEST.dto.BookAvailabilityRow;
+import com.lestestes.APITEST.event.BookChangedEvent;
+import com.lestestes.APITEST.event.LoanChangedEvent;
+import com.lestestes.APITEST.repository.BookRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class BookAvailabilityIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookAvailabilityIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new BookAvailabilityIndex(bookRepository, transactionManager);
+        // Catégorie 1 : IDs pairs, catégorie 2 : IDs impairs ; un livre sur trois emprunté.
+        // Les IDs franchissent plusieurs blocs de 65 536 valeurs des bitmaps.
+        LongStream.rangeClosed(1, 200_000).forEach(id -> index.put(id, id % 2 == 0 ? 1L : 2L, id % 3 != 0));
+    }
+
+    @Test
+    @DisplayName("Test des comptes : catalogue entier et intersection avec une catégorie")
+    void testCounts() {
+        assertEquals(new AvailabilityCount(null, 200_000, 133_334), index.count(null));
+        assertEquals(new AvailabilityCount(1L, 100_000, 66_667), index.count(1L));
+        assertEquals(new AvailabilityCount(2L, 100_000, 66_667), index.count(2L));
+        assertEquals(new AvailabilityCount(9L, 0, 0), index.count(9L));
+    }
+
+    @Test
+    @DisplayName("Test des pages d'IDs disponibles : ordre croissant, curseur, filtre par catégorie")
+    void testFindAvailableIds() {
+        assertEquals(List.of(1L, 2L, 4L, 5L), index.findAvailableIds(0, null, 4));
+        assertEquals(List.of(2L, 4L, 8L, 10L), index.findAvailableIds(0, 1L, 4));
+        assertEquals(List.of(65_536L, 65_540L, 65_542L), index.findAvailableIds(65_535, 1L, 3));
+        assertEquals(List.of(199_999L, 200_000L), index.findAvailableIds(199_998, null, 10));
+        assertTrue(index.findAvailableIds(200_000, null, 10).isEmpty());
+        assertTrue(index.findAvailableIds(0, 9L, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test de la mise à jour : emprunt, retour, changement de catégorie et suppression")
+    void testUpdates() {
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(2L))).thenReturn(List.of(row(2L, 1L, false)));
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(3L))).thenReturn(List.of(row(3L, 2L, true)));
+        index.onLoanChanged(LoanChangedEvent.borrowed(1L, 2L, 7L, null));
+        assertEquals(List.of(4L), index.findAvailableIds(0, 1L, 1));
+        index.onLoanChanged(LoanChangedEvent.returned(1L, 3L));
+        assertEquals(List.of(1L, 3L), index.findAvailableIds(0, 2L, 2));
+
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(4L))).thenReturn(List.of(row(4L, 2L, true)));
+        index.onBookChanged(BookChangedEvent.saved(4L));
+        assertEquals(List.of(1L, 3L, 4L), index.findAvailableIds(0, 2L, 3));
+        assertEquals(new AvailabilityCount(1L, 99_999, 66_665), index.count(1L));
+
+        index.onBookChanged(BookChangedEvent.deleted(1L));
+        assertEquals(List.of(3L, 4L), index.findAvailableIds(0, null, 2));
+        assertEquals(199_999, index.count(null).getBooks());
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(1L))).thenReturn(List.of());
+        index.onLoanChanged(LoanChangedEvent.returned(2L, 1L));
+        assertEquals(List.of(3L), index.findAvailableIds(0, null, 1), "Un livre supprimé ne redevient pas disponible");
+    }
+
+    @Test
+    @DisplayName("Test des changements validés pendant la construction : livres relus après la mise en place des bitmaps")
+    void testRebuildRereadsConcurrentChanges() {
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(2L))).thenReturn(List.of(row(2L, 1L, false)));
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(3L))).thenReturn(List.of(row(3L, 2L, true)));
+        when(bookRepository.streamAvailabilityRows()).thenAnswer(invocation -> {
+            // Validés pendant la lecture : le livre 2 est emprunté, le livre 3 rendu
+            index.onLoanChanged(LoanChangedEvent.borrowed(2L, 2L, 7L, null));
+            index.onLoanChanged(LoanChangedEvent.returned(1L, 3L));
+            return Stream.of(row(1L, 1L, true), row(2L, 1L, true), row(3L, 2L, false));
+        });
+        when(bookRepository.findAvailabilityRowsByIdIn(Set.of(2L, 3L)))
+                .thenReturn(List.of(row(2L, 1L, false), row(3L, 2L, true)));
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(new AvailabilityCount(null, 3, 2), index.count(null));
+        assertEquals(List.of(1L, 3L), index.findAvailableIds(0, null, 10));
+        assertEquals(new AvailabilityCount(2L, 1, 1), index.count(2L));
+    }
+
+    @Test
+    @DisplayName("Test d'un emprunt et d'un retour rapprochés : la disponibilité validée l'emporte sur l'ordre des événements")
+    void testLoanEventsApplyCommittedAvailability() throws Exception {
+        CountDownLatch borrowReading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(1L))).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                // Lecture de l'emprunt : le livre est encore emprunté, le retour est validé pendant cette lecture
+                borrowReading.countDown();
+                release.await();
+                return List.of(row(1L, 2L, false));
+            }
+            return List.of(row(1L, 2L, true));
+        });
+
+        Thread borrow = new Thread(() -> index.onLoanChanged(LoanChangedEvent.borrowed(1L, 1L, 7L, null)));
+        borrow.start();
+        borrowReading.await();
+        Thread giveBack = new Thread(() -> index.onLoanChanged(LoanChangedEvent.returned(1L, 1L)));
+        giveBack.start();
+        giveBack.join(200);
+        release.countDown();
+        borrow.join();
+        giveBack.join();
+
+        assertEquals(List.of(1L), index.findAvailableIds(0, null, 1));
+    }
+
+    @Test
+    @DisplayName("Test des mises à jour de livres différents : la relecture d'un livre ne bloque pas celle d'un autre")
+    void testRefreshesOfOtherBooksDoNotWait() throws Exception {
+        CountDownLatch borrowReading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(1L))).thenAnswer(invocation -> {
+            borrowReading.countDown();
+            release.await();
+            return List.of(row(1L, 2L, false));
+        });
+        when(bookRepository.findAvailabilityRowsByIdIn(List.of(3L))).thenReturn(List.of(row(3L, 2L, true)));
+
+        Thread borrow = new Thread(() -> index.onLoanChanged(LoanChangedEvent.borrowed(1L, 1L, 7L, null)));
+        borrow.start();
+        borrowReading.await();
+        Thread giveBack = new Thread(() -> index.onLoanChanged(LoanChangedEvent.returned(2L, 3L)));
+        giveBack.start();
+        giveBack.join(5_000);
+        boolean returnedWhileBorrowReading = !giveBack.isAlive();
+        release.countDown();
+        borrow.join();
+        giveBack.join();
+
+        assertTrue(returnedWhileBorrowReading, "Le retour du livre 3 n'attend pas la relecture du livre 1");
+        assertEquals(List.of(3L, 5L), index.findAvailableIds(0, 2L, 2));
+    }
+
+    private BookAvailabilityRow row(Long id, Long categoryId, boolean available) {
+        return new BookAvailabilityRow() {
+            public Long getId() {
+                return id;
+            }
+
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            public Boolean getAvailable() {
+                return available;
+            }
+        };
+    }
+}
@@ -0,0 +1,172 @@
+package com.lestestes.APITEST.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.lestestes.APITEST.dto.BookAuthorName;
+import com.lestestes.APITEST.dto.BookSearchRow;
+import com.lestestes.APITEST.event.BookChangedEvent;
+import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.search.BookSearchIndex.IndexedBook;
+
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new BookSearchIndex(bookRepository, transactionManager);
+        index.index(1L, IndexedBook.of("Les Misérables", "Victor Hugo", "A. Lacroix, Verboeckhoven & Cie"));
+        index.index(2L, IndexedBook.of("L'Étranger", "Albert Camus", "Gallimard"));
+        index.index(3L, IndexedBook.of("Le Premier Homme", "Albert Camus", "Gallimard"));
+        index.index(4L, IndexedBook.of("Étrangers dans la nuit", "Jean Martin", "Éditions du Soir"));
+    }
+
+    @Test
+    @DisplayName("Test de la recherche insensible à la casse et aux accents")
+    void testAccentInsensitiveSearch() {
+        assertEquals(List.of(4L, 2L), index.search("Etrang", 10));
+        assertEquals(List.of(1L), index.search("MISERABLES", 10));
+        assertEquals(List.of(4L, 2L), index.search("étrangér", 10));
+    }
+
+    @Test
+    @DisplayName("Test du classement : titre avant auteur avant éditeur")
+    void testRanking() {
+        index.index(5L, IndexedBook.of("Camus, une vie", "Olivier Todd", "Gallimard"));
+
+        List<Long> result = index.search("camus", 10);
+
+        assertEquals(5L, result.get(0), "Le livre dont le titre contient le terme doit être en tête");
+        assertEquals(List.of(5L, 2L, 3L), result);
+        assertEquals(List.of(2L, 5L, 3L), index.search("gallimard", 10), "Titre le plus court puis plus petit ID");
+    }
+
+    @Test
+    @DisplayName("Test de la recherche sur plusieurs mots et des préfixes courts")
+    void testMultiWordAndShortPrefix() {
+        assertEquals(List.of(3L), index.search("premier camus", 10));
+        assertEquals(List.of(1L), index.search("mi", 10));
+        assertEquals(List.of(), index.search("premier hugo", 10));
+        assertEquals(List.of(), index.search("   ", 10));
+    }
+
+    @Test
+    @DisplayName("Test de la limite du nombre de résultats")
+    void testLimit() {
+        assertEquals(List.of(2L), index.search("gallimard", 1));
+    }
+
+    @Test
+    @DisplayName("Test de la mise à jour et de la suppression d'un livre indexé")
+    void testUpdateAndRemove() {
+        index.index(2L, IndexedBook.of("La Peste", "Albert Camus", "Gallimard"));
+        assertEquals(List.of(4L), index.search("etrang", 10));
+        assertEquals(List.of(2L), index.search("peste", 10));
+
+        index.onBookChanged(BookChangedEvent.deleted(2L));
+        assertEquals(List.of(), index.search("peste", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Test de la construction de l'index à partir de la base")
+    void testRebuild() {
+        BookSearchRow row = mock(BookSearchRow.class);
+        when(row.getId()).thenReturn(10L);
+        when(row.getTitle()).thenReturn("Le Mythe de Sisyphe");
+        when(row.getPublisher()).thenReturn("Gallimard");
+        BookAuthorName author = mock(BookAuthorName.class);
+        when(author.getBookId()).thenReturn(10L);
+        when(author.getFullName()).thenReturn("Albert Camus");
+        when(bookRepository.streamSearchRows()).thenReturn(Stream.of(row));
+        when(bookRepository.streamAuthorNames()).thenReturn(Stream.of(author));
+
+        assertFalse(index.isReady());
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(1, index.size());
+        assertEquals(List.of(10L), index.search("camus", 10));
+    }
+
+    @Test
+    @DisplayName("Test des modifications validées pendant la construction : rejouées sur le nouvel index")
+    void testRebuildReplaysConcurrentChanges() {
+        BookSearchRow row = mock(BookSearchRow.class);
+        when(row.getId()).thenReturn(10L);
+        when(row.getTitle()).thenReturn("Le Mythe de Sisyphe");
+        when(row.getPublisher()).thenReturn("Gallimard");
+        when(bookRepository.streamAuthorNames()).thenReturn(Stream.empty());
+        when(bookRepository.streamSearchRows()).thenAnswer(invocation -> {
+            // Validées pendant la lecture : livre créé absent des lignes lues, livre supprimé encore présent
+            index.index(20L, IndexedBook.of("La Chute", "Albert Camus", "Gallimard"));
+            index.onBookChanged(BookChangedEvent.deleted(10L));
+            return Stream.of(row);
+        });
+
+        index.rebuild();
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(20L), index.search("chute", 10));
+        assertEquals(List.of(), index.search("sisyphe", 10));
+    }
+
+    @Test
+    @DisplayName("Test de deux modifications concurrentes d'un livre : la lecture la plus récente l'emporte")
+    void testConcurrentUpdatesApplyInReadOrder() throws Exception {
+        BookSearchRow before = mock(BookSearchRow.class);
+        when(before.getId()).thenReturn(1L);
+        when(before.getTitle()).thenReturn("Les Misérables");
+        BookSearchRow after = mock(BookSearchRow.class);
+        when(after.getId()).thenReturn(1L);
+        when(after.getTitle()).thenReturn("Notre-Dame de Paris");
+        when(bookRepository.findAuthorNamesByBookIdIn(List.of(1L))).thenReturn(List.of());
+
+        CountDownLatch firstReading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(bookRepository.findSearchRowsByIdIn(List.of(1L))).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                // Première mise à jour : sa lecture (l'ancien titre) se termine après la validation de la seconde
+                firstReading.countDown();
+                release.await();
+                return List.of(before);
+            }
+            return List.of(after);
+        });
+
+        Thread first = new Thread(() -> index.onBookChanged(BookChangedEvent.saved(1L)));
+        first.start();
+        firstReading.await();
+        Thread second = new Thread(() -> index.onBookChanged(BookChangedEvent.saved(1L)));
+        second.start();
+        second.join(200);
+        release.countDown();
+        first.join();
+        second.join();
+
+        assertEquals(List.of(1L), index.search("notre dame", 10));
+        assertEquals(List.of(), index.search("miserables", 10));
+    }
+}
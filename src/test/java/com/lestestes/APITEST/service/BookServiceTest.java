@@ -3,9 +3,11 @@ package com.lestestes.APITEST.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,18 +16,50 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import com.lestestes.APITEST.dto.BookAuthorName;
+import com.lestestes.APITEST.dto.BookSummary;
+import com.lestestes.APITEST.dto.CursorPage;
+import com.lestestes.APITEST.dto.PopularBook;
+import com.lestestes.APITEST.dto.RecommendedBook;
+import com.lestestes.APITEST.event.BookChangedEvent;
+import com.lestestes.APITEST.loan.BookPopularityIndex;
+import com.lestestes.APITEST.loan.CoBorrowIndex;
 import com.lestestes.APITEST.model.Book;
 import com.lestestes.APITEST.model.Category;
 import com.lestestes.APITEST.repository.BookRepository;
+import com.lestestes.APITEST.search.BookAvailabilityIndex;
+import com.lestestes.APITEST.search.BookSearchIndex;
 import com.lestestes.APITEST.exception.ResourceNotFoundException;
 
+import jakarta.persistence.EntityManager;
+
 @ExtendWith(MockitoExtension.class)
 public class BookServiceTest {
 
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookAvailabilityIndex bookAvailabilityIndex;
+
+    @Mock
+    private BookPopularityIndex bookPopularityIndex;
+
+    @Mock
+    private CoBorrowIndex coBorrowIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookService bookService;
 
@@ -68,6 +102,47 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("Test pour la pagination par curseur des livres")
+    void testGetBooksPage() {
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(2))).thenReturn(bookList);
+
+        CursorPage<Book> firstPage = bookService.getBooksPage(null, 1);
+
+        assertEquals(1, firstPage.getItems().size());
+        assertEquals(1L, firstPage.getItems().get(0).getId());
+        assertNotNull(firstPage.getNextCursor());
+
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.ofSize(2))).thenReturn(Arrays.asList(book2));
+
+        CursorPage<Book> secondPage = bookService.getBooksPage(firstPage.getNextCursor(), 1);
+
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(2L, secondPage.getItems().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Test pour rejeter un curseur de pagination invalide")
+    void testGetBooksPageWithInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage("pas-un-curseur", 10));
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(null, 0));
+    }
+
+    @Test
+    @DisplayName("Test pour l'export en flux du catalogue")
+    void testExportBooks() {
+        when(bookRepository.streamAllByOrderByIdAsc()).thenReturn(bookList.stream());
+        List<Book> exported = new ArrayList<>();
+
+        long count = bookService.exportBooks(exported::add);
+
+        assertEquals(2, count);
+        assertEquals(bookList, exported);
+        verify(entityManager, times(1)).detach(book1);
+        verify(entityManager, times(1)).detach(book2);
+    }
+
     @Test
     @DisplayName("Test pour récupérer un livre par ID")
     void testGetBookById() {
@@ -102,6 +177,7 @@ public class BookServiceTest {
         assertNotNull(result);
         assertEquals("Le Petit Prince", result.getTitle());
         verify(bookRepository, times(1)).save(book1);
+        verify(eventPublisher).publishEvent(BookChangedEvent.saved(1L));
     }
 
     @Test
@@ -133,6 +209,7 @@ public class BookServiceTest {
 
         verify(bookRepository, times(1)).findById(1L);
         verify(bookRepository, times(1)).delete(book1);
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(1L));
     }
 
     @Test
@@ -148,6 +225,95 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).findByTitleContainingIgnoreCase("Prince");
     }
 
+    @Test
+    @DisplayName("Test pour rechercher des livres via l'index, dans l'ordre de pertinence")
+    void testSearchBooksWithIndex() {
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.search("etrang", 10)).thenReturn(List.of(2L, 1L));
+        when(bookRepository.findWithCategoryAndAuthorsByIdIn(List.of(2L, 1L))).thenReturn(bookList);
+
+        List<Book> result = bookService.searchBooksByTitle("etrang", 10);
+
+        assertEquals(List.of(book2, book1), result);
+        verify(bookRepository, never()).findByTitleContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    @DisplayName("Test pour rechercher des résumés de livres avec leurs auteurs")
+    void testSearchBookSummariesByTitle() {
+        BookSummary summary = new BookSummary(1L, "Le Petit Prince", "9782070612758", true, "Fiction");
+        BookAuthorName authorName = mock(BookAuthorName.class);
+        when(authorName.getBookId()).thenReturn(1L);
+        when(authorName.getFullName()).thenReturn("Antoine de Saint-Exupéry");
+        when(bookRepository.findSummariesByTitleContaining("Prince")).thenReturn(Arrays.asList(summary));
+        when(bookRepository.findAuthorNamesByBookIdIn(Set.of(1L))).thenReturn(Arrays.asList(authorName));
+
+        List<BookSummary> result = bookService.searchBookSummariesByTitle("Prince");
+
+        assertEquals(1, result.size());
+        assertEquals("Fiction", result.get(0).getCategoryName());
+        assertEquals(List.of("Antoine de Saint-Exupéry"), result.get(0).getAuthorNames());
+    }
+
+    @Test
+    @DisplayName("Test de la page de résumés : auteurs lus pour la page seulement, sans la ligne lue en plus")
+    void testGetBookSummariesPage() {
+        BookSummary prince = new BookSummary(1L, "Le Petit Prince", "9782070612758", true, "Fiction", new ArrayList<>());
+        BookSummary stranger = new BookSummary(2L, "L'Étranger", "9782070360024", true, "Fiction", new ArrayList<>());
+        when(bookRepository.findSummariesByIdGreaterThan(eq(0L), any())).thenReturn(Arrays.asList(prince, stranger));
+
+        CursorPage<BookSummary> page = bookService.getBookSummariesPage(null, 1);
+
+        assertEquals(List.of(prince), page.getItems());
+        assertEquals(CursorPage.encodeCursor(1L), page.getNextCursor());
+        verify(bookRepository).findAuthorNamesByBookIdIn(Set.of(1L));
+    }
+
+    @Test
+    @DisplayName("Test des livres populaires : ordre du classement, livres supprimés ignorés")
+    void testGetPopularBooks() {
+        BookSummary prince = new BookSummary(1L, "Le Petit Prince", "9782070612758", true, "Fiction", new ArrayList<>());
+        BookSummary stranger = new BookSummary(2L, "L'Étranger", "9782070360024", true, "Fiction", new ArrayList<>());
+        when(bookPopularityIndex.parseWindow("7d")).thenReturn(7);
+        when(bookPopularityIndex.top(7, 3)).thenReturn(List.of(new BookPopularityIndex.BookCount(2L, 12),
+                new BookPopularityIndex.BookCount(9L, 8), new BookPopularityIndex.BookCount(1L, 5)));
+        when(bookRepository.findSummariesByIdIn(List.of(2L, 9L, 1L))).thenReturn(Arrays.asList(prince, stranger));
+
+        List<PopularBook> result = bookService.getPopularBooks("7d", 3);
+
+        assertEquals(List.of(new PopularBook(stranger, 12), new PopularBook(prince, 5)), result);
+    }
+
+    @Test
+    @DisplayName("Test des recommandations : ordre de l'index, livre inconnu refusé")
+    void testGetRecommendedBooks() {
+        BookSummary stranger = new BookSummary(2L, "L'Étranger", "9782070360024", true, "Fiction", new ArrayList<>());
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        when(coBorrowIndex.recommend(1L, 10)).thenReturn(List.of(new CoBorrowIndex.CoBorrowCount(2L, 3)));
+        when(bookRepository.findSummariesByIdIn(List.of(2L))).thenReturn(List.of(stranger));
+
+        assertEquals(List.of(new RecommendedBook(stranger, 3)), bookService.getRecommendedBooks(1L, null));
+
+        when(bookRepository.existsById(99L)).thenReturn(false);
+        assertThrows(ResourceNotFoundException.class, () -> bookService.getRecommendedBooks(99L, null));
+    }
+
+    @Test
+    @DisplayName("Test de la page de livres disponibles lue dans l'index de disponibilité")
+    void testGetAvailableBookSummariesPage() {
+        BookSummary prince = new BookSummary(3L, "Le Petit Prince", "9782070612758", true, "Fiction", new ArrayList<>());
+        BookSummary stranger = new BookSummary(5L, "L'Étranger", "9782070360024", true, "Fiction", new ArrayList<>());
+        when(bookAvailabilityIndex.isReady()).thenReturn(true);
+        when(bookAvailabilityIndex.findAvailableIds(0L, 7L, 3)).thenReturn(List.of(3L, 5L, 8L));
+        when(bookRepository.findSummariesByIdIn(List.of(3L, 5L))).thenReturn(Arrays.asList(stranger, prince));
+
+        CursorPage<BookSummary> page = bookService.getAvailableBookSummariesPage(null, 2, 7L);
+
+        assertEquals(List.of(prince, stranger), page.getItems());
+        assertEquals(CursorPage.encodeCursor(5L), page.getNextCursor());
+        verify(bookRepository, never()).findAvailableSummariesByIdGreaterThan(anyLong(), any(), any());
+    }
+
     @Test
     @DisplayName("Test pour trouver les livres disponibles")
     void testGetAvailableBooks() {
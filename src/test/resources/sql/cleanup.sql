@@ -1,4 +1,9 @@
 -- Supprimer toutes les données des tables pour avoir un état propre avant les tests
+DELETE FROM "loan_daily_rollup";
+DELETE FROM "loan_rollup_deltas";
+DELETE FROM "loan_fines";
+DELETE FROM "loan_notifications";
+DELETE FROM "batch_checkpoints";
 DELETE FROM "book_author";
 DELETE FROM "book_loans";
 DELETE FROM "books";
@@ -12,3 +17,4 @@ ALTER TABLE "authors" ALTER COLUMN "id" RESTART WITH 1;
 ALTER TABLE "categories" ALTER COLUMN "id" RESTART WITH 1;
 ALTER TABLE "members" ALTER COLUMN "id" RESTART WITH 1;
 ALTER TABLE "book_loans" ALTER COLUMN "id" RESTART WITH 1;
+ALTER TABLE "loan_notifications" ALTER COLUMN "id" RESTART WITH 1;